@@ -0,0 +1,329 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright © 2019 microBean.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.microbean.helidon.webserver.jaxrs.cdi;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.context.RequestScoped;
+
+import javax.inject.Qualifier;
+
+import javax.ws.rs.ApplicationPath;
+import javax.ws.rs.GET;
+import javax.ws.rs.POST;
+import javax.ws.rs.Path;
+
+import javax.ws.rs.core.Application;
+
+import io.helidon.common.http.DataChunk;
+import io.helidon.common.http.Reader;
+
+import io.helidon.common.reactive.Flow;
+
+import io.helidon.webserver.Handler;
+
+/**
+ * A small {@link Application} whose resource methods each exercise
+ * one dimension of the dispatch hot path: number of injected
+ * parameters, number of qualifiers per parameter, presence of an
+ * entity parameter, and the scope of the resource class itself.
+ *
+ * <p>Every resource method returns the same constant body as {@link
+ * #RAW_HANDLER}, so that the only thing that differs between a
+ * benchmark of a resource method and one of the raw {@link Handler}
+ * is the work done by this project.</p>
+ *
+ * @author <a href="https://about.me/lairdnelson"
+ * target="_parent">Laird Nelson</a>
+ */
+@ApplicationPath("bench")
+public class BenchmarkApplication extends Application {
+
+  /**
+   * The body returned by every resource method.
+   */
+  public static final String BODY = "ok";
+
+  /**
+   * A plain Helidon {@link Handler} that does nothing but {@linkplain
+   * io.helidon.webserver.ServerResponse#send(Object) send} {@link
+   * #BODY}; the baseline that resource methods are measured against.
+   */
+  public static final Handler RAW_HANDLER = (request, response) -> response.send(BODY);
+
+  /**
+   * Every class that must be handed to a CDI container, with
+   * discovery disabled, for this {@link Application} to be served.
+   */
+  public static final Class<?>[] BEAN_CLASSES = {
+    BenchmarkApplication.class,
+    DependentResource.class,
+    ApplicationScopedResource.class,
+    RequestScopedResource.class,
+    First.class,
+    Second.class,
+    Third.class,
+    Fast.class,
+    PayloadReader.class
+  };
+
+  public BenchmarkApplication() {
+    super();
+  }
+
+  @Override
+  public Set<Class<?>> getClasses() {
+    return Collections.unmodifiableSet(new HashSet<>(Arrays.asList(DependentResource.class,
+                                                                   ApplicationScopedResource.class,
+                                                                   RequestScopedResource.class)));
+  }
+
+
+  /*
+   * Resource classes.
+   */
+
+
+  @Path("dependent")
+  public static class DependentResource {
+
+    public DependentResource() {
+      super();
+    }
+
+    @GET
+    @Path("none")
+    public String none() {
+      return BODY;
+    }
+
+    @GET
+    @Path("one")
+    public String one(@Benchmarked final First first) {
+      return BODY;
+    }
+
+    @GET
+    @Path("three")
+    public String three(@Benchmarked final First first,
+                        @Benchmarked final Second second,
+                        @Benchmarked final Third third) {
+      return BODY;
+    }
+
+    @GET
+    @Path("qualified")
+    public String qualified(@Benchmarked @Tuned @Pooled final Fast fast) {
+      return BODY;
+    }
+
+    @GET
+    @Path("items/{id}")
+    public String item() {
+      return BODY;
+    }
+
+    @POST
+    @Path("entity")
+    public String entity(final Payload payload) {
+      return BODY;
+    }
+
+  }
+
+  @ApplicationScoped
+  @Path("application")
+  public static class ApplicationScopedResource {
+
+    public ApplicationScopedResource() {
+      super();
+    }
+
+    @GET
+    @Path("none")
+    public String none() {
+      return BODY;
+    }
+
+  }
+
+  @RequestScoped
+  @Path("request")
+  public static class RequestScopedResource {
+
+    public RequestScopedResource() {
+      super();
+    }
+
+    @GET
+    @Path("none")
+    public String none() {
+      return BODY;
+    }
+
+  }
+
+
+  /*
+   * Injected parameter types.
+   */
+
+
+  @ApplicationScoped
+  @Benchmarked
+  public static class First {
+
+    public First() {
+      super();
+    }
+
+  }
+
+  @ApplicationScoped
+  @Benchmarked
+  public static class Second {
+
+    public Second() {
+      super();
+    }
+
+  }
+
+  @ApplicationScoped
+  @Benchmarked
+  public static class Third {
+
+    public Third() {
+      super();
+    }
+
+  }
+
+  @ApplicationScoped
+  @Benchmarked
+  @Tuned
+  @Pooled
+  public static class Fast {
+
+    public Fast() {
+      super();
+    }
+
+  }
+
+  public static final class Payload {
+
+    private final long size;
+
+    Payload(final long size) {
+      super();
+      this.size = size;
+    }
+
+    public final long getSize() {
+      return this.size;
+    }
+
+  }
+
+  @ApplicationScoped
+  @Entity
+  public static class PayloadReader implements Reader<Payload> {
+
+    public PayloadReader() {
+      super();
+    }
+
+    @Override
+    public CompletionStage<? extends Payload> apply(final Flow.Publisher<DataChunk> publisher,
+                                                    final Class<? super Payload> type) {
+      final CompletableFuture<Payload> returnValue = new CompletableFuture<>();
+      // Drain the request body so that reading it is part of what is
+      // measured.
+      publisher.subscribe(new Flow.Subscriber<DataChunk>() {
+          private long size;
+
+          @Override
+          public final void onSubscribe(final Flow.Subscription subscription) {
+            subscription.request(Long.MAX_VALUE);
+          }
+
+          @Override
+          public final void onNext(final DataChunk chunk) {
+            this.size += chunk.data().remaining();
+            chunk.release();
+          }
+
+          @Override
+          public final void onError(final Throwable throwable) {
+            returnValue.completeExceptionally(throwable);
+          }
+
+          @Override
+          public final void onComplete() {
+            returnValue.complete(new Payload(this.size));
+          }
+        });
+      return returnValue;
+    }
+
+  }
+
+
+  /*
+   * Qualifiers.
+   */
+
+
+  @Documented
+  @Qualifier
+  @Retention(RetentionPolicy.RUNTIME)
+  @Target({ ElementType.FIELD, ElementType.METHOD, ElementType.PARAMETER, ElementType.TYPE })
+  public static @interface Benchmarked {
+
+  }
+
+  @Documented
+  @Qualifier
+  @Retention(RetentionPolicy.RUNTIME)
+  @Target({ ElementType.FIELD, ElementType.METHOD, ElementType.PARAMETER, ElementType.TYPE })
+  public static @interface Tuned {
+
+  }
+
+  @Documented
+  @Qualifier
+  @Retention(RetentionPolicy.RUNTIME)
+  @Target({ ElementType.FIELD, ElementType.METHOD, ElementType.PARAMETER, ElementType.TYPE })
+  public static @interface Pooled {
+
+  }
+
+}
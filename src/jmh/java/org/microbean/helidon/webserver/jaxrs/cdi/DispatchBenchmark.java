@@ -0,0 +1,180 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright © 2019 microBean.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.microbean.helidon.webserver.jaxrs.cdi;
+
+import java.io.IOException;
+
+import java.nio.charset.StandardCharsets;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import javax.enterprise.inject.se.SeContainer;
+import javax.enterprise.inject.se.SeContainerInitializer;
+
+import io.helidon.webserver.Routing;
+import io.helidon.webserver.ServerConfiguration;
+import io.helidon.webserver.WebServer;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the cost of dispatching a request to a JAX-RS resource
+ * method, relative to dispatching it to a {@linkplain
+ * BenchmarkApplication#RAW_HANDLER raw Helidon <code>Handler</code>}.
+ *
+ * <p>Both are served over loopback by real {@link WebServer}s and
+ * driven by the same {@link LoopbackHttpClient}, so the difference
+ * between the {@code raw} {@linkplain #route route} and any other is
+ * what this project adds to a request: routing to the {@link
+ * ResourceMethodHandler}, acquiring the resource instance, resolving
+ * parameters, reading the entity, and invoking the method.</p>
+ *
+ * <p>Run with {@code mvn -Pbenchmarks -DskipTests verify}; the
+ * {@code gc} profiler is enabled by default so that allocation rates
+ * are reported alongside throughput.</p>
+ *
+ * @author <a href="https://about.me/lairdnelson"
+ * target="_parent">Laird Nelson</a>
+ *
+ * @see BenchmarkApplication
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 2, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 2, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+@State(Scope.Thread)
+public class DispatchBenchmark {
+
+  /**
+   * Which route to request.
+   *
+   * <ul>
+   *
+   * <li>{@code raw}: the raw Helidon {@code Handler} baseline</li>
+   *
+   * <li>{@code none}, {@code one}, {@code three}: a {@code
+   * Dependent} resource method with zero, one or three injected
+   * parameters</li>
+   *
+   * <li>{@code qualified}: one injected parameter bearing three
+   * qualifiers</li>
+   *
+   * <li>{@code entity}: a {@code POST} whose only parameter is the
+   * request entity</li>
+   *
+   * <li>{@code application}, {@code request}: a resource method with
+   * no parameters on an {@code ApplicationScoped} or {@code
+   * RequestScoped} resource class</li>
+   *
+   * </ul>
+   */
+  @Param({ "raw", "none", "one", "three", "qualified", "entity", "application", "request" })
+  public String route;
+
+  private SeContainer container;
+
+  private WebServer jaxrsServer;
+
+  private WebServer rawServer;
+
+  private LoopbackHttpClient client;
+
+  private byte[] request;
+
+  public DispatchBenchmark() {
+    super();
+  }
+
+  @Setup(Level.Trial)
+  public void setUp() throws ExecutionException, IOException, InterruptedException {
+    final int port;
+    if ("raw".equals(this.route)) {
+      this.rawServer = WebServer.create(ServerConfiguration.builder().port(0).build(),
+                                        Routing.builder().get("/raw", BenchmarkApplication.RAW_HANDLER).build());
+      this.rawServer.start().toCompletableFuture().get();
+      port = this.rawServer.port();
+      this.request = LoopbackHttpClient.encode("GET", "/raw", null, null);
+    } else {
+      this.container = SeContainerInitializer.newInstance()
+        .disableDiscovery()
+        .addBeanClasses(BenchmarkApplication.BEAN_CLASSES)
+        .initialize();
+      this.jaxrsServer = this.container.select(WebServer.class).get();
+      this.jaxrsServer.start().toCompletableFuture().get();
+      port = this.jaxrsServer.port();
+      switch (this.route) {
+      case "entity":
+        this.request = LoopbackHttpClient.encode("POST",
+                                                 "/bench/dependent/entity",
+                                                 "text/plain",
+                                                 "{\"benchmark\":true}".getBytes(StandardCharsets.UTF_8));
+        break;
+      case "application":
+        this.request = LoopbackHttpClient.encode("GET", "/bench/application/none", null, null);
+        break;
+      case "request":
+        this.request = LoopbackHttpClient.encode("GET", "/bench/request/none", null, null);
+        break;
+      default:
+        this.request = LoopbackHttpClient.encode("GET", "/bench/dependent/" + this.route, null, null);
+        break;
+      }
+    }
+    this.client = new LoopbackHttpClient(port);
+    // Fail fast rather than benchmark an error path.
+    final int status = this.client.exchange(this.request);
+    if (status != 200) {
+      throw new IllegalStateException(this.route + ": unexpected status: " + status);
+    }
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws ExecutionException, IOException, InterruptedException {
+    if (this.client != null) {
+      this.client.close();
+    }
+    if (this.rawServer != null) {
+      this.rawServer.shutdown().toCompletableFuture().get();
+    }
+    if (this.jaxrsServer != null) {
+      this.jaxrsServer.shutdown().toCompletableFuture().get();
+    }
+    if (this.container != null) {
+      this.container.close();
+    }
+  }
+
+  @Benchmark
+  public int dispatch() throws IOException {
+    return this.client.exchange(this.request);
+  }
+
+}
@@ -0,0 +1,346 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright © 2019 microBean.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.microbean.helidon.webserver.jaxrs.cdi;
+
+import java.io.IOException;
+import java.io.PrintStream;
+
+import java.nio.charset.StandardCharsets;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import java.util.concurrent.locks.LockSupport;
+
+import javax.enterprise.inject.se.SeContainer;
+import javax.enterprise.inject.se.SeContainerInitializer;
+
+import io.helidon.webserver.WebServer;
+
+/**
+ * A self-contained load generator that boots a CDI container serving
+ * the {@link BenchmarkApplication}, drives it over loopback, and
+ * reports throughput and latency percentiles.
+ *
+ * <p>Two load models are supported:</p>
+ *
+ * <dl>
+ *
+ * <dt>{@code closed}</dt>
+ *
+ * <dd>A fixed number of connections each send a request as soon as
+ * the previous response has been read.  This finds maximum
+ * throughput, but understates latency under overload, because a
+ * slow server slows down the load generator too.</dd>
+ *
+ * <dt>{@code open}</dt>
+ *
+ * <dd>Requests are scheduled at a fixed rate regardless of how
+ * quickly responses arrive, and each latency is measured from the
+ * time its request <em>should</em> have been sent.  This reports the
+ * latency a client would actually see at that rate.</dd>
+ *
+ * </dl>
+ *
+ * <p>Settings are supplied as {@code key=value} arguments; see {@link
+ * #main(String[])}.  With the {@code benchmarks} Maven profile
+ * active:</p>
+ *
+ * <pre>mvn -Pbenchmarks -DskipTests test-compile exec:exec@load-harness -Dload.args="rate=20000 connections=32"</pre>
+ *
+ * @author <a href="https://about.me/lairdnelson"
+ * target="_parent">Laird Nelson</a>
+ *
+ * @see BenchmarkApplication
+ */
+public final class LoadHarness {
+
+  private static final Map<String, String> DEFAULTS;
+
+  static {
+    final Map<String, String> defaults = new HashMap<>();
+    defaults.put("scenarios", "get,post,path");
+    defaults.put("models", "closed,open");
+    defaults.put("connections", "16");
+    defaults.put("rate", "5000");
+    defaults.put("warmup", "10");
+    defaults.put("duration", "30");
+    DEFAULTS = defaults;
+  }
+
+  private final int port;
+
+  private final int connections;
+
+  private final long ratePerSecond;
+
+  private final long warmupNanos;
+
+  private final long durationNanos;
+
+  private final PrintStream out;
+
+  private LoadHarness(final int port,
+                      final int connections,
+                      final long ratePerSecond,
+                      final long warmupNanos,
+                      final long durationNanos,
+                      final PrintStream out) {
+    super();
+    this.port = port;
+    this.connections = connections;
+    this.ratePerSecond = ratePerSecond;
+    this.warmupNanos = warmupNanos;
+    this.durationNanos = durationNanos;
+    this.out = Objects.requireNonNull(out);
+  }
+
+  /**
+   * Runs the harness.
+   *
+   * <p>Recognized arguments, all optional:</p>
+   *
+   * <ul>
+   *
+   * <li>{@code scenarios}: a comma-separated list drawn from {@code
+   * get} (a {@code GET} with no parameters), {@code post} (a {@code
+   * POST} with an entity) and {@code path} (a {@code GET} on a path
+   * template); default {@code get,post,path}</li>
+   *
+   * <li>{@code models}: {@code closed}, {@code open} or both; default
+   * {@code closed,open}</li>
+   *
+   * <li>{@code connections}: the number of connections, and threads,
+   * used to generate load; default {@code 16}</li>
+   *
+   * <li>{@code rate}: the target requests per second of the {@code
+   * open} model; default {@code 5000}</li>
+   *
+   * <li>{@code warmup}: seconds of unrecorded load preceding each
+   * run; default {@code 10}</li>
+   *
+   * <li>{@code duration}: seconds of recorded load per run; default
+   * {@code 30}</li>
+   *
+   * </ul>
+   *
+   * @param args {@code key=value} arguments; may be {@code null}
+   *
+   * @exception Exception if the server could not be started or
+   * stopped
+   */
+  public static final void main(final String[] args) throws Exception {
+    final Map<String, String> settings = new HashMap<>(DEFAULTS);
+    if (args != null) {
+      for (final String arg : args) {
+        final int equals = arg == null ? -1 : arg.indexOf('=');
+        if (equals <= 0 || !DEFAULTS.containsKey(arg.substring(0, equals))) {
+          throw new IllegalArgumentException("Unrecognized argument: " + arg + "; expected one of " + DEFAULTS.keySet());
+        }
+        settings.put(arg.substring(0, equals), arg.substring(equals + 1));
+      }
+    }
+    final SeContainer container = SeContainerInitializer.newInstance()
+      .disableDiscovery()
+      .addBeanClasses(BenchmarkApplication.BEAN_CLASSES)
+      .initialize();
+    try {
+      final WebServer webServer = container.select(WebServer.class).get();
+      webServer.start().toCompletableFuture().get();
+      try {
+        final LoadHarness harness =
+          new LoadHarness(webServer.port(),
+                          Integer.parseInt(settings.get("connections")),
+                          Long.parseLong(settings.get("rate")),
+                          TimeUnit.SECONDS.toNanos(Long.parseLong(settings.get("warmup"))),
+                          TimeUnit.SECONDS.toNanos(Long.parseLong(settings.get("duration"))),
+                          System.out);
+        harness.printHeader();
+        for (final String scenario : settings.get("scenarios").split(",")) {
+          for (final String model : settings.get("models").split(",")) {
+            harness.run(scenario.trim(), model.trim());
+          }
+        }
+      } finally {
+        webServer.shutdown().toCompletableFuture().get();
+      }
+    } finally {
+      container.close();
+    }
+  }
+
+  private final void printHeader() {
+    this.out.printf("%-6s %-6s %11s %9s %11s %9s %9s %9s %9s%n",
+                    "route", "model", "requests", "errors", "rps", "p50 ms", "p99 ms", "p999 ms", "max ms");
+  }
+
+  private final void run(final String scenario, final String model) throws InterruptedException {
+    final byte[][] requests = requests(scenario);
+    final boolean open;
+    switch (model) {
+    case "closed":
+      open = false;
+      break;
+    case "open":
+      open = true;
+      break;
+    default:
+      throw new IllegalArgumentException("Unknown model: " + model);
+    }
+
+    // Warm up first, then measure; each phase gets fresh
+    // connections and fresh statistics.
+    this.drive(requests, open, this.warmupNanos, new Run());
+    final Run run = new Run();
+    this.drive(requests, open, this.durationNanos, run);
+
+    final long[] counts = run.latencies.getCounts();
+    final long requestCount = run.requests.sum();
+    this.out.printf("%-6s %-6s %11d %9d %11.1f %9.3f %9.3f %9.3f %9.3f%n",
+                    scenario,
+                    model,
+                    requestCount,
+                    run.errors.sum(),
+                    requestCount / (run.elapsedNanos / 1.0e9),
+                    LatencyHistogram.percentile(counts, 50.0) / 1.0e6,
+                    LatencyHistogram.percentile(counts, 99.0) / 1.0e6,
+                    LatencyHistogram.percentile(counts, 99.9) / 1.0e6,
+                    LatencyHistogram.percentile(counts, 100.0) / 1.0e6);
+  }
+
+  private final void drive(final byte[][] requests, final boolean open, final long durationNanos, final Run run)
+    throws InterruptedException {
+    final long startNanos = System.nanoTime();
+    final long endNanos = startNanos + durationNanos;
+    // Open model only: the index of the next request to be sent,
+    // shared by all threads, and the interval between requests.
+    final AtomicLong sequence = new AtomicLong();
+    final long intervalNanos = Math.max(1L, TimeUnit.SECONDS.toNanos(1L) / Math.max(1L, this.ratePerSecond));
+    final Collection<Thread> threads = new ArrayList<>(this.connections);
+    for (int i = 0; i < this.connections; i++) {
+      final int offset = i;
+      final Thread thread = new Thread(() -> {
+          try (final LoopbackHttpClient client = new LoopbackHttpClient(this.port)) {
+            int next = offset;
+            while (true) {
+              final long sendNanos;
+              if (open) {
+                sendNanos = startNanos + sequence.getAndIncrement() * intervalNanos;
+                if (sendNanos >= endNanos) {
+                  break;
+                }
+                long now;
+                while ((now = System.nanoTime()) < sendNanos) {
+                  LockSupport.parkNanos(sendNanos - now);
+                }
+              } else {
+                sendNanos = System.nanoTime();
+                if (sendNanos >= endNanos) {
+                  break;
+                }
+              }
+              final byte[] request = requests[next++ % requests.length];
+              boolean error;
+              try {
+                final int status = client.exchange(request);
+                error = status < 200 || status >= 300;
+              } catch (final IOException ioException) {
+                // The client reconnects on the next exchange.
+                error = true;
+              }
+              // In the open model this includes any time the request
+              // spent waiting for a free connection.
+              run.latencies.record(System.nanoTime() - sendNanos);
+              run.requests.increment();
+              if (error) {
+                run.errors.increment();
+              }
+            }
+          } catch (final IOException ioException) {
+            // Closing the client; nothing to do.
+          }
+        }, "load-" + i);
+      thread.setDaemon(true);
+      threads.add(thread);
+      thread.start();
+    }
+    for (final Thread thread : threads) {
+      thread.join();
+    }
+    run.elapsedNanos = System.nanoTime() - startNanos;
+  }
+
+  private static final byte[][] requests(final String scenario) {
+    final byte[][] returnValue;
+    switch (scenario) {
+    case "get":
+      returnValue = new byte[][] { LoopbackHttpClient.encode("GET", "/bench/dependent/none", null, null) };
+      break;
+    case "post":
+      returnValue = new byte[][] {
+        LoopbackHttpClient.encode("POST",
+                                  "/bench/dependent/entity",
+                                  "application/json",
+                                  "{\"harness\":true,\"padding\":\"0123456789abcdef\"}".getBytes(StandardCharsets.UTF_8))
+      };
+      break;
+    case "path":
+      // Vary the path so that template matching can't be served by
+      // any single-path cache.
+      final List<byte[]> list = new ArrayList<>();
+      for (int i = 0; i < 64; i++) {
+        list.add(LoopbackHttpClient.encode("GET", "/bench/dependent/items/" + (i * 7919), null, null));
+      }
+      returnValue = list.toArray(new byte[list.size()][]);
+      break;
+    default:
+      throw new IllegalArgumentException("Unknown scenario: " + scenario + "; expected one of " + Arrays.asList("get", "post", "path"));
+    }
+    return returnValue;
+  }
+
+  private static final class Run {
+
+    private final LatencyHistogram latencies;
+
+    private final LongAdder requests;
+
+    private final LongAdder errors;
+
+    private volatile long elapsedNanos;
+
+    private Run() {
+      super();
+      this.latencies = new LatencyHistogram();
+      this.requests = new LongAdder();
+      this.errors = new LongAdder();
+    }
+
+  }
+
+}
@@ -0,0 +1,196 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright © 2019 microBean.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.microbean.helidon.webserver.jaxrs.cdi;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import java.net.InetAddress;
+import java.net.Socket;
+
+import java.nio.charset.StandardCharsets;
+
+// A minimal, single-connection, keep-alive HTTP/1.1 client.
+//
+// It exists so that benchmarks measure the server rather than a
+// general-purpose client: requests are encoded once, up front, and
+// responses are parsed only as far as is necessary to find where
+// they end.
+final class LoopbackHttpClient implements Closeable {
+
+  private final int port;
+
+  private Socket socket;
+
+  private InputStream in;
+
+  private OutputStream out;
+
+  private final byte[] line;
+
+  LoopbackHttpClient(final int port) {
+    super();
+    this.port = port;
+    this.line = new byte[8192];
+  }
+
+  static final byte[] encode(final String method, final String path, final String contentType, final byte[] body) {
+    final StringBuilder sb = new StringBuilder(128)
+      .append(method).append(' ').append(path).append(" HTTP/1.1\r\n")
+      .append("Host: 127.0.0.1\r\n");
+    if (body != null) {
+      if (contentType != null) {
+        sb.append("Content-Type: ").append(contentType).append("\r\n");
+      }
+      sb.append("Content-Length: ").append(body.length).append("\r\n");
+    }
+    sb.append("\r\n");
+    final byte[] head = sb.toString().getBytes(StandardCharsets.US_ASCII);
+    final byte[] returnValue;
+    if (body == null || body.length == 0) {
+      returnValue = head;
+    } else {
+      returnValue = new byte[head.length + body.length];
+      System.arraycopy(head, 0, returnValue, 0, head.length);
+      System.arraycopy(body, 0, returnValue, head.length, body.length);
+    }
+    return returnValue;
+  }
+
+  // Sends a request produced by encode() and returns the response's
+  // status code once the whole response has been read.
+  final int exchange(final byte[] request) throws IOException {
+    if (this.socket == null) {
+      this.connect();
+    }
+    try {
+      this.out.write(request);
+      this.out.flush();
+      return this.readResponse();
+    } catch (final IOException ioException) {
+      this.close();
+      throw ioException;
+    }
+  }
+
+  private final void connect() throws IOException {
+    final Socket socket = new Socket(InetAddress.getLoopbackAddress(), this.port);
+    socket.setTcpNoDelay(true);
+    this.socket = socket;
+    this.in = new BufferedInputStream(socket.getInputStream(), 16384);
+    this.out = socket.getOutputStream();
+  }
+
+  private final int readResponse() throws IOException {
+    int length = this.readLine();
+    // "HTTP/1.1 200 OK"
+    if (length < 12) {
+      throw new IOException("Bad status line: " + new String(this.line, 0, length, StandardCharsets.US_ASCII));
+    }
+    final int status = (this.line[9] - '0') * 100 + (this.line[10] - '0') * 10 + (this.line[11] - '0');
+    long contentLength = -1L;
+    boolean chunked = false;
+    boolean close = false;
+    while ((length = this.readLine()) > 0) {
+      final String header = new String(this.line, 0, length, StandardCharsets.US_ASCII);
+      final int colon = header.indexOf(':');
+      if (colon > 0) {
+        final String name = header.substring(0, colon).trim();
+        final String value = header.substring(colon + 1).trim();
+        if ("Content-Length".equalsIgnoreCase(name)) {
+          contentLength = Long.parseLong(value);
+        } else if ("Transfer-Encoding".equalsIgnoreCase(name)) {
+          chunked = value.toLowerCase().contains("chunked");
+        } else if ("Connection".equalsIgnoreCase(name)) {
+          close = "close".equalsIgnoreCase(value);
+        }
+      }
+    }
+    if (chunked) {
+      long chunkSize;
+      do {
+        length = this.readLine();
+        final String sizeLine = new String(this.line, 0, length, StandardCharsets.US_ASCII);
+        final int semicolon = sizeLine.indexOf(';');
+        chunkSize = Long.parseLong((semicolon < 0 ? sizeLine : sizeLine.substring(0, semicolon)).trim(), 16);
+        this.skip(chunkSize);
+        if (chunkSize > 0L) {
+          this.readLine();
+        }
+      } while (chunkSize > 0L);
+      // Trailers, if any, followed by an empty line.
+      while (this.readLine() > 0) {
+
+      }
+    } else if (contentLength >= 0L) {
+      this.skip(contentLength);
+    } else {
+      // No framing; the body runs until the server closes the
+      // connection.
+      while (this.in.read(this.line) >= 0) {
+
+      }
+      close = true;
+    }
+    if (close) {
+      this.close();
+    }
+    return status;
+  }
+
+  // Reads a CRLF-terminated line into this.line and returns its
+  // length, not counting the terminator.
+  private final int readLine() throws IOException {
+    int length = 0;
+    int b;
+    while ((b = this.in.read()) != '\n') {
+      if (b < 0) {
+        throw new EOFException();
+      }
+      if (b != '\r' && length < this.line.length) {
+        this.line[length++] = (byte)b;
+      }
+    }
+    return length;
+  }
+
+  private final void skip(long count) throws IOException {
+    while (count > 0L) {
+      final int read = this.in.read(this.line, 0, (int)Math.min(this.line.length, count));
+      if (read < 0) {
+        throw new EOFException();
+      }
+      count -= read;
+    }
+  }
+
+  @Override
+  public final void close() throws IOException {
+    final Socket socket = this.socket;
+    this.socket = null;
+    this.in = null;
+    this.out = null;
+    if (socket != null) {
+      socket.close();
+    }
+  }
+
+}
@@ -0,0 +1,229 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright © 2019 microBean.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.microbean.helidon.webserver.jaxrs.cdi;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+
+import java.net.URL;
+import java.net.URLClassLoader;
+
+import java.nio.charset.StandardCharsets;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import java.util.stream.Stream;
+
+import javax.enterprise.inject.se.SeContainer;
+import javax.enterprise.inject.se.SeContainerInitializer;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+
+import io.helidon.webserver.WebServer;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the time from starting a CDI container to receiving the
+ * first successful response from an {@link
+ * javax.ws.rs.core.Application} with a given number of resource
+ * methods.
+ *
+ * <p>The {@code Application} and its resource classes are generated
+ * and compiled, with the system Java compiler, before anything is
+ * measured.  Each measurement happens in a fresh JVM, so what is
+ * reported is true cold-start time.</p>
+ *
+ * <p>To see where the time goes, enable {@code FINE} logging for
+ * {@code org.microbean.helidon.webserver.jaxrs.cdi.HelidonJAXRSExtension},
+ * or record with Java Flight Recorder and look at the {@code
+ * BootstrapPhase} events.</p>
+ *
+ * @author <a href="https://about.me/lairdnelson"
+ * target="_parent">Laird Nelson</a>
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+@Fork(5)
+@State(Scope.Benchmark)
+public class StartupBenchmark {
+
+  private static final String PACKAGE = "org.microbean.helidon.webserver.jaxrs.cdi.generated";
+
+  private static final int METHODS_PER_CLASS = 10;
+
+  /**
+   * The total number of resource methods in the generated {@code
+   * Application}, spread across classes of ten methods each.
+   */
+  @Param({ "10", "100", "1000" })
+  public int resourceMethods;
+
+  private Path directory;
+
+  private URLClassLoader classLoader;
+
+  private Class<?> applicationClass;
+
+  private byte[] request;
+
+  private SeContainer container;
+
+  private WebServer webServer;
+
+  public StartupBenchmark() {
+    super();
+  }
+
+  @Setup(Level.Trial)
+  public void generateApplication() throws ClassNotFoundException, IOException {
+    final JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+    if (compiler == null) {
+      throw new IllegalStateException("No system Java compiler; run this benchmark on a JDK");
+    }
+    this.directory = Files.createTempDirectory("startup-benchmark");
+    final Path packageDirectory = this.directory.resolve(PACKAGE.replace('.', File.separatorChar));
+    Files.createDirectories(packageDirectory);
+    final int classCount = (this.resourceMethods + METHODS_PER_CLASS - 1) / METHODS_PER_CLASS;
+    final List<String> sourceFiles = new ArrayList<>(classCount + 1);
+    final StringBuilder classes = new StringBuilder();
+    int remaining = this.resourceMethods;
+    for (int c = 0; c < classCount; c++) {
+      final StringBuilder source = new StringBuilder()
+        .append("package ").append(PACKAGE).append(";\n")
+        .append("@javax.ws.rs.Path(\"r").append(c).append("\")\n")
+        .append("public class Resource").append(c).append(" {\n");
+      final int methodCount = Math.min(METHODS_PER_CLASS, remaining);
+      for (int m = 0; m < methodCount; m++) {
+        source.append("  @javax.ws.rs.GET @javax.ws.rs.Path(\"m").append(m).append("\")\n")
+          .append("  public String m").append(m).append("() { return \"ok\"; }\n");
+      }
+      source.append("}\n");
+      remaining -= methodCount;
+      sourceFiles.add(write(packageDirectory.resolve("Resource" + c + ".java"), source));
+      if (c > 0) {
+        classes.append(", ");
+      }
+      classes.append("Resource").append(c).append(".class");
+    }
+    final StringBuilder application = new StringBuilder()
+      .append("package ").append(PACKAGE).append(";\n")
+      .append("@javax.ws.rs.ApplicationPath(\"startup\")\n")
+      .append("public class StartupApplication extends javax.ws.rs.core.Application {\n")
+      .append("  @Override public java.util.Set<Class<?>> getClasses() {\n")
+      .append("    return new java.util.HashSet<>(java.util.Arrays.asList(").append(classes).append("));\n")
+      .append("  }\n")
+      .append("}\n");
+    sourceFiles.add(write(packageDirectory.resolve("StartupApplication.java"), application));
+
+    final List<String> arguments = new ArrayList<>();
+    arguments.addAll(Arrays.asList("-classpath", System.getProperty("java.class.path"),
+                                   "-d", this.directory.toString(),
+                                   "-proc:none",
+                                   "-nowarn"));
+    arguments.addAll(sourceFiles);
+    final int result = compiler.run(null, null, null, arguments.toArray(new String[arguments.size()]));
+    if (result != 0) {
+      throw new IllegalStateException("Compilation failed: " + result);
+    }
+    this.classLoader = new URLClassLoader(new URL[] { this.directory.toUri().toURL() }, this.getClass().getClassLoader());
+    this.applicationClass = this.classLoader.loadClass(PACKAGE + ".StartupApplication");
+    this.request = LoopbackHttpClient.encode("GET", "/startup/r0/m0", null, null);
+  }
+
+  @TearDown(Level.Trial)
+  public void deleteApplication() throws IOException {
+    if (this.classLoader != null) {
+      this.classLoader.close();
+    }
+    if (this.directory != null) {
+      try (final Stream<Path> paths = Files.walk(this.directory)) {
+        paths.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+      }
+    }
+  }
+
+  @TearDown(Level.Iteration)
+  public void stop() throws ExecutionException, InterruptedException {
+    if (this.webServer != null) {
+      this.webServer.shutdown().toCompletableFuture().get();
+      this.webServer = null;
+    }
+    if (this.container != null) {
+      this.container.close();
+      this.container = null;
+    }
+  }
+
+  @Benchmark
+  public int startToFirstResponse() throws ExecutionException, InterruptedException, IOException {
+    final Thread currentThread = Thread.currentThread();
+    final ClassLoader old = currentThread.getContextClassLoader();
+    currentThread.setContextClassLoader(this.classLoader);
+    try {
+      this.container = SeContainerInitializer.newInstance()
+        .disableDiscovery()
+        .setClassLoader(this.classLoader)
+        .addBeanClasses(this.applicationClass)
+        .initialize();
+      this.webServer = this.container.select(WebServer.class).get();
+      this.webServer.start().toCompletableFuture().get();
+    } finally {
+      currentThread.setContextClassLoader(old);
+    }
+    try (final LoopbackHttpClient client = new LoopbackHttpClient(this.webServer.port())) {
+      final int status = client.exchange(this.request);
+      if (status != 200) {
+        throw new IllegalStateException("Unexpected status: " + status);
+      }
+      return status;
+    }
+  }
+
+  private static final String write(final Path file, final CharSequence source) throws IOException {
+    try (final Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+      writer.append(source);
+    }
+    return file.toString();
+  }
+
+}
@@ -0,0 +1,181 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright © 2019 microBean.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.microbean.helidon.webserver.jaxrs.cdi;
+
+import java.lang.reflect.Method;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.enterprise.inject.spi.AnnotatedMethod;
+import javax.enterprise.inject.spi.AnnotatedType;
+import javax.enterprise.inject.spi.BeanManager;
+
+// Answers "which methods, further up the hierarchy, does this method
+// override?" for ResourceClasses#find(), where JAX-RS annotations are
+// inherited from.
+//
+// The answer for every method of a class is worked out the first
+// time any method of that class is asked about, by walking the
+// hierarchy once; the AnnotatedTypes of the supertypes involved are
+// created once and shared by all of their subclasses.  One of these
+// is meant to live for as long as one bootstrap, and to be shared by
+// all of its Applications.  It is safe for use by multiple threads.
+final class AnnotationInheritanceIndex {
+
+  private final BeanManager beanManager;
+
+  // Class -> signature -> the AnnotatedMethod with that signature
+  // among the class's AnnotatedType's methods.
+  private final ConcurrentMap<Class<?>, Map<Signature, AnnotatedMethod<?>>> methods;
+
+  // Declaring class -> signature -> the methods it overrides, in the
+  // order in which they are searched.
+  private final ConcurrentMap<Class<?>, Map<Signature, List<AnnotatedMethod<?>>>> overriddenMethods;
+
+  AnnotationInheritanceIndex(final BeanManager beanManager) {
+    super();
+    this.beanManager = Objects.requireNonNull(beanManager);
+    this.methods = new ConcurrentHashMap<>();
+    this.overriddenMethods = new ConcurrentHashMap<>();
+  }
+
+  final BeanManager getBeanManager() {
+    return this.beanManager;
+  }
+
+  // Superclasses are searched first, nearest first, and then the
+  // interfaces they implement, in the order they were encountered.
+  final <X> List<AnnotatedMethod<? super X>> getOverriddenMethods(final AnnotatedMethod<? super X> method) {
+    final AnnotatedType<?> declaringType = method.getDeclaringType();
+    assert declaringType != null;
+    final List<AnnotatedMethod<?>> overriddenMethods =
+      this.overriddenMethods.computeIfAbsent(declaringType.getJavaClass(), this::computeOverriddenMethods)
+      .get(new Signature(method.getJavaMember()));
+    final List<AnnotatedMethod<? super X>> returnValue;
+    if (overriddenMethods == null) {
+      returnValue = Collections.emptyList();
+    } else {
+      // Every method in the list was found in a supertype of X.
+      @SuppressWarnings("unchecked")
+      final List<AnnotatedMethod<? super X>> temp = (List<AnnotatedMethod<? super X>>)(List<?>)overriddenMethods;
+      returnValue = temp;
+    }
+    return returnValue;
+  }
+
+  private final Map<Signature, List<AnnotatedMethod<?>>> computeOverriddenMethods(final Class<?> declaringClass) {
+    final Map<Signature, List<AnnotatedMethod<?>>> returnValue = new HashMap<>();
+    final Set<Class<?>> interfaces = new LinkedHashSet<>();
+    for (Class<?> c = declaringClass.getSuperclass(); c != null; c = c.getSuperclass()) {
+      add(returnValue, this.getMethods(c));
+      Collections.addAll(interfaces, c.getInterfaces());
+    }
+    for (final Class<?> iface : interfaces) {
+      add(returnValue, this.getMethods(iface));
+    }
+    return returnValue;
+  }
+
+  private final Map<Signature, AnnotatedMethod<?>> getMethods(final Class<?> c) {
+    return this.methods.computeIfAbsent(c, this::computeMethods);
+  }
+
+  private final Map<Signature, AnnotatedMethod<?>> computeMethods(final Class<?> c) {
+    final Map<Signature, AnnotatedMethod<?>> returnValue = new HashMap<>();
+    final AnnotatedType<?> type = this.beanManager.createAnnotatedType(c);
+    if (type != null) {
+      final Set<? extends AnnotatedMethod<?>> methods = type.getMethods();
+      if (methods != null) {
+        for (final AnnotatedMethod<?> method : methods) {
+          if (method != null) {
+            // Should be zero or one per signature.
+            returnValue.putIfAbsent(new Signature(method.getJavaMember()), method);
+          }
+        }
+      }
+    }
+    return returnValue;
+  }
+
+  private static final void add(final Map<Signature, List<AnnotatedMethod<?>>> overriddenMethods,
+                                final Map<Signature, AnnotatedMethod<?>> methods) {
+    for (final Map.Entry<Signature, AnnotatedMethod<?>> entry : methods.entrySet()) {
+      final AnnotatedMethod<?> method = entry.getValue();
+      final List<AnnotatedMethod<?>> list = overriddenMethods.computeIfAbsent(entry.getKey(), k -> new ArrayList<>(2));
+      // A class's AnnotatedType may well include the methods it
+      // inherits, which will already be here.
+      boolean seen = false;
+      for (final AnnotatedMethod<?> existing : list) {
+        if (existing.getJavaMember().equals(method.getJavaMember())) {
+          seen = true;
+          break;
+        }
+      }
+      if (!seen) {
+        list.add(method);
+      }
+    }
+  }
+
+  // A method's name and parameter types, which are what one method
+  // must share with another to override it.
+  private static final class Signature {
+
+    private final String name;
+
+    private final Class<?>[] parameterTypes;
+
+    private final int hashCode;
+
+    private Signature(final Method method) {
+      super();
+      this.name = method.getName();
+      this.parameterTypes = method.getParameterTypes();
+      this.hashCode = 31 * this.name.hashCode() + Arrays.hashCode(this.parameterTypes);
+    }
+
+    @Override
+    public final int hashCode() {
+      return this.hashCode;
+    }
+
+    @Override
+    public final boolean equals(final Object other) {
+      if (other == this) {
+        return true;
+      } else if (other instanceof Signature) {
+        final Signature her = (Signature)other;
+        return this.name.equals(her.name) && Arrays.equals(this.parameterTypes, her.parameterTypes);
+      } else {
+        return false;
+      }
+    }
+
+  }
+
+}
@@ -0,0 +1,100 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright © 2019 microBean.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.microbean.helidon.webserver.jaxrs.cdi;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+// Settings for one Application.  A setting named "foo" is looked up
+// first in the Application's properties (see
+// Application#getProperties()) under the key
+// "org.microbean.helidon.webserver.jaxrs.cdi.foo", and then in the
+// System properties under the same key.
+final class ApplicationConfiguration {
+
+  static final String PREFIX = "org.microbean.helidon.webserver.jaxrs.cdi.";
+
+  private final Map<String, ?> properties;
+
+  ApplicationConfiguration(final Map<String, ?> properties) {
+    super();
+    if (properties == null || properties.isEmpty()) {
+      this.properties = Collections.emptyMap();
+    } else {
+      this.properties = Collections.unmodifiableMap(new HashMap<>(properties));
+    }
+  }
+
+  final Object get(final String name) {
+    final String key = PREFIX + name;
+    Object returnValue = this.properties.get(key);
+    if (returnValue == null) {
+      returnValue = System.getProperty(key);
+    }
+    return returnValue;
+  }
+
+  final String getString(final String name, final String defaultValue) {
+    final Object value = this.get(name);
+    final String returnValue;
+    if (value == null) {
+      returnValue = defaultValue;
+    } else {
+      final String s = value.toString().trim();
+      returnValue = s.isEmpty() ? defaultValue : s;
+    }
+    return returnValue;
+  }
+
+  final int getInt(final String name, final int defaultValue) {
+    final Object value = this.get(name);
+    final int returnValue;
+    if (value instanceof Number) {
+      returnValue = ((Number)value).intValue();
+    } else {
+      final String s = this.getString(name, null);
+      returnValue = s == null ? defaultValue : Integer.parseInt(s);
+    }
+    return returnValue;
+  }
+
+  final long getLong(final String name, final long defaultValue) {
+    final Object value = this.get(name);
+    final long returnValue;
+    if (value instanceof Number) {
+      returnValue = ((Number)value).longValue();
+    } else {
+      final String s = this.getString(name, null);
+      returnValue = s == null ? defaultValue : Long.parseLong(s);
+    }
+    return returnValue;
+  }
+
+  final boolean getBoolean(final String name, final boolean defaultValue) {
+    final Object value = this.get(name);
+    final boolean returnValue;
+    if (value instanceof Boolean) {
+      returnValue = ((Boolean)value).booleanValue();
+    } else {
+      final String s = this.getString(name, null);
+      returnValue = s == null ? defaultValue : Boolean.parseBoolean(s);
+    }
+    return returnValue;
+  }
+
+}
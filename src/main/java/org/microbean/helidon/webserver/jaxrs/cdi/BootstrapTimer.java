@@ -0,0 +1,141 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright © 2019 microBean.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.microbean.helidon.webserver.jaxrs.cdi;
+
+import java.util.Objects;
+
+import java.util.concurrent.TimeUnit;
+
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+// Times one phase of bootstrapping an Application, and reports it
+// both through java.util.logging (at FINE, under the logger named for
+// HelidonJAXRSExtension) and as a Java Flight Recorder event.
+//
+//   final BootstrapTimer timer = BootstrapTimer.start(BootstrapTimer.Phase.ROUTING);
+//   // ...do the work...
+//   timer.stop(applicationName, itemCount);
+final class BootstrapTimer {
+
+  private static final Logger logger = Logger.getLogger(HelidonJAXRSExtension.class.getName());
+
+  private final Phase phase;
+
+  private final BootstrapPhaseEvent event;
+
+  private final long startNanos;
+
+  private BootstrapTimer(final Phase phase) {
+    super();
+    this.phase = Objects.requireNonNull(phase);
+    this.event = new BootstrapPhaseEvent();
+    this.event.begin();
+    this.startNanos = System.nanoTime();
+  }
+
+  static final BootstrapTimer start(final Phase phase) {
+    return new BootstrapTimer(phase);
+  }
+
+  // count is the number of things (resource methods, beans, routes)
+  // the phase dealt with.  Returns the elapsed time in nanoseconds.
+  final long stop(final String application, final int count) {
+    final long elapsedNanos = System.nanoTime() - this.startNanos;
+    final BootstrapPhaseEvent event = this.event;
+    event.end();
+    if (event.shouldCommit()) {
+      event.application = application;
+      event.phase = this.phase.getLabel();
+      event.count = count;
+      event.commit();
+    }
+    if (logger.isLoggable(Level.FINE)) {
+      logger.logp(Level.FINE,
+                  BootstrapTimer.class.getName(),
+                  "stop",
+                  "{0}: {1} took {2} ms ({3} items)",
+                  new Object[] { application,
+                                 this.phase.getLabel(),
+                                 Double.valueOf(elapsedNanos / (double)TimeUnit.MILLISECONDS.toNanos(1L)),
+                                 Integer.valueOf(count) });
+    }
+    return elapsedNanos;
+  }
+
+  static enum Phase {
+
+    // Instantiating an Application and asking it for its classes and
+    // singletons.
+    APPLICATION_DISCOVERY("application discovery"),
+
+    // Building ResourceMethodDescriptors from resource classes.
+    DESCRIPTOR_BUILDING("descriptor building"),
+
+    // Adding synthetic beans for resources, handlers, providers,
+    // singletons and the Service.
+    BEAN_REGISTRATION("bean registration"),
+
+    // Creating handlers and adding them to Helidon's routing rules.
+    ROUTING("routing update"),
+
+    // Exercising every handler, after routing, so that real requests
+    // don't pay for class loading and compilation.
+    WARM_UP("warm-up");
+
+    private final String label;
+
+    private Phase(final String label) {
+      this.label = label;
+    }
+
+    final String getLabel() {
+      return this.label;
+    }
+
+  }
+
+  @Name("org.microbean.helidon.webserver.jaxrs.cdi.BootstrapPhase")
+  @Label("Bootstrap Phase")
+  @Description("One phase of turning a JAX-RS Application into beans and routes")
+  @Category({ "Helidon", "JAX-RS" })
+  @StackTrace(false)
+  static final class BootstrapPhaseEvent extends Event {
+
+    @Label("Application")
+    String application;
+
+    @Label("Phase")
+    String phase;
+
+    @Label("Count")
+    int count;
+
+    BootstrapPhaseEvent() {
+      super();
+    }
+
+  }
+
+}
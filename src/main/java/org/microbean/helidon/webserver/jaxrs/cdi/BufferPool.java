@@ -0,0 +1,99 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright © 2019 microBean.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.microbean.helidon.webserver.jaxrs.cdi;
+
+import java.nio.ByteBuffer;
+
+import java.util.Queue;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.helidon.common.http.DataChunk;
+
+// A bounded pool of ByteBuffers that are all the same size, direct or
+// not.  A buffer that isn't released (because, say, a response was
+// abandoned part way through) is simply garbage collected; the pool
+// allocates another when it runs dry.  It is safe for use by multiple
+// threads.
+final class BufferPool {
+
+  private final int bufferSize;
+
+  private final int maxPooled;
+
+  private final boolean direct;
+
+  private final Queue<ByteBuffer> buffers;
+
+  // Kept separately because ConcurrentLinkedQueue#size() walks the
+  // queue.
+  private final AtomicInteger pooled;
+
+  BufferPool(final int bufferSize, final int maxPooled, final boolean direct) {
+    super();
+    if (bufferSize <= 0) {
+      throw new IllegalArgumentException("bufferSize: " + bufferSize);
+    }
+    if (maxPooled < 0) {
+      throw new IllegalArgumentException("maxPooled: " + maxPooled);
+    }
+    this.bufferSize = bufferSize;
+    this.maxPooled = maxPooled;
+    this.direct = direct;
+    this.buffers = new ConcurrentLinkedQueue<>();
+    this.pooled = new AtomicInteger();
+  }
+
+  final int getBufferSize() {
+    return this.bufferSize;
+  }
+
+  // Returns a cleared buffer of getBufferSize() bytes.
+  final ByteBuffer acquire() {
+    ByteBuffer returnValue = this.buffers.poll();
+    if (returnValue == null) {
+      returnValue = this.direct ? ByteBuffer.allocateDirect(this.bufferSize) : ByteBuffer.allocate(this.bufferSize);
+    } else {
+      this.pooled.decrementAndGet();
+      returnValue.clear();
+    }
+    return returnValue;
+  }
+
+  // Flips buffer, which must have come from acquire(), and wraps it
+  // in a DataChunk that gives it back when released.  Helidon
+  // releases a chunk once it has been written.
+  final DataChunk chunk(final ByteBuffer buffer) {
+    buffer.flip();
+    return DataChunk.create(true, buffer, () -> this.release(buffer));
+  }
+
+  // The caller must not touch buffer afterwards.
+  final void release(final ByteBuffer buffer) {
+    if (buffer != null && buffer.capacity() == this.bufferSize) {
+      if (this.pooled.incrementAndGet() <= this.maxPooled) {
+        this.buffers.offer(buffer);
+      } else {
+        // Full; let this one go.
+        this.pooled.decrementAndGet();
+      }
+    }
+  }
+
+}
@@ -0,0 +1,89 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright © 2019 microBean.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.microbean.helidon.webserver.jaxrs.cdi;
+
+import java.util.Objects;
+
+import java.util.concurrent.Executor;
+
+/**
+ * An {@link Executor} for the continuations of asynchronous resource
+ * methods that runs them in the exchange&mdash;the request and its
+ * response&mdash;during which it was obtained.
+ *
+ * <p>An instance is available for injection, qualified with the
+ * qualifiers of the governing {@link javax.ws.rs.core.Application}.
+ * Injected as a parameter of a resource method, it lets that method
+ * return a {@link java.util.concurrent.CompletionStage} whose
+ * asynchronous stages still see the request's {@link Entity} and
+ * other exchange-scoped beans, without a thread being held for the
+ * request in the meantime:</p>
+ *
+ * <blockquote><pre>
+ * {@code @GET}
+ * public CompletionStage&lt;String&gt; get(final ContinuationExecutor executor) {
+ *   return lookUpAsynchronously().thenApplyAsync(this::render, executor);
+ * }</pre></blockquote>
+ *
+ * <p>Continuations are run by the {@code Application}'s dispatcher at
+ * {@linkplain DispatchPriority.Level#NORMAL normal} priority or, if
+ * it does not offload work, on whatever thread submits them.  An
+ * instance obtained outside of any exchange uses whichever exchange
+ * is current when work is submitted, if any.</p>
+ *
+ * <p>Instances are safe for use by multiple threads.</p>
+ *
+ * @author <a href="https://about.me/lairdnelson"
+ * target="_parent">Laird Nelson</a>
+ */
+public final class ContinuationExecutor implements Executor {
+
+  private final Executor delegate;
+
+  // May be null.
+  private final ExchangeContext.Instances instances;
+
+  ContinuationExecutor(final Executor delegate) {
+    super();
+    this.delegate = Objects.requireNonNull(delegate);
+    this.instances = ExchangeContext.capture();
+  }
+
+  /**
+   * Arranges for the supplied {@link Runnable} to be run in the
+   * exchange to which this {@link ContinuationExecutor} belongs.
+   *
+   * @param task the {@link Runnable} to run; must not be {@code
+   * null}
+   *
+   * @exception NullPointerException if {@code task} is {@code null}
+   *
+   * @exception java.util.concurrent.RejectedExecutionException if
+   * the dispatcher is saturated
+   */
+  @Override
+  public void execute(final Runnable task) {
+    Objects.requireNonNull(task);
+    final ExchangeContext.Instances instances = this.instances == null ? ExchangeContext.capture() : this.instances;
+    if (instances == null) {
+      this.delegate.execute(task);
+    } else {
+      this.delegate.execute(() -> ExchangeContext.run(instances, task));
+    }
+  }
+
+}
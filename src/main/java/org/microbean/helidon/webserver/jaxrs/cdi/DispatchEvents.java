@@ -0,0 +1,157 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright © 2019 microBean.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.microbean.helidon.webserver.jaxrs.cdi;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+// Java Flight Recorder events for the phases of dispatching a request
+// to a resource method.
+//
+// Use them like this, which costs effectively nothing when no
+// recording is running (the JIT eliminates the allocation, and
+// begin() and shouldCommit() are no-ops):
+//
+//   final InvocationEvent event = new InvocationEvent();
+//   event.begin();
+//   // ...do the work...
+//   DispatchEvents.commit(event, descriptor);
+//
+// Fields are only filled in once it is known that the event will be
+// committed.
+final class DispatchEvents {
+
+  private static final String PREFIX = "org.microbean.helidon.webserver.jaxrs.cdi.";
+
+  private DispatchEvents() {
+    super();
+  }
+
+  // descriptor may be null if it is not known, e.g. for an
+  // EntityReadEvent recorded where only the request is at hand.
+  static final void commit(final DispatchEvent event, final ResourceMethodDescriptor<?> descriptor) {
+    event.end();
+    if (event.shouldCommit()) {
+      if (descriptor != null) {
+        event.resourceClass = descriptor.getResourceClass().getJavaClass().getName();
+        event.resourceMethod = descriptor.getResourceMethod().getJavaMember().getName();
+        event.httpMethod = descriptor.isSubResourceLocator() ? "*" : descriptor.getHttpMethod().name();
+        event.pathTemplate = descriptor.getPath();
+      }
+      event.commit();
+    }
+  }
+
+  @Category({ "Helidon", "JAX-RS" })
+  @StackTrace(false)
+  abstract static class DispatchEvent extends Event {
+
+    @Label("Resource Class")
+    String resourceClass;
+
+    @Label("Resource Method")
+    String resourceMethod;
+
+    @Label("HTTP Method")
+    String httpMethod;
+
+    @Label("Path Template")
+    String pathTemplate;
+
+    DispatchEvent() {
+      super();
+    }
+
+  }
+
+  @Name(PREFIX + "RouteMatch")
+  @Label("Route Match")
+  @Description("Request matched to a resource method and prepared for dispatch")
+  static final class RouteMatchEvent extends DispatchEvent {
+
+    @Label("Request Path")
+    String requestPath;
+
+    RouteMatchEvent() {
+      super();
+    }
+
+  }
+
+  @Name(PREFIX + "ParameterBinding")
+  @Label("Parameter Binding")
+  @Description("Resolution of the arguments of a resource method")
+  static final class ParameterBindingEvent extends DispatchEvent {
+
+    ParameterBindingEvent() {
+      super();
+    }
+
+  }
+
+  @Name(PREFIX + "EntityRead")
+  @Label("Entity Read")
+  @Description("Reading and converting a request entity")
+  static final class EntityReadEvent extends DispatchEvent {
+
+    @Label("Entity Type")
+    String entityType;
+
+    EntityReadEvent() {
+      super();
+    }
+
+  }
+
+  @Name(PREFIX + "ResourceAcquisition")
+  @Label("Resource Acquisition")
+  @Description("Acquisition of the resource instance a resource method is invoked on")
+  static final class ResourceAcquisitionEvent extends DispatchEvent {
+
+    ResourceAcquisitionEvent() {
+      super();
+    }
+
+  }
+
+  @Name(PREFIX + "Invocation")
+  @Label("Invocation")
+  @Description("Invocation of a resource method")
+  static final class InvocationEvent extends DispatchEvent {
+
+    InvocationEvent() {
+      super();
+    }
+
+  }
+
+  @Name(PREFIX + "Serialization")
+  @Label("Serialization")
+  @Description("Writing a resource method's return value to the response, until it has been sent")
+  static final class SerializationEvent extends DispatchEvent {
+
+    SerializationEvent() {
+      super();
+    }
+
+  }
+
+}
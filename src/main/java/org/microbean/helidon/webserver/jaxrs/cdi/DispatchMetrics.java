@@ -0,0 +1,150 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright © 2019 microBean.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.microbean.helidon.webserver.jaxrs.cdi;
+
+import java.util.Collection;
+import java.util.Objects;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import java.util.concurrent.TimeUnit;
+
+// The ResourceMethodMetrics of every resource method of one
+// Application, renderable in the Prometheus text exposition format
+// (version 0.0.4).
+final class DispatchMetrics {
+
+  static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+  // Upper bounds, in seconds, of the buckets of the exported
+  // histogram.  The recorded histograms are much finer than this;
+  // these just keep the scrape output a reasonable size.
+  private static final double[] EXPORTED_BUCKETS = {
+    0.0005, 0.001, 0.0025, 0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1.0, 2.5, 5.0, 10.0
+  };
+
+  private final ConcurrentMap<ResourceMethodDescriptor<?>, ResourceMethodMetrics> metrics;
+
+  DispatchMetrics() {
+    super();
+    this.metrics = new ConcurrentHashMap<>();
+  }
+
+  final ResourceMethodMetrics get(final ResourceMethodDescriptor<?> descriptor) {
+    return this.metrics.computeIfAbsent(Objects.requireNonNull(descriptor), ResourceMethodMetrics::new);
+  }
+
+  final Collection<ResourceMethodMetrics> getAll() {
+    return this.metrics.values();
+  }
+
+  final String toPrometheusText() {
+    final StringBuilder sb = new StringBuilder(1024);
+    final Collection<ResourceMethodMetrics> all = this.getAll();
+
+    sb.append("# HELP jaxrs_resource_method_requests_total Requests answered by a JAX-RS resource method.\n")
+      .append("# TYPE jaxrs_resource_method_requests_total counter\n");
+    for (final ResourceMethodMetrics m : all) {
+      appendSample(sb, "jaxrs_resource_method_requests_total", m, null, m.getRequests());
+    }
+
+    sb.append("# HELP jaxrs_resource_method_errors_total Requests to a JAX-RS resource method that failed, timed out or were shed.\n")
+      .append("# TYPE jaxrs_resource_method_errors_total counter\n");
+    for (final ResourceMethodMetrics m : all) {
+      appendSample(sb, "jaxrs_resource_method_errors_total", m, null, m.getErrors());
+    }
+
+    sb.append("# HELP jaxrs_resource_method_in_flight Requests currently being dispatched to a JAX-RS resource method.\n")
+      .append("# TYPE jaxrs_resource_method_in_flight gauge\n");
+    for (final ResourceMethodMetrics m : all) {
+      appendSample(sb, "jaxrs_resource_method_in_flight", m, null, m.getInFlight());
+    }
+
+    sb.append("# HELP jaxrs_resource_method_duration_seconds Time taken to answer a request to a JAX-RS resource method.\n")
+      .append("# TYPE jaxrs_resource_method_duration_seconds histogram\n");
+    for (final ResourceMethodMetrics m : all) {
+      final LatencyHistogram latencies = m.getLatencies();
+      final long[] counts = latencies.getCounts();
+      long cumulative = 0L;
+      int index = 0;
+      for (final double bucket : EXPORTED_BUCKETS) {
+        final long bucketNanos = (long)(bucket * TimeUnit.SECONDS.toNanos(1L));
+        while (index < counts.length && LatencyHistogram.highestEquivalentValue(index) <= bucketNanos) {
+          cumulative += counts[index++];
+        }
+        appendSample(sb, "jaxrs_resource_method_duration_seconds_bucket", m, Double.toString(bucket), cumulative);
+      }
+      while (index < counts.length) {
+        cumulative += counts[index++];
+      }
+      appendSample(sb, "jaxrs_resource_method_duration_seconds_bucket", m, "+Inf", cumulative);
+      appendLabels(sb.append("jaxrs_resource_method_duration_seconds_sum"), m, null)
+        .append(' ')
+        .append(latencies.getSum() / 1.0e9)
+        .append('\n');
+      appendSample(sb, "jaxrs_resource_method_duration_seconds_count", m, null, cumulative);
+    }
+    return sb.toString();
+  }
+
+  private static final void appendSample(final StringBuilder sb,
+                                         final String name,
+                                         final ResourceMethodMetrics metrics,
+                                         final String le,
+                                         final long value) {
+    appendLabels(sb.append(name), metrics, le).append(' ').append(value).append('\n');
+  }
+
+  private static final StringBuilder appendLabels(final StringBuilder sb, final ResourceMethodMetrics metrics, final String le) {
+    final ResourceMethodDescriptor<?> descriptor = metrics.getResourceMethodDescriptor();
+    sb.append("{class=\"");
+    appendEscaped(sb, descriptor.getResourceClass().getJavaClass().getName());
+    sb.append("\",method=\"");
+    appendEscaped(sb, descriptor.getResourceMethod().getJavaMember().getName());
+    sb.append("\",http_method=\"");
+    appendEscaped(sb, descriptor.isSubResourceLocator() ? "*" : descriptor.getHttpMethod().name());
+    sb.append("\",path=\"");
+    appendEscaped(sb, descriptor.getPath());
+    sb.append('"');
+    if (le != null) {
+      sb.append(",le=\"").append(le).append('"');
+    }
+    return sb.append('}');
+  }
+
+  private static final void appendEscaped(final StringBuilder sb, final String value) {
+    for (int i = 0; i < value.length(); i++) {
+      final char c = value.charAt(i);
+      switch (c) {
+      case '\\':
+        sb.append("\\\\");
+        break;
+      case '"':
+        sb.append("\\\"");
+        break;
+      case '\n':
+        sb.append("\\n");
+        break;
+      default:
+        sb.append(c);
+        break;
+      }
+    }
+  }
+
+}
@@ -0,0 +1,72 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright © 2019 microBean.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.microbean.helidon.webserver.jaxrs.cdi;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Inherited;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Declares the {@linkplain Level priority class} that requests
+ * dispatched to a resource method, or to every resource method of a
+ * resource class, should be scheduled with.
+ *
+ * <p>A method-level annotation (including one inherited from an
+ * overridden method in a superclass or interface) takes precedence
+ * over a class-level one.  Resource methods with no such annotation
+ * are dispatched at {@link Level#NORMAL}.</p>
+ *
+ * @author <a href="https://about.me/lairdnelson"
+ * target="_parent">Laird Nelson</a>
+ */
+@Documented
+@Inherited
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ ElementType.TYPE, ElementType.METHOD })
+public @interface DispatchPriority {
+
+  Level value();
+
+  /**
+   * A priority class.  Constants are declared from most to least
+   * latency-sensitive.
+   */
+  public static enum Level {
+
+    /**
+     * For latency-critical work such as health checks and cheap
+     * lookups.
+     */
+    HIGH,
+
+    /**
+     * The default.
+     */
+    NORMAL,
+
+    /**
+     * For expensive work, such as reports, that may be delayed in
+     * favor of the other levels.
+     */
+    LOW;
+
+  }
+
+}
@@ -0,0 +1,58 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright © 2019 microBean.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.microbean.helidon.webserver.jaxrs.cdi;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Inherited;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bounds how long a request dispatched to a resource method, or to
+ * every resource method of a resource class, may take before it is
+ * answered with {@code 503 Service Unavailable} (if the resource
+ * method had not yet started) or {@code 504 Gateway Timeout} (if it
+ * had) and its invocation is cancelled.
+ *
+ * <p>A method-level annotation (including one inherited from an
+ * overridden method in a superclass or interface) takes precedence
+ * over a class-level one, which in turn takes precedence over the
+ * {@code org.microbean.helidon.webserver.jaxrs.cdi.dispatch.timeout}
+ * {@linkplain javax.ws.rs.core.Application#getProperties()
+ * Application property}.  A value less than or equal to zero means
+ * that no timeout applies.</p>
+ *
+ * @author <a href="https://about.me/lairdnelson"
+ * target="_parent">Laird Nelson</a>
+ *
+ * @see RequestDeadline
+ */
+@Documented
+@Inherited
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ ElementType.TYPE, ElementType.METHOD })
+public @interface DispatchTimeout {
+
+  long value();
+
+  TimeUnit unit() default TimeUnit.MILLISECONDS;
+
+}
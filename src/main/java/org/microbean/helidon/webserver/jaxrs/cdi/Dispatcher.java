@@ -0,0 +1,136 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright © 2019 microBean.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.microbean.helidon.webserver.jaxrs.cdi;
+
+import java.util.Objects;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+// Note: NOT a bean.  One of these exists per Application and is
+// shared by all of its ResourceMethodHandlers.
+final class Dispatcher implements AutoCloseable {
+
+  private final ApplicationConfiguration configuration;
+
+  private final String name;
+
+  private final PriorityExecutor executor;
+
+  private final DispatchMetrics metrics;
+
+  // Null if responses are left for Helidon to frame.
+  private final BufferPool responseBuffers;
+
+  private volatile ScheduledThreadPoolExecutor timer;
+
+  Dispatcher(final String name, final ApplicationConfiguration configuration) {
+    super();
+    this.name = Objects.requireNonNull(name);
+    this.configuration = Objects.requireNonNull(configuration);
+    // May be null, in which case work is run on the calling thread.
+    this.executor = PriorityExecutor.of(name, configuration);
+    this.metrics = new DispatchMetrics();
+    // Off by default, like offloading: buffered responses replace
+    // Helidon's own writers and framing.  If set, responses up to this
+    // many bytes are sent with a Content-Length; bigger ones are
+    // streamed.
+    final int responseBufferSize = configuration.getInt("response.buffer.size", 0);
+    if (responseBufferSize > 0) {
+      // The arena is how many bytes' worth of buffers are kept pooled,
+      // by default enough for 256 of them.  Direct buffers save a copy
+      // on the way to the socket, but are allocated outside the heap,
+      // so they too must be asked for.
+      final long arenaSize = configuration.getLong("response.buffer.arena.size", responseBufferSize * 256L);
+      this.responseBuffers = new BufferPool(responseBufferSize,
+                                            (int)Math.min(Integer.MAX_VALUE, Math.max(0L, arenaSize / responseBufferSize)),
+                                            configuration.getBoolean("response.buffer.direct", false));
+    } else {
+      this.responseBuffers = null;
+    }
+  }
+
+  final String getName() {
+    return this.name;
+  }
+
+  final ApplicationConfiguration getConfiguration() {
+    return this.configuration;
+  }
+
+  final DispatchMetrics getMetrics() {
+    return this.metrics;
+  }
+
+  final BufferPool getResponseBuffers() {
+    return this.responseBuffers;
+  }
+
+  final boolean isOffloading() {
+    return this.executor != null;
+  }
+
+  final void dispatch(final DispatchPriority.Level level, final Runnable task) throws RejectedExecutionException {
+    if (this.executor == null) {
+      task.run();
+    } else {
+      this.executor.execute(level, task);
+    }
+  }
+
+  final Executor asExecutor(final DispatchPriority.Level level) {
+    Objects.requireNonNull(level);
+    return task -> this.dispatch(level, task);
+  }
+
+  final ScheduledFuture<?> schedule(final Runnable task, final long delayNanos) {
+    ScheduledThreadPoolExecutor timer = this.timer;
+    if (timer == null) {
+      synchronized (this) {
+        timer = this.timer;
+        if (timer == null) {
+          timer = new ScheduledThreadPoolExecutor(1, r -> {
+              final Thread thread = new Thread(r, this.name + "-timer");
+              thread.setDaemon(true);
+              return thread;
+            });
+          // Most timeouts are cancelled long before they fire; don't
+          // let them pile up in the queue.
+          timer.setRemoveOnCancelPolicy(true);
+          this.timer = timer;
+        }
+      }
+    }
+    return timer.schedule(task, delayNanos, TimeUnit.NANOSECONDS);
+  }
+
+  @Override
+  public final void close() {
+    if (this.executor != null) {
+      this.executor.close();
+    }
+    synchronized (this) {
+      if (this.timer != null) {
+        this.timer.shutdownNow();
+      }
+    }
+  }
+
+}
@@ -0,0 +1,194 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright © 2019 microBean.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.microbean.helidon.webserver.jaxrs.cdi;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+
+import java.util.Objects;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import io.helidon.common.http.DataChunk;
+
+import io.helidon.common.reactive.Flow;
+
+// Publishes a CharSequence encoded straight into pooled buffers, one
+// buffer's worth at a time as chunks are asked for, so that neither
+// an intermediate byte array nor a copy of the whole entity is made.
+// Each chunk gives its buffer back to the pool when Helidon releases
+// it after writing it.  Characters that can't be encoded are
+// replaced.  Only one subscriber is allowed.
+final class EncodingPublisher implements Flow.Publisher<DataChunk> {
+
+  private final CharSequence text;
+
+  private final Charset charset;
+
+  private final BufferPool pool;
+
+  private final AtomicBoolean subscribed;
+
+  EncodingPublisher(final CharSequence text, final Charset charset, final BufferPool pool) {
+    super();
+    this.text = Objects.requireNonNull(text);
+    this.charset = Objects.requireNonNull(charset);
+    this.pool = Objects.requireNonNull(pool);
+    this.subscribed = new AtomicBoolean();
+  }
+
+  @Override
+  public final void subscribe(final Flow.Subscriber<? super DataChunk> subscriber) {
+    Objects.requireNonNull(subscriber);
+    if (this.subscribed.compareAndSet(false, true)) {
+      final CharsetEncoder encoder = this.charset.newEncoder()
+        .onMalformedInput(CodingErrorAction.REPLACE)
+        .onUnmappableCharacter(CodingErrorAction.REPLACE);
+      subscriber.onSubscribe(new Encoding(subscriber, CharBuffer.wrap(this.text), encoder, this.pool));
+    } else {
+      subscriber.onSubscribe(new Flow.Subscription() {
+          @Override
+          public final void request(final long n) {
+            // Nothing to send.
+          }
+
+          @Override
+          public final void cancel() {
+            // Nothing to stop.
+          }
+        });
+      subscriber.onError(new IllegalStateException("Already subscribed"));
+    }
+  }
+
+  // Encoding happens in drain(), which only one thread at a time gets
+  // to run, so the encoder needs no guarding even though requests may
+  // arrive on any thread, or from within onNext().
+  private static final class Encoding implements Flow.Subscription {
+
+    private final Flow.Subscriber<? super DataChunk> subscriber;
+
+    private final CharBuffer input;
+
+    private final CharsetEncoder encoder;
+
+    private final BufferPool pool;
+
+    private final AtomicLong demand;
+
+    private final AtomicInteger wip;
+
+    private volatile Throwable error;
+
+    private volatile boolean cancelled;
+
+    // Touched only in drain().
+    private boolean flushing;
+
+    // Touched only in drain().
+    private boolean done;
+
+    private Encoding(final Flow.Subscriber<? super DataChunk> subscriber,
+                     final CharBuffer input,
+                     final CharsetEncoder encoder,
+                     final BufferPool pool) {
+      super();
+      this.subscriber = subscriber;
+      this.input = input;
+      this.encoder = encoder;
+      this.pool = pool;
+      this.demand = new AtomicLong();
+      this.wip = new AtomicInteger();
+    }
+
+    @Override
+    public final void request(final long n) {
+      if (n <= 0L) {
+        this.error = new IllegalArgumentException("n: " + n);
+      } else {
+        long current;
+        long next;
+        do {
+          current = this.demand.get();
+          next = current + n;
+          if (next < 0L) {
+            next = Long.MAX_VALUE;
+          }
+        } while (!this.demand.compareAndSet(current, next));
+      }
+      this.drain();
+    }
+
+    @Override
+    public final void cancel() {
+      this.cancelled = true;
+    }
+
+    private final void drain() {
+      if (this.wip.getAndIncrement() != 0) {
+        return;
+      }
+      int missed = 1;
+      do {
+        if (!this.done && !this.cancelled) {
+          if (this.error != null) {
+            this.done = true;
+            this.subscriber.onError(this.error);
+          } else {
+            while (!this.done && !this.cancelled && this.demand.get() > 0L) {
+              final ByteBuffer buffer = this.pool.acquire();
+              // Encode until the input is exhausted, then flush until
+              // the encoder has nothing left; either may take more
+              // than one buffer.
+              if (!this.flushing && this.encoder.encode(this.input, buffer, true).isUnderflow()) {
+                this.flushing = true;
+              }
+              final boolean finished = this.flushing && this.encoder.flush(buffer).isUnderflow();
+              this.done = finished;
+              if (buffer.position() == 0) {
+                this.pool.release(buffer);
+                if (!finished) {
+                  // Not even one character fits.
+                  this.done = true;
+                  this.subscriber.onError(new IllegalStateException("Buffers of " + this.pool.getBufferSize() +
+                                                                    " bytes are too small to encode into"));
+                }
+              } else {
+                if (this.demand.get() != Long.MAX_VALUE) {
+                  this.demand.decrementAndGet();
+                }
+                this.subscriber.onNext(this.pool.chunk(buffer));
+              }
+              if (finished) {
+                this.subscriber.onComplete();
+              }
+            }
+          }
+        }
+        missed = this.wip.addAndGet(-missed);
+      } while (missed != 0);
+    }
+
+  }
+
+}
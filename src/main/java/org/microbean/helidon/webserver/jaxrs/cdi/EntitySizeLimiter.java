@@ -0,0 +1,136 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright © 2019 microBean.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.microbean.helidon.webserver.jaxrs.cdi;
+
+import java.io.IOException;
+
+import java.nio.ByteBuffer;
+
+import java.util.Objects;
+
+import io.helidon.common.http.DataChunk;
+
+import io.helidon.common.reactive.Flow;
+
+// A filter for a request's content that lets at most a given number
+// of bytes through.  The chunk that goes over the limit is released,
+// not passed on; the rest of the content is cancelled, and the
+// subscriber (usually whatever is aggregating the entity) gets an
+// EntityTooLargeException instead.
+final class EntitySizeLimiter implements Flow.Publisher<DataChunk> {
+
+  private final Flow.Publisher<DataChunk> content;
+
+  private final long maxEntitySize;
+
+  EntitySizeLimiter(final Flow.Publisher<DataChunk> content, final long maxEntitySize) {
+    super();
+    this.content = Objects.requireNonNull(content);
+    if (maxEntitySize <= 0L) {
+      throw new IllegalArgumentException("maxEntitySize: " + maxEntitySize);
+    }
+    this.maxEntitySize = maxEntitySize;
+  }
+
+  @Override
+  public final void subscribe(final Flow.Subscriber<? super DataChunk> subscriber) {
+    this.content.subscribe(new LimitingSubscriber(Objects.requireNonNull(subscriber), this.maxEntitySize));
+  }
+
+  // True if throwable is, or was caused by, an EntityTooLargeException.
+  static final boolean isEntityTooLarge(final Throwable throwable) {
+    for (Throwable t = throwable; t != null; t = t.getCause()) {
+      if (t instanceof EntityTooLargeException) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  static final class EntityTooLargeException extends IOException {
+
+    private static final long serialVersionUID = 1L;
+
+    EntityTooLargeException(final long maxEntitySize) {
+      super("Entity larger than " + maxEntitySize + " bytes");
+    }
+
+  }
+
+  // Signals arrive serially, per the reactive streams rules, so a
+  // plain counter will do.
+  private static final class LimitingSubscriber implements Flow.Subscriber<DataChunk> {
+
+    private final Flow.Subscriber<? super DataChunk> subscriber;
+
+    private final long maxEntitySize;
+
+    private long size;
+
+    private Flow.Subscription subscription;
+
+    private boolean done;
+
+    private LimitingSubscriber(final Flow.Subscriber<? super DataChunk> subscriber, final long maxEntitySize) {
+      super();
+      this.subscriber = subscriber;
+      this.maxEntitySize = maxEntitySize;
+    }
+
+    @Override
+    public final void onSubscribe(final Flow.Subscription subscription) {
+      this.subscription = subscription;
+      this.subscriber.onSubscribe(subscription);
+    }
+
+    @Override
+    public final void onNext(final DataChunk chunk) {
+      if (this.done) {
+        chunk.release();
+        return;
+      }
+      final ByteBuffer data = chunk.data();
+      this.size += data == null ? 0L : data.remaining();
+      if (this.size > this.maxEntitySize) {
+        this.done = true;
+        chunk.release();
+        this.subscription.cancel();
+        this.subscriber.onError(new EntityTooLargeException(this.maxEntitySize));
+      } else {
+        this.subscriber.onNext(chunk);
+      }
+    }
+
+    @Override
+    public final void onError(final Throwable throwable) {
+      if (!this.done) {
+        this.done = true;
+        this.subscriber.onError(throwable);
+      }
+    }
+
+    @Override
+    public final void onComplete() {
+      if (!this.done) {
+        this.done = true;
+        this.subscriber.onComplete();
+      }
+    }
+
+  }
+
+}
@@ -0,0 +1,333 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright © 2019 microBean.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.microbean.helidon.webserver.jaxrs.cdi;
+
+import java.lang.annotation.Annotation;
+
+import java.util.Arrays;
+
+import javax.enterprise.context.ContextNotActiveException;
+
+import javax.enterprise.context.spi.AlterableContext;
+import javax.enterprise.context.spi.Contextual;
+import javax.enterprise.context.spi.CreationalContext;
+
+import io.helidon.webserver.ServerRequest;
+import io.helidon.webserver.ServerResponse;
+
+// The Context for @ExchangeScoped beans.  It is active on a thread
+// only while a ResourceMethodHandler has entered an Instances there,
+// which it does for every exchange; entering is one ThreadLocal set,
+// and an Instances allocates nothing more until its first instance.
+//
+//   final ExchangeContext.Instances instances = new ExchangeContext.Instances();
+//   final ExchangeContext.Instances previous = ExchangeContext.enter(instances);
+//   try {
+//     // ...work with @ExchangeScoped beans...
+//   } finally {
+//     ExchangeContext.exit(previous);
+//   }
+//   // ...and, once the response has been sent:
+//   instances.destroy();
+final class ExchangeContext implements AlterableContext {
+
+  private static final ThreadLocal<Instances> current = new ThreadLocal<>();
+
+  ExchangeContext() {
+    super();
+  }
+
+  // Returns what was current before, to be handed to exit().
+  static final Instances enter(final Instances instances) {
+    final Instances returnValue = current.get();
+    current.set(instances);
+    return returnValue;
+  }
+
+  static final void exit(final Instances previous) {
+    if (previous == null) {
+      current.remove();
+    } else {
+      current.set(previous);
+    }
+  }
+
+  // Returns what is current on this thread, if anything, so that
+  // work done elsewhere can be run() in the same exchange.  Nothing
+  // is copied.
+  static final Instances capture() {
+    return current.get();
+  }
+
+  // Runs task with instances, which may be null, current.
+  static final void run(final Instances instances, final Runnable task) {
+    if (instances == null) {
+      task.run();
+    } else {
+      final Instances previous = enter(instances);
+      try {
+        task.run();
+      } finally {
+        exit(previous);
+      }
+    }
+  }
+
+  @Override
+  public final Class<? extends Annotation> getScope() {
+    return ExchangeScoped.class;
+  }
+
+  @Override
+  public final boolean isActive() {
+    return current.get() != null;
+  }
+
+  @Override
+  public final <T> T get(final Contextual<T> contextual, final CreationalContext<T> creationalContext) {
+    return getInstances().get(contextual, creationalContext);
+  }
+
+  @Override
+  public final <T> T get(final Contextual<T> contextual) {
+    return getInstances().get(contextual, null);
+  }
+
+  @Override
+  public final void destroy(final Contextual<?> contextual) {
+    getInstances().destroy(contextual);
+  }
+
+  // For ResourceMethodHandler, which hands @ExchangeScoped instances
+  // to resource methods directly.  Returns null if there is no
+  // instance yet and creationalContext is null.
+  static final <T> T getInstance(final Contextual<T> contextual, final CreationalContext<T> creationalContext) {
+    return getInstances().get(contextual, creationalContext);
+  }
+
+  // The Instances current on this thread; there must be one.
+  static final Instances current() {
+    return getInstances();
+  }
+
+  private static final Instances getInstances() {
+    final Instances returnValue = current.get();
+    if (returnValue == null) {
+      throw new ContextNotActiveException(ExchangeScoped.class.getName());
+    }
+    return returnValue;
+  }
+
+  // The instances of one exchange, and the request and resource
+  // method it is for.  There are seldom more than a couple of
+  // instances, so they're kept in parallel arrays, allocated on
+  // first use, and searched linearly.  The handler thread creates
+  // them, but whichever thread completes the response destroys
+  // them, hence the locking.
+  static final class Instances {
+
+    // Null when warming up.
+    private final ServerRequest request;
+
+    // Null when warming up, and in tests that don't need it.
+    private final ServerResponse response;
+
+    private final ResourceMethodDescriptor<?> descriptor;
+
+    private volatile Object resource;
+
+    private Contextual<?>[] contextuals;
+
+    private Object[] instances;
+
+    private CreationalContext<?>[] creationalContexts;
+
+    private int size;
+
+    private boolean destroyed;
+
+    Instances() {
+      this(null, null);
+    }
+
+    Instances(final ServerRequest request, final ResourceMethodDescriptor<?> descriptor) {
+      this(request, null, descriptor);
+    }
+
+    Instances(final ServerRequest request, final ServerResponse response, final ResourceMethodDescriptor<?> descriptor) {
+      super();
+      this.request = request;
+      this.response = response;
+      this.descriptor = descriptor;
+    }
+
+    final ServerRequest getRequest() {
+      if (this.request == null) {
+        throw new IllegalStateException("No request is being handled");
+      }
+      return this.request;
+    }
+
+    final ServerResponse getResponse() {
+      if (this.response == null) {
+        throw new IllegalStateException("No response is being sent");
+      }
+      return this.response;
+    }
+
+    // The deadline ResourceMethodHandler registered with the request,
+    // or RequestDeadline.NONE.
+    final RequestDeadline getDeadline() {
+      return this.request == null ? RequestDeadline.NONE : this.request.context().get(RequestDeadline.class).orElse(RequestDeadline.NONE);
+    }
+
+    final ResourceMethodDescriptor<?> getDescriptor() {
+      return this.descriptor;
+    }
+
+    // The resource instance whose method is being invoked, once it
+    // has been acquired.
+    final Object getResource() {
+      return this.resource;
+    }
+
+    final void setResource(final Object resource) {
+      this.resource = resource;
+    }
+
+    private final <T> T get(final Contextual<T> contextual, final CreationalContext<T> creationalContext) {
+      synchronized (this) {
+        if (this.destroyed) {
+          throw new ContextNotActiveException(ExchangeScoped.class.getName());
+        }
+        final int index = this.indexOf(contextual);
+        if (index >= 0) {
+          @SuppressWarnings("unchecked")
+          final T returnValue = (T)this.instances[index];
+          return returnValue;
+        }
+      }
+      if (creationalContext == null) {
+        return null;
+      }
+      // Not under the lock: creating an @Entity instance blocks while
+      // the request body is read.
+      final T instance = contextual.create(creationalContext);
+      final Object existing;
+      synchronized (this) {
+        if (this.destroyed) {
+          existing = null;
+        } else {
+          final int index = this.indexOf(contextual);
+          if (index >= 0) {
+            // Another thread created one first; it wins.
+            existing = this.instances[index];
+          } else {
+            if (this.contextuals == null) {
+              this.contextuals = new Contextual<?>[2];
+              this.instances = new Object[2];
+              this.creationalContexts = new CreationalContext<?>[2];
+            } else if (this.size == this.contextuals.length) {
+              final int length = this.size * 2;
+              this.contextuals = Arrays.copyOf(this.contextuals, length);
+              this.instances = Arrays.copyOf(this.instances, length);
+              this.creationalContexts = Arrays.copyOf(this.creationalContexts, length);
+            }
+            this.contextuals[this.size] = contextual;
+            this.instances[this.size] = instance;
+            this.creationalContexts[this.size] = creationalContext;
+            this.size++;
+            return instance;
+          }
+        }
+      }
+      // Either another thread won, or the exchange was destroyed
+      // while this instance was being created.
+      contextual.destroy(instance, creationalContext);
+      if (existing == null) {
+        throw new ContextNotActiveException(ExchangeScoped.class.getName());
+      }
+      @SuppressWarnings("unchecked")
+      final T returnValue = (T)existing;
+      return returnValue;
+    }
+
+    private final int indexOf(final Contextual<?> contextual) {
+      for (int i = 0; i < this.size; i++) {
+        if (this.contextuals[i] == contextual || this.contextuals[i].equals(contextual)) {
+          return i;
+        }
+      }
+      return -1;
+    }
+
+    private final void destroy(final Contextual<?> contextual) {
+      final Object instance;
+      final CreationalContext<?> creationalContext;
+      synchronized (this) {
+        final int index = this.indexOf(contextual);
+        if (index < 0) {
+          return;
+        }
+        instance = this.instances[index];
+        creationalContext = this.creationalContexts[index];
+        final int last = --this.size;
+        this.contextuals[index] = this.contextuals[last];
+        this.instances[index] = this.instances[last];
+        this.creationalContexts[index] = this.creationalContexts[last];
+        this.contextuals[last] = null;
+        this.instances[last] = null;
+        this.creationalContexts[last] = null;
+      }
+      destroy(contextual, instance, creationalContext);
+    }
+
+    // Destroys every instance; idempotent.
+    final void destroy() {
+      final Contextual<?>[] contextuals;
+      final Object[] instances;
+      final CreationalContext<?>[] creationalContexts;
+      final int size;
+      synchronized (this) {
+        if (this.destroyed) {
+          return;
+        }
+        this.destroyed = true;
+        contextuals = this.contextuals;
+        instances = this.instances;
+        creationalContexts = this.creationalContexts;
+        size = this.size;
+        this.contextuals = null;
+        this.instances = null;
+        this.creationalContexts = null;
+        this.size = 0;
+      }
+      for (int i = 0; i < size; i++) {
+        destroy(contextuals[i], instances[i], creationalContexts[i]);
+      }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static final <T> void destroy(final Contextual<T> contextual,
+                                          final Object instance,
+                                          final CreationalContext<?> creationalContext) {
+      contextual.destroy((T)instance, (CreationalContext<T>)creationalContext);
+    }
+
+  }
+
+}
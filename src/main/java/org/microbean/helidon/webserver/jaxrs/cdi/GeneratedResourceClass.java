@@ -0,0 +1,58 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright © 2019 microBean.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.microbean.helidon.webserver.jaxrs.cdi;
+
+import java.util.List;
+
+/**
+ * The resource model of one resource class, as worked out at compile
+ * time by the {@linkplain
+ * org.microbean.helidon.webserver.jaxrs.cdi.processor.ResourceModelProcessor
+ * resource model processor}.
+ *
+ * <p>When a resource class named {@code com.example.Outer$Inner} is
+ * bootstrapped, a {@code public} implementation of this interface
+ * named {@code com.example.Outer_Inner_ResourceModel} with a {@code
+ * public} zero-argument constructor is used in place of reflection,
+ * if it exists.</p>
+ *
+ * @author <a href="https://about.me/lairdnelson"
+ * target="_parent">Laird Nelson</a>
+ *
+ * @see GeneratedResourceMethod
+ */
+public interface GeneratedResourceClass {
+
+  /**
+   * Returns the value of the resource class's {@link javax.ws.rs.Path}
+   * annotation, without leading or trailing slashes, or {@code null}
+   * if it has none.
+   *
+   * @return the path of the resource class, or {@code null}
+   */
+  String getPath();
+
+  /**
+   * Returns the resource methods of the resource class, including
+   * those it inherits.
+   *
+   * @return a non-{@code null} {@link List} of {@link
+   * GeneratedResourceMethod}s
+   */
+  List<GeneratedResourceMethod> getResourceMethods();
+
+}
@@ -0,0 +1,72 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright © 2019 microBean.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.microbean.helidon.webserver.jaxrs.cdi;
+
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+// Finds the GeneratedResourceClass, if any, that the resource model
+// processor produced for a resource class.  The naming scheme here
+// must agree with ResourceModelProcessor's.
+final class GeneratedResourceClasses {
+
+  static final String SUFFIX = "_ResourceModel";
+
+  private static final Logger logger = Logger.getLogger(HelidonJAXRSExtension.class.getName());
+
+  private GeneratedResourceClasses() {
+    super();
+  }
+
+  // com.example.Outer$Inner -> com.example.Outer_Inner_ResourceModel
+  static final String getName(final Class<?> resourceClass) {
+    final String name = resourceClass.getName();
+    final int lastDot = name.lastIndexOf('.');
+    return new StringBuilder(name.length() + SUFFIX.length())
+      .append(name, 0, lastDot + 1)
+      .append(name.substring(lastDot + 1).replace('$', '_'))
+      .append(SUFFIX)
+      .toString();
+  }
+
+  // Returns null if there isn't one, or if it can't be used, in which
+  // case the caller should fall back to reflection.
+  static final GeneratedResourceClass load(final Class<?> resourceClass) {
+    GeneratedResourceClass returnValue = null;
+    if (resourceClass != null && !resourceClass.isArray() && !resourceClass.isPrimitive()) {
+      final String name = getName(resourceClass);
+      try {
+        final Class<?> c = Class.forName(name, true, resourceClass.getClassLoader());
+        if (GeneratedResourceClass.class.isAssignableFrom(c)) {
+          returnValue = (GeneratedResourceClass)c.getDeclaredConstructor().newInstance();
+        }
+      } catch (final ClassNotFoundException classNotFoundException) {
+        // The resource model processor didn't run; that's fine.
+      } catch (final ReflectiveOperationException | LinkageError | RuntimeException exception) {
+        if (logger.isLoggable(Level.WARNING)) {
+          logger.logp(Level.WARNING,
+                      GeneratedResourceClasses.class.getName(),
+                      "load",
+                      "Could not use " + name + "; falling back to reflection",
+                      exception);
+        }
+      }
+    }
+    return returnValue;
+  }
+
+}
@@ -0,0 +1,217 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright © 2019 microBean.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.microbean.helidon.webserver.jaxrs.cdi;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * One resource method of a {@link GeneratedResourceClass}.
+ *
+ * @author <a href="https://about.me/lairdnelson"
+ * target="_parent">Laird Nelson</a>
+ *
+ * @see GeneratedResourceClass#getResourceMethods()
+ */
+public final class GeneratedResourceMethod {
+
+  private static final String[] EMPTY_STRING_ARRAY = new String[0];
+
+  private final String name;
+
+  private final Class<?>[] parameterTypes;
+
+  private final String path;
+
+  private final String httpMethod;
+
+  private final String[] consumedMediaTypes;
+
+  private final String[] producedMediaTypes;
+
+  private final DispatchPriority.Level priority;
+
+  private final long timeoutNanos;
+
+  private final long maxEntitySize;
+
+  private final ResourceMethodInvoker invoker;
+
+  /**
+   * Creates a new {@link GeneratedResourceMethod}.
+   *
+   * @param name the name of the resource method; must not be {@code
+   * null}
+   *
+   * @param parameterTypes the (erased) parameter types of the resource
+   * method; may be {@code null}
+   *
+   * @param path the value of the resource method's {@link
+   * javax.ws.rs.Path} annotation, without leading or trailing slashes,
+   * or {@code null} if it has none
+   *
+   * @param httpMethod the name of the HTTP method the resource method
+   * responds to, or {@code null} if it is a sub-resource locator
+   *
+   * @param consumedMediaTypes the values of the resource method's
+   * {@link javax.ws.rs.Consumes} annotation; may be {@code null}
+   *
+   * @param producedMediaTypes the values of the resource method's
+   * {@link javax.ws.rs.Produces} annotation; may be {@code null}
+   *
+   * @param priority the {@linkplain DispatchPriority priority} of the
+   * resource method; may be {@code null}
+   *
+   * @param timeoutNanos the {@linkplain DispatchTimeout timeout} of the
+   * resource method in nanoseconds, or a negative value if none was
+   * declared
+   *
+   * @param invoker a {@link ResourceMethodInvoker} that invokes the
+   * resource method; may be {@code null}, in which case the resource
+   * method is invoked reflectively
+   *
+   * @exception NullPointerException if {@code name} is {@code null}
+   */
+  public GeneratedResourceMethod(final String name,
+                                 final Class<?>[] parameterTypes,
+                                 final String path,
+                                 final String httpMethod,
+                                 final String[] consumedMediaTypes,
+                                 final String[] producedMediaTypes,
+                                 final DispatchPriority.Level priority,
+                                 final long timeoutNanos,
+                                 final ResourceMethodInvoker invoker) {
+    this(name, parameterTypes, path, httpMethod, consumedMediaTypes, producedMediaTypes, priority, timeoutNanos, -1L, invoker);
+  }
+
+  /**
+   * Creates a new {@link GeneratedResourceMethod}.
+   *
+   * @param name the name of the resource method; must not be {@code
+   * null}
+   *
+   * @param parameterTypes the (erased) parameter types of the resource
+   * method; may be {@code null}
+   *
+   * @param path the value of the resource method's {@link
+   * javax.ws.rs.Path} annotation, without leading or trailing slashes,
+   * or {@code null} if it has none
+   *
+   * @param httpMethod the name of the HTTP method the resource method
+   * responds to, or {@code null} if it is a sub-resource locator
+   *
+   * @param consumedMediaTypes the values of the resource method's
+   * {@link javax.ws.rs.Consumes} annotation; may be {@code null}
+   *
+   * @param producedMediaTypes the values of the resource method's
+   * {@link javax.ws.rs.Produces} annotation; may be {@code null}
+   *
+   * @param priority the {@linkplain DispatchPriority priority} of the
+   * resource method; may be {@code null}
+   *
+   * @param timeoutNanos the {@linkplain DispatchTimeout timeout} of the
+   * resource method in nanoseconds, or a negative value if none was
+   * declared
+   *
+   * @param maxEntitySize the {@linkplain MaxEntitySize maximum entity
+   * size} of the resource method in bytes, {@code 0L} if it declared
+   * that there is no limit, or a negative value if none was declared
+   *
+   * @param invoker a {@link ResourceMethodInvoker} that invokes the
+   * resource method; may be {@code null}, in which case the resource
+   * method is invoked reflectively
+   *
+   * @exception NullPointerException if {@code name} is {@code null}
+   */
+  public GeneratedResourceMethod(final String name,
+                                 final Class<?>[] parameterTypes,
+                                 final String path,
+                                 final String httpMethod,
+                                 final String[] consumedMediaTypes,
+                                 final String[] producedMediaTypes,
+                                 final DispatchPriority.Level priority,
+                                 final long timeoutNanos,
+                                 final long maxEntitySize,
+                                 final ResourceMethodInvoker invoker) {
+    super();
+    this.name = Objects.requireNonNull(name);
+    this.parameterTypes = parameterTypes == null ? new Class<?>[0] : parameterTypes.clone();
+    this.path = path;
+    this.httpMethod = httpMethod;
+    this.consumedMediaTypes = consumedMediaTypes == null ? EMPTY_STRING_ARRAY : consumedMediaTypes.clone();
+    this.producedMediaTypes = producedMediaTypes == null ? EMPTY_STRING_ARRAY : producedMediaTypes.clone();
+    this.priority = priority;
+    this.timeoutNanos = timeoutNanos < 0L ? -1L : timeoutNanos;
+    this.maxEntitySize = maxEntitySize < 0L ? -1L : maxEntitySize;
+    this.invoker = invoker;
+  }
+
+  public final String getName() {
+    return this.name;
+  }
+
+  public final Class<?>[] getParameterTypes() {
+    return this.parameterTypes.clone();
+  }
+
+  public final String getPath() {
+    return this.path;
+  }
+
+  // Null for sub-resource locators.
+  public final String getHttpMethod() {
+    return this.httpMethod;
+  }
+
+  public final String[] getConsumedMediaTypes() {
+    return this.consumedMediaTypes.clone();
+  }
+
+  public final String[] getProducedMediaTypes() {
+    return this.producedMediaTypes.clone();
+  }
+
+  public final DispatchPriority.Level getPriority() {
+    return this.priority;
+  }
+
+  public final long getTimeoutNanos() {
+    return this.timeoutNanos;
+  }
+
+  public final long getMaxEntitySize() {
+    return this.maxEntitySize;
+  }
+
+  public final ResourceMethodInvoker getInvoker() {
+    return this.invoker;
+  }
+
+  // Whether this describes a method with the given name and (erased)
+  // parameter types; doesn't copy anything.
+  final boolean matches(final String name, final Class<?>[] parameterTypes) {
+    return this.name.equals(name) && Arrays.equals(this.parameterTypes, parameterTypes);
+  }
+
+  @Override
+  public final String toString() {
+    return new StringBuilder("@").append(this.httpMethod == null ? "Path" : this.httpMethod).append(" ")
+      .append(this.name).append(Arrays.toString(this.parameterTypes))
+      .toString();
+  }
+
+}
@@ -0,0 +1,321 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright © 2019 microBean.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.microbean.helidon.webserver.jaxrs.cdi;
+
+import java.time.ZonedDateTime;
+
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+
+import javax.ws.rs.core.Cookie;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedMap;
+
+import io.helidon.common.http.Parameters;
+
+import io.helidon.webserver.ServerRequest;
+
+// An HttpHeaders that is a view of an exchange's ServerRequest's
+// headers.  Each header is parsed only when it is asked for, and then
+// only once per exchange.
+final class HelidonHttpHeaders implements HttpHeaders {
+
+  private static final List<Locale> ANY_LANGUAGE = Collections.singletonList(new Locale("*"));
+
+  private static final List<MediaType> ANY_MEDIA_TYPE = Collections.singletonList(MediaType.WILDCARD_TYPE);
+
+  private final Parameters headers;
+
+  private MultivaluedMap<String, String> requestHeaders;
+
+  private List<MediaType> acceptableMediaTypes;
+
+  private List<Locale> acceptableLanguages;
+
+  private MediaType mediaType;
+
+  private Locale language;
+
+  private Map<String, Cookie> cookies;
+
+  private Date date;
+
+  private int length = -2;
+
+  HelidonHttpHeaders(final ServerRequest request) {
+    super();
+    this.headers = Objects.requireNonNull(request).headers();
+  }
+
+  @Override
+  public List<String> getRequestHeader(final String name) {
+    final List<String> values = this.headers.all(name);
+    return values == null || values.isEmpty() ? null : values;
+  }
+
+  @Override
+  public String getHeaderString(final String name) {
+    final List<String> values = this.getRequestHeader(name);
+    final String returnValue;
+    if (values == null) {
+      returnValue = null;
+    } else if (values.size() == 1) {
+      returnValue = values.get(0);
+    } else {
+      returnValue = String.join(",", values);
+    }
+    return returnValue;
+  }
+
+  @Override
+  public MultivaluedMap<String, String> getRequestHeaders() {
+    if (this.requestHeaders == null) {
+      final Map<String, List<String>> headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+      for (final Map.Entry<String, List<String>> entry : this.headers.toMap().entrySet()) {
+        headers.put(entry.getKey(), new ArrayList<>(entry.getValue()));
+      }
+      this.requestHeaders = HelidonUriInfo.readOnly(headers);
+    }
+    return this.requestHeaders;
+  }
+
+  @Override
+  public List<MediaType> getAcceptableMediaTypes() {
+    if (this.acceptableMediaTypes == null) {
+      final List<Weighted<MediaType>> weighted = new ArrayList<>();
+      for (final String element : elements(this.getHeaderString(ACCEPT))) {
+        final MediaType mediaType = parseMediaType(element);
+        if (mediaType != null) {
+          final Map<String, String> parameters = new LinkedHashMap<>(mediaType.getParameters());
+          final float quality = quality(parameters.remove("q"));
+          if (quality > 0f) {
+            weighted.add(new Weighted<>(new MediaType(mediaType.getType(), mediaType.getSubtype(), parameters), quality));
+          }
+        }
+      }
+      this.acceptableMediaTypes = weighted.isEmpty() ? ANY_MEDIA_TYPE : Weighted.sort(weighted);
+    }
+    return this.acceptableMediaTypes;
+  }
+
+  @Override
+  public List<Locale> getAcceptableLanguages() {
+    if (this.acceptableLanguages == null) {
+      final List<Weighted<Locale>> weighted = new ArrayList<>();
+      for (final String element : elements(this.getHeaderString(ACCEPT_LANGUAGE))) {
+        final int semicolon = element.indexOf(';');
+        final String tag = (semicolon < 0 ? element : element.substring(0, semicolon)).trim();
+        float quality = 1f;
+        if (semicolon >= 0) {
+          for (final String parameter : element.substring(semicolon + 1).split(";")) {
+            final int equals = parameter.indexOf('=');
+            if (equals > 0 && "q".equalsIgnoreCase(parameter.substring(0, equals).trim())) {
+              quality = quality(parameter.substring(equals + 1).trim());
+            }
+          }
+        }
+        if (!tag.isEmpty() && quality > 0f) {
+          weighted.add(new Weighted<>("*".equals(tag) ? new Locale("*") : Locale.forLanguageTag(tag), quality));
+        }
+      }
+      this.acceptableLanguages = weighted.isEmpty() ? ANY_LANGUAGE : Weighted.sort(weighted);
+    }
+    return this.acceptableLanguages;
+  }
+
+  @Override
+  public MediaType getMediaType() {
+    if (this.mediaType == null) {
+      final String contentType = this.headers.first(CONTENT_TYPE).orElse(null);
+      this.mediaType = contentType == null ? null : parseMediaType(contentType);
+    }
+    return this.mediaType;
+  }
+
+  @Override
+  public Locale getLanguage() {
+    if (this.language == null) {
+      final String contentLanguage = this.headers.first(CONTENT_LANGUAGE).orElse(null);
+      this.language = contentLanguage == null ? null : Locale.forLanguageTag(contentLanguage.trim());
+    }
+    return this.language;
+  }
+
+  @Override
+  public Map<String, Cookie> getCookies() {
+    if (this.cookies == null) {
+      final Map<String, Cookie> cookies = new LinkedHashMap<>();
+      final List<String> values = this.getRequestHeader(COOKIE);
+      if (values != null) {
+        for (final String value : values) {
+          for (final String pair : value.split("[;,]")) {
+            final int equals = pair.indexOf('=');
+            if (equals > 0) {
+              final String name = pair.substring(0, equals).trim();
+              // Attributes such as $Path belong to the preceding cookie
+              // and are not cookies themselves.
+              if (!name.startsWith("$")) {
+                cookies.putIfAbsent(name, new Cookie(name, unquote(pair.substring(equals + 1).trim())));
+              }
+            }
+          }
+        }
+      }
+      this.cookies = Collections.unmodifiableMap(cookies);
+    }
+    return this.cookies;
+  }
+
+  @Override
+  public Date getDate() {
+    if (this.date == null) {
+      this.date = parseDate(this.headers.first(DATE).orElse(null));
+    }
+    return this.date;
+  }
+
+  @Override
+  public int getLength() {
+    if (this.length == -2) {
+      int length = -1;
+      final String contentLength = this.headers.first(CONTENT_LENGTH).orElse(null);
+      if (contentLength != null) {
+        try {
+          length = Integer.parseInt(contentLength.trim());
+        } catch (final NumberFormatException numberFormatException) {
+          length = -1;
+        }
+      }
+      this.length = length < 0 ? -1 : length;
+    }
+    return this.length;
+  }
+
+  // Returns null if the supplied String is null or not an RFC 1123
+  // date.
+  static final Date parseDate(final String date) {
+    Date returnValue = null;
+    if (date != null) {
+      try {
+        returnValue = Date.from(ZonedDateTime.parse(date.trim(), DateTimeFormatter.RFC_1123_DATE_TIME).toInstant());
+      } catch (final DateTimeParseException dateTimeParseException) {
+        returnValue = null;
+      }
+    }
+    return returnValue;
+  }
+
+  // Parses, e.g., "text/plain; charset=UTF-8" without going through
+  // a JAX-RS implementation's RuntimeDelegate.  Returns null if the
+  // supplied String is not a media type.
+  static final MediaType parseMediaType(final String mediaType) {
+    final String[] parts = mediaType.split(";");
+    final String typeAndSubtype = parts[0].trim();
+    final int slash = typeAndSubtype.indexOf('/');
+    final MediaType returnValue;
+    if (slash <= 0 || slash == typeAndSubtype.length() - 1) {
+      returnValue = "*".equals(typeAndSubtype) ? MediaType.WILDCARD_TYPE : null;
+    } else {
+      final Map<String, String> parameters = new LinkedHashMap<>();
+      for (int i = 1; i < parts.length; i++) {
+        final int equals = parts[i].indexOf('=');
+        if (equals > 0) {
+          parameters.put(parts[i].substring(0, equals).trim().toLowerCase(Locale.ROOT),
+                         unquote(parts[i].substring(equals + 1).trim()));
+        }
+      }
+      returnValue = new MediaType(typeAndSubtype.substring(0, slash).trim(),
+                                  typeAndSubtype.substring(slash + 1).trim(),
+                                  parameters);
+    }
+    return returnValue;
+  }
+
+  // Splits a comma-separated header value into its trimmed, non-empty
+  // elements.
+  static final List<String> elements(final String value) {
+    final List<String> returnValue;
+    if (value == null || value.isEmpty()) {
+      returnValue = Collections.emptyList();
+    } else {
+      returnValue = new ArrayList<>();
+      for (final String element : value.split(",")) {
+        final String trimmed = element.trim();
+        if (!trimmed.isEmpty()) {
+          returnValue.add(trimmed);
+        }
+      }
+    }
+    return returnValue;
+  }
+
+  private static final float quality(final String q) {
+    float returnValue = 1f;
+    if (q != null) {
+      try {
+        returnValue = Float.parseFloat(q);
+      } catch (final NumberFormatException numberFormatException) {
+        returnValue = 0f;
+      }
+    }
+    return returnValue;
+  }
+
+  private static final String unquote(final String value) {
+    if (value.length() >= 2 && value.charAt(0) == '"' && value.charAt(value.length() - 1) == '"') {
+      return value.substring(1, value.length() - 1);
+    }
+    return value;
+  }
+
+  // Something from an Accept-style header, with its q value.  Sorting
+  // is stable, so equally weighted things stay in header order.
+  private static final class Weighted<T> {
+
+    private final T value;
+
+    private final float quality;
+
+    private Weighted(final T value, final float quality) {
+      super();
+      this.value = value;
+      this.quality = quality;
+    }
+
+    private static final <T> List<T> sort(final List<Weighted<T>> weighted) {
+      weighted.sort((w1, w2) -> Float.compare(w2.quality, w1.quality));
+      final List<T> returnValue = new ArrayList<>(weighted.size());
+      for (final Weighted<T> w : weighted) {
+        returnValue.add(w.value);
+      }
+      return Collections.unmodifiableList(returnValue);
+    }
+
+  }
+
+}
@@ -23,19 +23,29 @@ import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
 import java.lang.reflect.Type;
 
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
 import java.util.Objects;
 import java.util.Set;
 
-import java.util.concurrent.ExecutionException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
 
 import javax.annotation.Priority;
 
 import javax.enterprise.context.ApplicationScoped;
 import javax.enterprise.context.Dependent;
-import javax.enterprise.context.RequestScoped;
 
 import javax.enterprise.context.spi.CreationalContext;
 
@@ -50,6 +60,7 @@ import javax.enterprise.inject.spi.Bean;
 import javax.enterprise.inject.spi.BeanAttributes;
 import javax.enterprise.inject.spi.BeanManager;
 import javax.enterprise.inject.spi.BeforeBeanDiscovery;
+import javax.enterprise.inject.spi.BeforeShutdown;
 import javax.enterprise.inject.spi.Extension;
 import javax.enterprise.inject.spi.InjectionTargetFactory;
 import javax.enterprise.inject.spi.ProcessAnnotatedType;
@@ -82,7 +93,12 @@ import javax.ws.rs.container.ContainerResponseFilter;
 import javax.ws.rs.container.DynamicFeature;
 
 import javax.ws.rs.core.Application;
+import javax.ws.rs.core.Context;
 import javax.ws.rs.core.Feature;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.Request;
+import javax.ws.rs.core.SecurityContext;
+import javax.ws.rs.core.UriInfo;
 
 import javax.ws.rs.ext.ContextResolver;
 import javax.ws.rs.ext.ExceptionMapper;
@@ -93,7 +109,11 @@ import javax.ws.rs.ext.Provider;
 import javax.ws.rs.ext.ReaderInterceptor;
 import javax.ws.rs.ext.WriterInterceptor;
 
+import javax.ws.rs.sse.Sse;
+import javax.ws.rs.sse.SseEventSink;
+
 import io.helidon.webserver.ServerRequest;
+import io.helidon.webserver.ServerResponse;
 
 import org.microbean.helidon.webserver.cdi.HelidonWebServerExtension;
 
@@ -101,12 +121,20 @@ public class HelidonJAXRSExtension implements Extension {
 
   private static final ApplicationPath DEFAULT_APPLICATION_PATH = new ApplicationPathLiteral("");
 
+  private static final Comparator<ResourceMethodDescriptor<?>> DESCRIPTOR_ORDER =
+    Comparator.<ResourceMethodDescriptor<?>, String>comparing(d -> d.getPath())
+    .thenComparing(d -> d.getResourceMethod().getJavaMember().toGenericString());
+
+  private final Collection<Dispatcher> dispatchers;
+
   public HelidonJAXRSExtension() {
     super();
+    this.dispatchers = new ArrayList<>();
   }
 
   private final void makeCertainJaxRsAnnotationsQualifiers(@Observes final BeforeBeanDiscovery event) {
     event.addQualifier(PathParam.class); // TODO: and so on
+    event.addQualifier(Context.class);
   }
 
   private final <T extends Application> void ensureApplicationPathOnApplications(@Observes final ProcessAnnotatedType<T> event) {
@@ -140,27 +168,90 @@ public class HelidonJAXRSExtension implements Extension {
     }
   }
 
+  private final void addExchangeContext(@Observes final AfterBeanDiscovery event) {
+    event.addContext(new ExchangeContext());
+  }
+
   private final void registerClassesAndSingletons(@Observes @Priority(Interceptor.Priority.APPLICATION) final AfterBeanDiscovery event, final BeanManager beanManager)
     throws ReflectiveOperationException {
     if (event != null && beanManager != null) {
       final Set<Bean<?>> beans = beanManager.getBeans(Application.class, Any.Literal.INSTANCE);
       if (beans != null && !beans.isEmpty()) {
-        for (final Bean<?> bean : beans) {
-          @SuppressWarnings("unchecked")
-          final Bean<? extends Application> applicationBean = (Bean<? extends Application>)bean;
-          registerClassesAndSingletons(event, applicationBean, beanManager);
+        // Resource classes often share superclasses and interfaces,
+        // even across Applications; only work out what they declare
+        // once.
+        final AnnotationInheritanceIndex index = new AnnotationInheritanceIndex(beanManager);
+
+        // Building resource models is mostly reflection, and can
+        // happen on any thread; only adding beans has to happen here,
+        // and in order.  Applications are visited in the order of
+        // their class names so that order doesn't depend on the
+        // order of the Set.
+        final List<Bean<?>> applicationBeans = new ArrayList<>(beans);
+        applicationBeans.sort(Comparator.comparing(b -> b.getBeanClass().getName()));
+        final ApplicationConfiguration configuration = new ApplicationConfiguration(null);
+        // Resource models generated at compile time by
+        // ResourceModelProcessor are used when present unless this is
+        // false.
+        final boolean useGeneratedResourceClasses = configuration.getBoolean("bootstrap.generated", true);
+        final ForkJoinPool pool = createBootstrapPool(configuration);
+        try {
+          final Executor executor = pool == null ? Runnable::run : pool;
+          final List<ResourceModel<?, ?>> resourceModels = new ArrayList<>(applicationBeans.size());
+          for (final Bean<?> bean : applicationBeans) {
+            @SuppressWarnings("unchecked")
+            final Bean<? extends Application> applicationBean = (Bean<? extends Application>)bean;
+            final ResourceModel<?, ?> resourceModel = buildResourceModel(applicationBean, index, useGeneratedResourceClasses, executor);
+            if (resourceModel != null) {
+              resourceModels.add(resourceModel);
+            }
+          }
+          for (final ResourceModel<?, ?> resourceModel : resourceModels) {
+            finishResourceModel(resourceModel);
+          }
+          for (final ResourceModel<?, ?> resourceModel : resourceModels) {
+            registerClassesAndSingletons(event, resourceModel, this.dispatchers);
+          }
+        } finally {
+          if (pool != null) {
+            pool.shutdown();
+          }
         }
       }
     }
   }
 
-  private static final <T extends Application, U> void registerClassesAndSingletons(final AfterBeanDiscovery event,
-                                                                                    final Bean<T> bean,
-                                                                                    final BeanManager beanManager)
-    throws ReflectiveOperationException {
-    Objects.requireNonNull(event);
+  // Returns null unless bootstrap.parallel is true.  Its threads use
+  // the current thread's context classloader, which is the one CDI is
+  // using.
+  private static final ForkJoinPool createBootstrapPool(final ApplicationConfiguration configuration) {
+    final ForkJoinPool returnValue;
+    if (configuration.getBoolean("bootstrap.parallel", false)) {
+      final int parallelism = configuration.getInt("bootstrap.parallelism", Runtime.getRuntime().availableProcessors());
+      final ClassLoader contextClassLoader = Thread.currentThread().getContextClassLoader();
+      returnValue = new ForkJoinPool(Math.max(1, parallelism),
+                                     p -> {
+                                       final ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(p);
+                                       thread.setName("helidon-jaxrs-bootstrap-" + thread.getPoolIndex());
+                                       thread.setContextClassLoader(contextClassLoader);
+                                       return thread;
+                                     },
+                                     null,
+                                     false);
+    } else {
+      returnValue = null;
+    }
+    return returnValue;
+  }
+
+  private static final <T extends Application, U> ResourceModel<T, U> buildResourceModel(final Bean<T> bean,
+                                                                                        final AnnotationInheritanceIndex index,
+                                                                                        final boolean useGeneratedResourceClasses,
+                                                                                        final Executor executor) {
     Objects.requireNonNull(bean);
-    Objects.requireNonNull(beanManager);
+    Objects.requireNonNull(index);
+    Objects.requireNonNull(executor);
+    final BeanManager beanManager = index.getBeanManager();
 
     // The contexts aren't active yet, so we can't use Context's get()
     // methods.  Instead, we're going to ask the Bean to create an
@@ -175,223 +266,497 @@ public class HelidonJAXRSExtension implements Extension {
     // registered it to become a "real bean" in our
     // ProcessAnnotatedType observer method.
     
+    final BootstrapTimer discoveryTimer = BootstrapTimer.start(BootstrapTimer.Phase.APPLICATION_DISCOVERY);
     final CreationalContext<T> cc = beanManager.createCreationalContext(bean);
     final T application = bean.create(cc);
-    if (application != null) {
-
-      // application should not be a proxy because we've asked the
-      // Bean to create it directly.  That's good; we can get
-      // its @ApplicationPath directly.
-      final ApplicationPath applicationPath;
-      final Class<?> applicationClass = application.getClass();
-      assert !applicationClass.isSynthetic();
-      if (applicationClass.isAnnotationPresent(ApplicationPath.class)) {
-        applicationPath = applicationClass.getAnnotation(ApplicationPath.class);
+    if (application == null) {
+      bean.destroy(application, cc);
+      cc.release();
+      return null;
+    }
+
+    // application should not be a proxy because we've asked the
+    // Bean to create it directly.  That's good; we can get
+    // its @ApplicationPath directly.
+    final ApplicationPath applicationPath;
+    final Class<?> applicationClass = application.getClass();
+    assert !applicationClass.isSynthetic();
+    if (applicationClass.isAnnotationPresent(ApplicationPath.class)) {
+      applicationPath = applicationClass.getAnnotation(ApplicationPath.class);
+    } else {
+      applicationPath = DEFAULT_APPLICATION_PATH;
+    }
+    assert applicationPath != null;
+
+    String applicationPathString = applicationPath.value();
+    assert applicationPathString != null;
+    if (!applicationPathString.isEmpty()) {
+      applicationPathString = ResourceMethodDescriptor.pattern.matcher(applicationPathString).replaceAll("/$2");
+    }
+
+    final String applicationName = "helidon-jaxrs-" + applicationClass.getSimpleName();
+    final Set<Class<?>> applicationClasses = application.getClasses();
+    final Set<?> singletons = application.getSingletons();
+    final int applicationClassCount = applicationClasses == null ? 0 : applicationClasses.size();
+    final int singletonCount = singletons == null ? 0 : singletons.size();
+    discoveryTimer.stop(applicationName, applicationClassCount + singletonCount);
+
+    // Build the resource model of every class first, and only then
+    // register beans for it, so that each phase can be timed.  With a
+    // ForkJoinPool executor the classes are built concurrently; the
+    // map preserves the order in which they were submitted.
+    final BootstrapTimer descriptorTimer = BootstrapTimer.start(BootstrapTimer.Phase.DESCRIPTOR_BUILDING);
+    final ApplicationConfiguration configuration = new ApplicationConfiguration(application.getProperties());
+
+    // If a directory for route manifests is configured, and the
+    // manifest there was written for exactly these classes, use it
+    // rather than looking for annotations.  If not, one is written
+    // once the resource model has been built.
+    final String manifestDirectory = configuration.getString("bootstrap.manifest.directory", null);
+    final byte[] manifestDigest;
+    final Path manifestFile;
+    final Map<String, GeneratedResourceClass> manifest;
+    if (manifestDirectory == null || applicationClassCount <= 0) {
+      manifestDigest = null;
+      manifestFile = null;
+      manifest = null;
+    } else {
+      manifestDigest = RouteManifest.digest(applicationClass, applicationClasses);
+      manifestFile = manifestDigest == null ? null : Paths.get(manifestDirectory, applicationClass.getName() + ".routes");
+      manifest = RouteManifest.read(manifestFile, manifestDigest, applicationClasses);
+    }
+
+    final Map<Class<?>, CompletableFuture<ResourceClassModel<U>>> resourceClassModels = new LinkedHashMap<>();
+    if (applicationClassCount > 0) {
+      final Set<Annotation> qualifiers = bean.getQualifiers();
+      final String path = applicationPathString;
+      for (final Class<?> resourceOrProviderClass : applicationClasses) {
+        if (resourceOrProviderClass != null) {
+          final GeneratedResourceClass manifestResourceClass = manifest == null ? null : manifest.get(resourceOrProviderClass.getName());
+          resourceClassModels.put(resourceOrProviderClass,
+                                  CompletableFuture.supplyAsync(() -> buildResourceClassModel(index,
+                                                                                              useGeneratedResourceClasses,
+                                                                                              manifestResourceClass,
+                                                                                              path,
+                                                                                              resourceOrProviderClass,
+                                                                                              qualifiers),
+                                                                executor));
+        }
+      }
+    }
+    return new ResourceModel<>(bean,
+                               beanManager,
+                               cc,
+                               application,
+                               configuration,
+                               applicationPath,
+                               applicationPathString,
+                               applicationName,
+                               applicationClassCount,
+                               singletons,
+                               singletonCount,
+                               resourceClassModels,
+                               descriptorTimer,
+                               manifest == null ? manifestFile : null,
+                               manifestDigest);
+  }
+
+  private static final <U> ResourceClassModel<U> buildResourceClassModel(final AnnotationInheritanceIndex index,
+                                                                         final boolean useGeneratedResourceClasses,
+                                                                         final GeneratedResourceClass manifestResourceClass,
+                                                                         final String applicationPath,
+                                                                         final Class<?> resourceOrProviderClass,
+                                                                         final Set<Annotation> qualifiers) {
+    @SuppressWarnings("unchecked")
+    final AnnotatedType<U> resourceOrProviderAnnotatedType = index.getBeanManager().createAnnotatedType((Class<U>)resourceOrProviderClass);
+    assert resourceOrProviderAnnotatedType != null;
+    final List<ResourceMethodDescriptor<U>> resourceMethodDescriptors;
+    if (isProviderClass(resourceOrProviderClass)) {
+      resourceMethodDescriptors = null;
+    } else {
+      Set<ResourceMethodDescriptor<U>> descriptors = null;
+      if (useGeneratedResourceClasses) {
+        final GeneratedResourceClass generatedResourceClass = GeneratedResourceClasses.load(resourceOrProviderClass);
+        if (generatedResourceClass != null) {
+          descriptors = ResourceClasses.getResourceMethodDescriptors(generatedResourceClass, applicationPath, resourceOrProviderAnnotatedType, qualifiers);
+        }
+      }
+      if (descriptors == null && manifestResourceClass != null) {
+        descriptors = ResourceClasses.getResourceMethodDescriptors(manifestResourceClass, applicationPath, resourceOrProviderAnnotatedType, qualifiers);
+      }
+      if (descriptors == null) {
+        try {
+          descriptors = ResourceClasses.getResourceMethodDescriptors(index, applicationPath, resourceOrProviderAnnotatedType, qualifiers);
+        } catch (final ReflectiveOperationException reflectiveOperationException) {
+          throw new CompletionException(reflectiveOperationException);
+        }
+      }
+      if (descriptors == null || descriptors.isEmpty()) {
+        resourceMethodDescriptors = null;
       } else {
-        applicationPath = DEFAULT_APPLICATION_PATH;
+        // Sets of descriptors iterate in no particular order; beans
+        // are added for them in this one.
+        resourceMethodDescriptors = new ArrayList<>(descriptors);
+        resourceMethodDescriptors.sort(DESCRIPTOR_ORDER);
       }
-      assert applicationPath != null;
+    }
+    return new ResourceClassModel<>(resourceOrProviderAnnotatedType, resourceMethodDescriptors);
+  }
 
-      String applicationPathString = applicationPath.value();
-      assert applicationPathString != null;
-      if (!applicationPathString.isEmpty()) {
-        applicationPathString = ResourceMethodDescriptor.pattern.matcher(applicationPathString).replaceAll("/$2");
+  // Joins every ResourceClassModel of the Application, writes its
+  // route manifest if one is wanted, and stops its descriptorTimer,
+  // so that the time recorded is that of building this Application's
+  // descriptors and not that of registering other Applications'
+  // beans.
+  private static final <T extends Application, U> void finishResourceModel(final ResourceModel<T, U> resourceModel)
+    throws ReflectiveOperationException {
+    Objects.requireNonNull(resourceModel);
+    final Map<Class<?>, ResourceClassModel<U>> resourceClassModels = new LinkedHashMap<>();
+    int descriptorCount = 0;
+    for (final Entry<Class<?>, CompletableFuture<ResourceClassModel<U>>> entry : resourceModel.resourceClassModels.entrySet()) {
+      final ResourceClassModel<U> resourceClassModel;
+      try {
+        resourceClassModel = entry.getValue().join();
+      } catch (final CompletionException completionException) {
+        final Throwable cause = completionException.getCause();
+        if (cause instanceof ReflectiveOperationException) {
+          throw (ReflectiveOperationException)cause;
+        } else if (cause instanceof RuntimeException) {
+          throw (RuntimeException)cause;
+        } else if (cause instanceof Error) {
+          throw (Error)cause;
+        }
+        throw completionException;
+      }
+      resourceClassModels.put(entry.getKey(), resourceClassModel);
+      if (resourceClassModel.resourceMethodDescriptors != null) {
+        descriptorCount += resourceClassModel.resourceMethodDescriptors.size();
+      }
+    }
+    if (resourceModel.manifestFile != null) {
+      final Map<Class<?>, List<ResourceMethodDescriptor<U>>> descriptorsByClass = new LinkedHashMap<>();
+      for (final Entry<Class<?>, ResourceClassModel<U>> entry : resourceClassModels.entrySet()) {
+        descriptorsByClass.put(entry.getKey(), entry.getValue().resourceMethodDescriptors);
       }
+      RouteManifest.write(resourceModel.manifestFile, resourceModel.manifestDigest, descriptorsByClass);
+    }
+    resourceModel.descriptorTimer.stop(resourceModel.applicationName, descriptorCount);
+    resourceModel.builtResourceClassModels = resourceClassModels;
+    resourceModel.descriptorCount = descriptorCount;
+  }
 
-      final Set<Annotation> qualifiers = bean.getQualifiers();
-      beanManager.getExtension(HelidonWebServerExtension.class).addQualifiers(qualifiers);
-      
-      event.addBean()
-        .types(ApplicationPath.class)
-        .qualifiers(qualifiers)
-        .scope(Singleton.class)
-        .createWith(ignored -> applicationPath);
-      
-      final Set<Class<?>> applicationClasses = application.getClasses();
-      if (applicationClasses != null && !applicationClasses.isEmpty()) {
-        for (final Class<?> resourceOrProviderClass : applicationClasses) {
-          if (resourceOrProviderClass != null) {
-            @SuppressWarnings("unchecked")
-            final AnnotatedType<U> resourceOrProviderAnnotatedType = beanManager.createAnnotatedType((Class<U>)resourceOrProviderClass);
-            assert resourceOrProviderAnnotatedType != null;
+  private static final <T extends Application, U> void registerClassesAndSingletons(final AfterBeanDiscovery event,
+                                                                                    final ResourceModel<T, U> resourceModel,
+                                                                                    final Collection<? super Dispatcher> dispatchers)
+    throws ReflectiveOperationException {
+    Objects.requireNonNull(event);
+    Objects.requireNonNull(resourceModel);
+    Objects.requireNonNull(dispatchers);
+    final Bean<T> bean = resourceModel.bean;
+    final BeanManager beanManager = resourceModel.beanManager;
+    final CreationalContext<T> cc = resourceModel.cc;
+    final T application = resourceModel.application;
+    final ApplicationPath applicationPath = resourceModel.applicationPath;
+    final String applicationName = resourceModel.applicationName;
+    final int applicationClassCount = resourceModel.applicationClassCount;
+    final Set<?> singletons = resourceModel.singletons;
+    final int singletonCount = resourceModel.singletonCount;
+    final Map<Class<?>, ResourceClassModel<U>> resourceClassModels = resourceModel.builtResourceClassModels;
+    assert resourceClassModels != null;
+    final int descriptorCount = resourceModel.descriptorCount;
+
+    final BootstrapTimer registrationTimer = BootstrapTimer.start(BootstrapTimer.Phase.BEAN_REGISTRATION);
+
+    final Set<Annotation> qualifiers = bean.getQualifiers();
+    beanManager.getExtension(HelidonWebServerExtension.class).addQualifiers(qualifiers);
+    // Used by producers below on every request; no need to
+    // allocate it each time.
+    final Annotation[] qualifiersArray = qualifiers.toArray(new Annotation[qualifiers.size()]);
+
+    // All resource methods of this Application share a Dispatcher,
+    // which schedules their work according to its
+    // DispatchPriority.
+    final Dispatcher dispatcher = new Dispatcher(applicationName, resourceModel.configuration);
+    dispatchers.add(dispatcher);
+    event.addBean()
+      .types(Dispatcher.class, Object.class)
+      .qualifiers(qualifiers)
+      .scope(Singleton.class)
+      .createWith(ignored -> dispatcher);
+    
+    event.addBean()
+      .types(ApplicationPath.class)
+      .qualifiers(qualifiers)
+      .scope(Singleton.class)
+      .createWith(ignored -> applicationPath);
+
+    // The deadline of the exchange currently being dispatched, if
+    // any.  It is immutable and final, so it's @Dependent rather than
+    // @RequestScoped, and it comes from the exchange rather than the
+    // request-scoped ServerRequest, so it can be had on dispatch and
+    // continuation threads too.  Every dispatch enters its exchange,
+    // so beans created on its behalf, however indirectly, see its
+    // deadline; longer-lived beans must inject a
+    // Provider<RequestDeadline> instead, or they keep the deadline
+    // of whatever request first created them.
+    event.addBean()
+      .types(RequestDeadline.class, Object.class)
+      .qualifiers(qualifiers)
+      .scope(Dependent.class)
+      .createWith(ignored -> {
+          final ExchangeContext.Instances instances = ExchangeContext.capture();
+          return instances == null ? RequestDeadline.NONE : instances.getDeadline();
+        });
+
+    // Belongs to the exchange, if any, during which it's created, so
+    // it's @Dependent.
+    final Executor continuationDelegate = dispatcher.asExecutor(DispatchPriority.Level.NORMAL);
+    event.addBean()
+      .types(ContinuationExecutor.class, Object.class)
+      .qualifiers(qualifiers)
+      .scope(Dependent.class)
+      .createWith(ignored -> new ContinuationExecutor(continuationDelegate));
+
+    // @Context-qualified views of the exchange's ServerRequest.  They
+    // are created only if something asks for them, and then once per
+    // exchange.
+    final String applicationPathString = resourceModel.applicationPathString;
+    final Annotation[] contextQualifiersArray = new Annotation[qualifiersArray.length + 1];
+    System.arraycopy(qualifiersArray, 0, contextQualifiersArray, 0, qualifiersArray.length);
+    contextQualifiersArray[qualifiersArray.length] = ContextLiteral.INSTANCE;
+    event.addBean()
+      .types(UriInfo.class, Object.class)
+      .qualifiers(qualifiers)
+      .addQualifier(ContextLiteral.INSTANCE)
+      .scope(ExchangeScoped.class)
+      .createWith(ignored -> new HelidonUriInfo(ExchangeContext.current(), applicationPathString));
+    event.addBean()
+      .types(HttpHeaders.class, Object.class)
+      .qualifiers(qualifiers)
+      .addQualifier(ContextLiteral.INSTANCE)
+      .scope(ExchangeScoped.class)
+      .createWith(ignored -> new HelidonHttpHeaders(ExchangeContext.current().getRequest()));
+    event.addBean()
+      .types(Request.class, Object.class)
+      .qualifiers(qualifiers)
+      .addQualifier(ContextLiteral.INSTANCE)
+      .scope(ExchangeScoped.class)
+      .produceWith(instance -> new HelidonRequest(ExchangeContext.current().getRequest(),
+                                                  instance.select(HttpHeaders.class, contextQualifiersArray).get()));
+    event.addBean()
+      .types(SecurityContext.class, Object.class)
+      .qualifiers(qualifiers)
+      .addQualifier(ContextLiteral.INSTANCE)
+      .scope(ExchangeScoped.class)
+      .createWith(ignored -> new HelidonSecurityContext(ExchangeContext.current().getRequest()));
+
+    // The exchange's own request and response, for asynchronous
+    // resource methods: unlike the request-scoped ServerRequest and
+    // ServerResponse beans, they can be had on dispatch and
+    // continuation threads.
+    event.addBean()
+      .types(ServerRequest.class, Object.class)
+      .qualifiers(qualifiers)
+      .addQualifier(ContextLiteral.INSTANCE)
+      .scope(ExchangeScoped.class)
+      .createWith(ignored -> ExchangeContext.current().getRequest());
+    event.addBean()
+      .types(ServerResponse.class, Object.class)
+      .qualifiers(qualifiers)
+      .addQualifier(ContextLiteral.INSTANCE)
+      .scope(ExchangeScoped.class)
+      .createWith(ignored -> ExchangeContext.current().getResponse());
+
+    // Server-sent events.  The Sse is shared; a sink is the response
+    // of the exchange it is created in.
+    final HelidonSse sse = new HelidonSse(resourceModel.configuration);
+    event.addBean()
+      .types(Sse.class, Object.class)
+      .qualifiers(qualifiers)
+      .addQualifier(ContextLiteral.INSTANCE)
+      .scope(Dependent.class)
+      .createWith(ignored -> sse);
+    event.addBean()
+      .types(SseEventSink.class, Object.class)
+      .qualifiers(qualifiers)
+      .addQualifier(ContextLiteral.INSTANCE)
+      .scope(ExchangeScoped.class)
+      .createWith(ignored -> sse.newEventSink(ExchangeContext.current().getResponse()));
+    
+    if (!resourceClassModels.isEmpty()) {
+      for (final Entry<Class<?>, ResourceClassModel<U>> entry : resourceClassModels.entrySet()) {
+        final Class<?> resourceOrProviderClass = entry.getKey();
+        final ResourceClassModel<U> resourceClassModel = entry.getValue();
+        final AnnotatedType<U> resourceOrProviderAnnotatedType = resourceClassModel.annotatedType;
+        final BeanConfigurator<U> bc = event.addBean();
+        assert bc != null;
+        bc.read(resourceOrProviderAnnotatedType)
+          .addQualifiers(qualifiers);
+        
+        if (isProviderClass(resourceOrProviderClass)) {
+          // TODO: Features aren't supported, nor is it clear they should be
+          bc.addQualifier(ProviderLiteral.INSTANCE);
 
-            final BeanConfigurator<U> bc = event.addBean();
-            assert bc != null;
-            bc.read(resourceOrProviderAnnotatedType)
-              .addQualifiers(qualifiers);
+        } else {
+          final List<ResourceMethodDescriptor<U>> resourceMethodDescriptors = resourceClassModel.resourceMethodDescriptors;
+          if (resourceMethodDescriptors != null) {
+            bc.addQualifier(new ResourceClass.Literal(resourceOrProviderClass));
             
-            if (isProviderClass(resourceOrProviderClass)) {
-              // TODO: Features aren't supported, nor is it clear they should be
-              bc.addQualifier(ProviderLiteral.INSTANCE);
-
-            } else {
-              final Set<? extends ResourceMethodDescriptor<U>> resourceMethodDescriptors =
-                ResourceClasses.getResourceMethodDescriptors(beanManager, applicationPathString, resourceOrProviderAnnotatedType, qualifiers);
-              if (resourceMethodDescriptors != null && !resourceMethodDescriptors.isEmpty()) {
-                bc.addQualifier(new ResourceClass.Literal(resourceOrProviderClass));
-                
-                for (final ResourceMethodDescriptor<U> descriptor : resourceMethodDescriptors) {
-                  if (descriptor != null) {
-
-                    final AnnotatedMethod<? super U> resourceMethod = descriptor.getResourceMethod();
-                    assert resourceMethod != null;
-
-                    final List<? extends AnnotatedParameter<?>> parameters = resourceMethod.getParameters();
-                    if (parameters != null && !parameters.isEmpty()) {
-                      for (final AnnotatedParameter<?> parameter : parameters) {
-                        assert parameter != null;
-                        final Type baseType = parameter.getBaseType();
-                        assert baseType != null;
-                        final Collection<? extends Annotation> parameterAnnotations = parameter.getAnnotations();
-                        if (parameterAnnotations == null || parameterAnnotations.isEmpty()) {
-                          // Entity parameter.
-                          if (baseType instanceof Class) {
-                            // Helidon doesn't support generics here :-(
-                            final Class<?> entityType = (Class<?>)baseType;
-                            event.addBean()
-                              .addTransitiveTypeClosure(baseType)
-                              .addQualifiers(qualifiers)
-                              .addQualifiers(Entity.Literal.INSTANCE)
-                              .scope(RequestScoped.class)
-                              .produceWith(instance -> {
-                                  final ServerRequest request = instance.select(ServerRequest.class, qualifiers.toArray(new Annotation[qualifiers.size()])).get();
-                                  try {
-                                    // TODO: there's probably a better
-                                    // non-blocking way to do this in
-                                    // conjunction with
-                                    // RequestMethodHandler....
-                                    return request.content().as(entityType).toCompletableFuture().get();
-                                  } catch (final InterruptedException interruptedException) {
-                                    Thread.currentThread().interrupt();
-                                    throw new CreationException(interruptedException.getMessage(), interruptedException);
-                                  } catch (final ExecutionException executionException) {
-                                    throw new CreationException(executionException.getMessage(), executionException.getCause());
-                                  }
-                                });
-                          }
-
-                        } else {
-                          for (final Annotation parameterAnnotation : parameterAnnotations) {
-                            if (parameterAnnotation != null && beanManager.isQualifier(parameterAnnotation.annotationType())) {
-                              // Parameter with qualifiers (e.g. @PathParam, @QueryParam, etc)
-                              // TODO: add bean for it
-                            }
-                          }
+            for (final ResourceMethodDescriptor<U> descriptor : resourceMethodDescriptors) {
+              if (descriptor != null) {
+
+                final AnnotatedMethod<? super U> resourceMethod = descriptor.getResourceMethod();
+                assert resourceMethod != null;
+
+                final List<? extends AnnotatedParameter<?>> parameters = resourceMethod.getParameters();
+                if (parameters != null && !parameters.isEmpty()) {
+                  for (final AnnotatedParameter<?> parameter : parameters) {
+                    assert parameter != null;
+                    final Type baseType = parameter.getBaseType();
+                    assert baseType != null;
+                    final Collection<? extends Annotation> parameterAnnotations = parameter.getAnnotations();
+                    if (ResourceMethodHandler.isEntityParameter(parameter)) {
+                      if (baseType instanceof Class) {
+                        // Helidon doesn't support generics here :-(
+                        final Class<?> entityType = (Class<?>)baseType;
+                        event.addBean()
+                          .addTransitiveTypeClosure(baseType)
+                          .addQualifiers(qualifiers)
+                          .addQualifiers(Entity.Literal.INSTANCE)
+                          .scope(ExchangeScoped.class)
+                          // Read from the exchange, not the request-scoped
+                          // ServerRequest, whose context isn't active on
+                          // dispatch or continuation threads.
+                          .createWith(ignored -> ResourceMethodHandler.readEntity(ExchangeContext.current().getRequest(), entityType));
+                      }
+
+                    } else if (parameterAnnotations != null) {
+                      for (final Annotation parameterAnnotation : parameterAnnotations) {
+                        if (parameterAnnotation != null && beanManager.isQualifier(parameterAnnotation.annotationType())) {
+                          // Parameter with qualifiers (e.g. @PathParam, @QueryParam, etc)
+                          // TODO: add bean for it
                         }
                       }
                     }
-                    
-                    event.addBean()
-                      .addTransitiveTypeClosure(descriptor.getClass())
-                      .qualifiers(qualifiers)
-                      .scope(ApplicationScoped.class)
-                      .createWith(ignored -> descriptor);
-
-                    // Create a Handler bean that wraps the JAX-RSish
-                    // resource method.
-                    event.addBean()
-                      .addTransitiveTypeClosure(new TypeLiteral<ResourceMethodHandler<U>>() {
-                          private static final long serialVersionUID = 1L;
-                        }.getType())
-                      .qualifiers(qualifiers)
-                      .scope(Dependent.class) // TODO: don't like it
-                      .createWith(ignored -> {
-                          try {
-                            return new ResourceMethodHandler<>(beanManager, descriptor);
-                          } catch (final ReflectiveOperationException reflectiveOperationException) {
-                            throw new CreationException(reflectiveOperationException.getMessage(),
-                                                        reflectiveOperationException);
-                          }
-                        });
-                    
                   }
                 }
+                
+                event.addBean()
+                  .addTransitiveTypeClosure(descriptor.getClass())
+                  .qualifiers(qualifiers)
+                  .scope(ApplicationScoped.class)
+                  .createWith(ignored -> descriptor);
+
+                // Create a Handler bean that wraps the JAX-RSish
+                // resource method.
+                event.addBean()
+                  .addTransitiveTypeClosure(new TypeLiteral<ResourceMethodHandler<U>>() {
+                      private static final long serialVersionUID = 1L;
+                    }.getType())
+                  .qualifiers(qualifiers)
+                  .scope(Dependent.class) // TODO: don't like it
+                  .createWith(ignored -> {
+                      try {
+                        return new ResourceMethodHandler<>(beanManager, descriptor, dispatcher);
+                      } catch (final ReflectiveOperationException reflectiveOperationException) {
+                        throw new CreationException(reflectiveOperationException.getMessage(),
+                                                    reflectiveOperationException);
+                      }
+                    });
+                
               }
             }
           }
         }
       }
-      final Set<?> singletons = application.getSingletons();
-      if (singletons != null && !singletons.isEmpty()) {
-        for (final Object singleton : singletons) {
-          if (singleton != null) {
-            event.addBean()
-              .read(beanManager.createBeanAttributes(beanManager.createAnnotatedType(singleton.getClass())))
-              .scope(ApplicationScoped.class)
-              .addQualifiers(qualifiers) // TODO: maybe?
-              .createWith(ignored -> singleton);
-          }
+    }
+    if (singletonCount > 0) {
+      for (final Object singleton : singletons) {
+        if (singleton != null) {
+          event.addBean()
+            .read(beanManager.createBeanAttributes(beanManager.createAnnotatedType(singleton.getClass())))
+            .scope(ApplicationScoped.class)
+            .addQualifiers(qualifiers) // TODO: maybe?
+            .createWith(ignored -> singleton);
         }
       }
-      // Not sure about this block; may not be necessary.
-      final Map<String, Object> properties = application.getProperties();
-      if (properties != null && !properties.isEmpty()) {
-        event.addBean()
-          .read(beanManager.createBeanAttributes(beanManager.createAnnotatedType(properties.getClass())))
-          .scope(Singleton.class)
-          .addQualifiers(qualifiers) // TODO: maybe?
-          .addQualifier(ApplicationPropertiesLiteral.INSTANCE)
-          .createWith(ignored -> properties);
-      }
+    }
+    // Not sure about this block; may not be necessary.
+    final Map<String, Object> properties = application.getProperties();
+    if (properties != null && !properties.isEmpty()) {
+      event.addBean()
+        .read(beanManager.createBeanAttributes(beanManager.createAnnotatedType(properties.getClass())))
+        .scope(Singleton.class)
+        .addQualifiers(qualifiers) // TODO: maybe?
+        .addQualifier(ApplicationPropertiesLiteral.INSTANCE)
+        .createWith(ignored -> properties);
+    }
+
+    // OK, we've added beans for all the resource and provider
+    // classes and singletons and properties.  Now add one for the
+    // relevant Service.
+    final AnnotatedType<ResourceClassService> resourceClassServiceAnnotatedType = beanManager.createAnnotatedType(ResourceClassService.class);
+
+    final InjectionTargetFactory<ResourceClassService> itf = beanManager.getInjectionTargetFactory(resourceClassServiceAnnotatedType);
+    assert itf != null;
+
+    // Add the right qualifiers to the @Inject-annotated update() method.
+    final AnnotatedMethodConfigurator<? super ResourceClassService> amc = itf.configure()
+      .filterMethods(am -> am.getJavaMember().getName().equals("update"))
+      .findFirst()
+      .get();
+    AnnotatedParameterConfigurator<? super ResourceClassService> apc = amc.filterParams(ap -> ap != null)
+      .findFirst()
+      .get();
+    for (final Annotation qualifier : qualifiers) {
+      apc.add(qualifier);
+    }
 
-      // OK, we've added beans for all the resource and provider
-      // classes and singletons and properties.  Now add one for the
-      // relevant Service.
-      final AnnotatedType<ResourceClassService> resourceClassServiceAnnotatedType = beanManager.createAnnotatedType(ResourceClassService.class);
-
-      final InjectionTargetFactory<ResourceClassService> itf = beanManager.getInjectionTargetFactory(resourceClassServiceAnnotatedType);
-      assert itf != null;
-
-      // Add the right qualifiers to the @Inject-annotated update() method.
-      final AnnotatedMethodConfigurator<? super ResourceClassService> amc = itf.configure()
-        .filterMethods(am -> am.getJavaMember().getName().equals("update"))
-        .findFirst()
-        .get();
-      AnnotatedParameterConfigurator<? super ResourceClassService> apc = amc.filterParams(ap -> ap != null)
-        .findFirst()
-        .get();
+    // Add the right qualifiers to the @Inject-annotated constructor.
+    final List<AnnotatedParameterConfigurator<ResourceClassService>> constructorParameters = itf.configure()
+      .constructors()
+      .stream()
+      .findFirst()
+      .get()
+      .params();
+    for (final AnnotatedParameterConfigurator<ResourceClassService> constructorParameter : constructorParameters) {
       for (final Annotation qualifier : qualifiers) {
-        apc.add(qualifier);
+        constructorParameter.add(qualifier);
       }
+    }
 
-      // Add the right qualifiers to the @Inject-annotated constructor.
-      apc = itf.configure()
-        .constructors()
-        .stream()
-        .findFirst()
-        .get()
-        .params()
-        .get(0);
-        for (final Annotation qualifier : qualifiers) {
-          apc.add(qualifier);
-        }
-
-      final BeanAttributes<ResourceClassService> beanAttributes = beanManager.createBeanAttributes(resourceClassServiceAnnotatedType);      
-      final BeanAttributes<ResourceClassService> resourceClassServiceBeanAttributes = new DelegatingBeanAttributes<ResourceClassService>(beanAttributes) {
+    final BeanAttributes<ResourceClassService> beanAttributes = beanManager.createBeanAttributes(resourceClassServiceAnnotatedType);      
+    final BeanAttributes<ResourceClassService> resourceClassServiceBeanAttributes = new DelegatingBeanAttributes<ResourceClassService>(beanAttributes) {
 
-          @Override
-          public final Class<? extends Annotation> getScope() {
-            return ApplicationScoped.class;
-          }
+        @Override
+        public final Class<? extends Annotation> getScope() {
+          return ApplicationScoped.class;
+        }
 
-          @Override
-          public final Set<Annotation> getQualifiers() {
-            return qualifiers;
-          }
-          
-        };
+        @Override
+        public final Set<Annotation> getQualifiers() {
+          return qualifiers;
+        }
+        
+      };
 
-      final Bean<ResourceClassService> resourceClassServiceBean = beanManager.createBean(resourceClassServiceBeanAttributes, resourceClassServiceAnnotatedType.getJavaClass(), itf);
-      event.addBean(resourceClassServiceBean);
+    final Bean<ResourceClassService> resourceClassServiceBean = beanManager.createBean(resourceClassServiceBeanAttributes, resourceClassServiceAnnotatedType.getJavaClass(), itf);
+    event.addBean(resourceClassServiceBean);
 
-      // Add a producer for Content#as()
-      
-      
-    }
+    // Add a producer for Content#as()
+    
+    registrationTimer.stop(applicationName, applicationClassCount + singletonCount + descriptorCount);
     bean.destroy(application, cc);
     cc.release();
   }
 
+  private final void closeDispatchers(@Observes final BeforeShutdown event) {
+    for (final Dispatcher dispatcher : this.dispatchers) {
+      dispatcher.close();
+    }
+    this.dispatchers.clear();
+  }
+
   private static final boolean isProviderClass(final Class<?> cls) {
     return cls != null &&
       (
@@ -461,6 +826,18 @@ public class HelidonJAXRSExtension implements Extension {
 
   }
 
+  private static final class ContextLiteral extends AnnotationLiteral<Context> implements Context {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final Context INSTANCE = new ContextLiteral();
+
+    private ContextLiteral() {
+      super();
+    }
+
+  }
+
   private static final class ProviderLiteral extends AnnotationLiteral<Provider> implements Provider {
 
     private static final long serialVersionUID = 1L;
@@ -514,4 +891,101 @@ public class HelidonJAXRSExtension implements Extension {
 
   }
 
+  // Everything about one Application that can be worked out before
+  // any of its beans are added.
+  private static final class ResourceModel<T extends Application, U> {
+
+    private final Bean<T> bean;
+
+    private final BeanManager beanManager;
+
+    private final CreationalContext<T> cc;
+
+    private final T application;
+
+    private final ApplicationConfiguration configuration;
+
+    private final ApplicationPath applicationPath;
+
+    // Normalized: either empty or beginning with a slash.
+    private final String applicationPathString;
+
+    private final String applicationName;
+
+    private final int applicationClassCount;
+
+    private final Set<?> singletons;
+
+    private final int singletonCount;
+
+    // In the order of Application#getClasses().
+    private final Map<Class<?>, CompletableFuture<ResourceClassModel<U>>> resourceClassModels;
+
+    // Stopped by finishResourceModel() once every ResourceClassModel
+    // is done.
+    private final BootstrapTimer descriptorTimer;
+
+    // Set by finishResourceModel().
+    private Map<Class<?>, ResourceClassModel<U>> builtResourceClassModels;
+
+    private int descriptorCount;
+
+    // Non-null if a route manifest should be written there.
+    private final Path manifestFile;
+
+    private final byte[] manifestDigest;
+
+    private ResourceModel(final Bean<T> bean,
+                          final BeanManager beanManager,
+                          final CreationalContext<T> cc,
+                          final T application,
+                          final ApplicationConfiguration configuration,
+                          final ApplicationPath applicationPath,
+                          final String applicationPathString,
+                          final String applicationName,
+                          final int applicationClassCount,
+                          final Set<?> singletons,
+                          final int singletonCount,
+                          final Map<Class<?>, CompletableFuture<ResourceClassModel<U>>> resourceClassModels,
+                          final BootstrapTimer descriptorTimer,
+                          final Path manifestFile,
+                          final byte[] manifestDigest) {
+      super();
+      this.bean = Objects.requireNonNull(bean);
+      this.beanManager = Objects.requireNonNull(beanManager);
+      this.cc = Objects.requireNonNull(cc);
+      this.application = Objects.requireNonNull(application);
+      this.configuration = Objects.requireNonNull(configuration);
+      this.applicationPath = Objects.requireNonNull(applicationPath);
+      this.applicationPathString = Objects.requireNonNull(applicationPathString);
+      this.applicationName = Objects.requireNonNull(applicationName);
+      this.applicationClassCount = applicationClassCount;
+      this.singletons = singletons;
+      this.singletonCount = singletonCount;
+      this.resourceClassModels = Objects.requireNonNull(resourceClassModels);
+      this.descriptorTimer = Objects.requireNonNull(descriptorTimer);
+      this.manifestFile = manifestFile;
+      this.manifestDigest = manifestDigest;
+    }
+
+  }
+
+  // The AnnotatedType of one resource or provider class and, if it is
+  // a resource class, its resource methods' descriptors in
+  // DESCRIPTOR_ORDER.
+  private static final class ResourceClassModel<U> {
+
+    private final AnnotatedType<U> annotatedType;
+
+    private final List<ResourceMethodDescriptor<U>> resourceMethodDescriptors;
+
+    private ResourceClassModel(final AnnotatedType<U> annotatedType,
+                               final List<ResourceMethodDescriptor<U>> resourceMethodDescriptors) {
+      super();
+      this.annotatedType = Objects.requireNonNull(annotatedType);
+      this.resourceMethodDescriptors = resourceMethodDescriptors;
+    }
+
+  }
+
 }
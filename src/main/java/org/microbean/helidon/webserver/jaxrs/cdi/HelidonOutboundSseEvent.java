@@ -0,0 +1,257 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright © 2019 microBean.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.microbean.helidon.webserver.jaxrs.cdi;
+
+import java.lang.reflect.Type;
+
+import java.nio.ByteBuffer;
+
+import java.nio.charset.StandardCharsets;
+
+import java.util.Objects;
+
+import javax.ws.rs.core.GenericType;
+import javax.ws.rs.core.MediaType;
+
+import javax.ws.rs.sse.OutboundSseEvent;
+
+// An OutboundSseEvent that knows how to encode itself in the
+// text/event-stream format.  The encoding is done at most once (give
+// or take a benign race) and the same read-only bytes are shared by
+// every sink the event is sent to.
+//
+// There are no MessageBodyWriters here, so data is written as its
+// String.valueOf() form, whatever its media type.
+final class HelidonOutboundSseEvent implements OutboundSseEvent {
+
+  private final String id;
+
+  private final String name;
+
+  private final String comment;
+
+  private final long reconnectDelay;
+
+  private final MediaType mediaType;
+
+  private final Class<?> type;
+
+  private final Type genericType;
+
+  private final Object data;
+
+  private volatile ByteBuffer encoded;
+
+  private HelidonOutboundSseEvent(final Builder builder) {
+    super();
+    this.id = builder.id;
+    this.name = builder.name;
+    this.comment = builder.comment;
+    this.reconnectDelay = builder.reconnectDelay;
+    this.mediaType = builder.mediaType == null ? MediaType.TEXT_PLAIN_TYPE : builder.mediaType;
+    this.type = builder.type;
+    this.genericType = builder.genericType;
+    this.data = builder.data;
+  }
+
+  @Override
+  public final String getId() {
+    return this.id;
+  }
+
+  @Override
+  public final String getName() {
+    return this.name;
+  }
+
+  @Override
+  public final String getComment() {
+    return this.comment;
+  }
+
+  @Override
+  public final long getReconnectDelay() {
+    return this.reconnectDelay;
+  }
+
+  @Override
+  public final boolean isReconnectDelaySet() {
+    return this.reconnectDelay != RECONNECT_NOT_SET;
+  }
+
+  @Override
+  public final Class<?> getType() {
+    return this.type;
+  }
+
+  @Override
+  public final Type getGenericType() {
+    return this.genericType;
+  }
+
+  @Override
+  public final MediaType getMediaType() {
+    return this.mediaType;
+  }
+
+  @Override
+  public final Object getData() {
+    return this.data;
+  }
+
+  // Returns a read-only buffer positioned at the start of this
+  // event's encoding.  Callers that read from it must duplicate() it
+  // first.
+  final ByteBuffer encode() {
+    ByteBuffer returnValue = this.encoded;
+    if (returnValue == null) {
+      returnValue = encode(this).asReadOnlyBuffer();
+      this.encoded = returnValue;
+    }
+    return returnValue;
+  }
+
+  // Encodes any OutboundSseEvent, including ones made elsewhere.
+  static final ByteBuffer encode(final OutboundSseEvent event) {
+    final StringBuilder sb = new StringBuilder();
+    final String comment = event.getComment();
+    if (comment != null) {
+      appendLines(sb, ":", comment);
+    }
+    final String name = event.getName();
+    if (name != null) {
+      sb.append("event: ").append(name).append('\n');
+    }
+    final String id = event.getId();
+    if (id != null) {
+      sb.append("id: ").append(id).append('\n');
+    }
+    if (event.isReconnectDelaySet()) {
+      sb.append("retry: ").append(event.getReconnectDelay()).append('\n');
+    }
+    final Object data = event.getData();
+    if (data != null) {
+      appendLines(sb, "data:", String.valueOf(data));
+    }
+    sb.append('\n');
+    return ByteBuffer.wrap(sb.toString().getBytes(StandardCharsets.UTF_8));
+  }
+
+  // A field's value can't span lines, so each line gets a field of
+  // its own, which the client joins back together.
+  private static final void appendLines(final StringBuilder sb, final String field, final String value) {
+    final int length = value.length();
+    int start = 0;
+    for (int i = 0; i <= length; i++) {
+      final char c = i < length ? value.charAt(i) : '\n';
+      if (c == '\n' || c == '\r') {
+        sb.append(field).append(' ').append(value, start, i).append('\n');
+        if (c == '\r' && i + 1 < length && value.charAt(i + 1) == '\n') {
+          i++;
+        }
+        start = i + 1;
+      }
+    }
+  }
+
+  static final class Builder implements OutboundSseEvent.Builder {
+
+    private String id;
+
+    private String name;
+
+    private String comment;
+
+    private long reconnectDelay;
+
+    private MediaType mediaType;
+
+    private Class<?> type;
+
+    private Type genericType;
+
+    private Object data;
+
+    Builder() {
+      super();
+      this.reconnectDelay = RECONNECT_NOT_SET;
+    }
+
+    @Override
+    public final Builder id(final String id) {
+      this.id = id;
+      return this;
+    }
+
+    @Override
+    public final Builder name(final String name) {
+      this.name = name;
+      return this;
+    }
+
+    @Override
+    public final Builder reconnectDelay(final long milliseconds) {
+      this.reconnectDelay = milliseconds < 0L ? RECONNECT_NOT_SET : milliseconds;
+      return this;
+    }
+
+    @Override
+    public final Builder mediaType(final MediaType mediaType) {
+      this.mediaType = Objects.requireNonNull(mediaType);
+      return this;
+    }
+
+    @Override
+    public final Builder comment(final String comment) {
+      this.comment = comment;
+      return this;
+    }
+
+    @Override
+    @SuppressWarnings("rawtypes")
+    public final Builder data(final Class type, final Object data) {
+      this.type = Objects.requireNonNull(type);
+      this.genericType = type;
+      this.data = Objects.requireNonNull(data);
+      return this;
+    }
+
+    @Override
+    @SuppressWarnings("rawtypes")
+    public final Builder data(final GenericType type, final Object data) {
+      this.type = type.getRawType();
+      this.genericType = type.getType();
+      this.data = Objects.requireNonNull(data);
+      return this;
+    }
+
+    @Override
+    public final Builder data(final Object data) {
+      return this.data(data.getClass(), data);
+    }
+
+    @Override
+    public final HelidonOutboundSseEvent build() {
+      if (this.comment == null && this.data == null) {
+        throw new IllegalStateException("Neither data nor a comment has been set");
+      }
+      return new HelidonOutboundSseEvent(this);
+    }
+
+  }
+
+}
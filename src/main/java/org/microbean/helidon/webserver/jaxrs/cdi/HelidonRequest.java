@@ -0,0 +1,206 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright © 2019 microBean.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.microbean.helidon.webserver.jaxrs.cdi;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Request;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.Variant;
+
+import io.helidon.webserver.ServerRequest;
+
+// A Request that is a view of an exchange's ServerRequest.
+// Preconditions are evaluated in the order RFC 7232 gives; the
+// ResponseBuilders returned need a JAX-RS implementation's
+// RuntimeDelegate to be present.
+final class HelidonRequest implements Request {
+
+  private final ServerRequest request;
+
+  private final HttpHeaders headers;
+
+  HelidonRequest(final ServerRequest request, final HttpHeaders headers) {
+    super();
+    this.request = Objects.requireNonNull(request);
+    this.headers = Objects.requireNonNull(headers);
+  }
+
+  @Override
+  public String getMethod() {
+    return this.request.method().name();
+  }
+
+  // The first variant, in the order of the client's preferred media
+  // types and then its preferred languages, that the client accepts.
+  @Override
+  public Variant selectVariant(final List<Variant> variants) {
+    if (variants == null || variants.isEmpty()) {
+      throw new IllegalArgumentException("variants: " + variants);
+    }
+    for (final MediaType acceptable : this.headers.getAcceptableMediaTypes()) {
+      for (final Locale acceptableLanguage : this.headers.getAcceptableLanguages()) {
+        for (final Variant variant : variants) {
+          final MediaType mediaType = variant.getMediaType();
+          final Locale language = variant.getLanguage();
+          if ((mediaType == null || acceptable.isCompatible(mediaType)) &&
+              (language == null || matches(acceptableLanguage, language))) {
+            return variant;
+          }
+        }
+      }
+    }
+    return null;
+  }
+
+  @Override
+  public Response.ResponseBuilder evaluatePreconditions(final EntityTag tag) {
+    Objects.requireNonNull(tag);
+    Response.ResponseBuilder returnValue = this.evaluateIfMatch(tag);
+    if (returnValue == null) {
+      returnValue = this.evaluateIfNoneMatch(tag);
+    }
+    return returnValue;
+  }
+
+  @Override
+  public Response.ResponseBuilder evaluatePreconditions(final Date lastModified) {
+    Objects.requireNonNull(lastModified);
+    Response.ResponseBuilder returnValue = this.evaluateIfUnmodifiedSince(lastModified);
+    if (returnValue == null) {
+      returnValue = this.evaluateIfModifiedSince(lastModified);
+    }
+    return returnValue;
+  }
+
+  @Override
+  public Response.ResponseBuilder evaluatePreconditions(final Date lastModified, final EntityTag tag) {
+    Objects.requireNonNull(lastModified);
+    Objects.requireNonNull(tag);
+    Response.ResponseBuilder returnValue = this.evaluateIfMatch(tag);
+    if (returnValue == null) {
+      // If-Unmodified-Since is ignored when If-Match is present.
+      if (this.headers.getRequestHeader(HttpHeaders.IF_MATCH) == null) {
+        returnValue = this.evaluateIfUnmodifiedSince(lastModified);
+      }
+      if (returnValue == null) {
+        if (this.headers.getRequestHeader(HttpHeaders.IF_NONE_MATCH) == null) {
+          returnValue = this.evaluateIfModifiedSince(lastModified);
+        } else {
+          // ...and If-Modified-Since when If-None-Match is.
+          returnValue = this.evaluateIfNoneMatch(tag);
+        }
+      }
+    }
+    return returnValue;
+  }
+
+  // For a resource that does not exist.
+  @Override
+  public Response.ResponseBuilder evaluatePreconditions() {
+    return this.headers.getRequestHeader(HttpHeaders.IF_MATCH) == null ? null : Response.status(Response.Status.PRECONDITION_FAILED);
+  }
+
+  private final Response.ResponseBuilder evaluateIfMatch(final EntityTag tag) {
+    final String ifMatch = this.headers.getHeaderString(HttpHeaders.IF_MATCH);
+    Response.ResponseBuilder returnValue = null;
+    if (ifMatch != null && !matches(ifMatch, tag, false)) {
+      returnValue = Response.status(Response.Status.PRECONDITION_FAILED).tag(tag);
+    }
+    return returnValue;
+  }
+
+  private final Response.ResponseBuilder evaluateIfNoneMatch(final EntityTag tag) {
+    final String ifNoneMatch = this.headers.getHeaderString(HttpHeaders.IF_NONE_MATCH);
+    Response.ResponseBuilder returnValue = null;
+    if (ifNoneMatch != null && matches(ifNoneMatch, tag, true)) {
+      if (this.isSafe()) {
+        returnValue = Response.notModified(tag);
+      } else {
+        returnValue = Response.status(Response.Status.PRECONDITION_FAILED).tag(tag);
+      }
+    }
+    return returnValue;
+  }
+
+  private final Response.ResponseBuilder evaluateIfUnmodifiedSince(final Date lastModified) {
+    final Date ifUnmodifiedSince = HelidonHttpHeaders.parseDate(this.headers.getHeaderString(HttpHeaders.IF_UNMODIFIED_SINCE));
+    Response.ResponseBuilder returnValue = null;
+    if (ifUnmodifiedSince != null && seconds(lastModified) > seconds(ifUnmodifiedSince)) {
+      returnValue = Response.status(Response.Status.PRECONDITION_FAILED);
+    }
+    return returnValue;
+  }
+
+  private final Response.ResponseBuilder evaluateIfModifiedSince(final Date lastModified) {
+    Response.ResponseBuilder returnValue = null;
+    if (this.isSafe()) {
+      final Date ifModifiedSince = HelidonHttpHeaders.parseDate(this.headers.getHeaderString(HttpHeaders.IF_MODIFIED_SINCE));
+      if (ifModifiedSince != null && seconds(lastModified) <= seconds(ifModifiedSince)) {
+        returnValue = Response.notModified();
+      }
+    }
+    return returnValue;
+  }
+
+  private final boolean isSafe() {
+    final String method = this.getMethod();
+    return "GET".equals(method) || "HEAD".equals(method);
+  }
+
+  // HTTP dates are only precise to the second.
+  private static final long seconds(final Date date) {
+    return date.getTime() / 1000L;
+  }
+
+  // If-Match compares strongly; If-None-Match weakly.
+  private static final boolean matches(final String header, final EntityTag tag, final boolean weak) {
+    if (!weak && tag.isWeak()) {
+      return false;
+    }
+    for (final String element : HelidonHttpHeaders.elements(header)) {
+      if ("*".equals(element)) {
+        return true;
+      }
+      final boolean elementIsWeak = element.startsWith("W/");
+      if (weak || !elementIsWeak) {
+        String value = elementIsWeak ? element.substring(2) : element;
+        if (value.length() >= 2 && value.charAt(0) == '"' && value.charAt(value.length() - 1) == '"') {
+          value = value.substring(1, value.length() - 1);
+        }
+        if (value.equals(tag.getValue())) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  private static final boolean matches(final Locale acceptable, final Locale language) {
+    final String acceptableLanguage = acceptable.getLanguage();
+    return "*".equals(acceptableLanguage) ||
+      (acceptableLanguage.equalsIgnoreCase(language.getLanguage()) &&
+       (acceptable.getCountry().isEmpty() || acceptable.getCountry().equalsIgnoreCase(language.getCountry())));
+  }
+
+}
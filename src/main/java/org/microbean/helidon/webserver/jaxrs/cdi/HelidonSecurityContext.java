@@ -0,0 +1,59 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright © 2019 microBean.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.microbean.helidon.webserver.jaxrs.cdi;
+
+import java.security.Principal;
+
+import java.util.Objects;
+
+import javax.ws.rs.core.SecurityContext;
+
+import io.helidon.webserver.ServerRequest;
+
+// A SecurityContext that is a view of an exchange's ServerRequest.
+// Helidon security is not integrated here, so there is never a
+// principal and never a role; only isSecure() says anything.
+final class HelidonSecurityContext implements SecurityContext {
+
+  private final ServerRequest request;
+
+  HelidonSecurityContext(final ServerRequest request) {
+    super();
+    this.request = Objects.requireNonNull(request);
+  }
+
+  @Override
+  public Principal getUserPrincipal() {
+    return null;
+  }
+
+  @Override
+  public boolean isUserInRole(final String role) {
+    return false;
+  }
+
+  @Override
+  public boolean isSecure() {
+    return this.request.isSecure();
+  }
+
+  @Override
+  public String getAuthenticationScheme() {
+    return null;
+  }
+
+}
@@ -0,0 +1,56 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright © 2019 microBean.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.microbean.helidon.webserver.jaxrs.cdi;
+
+import java.util.Objects;
+
+import javax.ws.rs.sse.Sse;
+import javax.ws.rs.sse.SseBroadcaster;
+
+import io.helidon.webserver.ServerResponse;
+
+// The Sse of one Application.  It is stateless apart from the
+// settings its sinks are made with, so one instance is shared.
+final class HelidonSse implements Sse {
+
+  private final int queueSize;
+
+  private final HelidonSseEventSink.OverflowPolicy overflowPolicy;
+
+  HelidonSse(final ApplicationConfiguration configuration) {
+    super();
+    // How many events may wait to be written to one client before
+    // the overflow policy applies.
+    this.queueSize = Math.max(1, configuration.getInt("sse.queue.size", 64));
+    this.overflowPolicy = HelidonSseEventSink.OverflowPolicy.of(configuration.getString("sse.overflow.policy", "drop-oldest"));
+  }
+
+  @Override
+  public final HelidonOutboundSseEvent.Builder newEventBuilder() {
+    return new HelidonOutboundSseEvent.Builder();
+  }
+
+  @Override
+  public final SseBroadcaster newBroadcaster() {
+    return new HelidonSseBroadcaster();
+  }
+
+  final HelidonSseEventSink newEventSink(final ServerResponse response) {
+    return new HelidonSseEventSink(Objects.requireNonNull(response), this.queueSize, this.overflowPolicy);
+  }
+
+}
@@ -0,0 +1,151 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright © 2019 microBean.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.microbean.helidon.webserver.jaxrs.cdi;
+
+import java.nio.ByteBuffer;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+import javax.ws.rs.sse.OutboundSseEvent;
+import javax.ws.rs.sse.SseBroadcaster;
+import javax.ws.rs.sse.SseEventSink;
+
+// An SseBroadcaster meant for very many sinks.
+//
+// Each event is encoded once, and the same bytes are queued on every
+// sink this extension made; none of that takes a lock, and a slow
+// client only ever holds up its own sink, whose overflow policy
+// decides what it misses.  Sinks are forgotten as soon as they close,
+// whoever closes them.  Sinks made elsewhere are sent the event
+// itself.
+//
+// The stage broadcast() returns completes once the event has been
+// queued on every sink; error listeners hear about events that a
+// sink could not take.
+final class HelidonSseBroadcaster implements SseBroadcaster {
+
+  private final Set<SseEventSink> sinks;
+
+  private final List<BiConsumer<SseEventSink, Throwable>> errorListeners;
+
+  private final List<Consumer<SseEventSink>> closeListeners;
+
+  // Registered with every HelidonSseEventSink, so that it's the same
+  // object each time and can be removed again.
+  private final Consumer<HelidonSseEventSink> unregister;
+
+  private volatile boolean closed;
+
+  HelidonSseBroadcaster() {
+    super();
+    this.sinks = ConcurrentHashMap.newKeySet();
+    this.errorListeners = new CopyOnWriteArrayList<>();
+    this.closeListeners = new CopyOnWriteArrayList<>();
+    this.unregister = this::unregister;
+  }
+
+  @Override
+  public final void onError(final BiConsumer<SseEventSink, Throwable> onError) {
+    this.errorListeners.add(Objects.requireNonNull(onError));
+  }
+
+  @Override
+  public final void onClose(final Consumer<SseEventSink> onClose) {
+    this.closeListeners.add(Objects.requireNonNull(onClose));
+  }
+
+  @Override
+  public final void register(final SseEventSink sink) {
+    Objects.requireNonNull(sink);
+    if (this.closed) {
+      throw new IllegalStateException("Closed");
+    }
+    if (this.sinks.add(sink) && sink instanceof HelidonSseEventSink) {
+      // Calls unregister() straight away if the sink is already
+      // closed.
+      ((HelidonSseEventSink)sink).addCloseListener(this.unregister);
+    }
+  }
+
+  @Override
+  public final CompletionStage<?> broadcast(final OutboundSseEvent event) {
+    Objects.requireNonNull(event);
+    if (this.closed) {
+      throw new IllegalStateException("Closed");
+    }
+    final ByteBuffer encoded;
+    if (event instanceof HelidonOutboundSseEvent) {
+      encoded = ((HelidonOutboundSseEvent)event).encode();
+    } else {
+      encoded = HelidonOutboundSseEvent.encode(event).asReadOnlyBuffer();
+    }
+    for (final SseEventSink sink : this.sinks) {
+      if (sink instanceof HelidonSseEventSink) {
+        final HelidonSseEventSink helidonSink = (HelidonSseEventSink)sink;
+        if (!helidonSink.offer(encoded) && !this.errorListeners.isEmpty() && !helidonSink.isClosed()) {
+          this.fireError(sink, new IllegalStateException("Event dropped; the client is too slow"));
+        }
+      } else if (sink.isClosed()) {
+        this.unregister(sink);
+      } else {
+        sink.send(event).whenComplete((ignored, throwable) -> {
+            if (throwable != null) {
+              this.fireError(sink, throwable);
+            }
+          });
+      }
+    }
+    return CompletableFuture.completedFuture(null);
+  }
+
+  @Override
+  public final void close() {
+    this.closed = true;
+    for (final SseEventSink sink : this.sinks) {
+      // HelidonSseEventSinks unregister themselves.
+      sink.close();
+      if (!(sink instanceof HelidonSseEventSink)) {
+        this.unregister(sink);
+      }
+    }
+  }
+
+  private final void unregister(final SseEventSink sink) {
+    if (this.sinks.remove(sink)) {
+      for (final Consumer<SseEventSink> listener : this.closeListeners) {
+        listener.accept(sink);
+      }
+    }
+  }
+
+  private final void fireError(final SseEventSink sink, final Throwable throwable) {
+    for (final BiConsumer<SseEventSink, Throwable> listener : this.errorListeners) {
+      listener.accept(sink, throwable);
+    }
+  }
+
+}
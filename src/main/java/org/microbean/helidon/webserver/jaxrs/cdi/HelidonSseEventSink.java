@@ -0,0 +1,316 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright © 2019 microBean.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.microbean.helidon.webserver.jaxrs.cdi;
+
+import java.nio.ByteBuffer;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.Queue;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import java.util.function.Consumer;
+
+import javax.ws.rs.sse.OutboundSseEvent;
+import javax.ws.rs.sse.SseEventSink;
+
+import io.helidon.common.http.DataChunk;
+import io.helidon.common.http.Http;
+import io.helidon.common.http.MediaType;
+
+import io.helidon.common.reactive.Flow;
+
+import io.helidon.webserver.ResponseHeaders;
+import io.helidon.webserver.ServerResponse;
+
+// An SseEventSink that is the content of an exchange's response.
+//
+// Events are queued, already encoded, and written as the connection
+// asks for them.  The queue is bounded; when a slow client lets it
+// fill up, the sink's OverflowPolicy decides what gives.  Queueing an
+// event takes no locks, so that any number of threads (or one
+// broadcaster, for very many sinks) can send at once.
+//
+// The response is sent, with its text/event-stream headers, the
+// first time an event is sent, when the sink is closed, or when the
+// resource method that asked for the sink returns, whichever comes
+// first.  The stream ends once the sink is closed and its queue has
+// drained, or as soon as the client goes away.
+final class HelidonSseEventSink implements SseEventSink, Flow.Publisher<DataChunk> {
+
+  private static final MediaType EVENT_STREAM = MediaType.create("text", "event-stream");
+
+  private final ServerResponse response;
+
+  private final int capacity;
+
+  private final OverflowPolicy overflowPolicy;
+
+  private final Queue<ByteBuffer> queue;
+
+  // Kept separately because ConcurrentLinkedQueue#size() walks the
+  // queue.
+  private final AtomicInteger queued;
+
+  private final AtomicLong dropped;
+
+  private final AtomicBoolean opened;
+
+  private final AtomicBoolean closed;
+
+  private final AtomicLong demand;
+
+  private final AtomicInteger wip;
+
+  private final List<Consumer<? super HelidonSseEventSink>> closeListeners;
+
+  private volatile Flow.Subscriber<? super DataChunk> subscriber;
+
+  private volatile boolean cancelled;
+
+  // Touched only in drain().
+  private boolean terminated;
+
+  HelidonSseEventSink(final ServerResponse response, final int capacity, final OverflowPolicy overflowPolicy) {
+    super();
+    this.response = Objects.requireNonNull(response);
+    if (capacity <= 0) {
+      throw new IllegalArgumentException("capacity: " + capacity);
+    }
+    this.capacity = capacity;
+    this.overflowPolicy = Objects.requireNonNull(overflowPolicy);
+    this.queue = new ConcurrentLinkedQueue<>();
+    this.queued = new AtomicInteger();
+    this.dropped = new AtomicLong();
+    this.opened = new AtomicBoolean();
+    this.closed = new AtomicBoolean();
+    this.demand = new AtomicLong();
+    this.wip = new AtomicInteger();
+    this.closeListeners = new CopyOnWriteArrayList<>();
+  }
+
+  // Sends the response, if that hasn't been done already.
+  final void open() {
+    if (this.opened.compareAndSet(false, true)) {
+      final ResponseHeaders headers = this.response.headers();
+      headers.contentType(EVENT_STREAM);
+      headers.put("Cache-Control", "no-cache");
+      this.response.status(Http.Status.OK_200).send((Flow.Publisher<DataChunk>)this);
+    }
+  }
+
+  @Override
+  public final boolean isClosed() {
+    return this.closed.get();
+  }
+
+  // The returned stage completes once the event has been queued, not
+  // once it has been written.
+  @Override
+  public final CompletionStage<?> send(final OutboundSseEvent event) {
+    final ByteBuffer encoded;
+    if (event instanceof HelidonOutboundSseEvent) {
+      encoded = ((HelidonOutboundSseEvent)event).encode();
+    } else {
+      encoded = HelidonOutboundSseEvent.encode(event).asReadOnlyBuffer();
+    }
+    final CompletableFuture<Void> returnValue = new CompletableFuture<>();
+    if (this.offer(encoded)) {
+      returnValue.complete(null);
+    } else {
+      returnValue.completeExceptionally(new IllegalStateException(this.isClosed() ? "Closed" : "Event dropped; the client is too slow"));
+    }
+    return returnValue;
+  }
+
+  // Queues an encoded event, which may be shared with other sinks and
+  // so is never read from directly.  Returns false if the event was
+  // not queued because the sink is closed or the queue is full.
+  final boolean offer(final ByteBuffer encoded) {
+    if (this.closed.get()) {
+      return false;
+    }
+    this.open();
+    if (this.queued.incrementAndGet() > this.capacity) {
+      switch (this.overflowPolicy) {
+      case DROP_OLDEST:
+        if (this.queue.poll() != null) {
+          this.queued.decrementAndGet();
+          this.dropped.incrementAndGet();
+        }
+        break;
+      case DROP_NEWEST:
+        this.queued.decrementAndGet();
+        this.dropped.incrementAndGet();
+        return false;
+      case CLOSE:
+        this.queued.decrementAndGet();
+        this.dropped.incrementAndGet();
+        this.close();
+        return false;
+      default:
+        throw new AssertionError();
+      }
+    }
+    this.queue.offer(encoded);
+    this.drain();
+    return true;
+  }
+
+  // How many events have been dropped because the client couldn't
+  // keep up.
+  final long getDroppedCount() {
+    return this.dropped.get();
+  }
+
+  // Called once, when the sink is closed, whether by the application
+  // or because the client went away.
+  final void addCloseListener(final Consumer<? super HelidonSseEventSink> listener) {
+    this.closeListeners.add(Objects.requireNonNull(listener));
+    if (this.isClosed()) {
+      // Might have missed it.
+      this.closeListeners.remove(listener);
+      listener.accept(this);
+    }
+  }
+
+  final void removeCloseListener(final Consumer<? super HelidonSseEventSink> listener) {
+    this.closeListeners.remove(listener);
+  }
+
+  @Override
+  public final void close() {
+    if (this.closed.compareAndSet(false, true)) {
+      // An empty stream is still a response.
+      this.open();
+      for (final Consumer<? super HelidonSseEventSink> listener : this.closeListeners) {
+        listener.accept(this);
+      }
+      this.closeListeners.clear();
+      this.drain();
+    }
+  }
+
+  @Override
+  public final void subscribe(final Flow.Subscriber<? super DataChunk> subscriber) {
+    Objects.requireNonNull(subscriber);
+    final Flow.Subscription subscription = new Flow.Subscription() {
+        @Override
+        public final void request(final long n) {
+          if (n > 0L) {
+            long current;
+            long next;
+            do {
+              current = demand.get();
+              next = current + n;
+              if (next < 0L) {
+                next = Long.MAX_VALUE;
+              }
+            } while (!demand.compareAndSet(current, next));
+            drain();
+          }
+        }
+
+        @Override
+        public final void cancel() {
+          // The client went away.
+          cancelled = true;
+          close();
+        }
+      };
+    synchronized (this) {
+      if (this.subscriber != null) {
+        subscriber.onSubscribe(subscription);
+        subscriber.onError(new IllegalStateException("Already subscribed"));
+        return;
+      }
+      this.subscriber = subscriber;
+    }
+    subscriber.onSubscribe(subscription);
+    this.drain();
+  }
+
+  private final void drain() {
+    if (this.wip.getAndIncrement() != 0) {
+      return;
+    }
+    int missed = 1;
+    do {
+      final Flow.Subscriber<? super DataChunk> subscriber = this.subscriber;
+      if (subscriber != null && !this.terminated) {
+        if (this.cancelled) {
+          this.terminated = true;
+          this.clear();
+        } else {
+          for (long demand = this.demand.get(); demand > 0L; demand = this.demand.get()) {
+            final ByteBuffer encoded = this.queue.poll();
+            if (encoded == null) {
+              break;
+            }
+            this.queued.decrementAndGet();
+            if (demand != Long.MAX_VALUE) {
+              this.demand.decrementAndGet();
+            }
+            subscriber.onNext(DataChunk.create(true, encoded.duplicate()));
+          }
+          if (this.closed.get() && this.queue.isEmpty()) {
+            this.terminated = true;
+            subscriber.onComplete();
+          }
+        }
+      }
+      missed = this.wip.addAndGet(-missed);
+    } while (missed != 0);
+  }
+
+  private final void clear() {
+    while (this.queue.poll() != null) {
+      this.queued.decrementAndGet();
+    }
+  }
+
+  // What to do with an event that arrives when a sink's queue is
+  // full.
+  static enum OverflowPolicy {
+
+    // Make room by dropping the event that has waited longest; the
+    // client misses events but sees the latest ones.
+    DROP_OLDEST,
+
+    // Drop the event that arrived.
+    DROP_NEWEST,
+
+    // Give up on the client; it will have to reconnect.
+    CLOSE;
+
+    // Accepts, for example, "drop-oldest" as well as "DROP_OLDEST".
+    static final OverflowPolicy of(final String name) {
+      return valueOf(name.trim().replace('-', '_').toUpperCase(Locale.ROOT));
+    }
+
+  }
+
+}
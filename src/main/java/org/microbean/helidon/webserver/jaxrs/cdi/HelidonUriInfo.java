@@ -0,0 +1,365 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright © 2019 microBean.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.microbean.helidon.webserver.jaxrs.cdi;
+
+import java.net.URI;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import javax.ws.rs.core.AbstractMultivaluedMap;
+import javax.ws.rs.core.MultivaluedHashMap;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.core.PathSegment;
+import javax.ws.rs.core.UriBuilder;
+import javax.ws.rs.core.UriInfo;
+
+import io.helidon.webserver.ServerRequest;
+
+// A UriInfo that is a view of an exchange's ServerRequest.  Nothing is
+// parsed until it is asked for, and then only once per exchange.
+// The *Builder() methods need a JAX-RS implementation's
+// RuntimeDelegate to be present.
+final class HelidonUriInfo implements UriInfo {
+
+  private final ExchangeContext.Instances exchange;
+
+  private final ServerRequest request;
+
+  private final String applicationPath;
+
+  private String rawPath;
+
+  private String rawRelativePath;
+
+  private String absolutePrefix;
+
+  private URI requestUri;
+
+  private URI absolutePath;
+
+  private URI baseUri;
+
+  private MultivaluedMap<String, String> decodedQueryParameters;
+
+  private MultivaluedMap<String, String> rawQueryParameters;
+
+  private MultivaluedMap<String, String> decodedPathParameters;
+
+  private MultivaluedMap<String, String> rawPathParameters;
+
+  HelidonUriInfo(final ExchangeContext.Instances exchange, final String applicationPath) {
+    super();
+    this.exchange = Objects.requireNonNull(exchange);
+    this.request = exchange.getRequest();
+    String path = Objects.requireNonNull(applicationPath);
+    while (path.endsWith("/")) {
+      path = path.substring(0, path.length() - 1);
+    }
+    this.applicationPath = path;
+  }
+
+  @Override
+  public String getPath() {
+    return this.getPath(true);
+  }
+
+  @Override
+  public String getPath(final boolean decode) {
+    final String rawRelativePath = this.getRawRelativePath();
+    return decode ? PathTemplate.decodePath(rawRelativePath) : rawRelativePath;
+  }
+
+  @Override
+  public List<PathSegment> getPathSegments() {
+    return this.getPathSegments(true);
+  }
+
+  @Override
+  public List<PathSegment> getPathSegments(final boolean decode) {
+    final String rawRelativePath = this.getRawRelativePath();
+    final List<PathSegment> returnValue = new ArrayList<>();
+    int start = 0;
+    int slash;
+    while ((slash = rawRelativePath.indexOf('/', start)) >= 0) {
+      returnValue.add(new Segment(rawRelativePath.substring(start, slash), decode));
+      start = slash + 1;
+    }
+    returnValue.add(new Segment(rawRelativePath.substring(start), decode));
+    return Collections.unmodifiableList(returnValue);
+  }
+
+  @Override
+  public URI getRequestUri() {
+    if (this.requestUri == null) {
+      final String rawQuery = this.request.uri().getRawQuery();
+      this.requestUri = URI.create(rawQuery == null ? this.getAbsolutePrefix() + this.getRawPath()
+                                                    : this.getAbsolutePrefix() + this.getRawPath() + "?" + rawQuery);
+    }
+    return this.requestUri;
+  }
+
+  @Override
+  public UriBuilder getRequestUriBuilder() {
+    return UriBuilder.fromUri(this.getRequestUri());
+  }
+
+  @Override
+  public URI getAbsolutePath() {
+    if (this.absolutePath == null) {
+      this.absolutePath = URI.create(this.getAbsolutePrefix() + this.getRawPath());
+    }
+    return this.absolutePath;
+  }
+
+  @Override
+  public UriBuilder getAbsolutePathBuilder() {
+    return UriBuilder.fromUri(this.getAbsolutePath());
+  }
+
+  @Override
+  public URI getBaseUri() {
+    if (this.baseUri == null) {
+      this.baseUri = URI.create(this.getAbsolutePrefix() + this.applicationPath + "/");
+    }
+    return this.baseUri;
+  }
+
+  @Override
+  public UriBuilder getBaseUriBuilder() {
+    return UriBuilder.fromUri(this.getBaseUri());
+  }
+
+  @Override
+  public MultivaluedMap<String, String> getPathParameters() {
+    return this.getPathParameters(true);
+  }
+
+  @Override
+  public MultivaluedMap<String, String> getPathParameters(final boolean decode) {
+    MultivaluedMap<String, String> returnValue = decode ? this.decodedPathParameters : this.rawPathParameters;
+    if (returnValue == null) {
+      final MultivaluedMap<String, String> parameters = new MultivaluedHashMap<>();
+      final ResourceMethodDescriptor<?> descriptor = this.exchange.getDescriptor();
+      if (descriptor != null) {
+        PathTemplate.of(descriptor.getPath()).match(this.getRawPath(), parameters, decode);
+      }
+      returnValue = readOnly(parameters);
+      if (decode) {
+        this.decodedPathParameters = returnValue;
+      } else {
+        this.rawPathParameters = returnValue;
+      }
+    }
+    return returnValue;
+  }
+
+  @Override
+  public MultivaluedMap<String, String> getQueryParameters() {
+    return this.getQueryParameters(true);
+  }
+
+  @Override
+  public MultivaluedMap<String, String> getQueryParameters(final boolean decode) {
+    MultivaluedMap<String, String> returnValue = decode ? this.decodedQueryParameters : this.rawQueryParameters;
+    if (returnValue == null) {
+      final Map<String, List<String>> parameters = new LinkedHashMap<>();
+      final String rawQuery = this.request.uri().getRawQuery();
+      if (rawQuery != null && !rawQuery.isEmpty()) {
+        for (final String pair : rawQuery.split("&")) {
+          if (!pair.isEmpty()) {
+            final int equals = pair.indexOf('=');
+            String name = equals < 0 ? pair : pair.substring(0, equals);
+            String value = equals < 0 ? "" : pair.substring(equals + 1);
+            if (decode) {
+              name = PathTemplate.decodeQuery(name);
+              value = PathTemplate.decodeQuery(value);
+            }
+            parameters.computeIfAbsent(name, n -> new ArrayList<>(1)).add(value);
+          }
+        }
+      }
+      returnValue = readOnly(parameters);
+      if (decode) {
+        this.decodedQueryParameters = returnValue;
+      } else {
+        this.rawQueryParameters = returnValue;
+      }
+    }
+    return returnValue;
+  }
+
+  @Override
+  public List<String> getMatchedURIs() {
+    return this.getMatchedURIs(true);
+  }
+
+  // The resource method's URI, and then its resource class's.
+  @Override
+  public List<String> getMatchedURIs(final boolean decode) {
+    final List<String> returnValue = new ArrayList<>(2);
+    returnValue.add(this.getPath(decode));
+    final ResourceMethodDescriptor<?> descriptor = this.exchange.getDescriptor();
+    if (descriptor != null) {
+      final String classTemplate =
+        ResourceMethodDescriptor.getPath(this.applicationPath, ResourceMethodDescriptor.getPathValue(descriptor.getResourceClass()));
+      final String rawPath = this.getRawPath();
+      final int end = PathTemplate.of(classTemplate).matchPrefix(rawPath);
+      if (end >= 0) {
+        final String matched = this.relativize(rawPath.substring(0, end));
+        returnValue.add(decode ? PathTemplate.decodePath(matched) : matched);
+      }
+    }
+    return Collections.unmodifiableList(returnValue);
+  }
+
+  @Override
+  public List<Object> getMatchedResources() {
+    final Object resource = this.exchange.getResource();
+    return resource == null ? Collections.emptyList() : Collections.singletonList(resource);
+  }
+
+  @Override
+  public URI resolve(final URI uri) {
+    return this.getBaseUri().resolve(uri);
+  }
+
+  @Override
+  public URI relativize(final URI uri) {
+    final URI resolved = uri.isAbsolute() ? uri : this.resolve(uri);
+    return this.getAbsolutePath().resolve(".").relativize(resolved);
+  }
+
+  private final String getRawPath() {
+    if (this.rawPath == null) {
+      final String rawPath = this.request.uri().getRawPath();
+      this.rawPath = rawPath == null || rawPath.isEmpty() ? "/" : rawPath;
+    }
+    return this.rawPath;
+  }
+
+  private final String getRawRelativePath() {
+    if (this.rawRelativePath == null) {
+      this.rawRelativePath = this.relativize(this.getRawPath());
+    }
+    return this.rawRelativePath;
+  }
+
+  // Strips the application path, and then any leading slashes.
+  private final String relativize(final String rawPath) {
+    String returnValue = rawPath;
+    if (!this.applicationPath.isEmpty() && returnValue.startsWith(this.applicationPath)) {
+      returnValue = returnValue.substring(this.applicationPath.length());
+    }
+    int start = 0;
+    while (start < returnValue.length() && returnValue.charAt(start) == '/') {
+      start++;
+    }
+    return returnValue.substring(start);
+  }
+
+  // The scheme and authority.
+  private final String getAbsolutePrefix() {
+    if (this.absolutePrefix == null) {
+      final String host = this.request.headers().first("Host").orElse(null);
+      final StringBuilder sb = new StringBuilder(this.request.isSecure() ? "https://" : "http://");
+      if (host == null || host.isEmpty()) {
+        sb.append(this.request.localAddress()).append(':').append(this.request.localPort());
+      } else {
+        sb.append(host);
+      }
+      this.absolutePrefix = sb.toString();
+    }
+    return this.absolutePrefix;
+  }
+
+  static final MultivaluedMap<String, String> readOnly(final Map<String, List<String>> map) {
+    for (final Map.Entry<String, List<String>> entry : map.entrySet()) {
+      entry.setValue(Collections.unmodifiableList(entry.getValue()));
+    }
+    return new ReadOnlyMultivaluedMap(Collections.unmodifiableMap(map));
+  }
+
+  private static final class ReadOnlyMultivaluedMap extends AbstractMultivaluedMap<String, String> {
+
+    private ReadOnlyMultivaluedMap(final Map<String, List<String>> store) {
+      super(store);
+    }
+
+  }
+
+  private static final class Segment implements PathSegment {
+
+    private final String rawSegment;
+
+    private final boolean decode;
+
+    private String path;
+
+    private MultivaluedMap<String, String> matrixParameters;
+
+    private Segment(final String rawSegment, final boolean decode) {
+      super();
+      this.rawSegment = rawSegment;
+      this.decode = decode;
+    }
+
+    @Override
+    public final String getPath() {
+      if (this.path == null) {
+        final int semicolon = this.rawSegment.indexOf(';');
+        final String path = semicolon < 0 ? this.rawSegment : this.rawSegment.substring(0, semicolon);
+        this.path = this.decode ? PathTemplate.decodePath(path) : path;
+      }
+      return this.path;
+    }
+
+    @Override
+    public final MultivaluedMap<String, String> getMatrixParameters() {
+      if (this.matrixParameters == null) {
+        final Map<String, List<String>> parameters = new LinkedHashMap<>();
+        final String[] parts = this.rawSegment.split(";");
+        for (int i = 1; i < parts.length; i++) {
+          final String part = parts[i];
+          if (!part.isEmpty()) {
+            final int equals = part.indexOf('=');
+            String name = equals < 0 ? part : part.substring(0, equals);
+            String value = equals < 0 ? "" : part.substring(equals + 1);
+            if (this.decode) {
+              name = PathTemplate.decodePath(name);
+              value = PathTemplate.decodePath(value);
+            }
+            parameters.computeIfAbsent(name, n -> new ArrayList<>(1)).add(value);
+          }
+        }
+        this.matrixParameters = readOnly(parameters);
+      }
+      return this.matrixParameters;
+    }
+
+    @Override
+    public final String toString() {
+      return this.rawSegment;
+    }
+
+  }
+
+}
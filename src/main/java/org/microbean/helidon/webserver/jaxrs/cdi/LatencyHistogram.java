@@ -0,0 +1,142 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright © 2019 microBean.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.microbean.helidon.webserver.jaxrs.cdi;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+// A lock-free, fixed-size histogram of nanosecond durations in the
+// style of HdrHistogram: values are grouped into power-of-two ranges,
+// each split linearly into 2^SUB_BUCKET_BITS sub-buckets, so every
+// recorded value is accurate to within 1/2^SUB_BUCKET_BITS (about 3%)
+// of itself.  Values below 2^SUB_BUCKET_BITS are recorded exactly;
+// values of 2^MAX_MAGNITUDE nanoseconds (about two minutes) and above
+// all land in the last bucket.
+//
+// Recording is one array increment and one LongAdder increment; no
+// allocation, no locks.
+final class LatencyHistogram {
+
+  private static final int SUB_BUCKET_BITS = 5;
+
+  private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+
+  private static final int MAX_MAGNITUDE = 37;
+
+  static final int BUCKET_COUNT = SUB_BUCKET_COUNT + (MAX_MAGNITUDE - SUB_BUCKET_BITS + 1) * SUB_BUCKET_COUNT;
+
+  private final AtomicLongArray counts;
+
+  private final LongAdder sum;
+
+  LatencyHistogram() {
+    super();
+    this.counts = new AtomicLongArray(BUCKET_COUNT);
+    this.sum = new LongAdder();
+  }
+
+  final void record(final long nanos) {
+    final long value = nanos < 0L ? 0L : nanos;
+    this.counts.incrementAndGet(index(value));
+    this.sum.add(value);
+  }
+
+  final long getSum() {
+    return this.sum.sum();
+  }
+
+  // Returns a copy of the bucket counts.  Taken while recording is
+  // going on, it is not an atomic snapshot, but every count in it is
+  // one that was actually observed.
+  final long[] getCounts() {
+    final long[] returnValue = new long[BUCKET_COUNT];
+    for (int i = 0; i < returnValue.length; i++) {
+      returnValue[i] = this.counts.get(i);
+    }
+    return returnValue;
+  }
+
+  final void reset() {
+    for (int i = 0; i < BUCKET_COUNT; i++) {
+      this.counts.set(i, 0L);
+    }
+    this.sum.reset();
+  }
+
+  // Returns the (upper bound of the) value at the given percentile,
+  // e.g. 99.9, of the supplied counts, or 0L if there are none.
+  static final long percentile(final long[] counts, final double percentile) {
+    long total = 0L;
+    for (final long count : counts) {
+      total += count;
+    }
+    long returnValue = 0L;
+    if (total > 0L) {
+      final long rank = Math.max(1L, (long)Math.ceil(total * Math.min(100.0, Math.max(0.0, percentile)) / 100.0));
+      long seen = 0L;
+      for (int i = 0; i < counts.length; i++) {
+        seen += counts[i];
+        if (seen >= rank) {
+          returnValue = highestEquivalentValue(i);
+          break;
+        }
+      }
+    }
+    return returnValue;
+  }
+
+  static final int index(final long value) {
+    final int returnValue;
+    if (value < SUB_BUCKET_COUNT) {
+      returnValue = (int)value;
+    } else {
+      final int magnitude = 63 - Long.numberOfLeadingZeros(value);
+      if (magnitude > MAX_MAGNITUDE) {
+        returnValue = BUCKET_COUNT - 1;
+      } else {
+        final int shift = magnitude - SUB_BUCKET_BITS;
+        returnValue = SUB_BUCKET_COUNT + shift * SUB_BUCKET_COUNT + (int)(value >>> shift) - SUB_BUCKET_COUNT;
+      }
+    }
+    return returnValue;
+  }
+
+  static final long lowestEquivalentValue(final int index) {
+    final long returnValue;
+    if (index < SUB_BUCKET_COUNT) {
+      returnValue = index;
+    } else {
+      final int shift = (index - SUB_BUCKET_COUNT) / SUB_BUCKET_COUNT;
+      final int subBucket = (index - SUB_BUCKET_COUNT) % SUB_BUCKET_COUNT;
+      returnValue = ((long)(SUB_BUCKET_COUNT + subBucket)) << shift;
+    }
+    return returnValue;
+  }
+
+  static final long highestEquivalentValue(final int index) {
+    final long returnValue;
+    if (index < SUB_BUCKET_COUNT) {
+      returnValue = index;
+    } else if (index >= BUCKET_COUNT - 1) {
+      returnValue = Long.MAX_VALUE;
+    } else {
+      returnValue = lowestEquivalentValue(index + 1) - 1L;
+    }
+    return returnValue;
+  }
+
+}
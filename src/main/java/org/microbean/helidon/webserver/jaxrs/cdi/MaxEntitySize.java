@@ -0,0 +1,56 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright © 2019 microBean.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.microbean.helidon.webserver.jaxrs.cdi;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Inherited;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Bounds the size, in bytes, of the entity that a request dispatched
+ * to a resource method, or to every resource method of a resource
+ * class, may carry; larger requests are answered with {@code 413
+ * Request Entity Too Large}.
+ *
+ * <p>A request whose {@code Content-Length} exceeds the limit is
+ * answered before anything is dispatched.  A request without one
+ * (a chunked request, say) is answered as soon as the bytes read so
+ * far exceed the limit, and the rest of its entity is not read.</p>
+ *
+ * <p>A method-level annotation (including one inherited from an
+ * overridden method in a superclass or interface) takes precedence
+ * over a class-level one, which in turn takes precedence over the
+ * {@code org.microbean.helidon.webserver.jaxrs.cdi.entity.max.size}
+ * {@linkplain javax.ws.rs.core.Application#getProperties()
+ * Application property}.  A value less than or equal to zero means
+ * that no limit applies.</p>
+ *
+ * @author <a href="https://about.me/lairdnelson"
+ * target="_parent">Laird Nelson</a>
+ */
+@Documented
+@Inherited
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ ElementType.TYPE, ElementType.METHOD })
+public @interface MaxEntitySize {
+
+  long value();
+
+}
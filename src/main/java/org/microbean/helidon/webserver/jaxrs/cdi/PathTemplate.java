@@ -0,0 +1,168 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright © 2019 microBean.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.microbean.helidon.webserver.jaxrs.cdi;
+
+import java.io.UnsupportedEncodingException;
+
+import java.net.URLDecoder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.ws.rs.core.MultivaluedMap;
+
+// A path template such as /app/widgets/{id: \d+}, compiled into a
+// regular expression that matches raw (still encoded) request paths
+// and extracts the values of its parameters.  Each distinct template
+// is compiled once, the first time it is needed.
+final class PathTemplate {
+
+  private static final ConcurrentMap<String, PathTemplate> templates = new ConcurrentHashMap<>();
+
+  private final Pattern pattern;
+
+  private final Pattern prefixPattern;
+
+  private final List<String> names;
+
+  // The capturing group of each name, in the same order.
+  private final int[] groups;
+
+  private PathTemplate(final String template) {
+    super();
+    final StringBuilder regex = new StringBuilder("/");
+    final List<String> names = new ArrayList<>();
+    final List<Integer> groups = new ArrayList<>();
+    int groupCount = 0;
+    int i = 0;
+    final int length = template.length();
+    while (i < length && template.charAt(i) == '/') {
+      i++;
+    }
+    int literalStart = i;
+    while (i < length) {
+      if (template.charAt(i) == '{') {
+        if (literalStart < i) {
+          regex.append(Pattern.quote(template.substring(literalStart, i)));
+        }
+        // Find the matching brace; the regular expression may contain
+        // braces of its own.
+        int depth = 1;
+        int end = i + 1;
+        while (end < length && depth > 0) {
+          final char c = template.charAt(end);
+          if (c == '{') {
+            depth++;
+          } else if (c == '}') {
+            depth--;
+          }
+          end++;
+        }
+        if (depth > 0) {
+          throw new IllegalArgumentException("Unbalanced braces in " + template);
+        }
+        final String variable = template.substring(i + 1, end - 1);
+        final int colon = variable.indexOf(':');
+        final String name;
+        final String variableRegex;
+        if (colon < 0) {
+          name = variable.trim();
+          variableRegex = "[^/]+";
+        } else {
+          name = variable.substring(0, colon).trim();
+          variableRegex = variable.substring(colon + 1).trim();
+        }
+        names.add(name);
+        groups.add(Integer.valueOf(++groupCount));
+        regex.append('(').append(variableRegex).append(')');
+        groupCount += Pattern.compile(variableRegex).matcher("").groupCount();
+        i = end;
+        literalStart = i;
+      } else {
+        i++;
+      }
+    }
+    if (literalStart < length) {
+      String literal = template.substring(literalStart);
+      while (literal.endsWith("/")) {
+        literal = literal.substring(0, literal.length() - 1);
+      }
+      if (!literal.isEmpty()) {
+        regex.append(Pattern.quote(literal));
+      }
+    }
+    this.pattern = Pattern.compile(regex + "/?");
+    this.prefixPattern = Pattern.compile(regex + "(?=/|$)");
+    this.names = names;
+    this.groups = new int[groups.size()];
+    for (int g = 0; g < this.groups.length; g++) {
+      this.groups[g] = groups.get(g).intValue();
+    }
+  }
+
+  static final PathTemplate of(final String template) {
+    return templates.computeIfAbsent(Objects.requireNonNull(template), PathTemplate::new);
+  }
+
+  // If rawPath matches this template in its entirety, adds the
+  // values of its parameters to parameters, and returns true.
+  final boolean match(final String rawPath, final MultivaluedMap<String, String> parameters, final boolean decode) {
+    final Matcher matcher = this.pattern.matcher(rawPath);
+    final boolean returnValue = matcher.matches();
+    if (returnValue && parameters != null) {
+      for (int i = 0; i < this.groups.length; i++) {
+        final String value = matcher.group(this.groups[i]);
+        parameters.add(this.names.get(i), decode ? decodePath(value) : value);
+      }
+    }
+    return returnValue;
+  }
+
+  // Returns the length of the longest prefix of rawPath, made of
+  // whole segments, that this template matches, or -1.
+  final int matchPrefix(final String rawPath) {
+    final Matcher matcher = this.prefixPattern.matcher(rawPath);
+    return matcher.lookingAt() ? matcher.end() : -1;
+  }
+
+  // Percent-decodes a path, in which, unlike in a query string, '+'
+  // is just a plus sign.
+  static final String decodePath(final String raw) {
+    return raw.indexOf('%') < 0 ? raw : decode(raw.replace("+", "%2B"));
+  }
+
+  // Decodes a query string component, in which '+' is a space.
+  static final String decodeQuery(final String raw) {
+    return raw.indexOf('%') < 0 && raw.indexOf('+') < 0 ? raw : decode(raw);
+  }
+
+  private static final String decode(final String raw) {
+    try {
+      return URLDecoder.decode(raw, "UTF-8");
+    } catch (final UnsupportedEncodingException impossible) {
+      throw new AssertionError(impossible.getMessage(), impossible);
+    }
+  }
+
+}
@@ -0,0 +1,290 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright © 2019 microBean.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.microbean.helidon.webserver.jaxrs.cdi;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+// A fixed-size thread pool with one bounded queue per
+// DispatchPriority.Level.
+//
+// Workers pick queues by weighted round robin: every level has a
+// weight, and a level that has work queued is served at least
+// weight/sum-of-weights of the time, so no level can be starved no
+// matter how busy the others are.  Each level may also be capped at a
+// maximum number of concurrently running tasks, so that slow, low
+// priority work can never occupy every thread.
+final class PriorityExecutor implements Executor, AutoCloseable {
+
+  private static final DispatchPriority.Level[] LEVELS = DispatchPriority.Level.values();
+
+  private final String name;
+
+  private final Thread[] threads;
+
+  private final ArrayDeque<Runnable>[] queues;
+
+  private final int queueCapacity;
+
+  private final int[] weights;
+
+  private final int[] credits;
+
+  private final int[] maxActive;
+
+  private final int[] active;
+
+  private final ReentrantLock lock;
+
+  private final Condition workAvailable;
+
+  private boolean started;
+
+  private boolean closed;
+
+  PriorityExecutor(final String name,
+                   final int threadCount,
+                   final int queueCapacity,
+                   final int[] weights,
+                   final int[] maxActive) {
+    super();
+    this.name = Objects.requireNonNull(name);
+    if (threadCount <= 0) {
+      throw new IllegalArgumentException("threadCount <= 0: " + threadCount);
+    }
+    if (queueCapacity <= 0) {
+      throw new IllegalArgumentException("queueCapacity <= 0: " + queueCapacity);
+    }
+    Objects.requireNonNull(weights);
+    Objects.requireNonNull(maxActive);
+    if (weights.length != LEVELS.length || maxActive.length != LEVELS.length) {
+      throw new IllegalArgumentException("weights.length != " + LEVELS.length + " || maxActive.length != " + LEVELS.length);
+    }
+    this.threads = new Thread[threadCount];
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    final ArrayDeque<Runnable>[] queues = (ArrayDeque<Runnable>[])new ArrayDeque[LEVELS.length];
+    this.queues = queues;
+    this.weights = new int[LEVELS.length];
+    this.credits = new int[LEVELS.length];
+    this.maxActive = new int[LEVELS.length];
+    this.active = new int[LEVELS.length];
+    for (int i = 0; i < LEVELS.length; i++) {
+      this.queues[i] = new ArrayDeque<>();
+      this.weights[i] = Math.max(1, weights[i]);
+      this.credits[i] = this.weights[i];
+      this.maxActive[i] = maxActive[i] <= 0 ? threadCount : Math.min(threadCount, maxActive[i]);
+    }
+    this.queueCapacity = queueCapacity;
+    this.lock = new ReentrantLock();
+    this.workAvailable = this.lock.newCondition();
+  }
+
+  static final PriorityExecutor of(final String name, final ApplicationConfiguration configuration) {
+    Objects.requireNonNull(configuration);
+    // Off by default: offloaded work no longer runs inside whatever
+    // per-request state the server's I/O thread has set up.
+    final int threadCount = configuration.getInt("dispatch.threads", 0);
+    final PriorityExecutor returnValue;
+    if (threadCount <= 0) {
+      returnValue = null;
+    } else {
+      final int[] weights = new int[LEVELS.length];
+      final int[] maxActive = new int[LEVELS.length];
+      for (final DispatchPriority.Level level : LEVELS) {
+        final int defaultWeight;
+        final int defaultMaxActive;
+        switch (level) {
+        case HIGH:
+          defaultWeight = 8;
+          defaultMaxActive = threadCount;
+          break;
+        case LOW:
+          defaultWeight = 1;
+          defaultMaxActive = Math.max(1, threadCount / 2);
+          break;
+        default:
+          defaultWeight = 4;
+          defaultMaxActive = threadCount;
+          break;
+        }
+        weights[level.ordinal()] = configuration.getInt("dispatch.weight." + level, defaultWeight);
+        maxActive[level.ordinal()] = configuration.getInt("dispatch.maxActive." + level, defaultMaxActive);
+      }
+      returnValue = new PriorityExecutor(name,
+                                         threadCount,
+                                         configuration.getInt("dispatch.queueCapacity", 1024),
+                                         weights,
+                                         maxActive);
+    }
+    return returnValue;
+  }
+
+  @Override
+  public final void execute(final Runnable task) {
+    this.execute(DispatchPriority.Level.NORMAL, task);
+  }
+
+  final void execute(final DispatchPriority.Level level, final Runnable task) {
+    Objects.requireNonNull(task);
+    final int index = level == null ? DispatchPriority.Level.NORMAL.ordinal() : level.ordinal();
+    final ReentrantLock lock = this.lock;
+    lock.lock();
+    try {
+      if (this.closed) {
+        throw new RejectedExecutionException(this.name + " is closed");
+      }
+      final ArrayDeque<Runnable> queue = this.queues[index];
+      if (queue.size() >= this.queueCapacity) {
+        throw new RejectedExecutionException(this.name + " queue for " + LEVELS[index] + " is full");
+      }
+      queue.addLast(task);
+      if (!this.started) {
+        this.start();
+      }
+      this.workAvailable.signal();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  // Must be called with the lock held.
+  private final void start() {
+    for (int i = 0; i < this.threads.length; i++) {
+      final Thread thread = new Thread(this::work, this.name + "-" + i);
+      thread.setDaemon(true);
+      this.threads[i] = thread;
+      thread.start();
+    }
+    this.started = true;
+  }
+
+  private final void work() {
+    while (true) {
+      final int index;
+      final Runnable task;
+      final ReentrantLock lock = this.lock;
+      lock.lock();
+      try {
+        int i;
+        while ((i = this.select()) < 0) {
+          if (this.closed) {
+            return;
+          }
+          this.workAvailable.awaitUninterruptibly();
+        }
+        index = i;
+        task = this.queues[index].pollFirst();
+        assert task != null;
+        this.active[index]++;
+      } finally {
+        lock.unlock();
+      }
+      try {
+        task.run();
+      } catch (final RuntimeException | Error throwable) {
+        final Thread currentThread = Thread.currentThread();
+        currentThread.getUncaughtExceptionHandler().uncaughtException(currentThread, throwable);
+      } finally {
+        // Interruption is how individual tasks get cancelled; don't
+        // let it leak into the next one.
+        Thread.interrupted();
+        lock.lock();
+        try {
+          this.active[index]--;
+          // A slot may have opened up for a capped level.
+          this.workAvailable.signal();
+        } finally {
+          lock.unlock();
+        }
+      }
+    }
+  }
+
+  // Must be called with the lock held.  Returns the index of the level
+  // to run a task from next, or -1 if nothing is runnable.
+  private final int select() {
+    for (int pass = 0; pass < 2; pass++) {
+      boolean runnable = false;
+      for (int i = 0; i < this.queues.length; i++) {
+        if (!this.queues[i].isEmpty() && this.active[i] < this.maxActive[i]) {
+          runnable = true;
+          if (this.credits[i] > 0) {
+            this.credits[i]--;
+            return i;
+          }
+        }
+      }
+      if (!runnable) {
+        break;
+      }
+      // Every runnable level has used up its credits; start a new
+      // round.
+      System.arraycopy(this.weights, 0, this.credits, 0, this.weights.length);
+    }
+    return -1;
+  }
+
+  // Tasks still queued are not run.  Each one that is Rejectable is
+  // told so, and each other one that is a Future is cancelled, so
+  // that nothing waits forever for them.
+  @Override
+  public final void close() {
+    final List<Runnable> dropped = new ArrayList<>();
+    final ReentrantLock lock = this.lock;
+    lock.lock();
+    try {
+      this.closed = true;
+      for (final ArrayDeque<Runnable> queue : this.queues) {
+        dropped.addAll(queue);
+        queue.clear();
+      }
+      this.workAvailable.signalAll();
+    } finally {
+      lock.unlock();
+    }
+    // Outside the lock: answering a task may mean sending a response.
+    for (final Runnable task : dropped) {
+      try {
+        if (task instanceof Rejectable) {
+          ((Rejectable)task).reject(new RejectedExecutionException(this.name + " is closed"));
+        } else if (task instanceof Future) {
+          ((Future<?>)task).cancel(false);
+        }
+      } catch (final RuntimeException | Error throwable) {
+        final Thread currentThread = Thread.currentThread();
+        currentThread.getUncaughtExceptionHandler().uncaughtException(currentThread, throwable);
+      }
+    }
+  }
+
+  // A task that wants to know if it was queued but will never run.
+  interface Rejectable extends Runnable {
+
+    void reject(final RejectedExecutionException rejectedExecutionException);
+
+  }
+
+}
@@ -0,0 +1,112 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright © 2019 microBean.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.microbean.helidon.webserver.jaxrs.cdi;
+
+import java.util.Objects;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The point in time by which the current request must be answered.
+ *
+ * <p>An instance is available for injection, qualified with the
+ * qualifiers of the governing {@link javax.ws.rs.core.Application},
+ * while a request is being dispatched, so that calls made on its
+ * behalf can be bounded by {@link #remaining(TimeUnit)}.</p>
+ *
+ * <p>The instance injected is the deadline of the request being
+ * dispatched when the injection happens, and {@link #NONE} if there
+ * is none.  Beans that outlive a request, such as {@link
+ * javax.inject.Singleton} or {@link
+ * javax.enterprise.context.ApplicationScoped} beans, must therefore
+ * inject a {@link javax.inject.Provider Provider&lt;RequestDeadline&gt;}
+ * and call its {@link javax.inject.Provider#get() get()} method
+ * each time they need the deadline.</p>
+ *
+ * @author <a href="https://about.me/lairdnelson"
+ * target="_parent">Laird Nelson</a>
+ *
+ * @see DispatchTimeout
+ */
+public final class RequestDeadline {
+
+  /**
+   * A {@link RequestDeadline} that never expires.
+   */
+  public static final RequestDeadline NONE = new RequestDeadline(false, 0L);
+
+  private final boolean bounded;
+
+  private final long deadlineNanos;
+
+  private RequestDeadline(final boolean bounded, final long deadlineNanos) {
+    super();
+    this.bounded = bounded;
+    this.deadlineNanos = deadlineNanos;
+  }
+
+  /**
+   * Returns {@code true} if this {@link RequestDeadline} can expire.
+   *
+   * @return {@code true} if this {@link RequestDeadline} can expire
+   */
+  public boolean isBounded() {
+    return this.bounded;
+  }
+
+  /**
+   * Returns {@code true} if this {@link RequestDeadline} has passed.
+   *
+   * @return {@code true} if this {@link RequestDeadline} has passed
+   */
+  public boolean isExpired() {
+    return this.bounded && System.nanoTime() - this.deadlineNanos >= 0L;
+  }
+
+  /**
+   * Returns the time remaining until this {@link RequestDeadline}
+   * passes, which will be {@code 0} if it already has, or {@link
+   * Long#MAX_VALUE} if it is not {@linkplain #isBounded() bounded}.
+   *
+   * @param unit the {@link TimeUnit} in which to express the
+   * remaining time; must not be {@code null}
+   *
+   * @return the time remaining
+   *
+   * @exception NullPointerException if {@code unit} is {@code null}
+   */
+  public long remaining(final TimeUnit unit) {
+    Objects.requireNonNull(unit);
+    final long returnValue;
+    if (this.bounded) {
+      returnValue = unit.convert(Math.max(0L, this.deadlineNanos - System.nanoTime()), TimeUnit.NANOSECONDS);
+    } else {
+      returnValue = Long.MAX_VALUE;
+    }
+    return returnValue;
+  }
+
+  @Override
+  public String toString() {
+    return this.bounded ? this.remaining(TimeUnit.MILLISECONDS) + " ms remaining" : "unbounded";
+  }
+
+  static final RequestDeadline after(final long timeoutNanos) {
+    return timeoutNanos <= 0L ? NONE : new RequestDeadline(true, System.nanoTime() + timeoutNanos);
+  }
+
+}
@@ -16,14 +16,23 @@
  */
 package org.microbean.helidon.webserver.jaxrs.cdi;
 
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+
+import javax.enterprise.event.Event;
 
 import javax.enterprise.inject.Instance;
 
 import javax.inject.Inject;
 
 import io.helidon.common.http.Http;
+import io.helidon.common.http.MediaType;
 
 import io.helidon.webserver.Routing;
 import io.helidon.webserver.Service;
@@ -33,25 +42,158 @@ class ResourceClassService implements Service {
 
   private final Instance<ResourceMethodHandler<?>> resourceMethodHandlers;
 
+  private final Dispatcher dispatcher;
+
+  private final Event<WarmUpCompleted> warmUpCompletedEvent;
+
+  // False only while warming up.
+  private volatile boolean ready;
+
   @Inject
-  private ResourceClassService(final Instance<ResourceMethodHandler<?>> resourceMethodHandlers) {    
+  private ResourceClassService(final Instance<ResourceMethodHandler<?>> resourceMethodHandlers,
+                               final Dispatcher dispatcher,
+                               final Event<WarmUpCompleted> warmUpCompletedEvent) {
     super();
     this.resourceMethodHandlers = Objects.requireNonNull(resourceMethodHandlers);
+    this.dispatcher = Objects.requireNonNull(dispatcher);
+    this.warmUpCompletedEvent = Objects.requireNonNull(warmUpCompletedEvent);
+    this.ready = true;
   }
 
   @Override
   @Inject
   public void update(final Routing.Rules rules) {
     Objects.requireNonNull(rules);
+    final BootstrapTimer routingTimer = BootstrapTimer.start(BootstrapTimer.Phase.ROUTING);
+    final List<ResourceMethodHandler<?>> handlers = new ArrayList<>();
+    final List<ResourceMethodHandler<?>> locators = new ArrayList<>();
+    // Path -> HTTP method -> the first handler for it.
+    final Map<String, Map<String, ResourceMethodHandler<?>>> handlersByPath = new LinkedHashMap<>();
     for (final ResourceMethodHandler<?> handler : this.resourceMethodHandlers) {
       if (handler != null) {
         final ResourceMethodDescriptor<?> descriptor = handler.getResourceMethodDescriptor();
         assert descriptor != null;
-        final Http.RequestMethod httpMethod = descriptor.getHttpMethod();
-        assert httpMethod != null;
-        rules.anyOf(Collections.singleton(httpMethod), descriptor.getPath(), handler);
+        if (descriptor.isSubResourceLocator()) {
+          locators.add(handler);
+        } else {
+          final Http.RequestMethod httpMethod = descriptor.getHttpMethod();
+          assert httpMethod != null;
+          rules.anyOf(Collections.singleton(httpMethod), descriptor.getPath(), handler);
+          handlersByPath.computeIfAbsent(descriptor.getPath(), p -> new LinkedHashMap<>()).putIfAbsent(httpMethod.name(), handler);
+        }
+        handlers.add(handler);
+      }
+    }
+    // HEAD and OPTIONS, wherever they weren't declared.  HEAD runs the
+    // GET resource method but writes no body; OPTIONS is answered
+    // from what's known now, without invoking anything.
+    for (final Map.Entry<String, Map<String, ResourceMethodHandler<?>>> entry : handlersByPath.entrySet()) {
+      final String path = entry.getKey();
+      final Map<String, ResourceMethodHandler<?>> handlersByMethod = entry.getValue();
+      final ResourceMethodHandler<?> getHandler = handlersByMethod.get(Http.Method.GET.name());
+      if (getHandler != null && !handlersByMethod.containsKey(Http.Method.HEAD.name())) {
+        rules.head(path, getHandler.forHead());
+      }
+      if (!handlersByMethod.containsKey(Http.Method.OPTIONS.name())) {
+        final Map<String, ResourceMethodDescriptor<?>> descriptorsByMethod = new LinkedHashMap<>();
+        for (final Map.Entry<String, ResourceMethodHandler<?>> handlerEntry : handlersByMethod.entrySet()) {
+          descriptorsByMethod.put(handlerEntry.getKey(), handlerEntry.getValue().getResourceMethodDescriptor());
+        }
+        final Map<String, String> headers = getOptionsHeaders(descriptorsByMethod);
+        rules.options(path, (request, response) -> {
+            for (final Map.Entry<String, String> header : headers.entrySet()) {
+              response.headers().put(header.getKey(), header.getValue());
+            }
+            response.status(Http.Status.OK_200).send();
+          });
+      }
+    }
+    // Resource methods take precedence over sub-resource locators, so
+    // locators are routed last.  A locator serves its own path, with
+    // any method, and everything beneath it.
+    for (final ResourceMethodHandler<?> locator : locators) {
+      final String path = locator.getResourceMethodDescriptor().getPath();
+      rules.any(path, locator);
+      rules.any(path + "/{+subResourcePath}", locator);
+    }
+    routingTimer.stop(this.dispatcher.getName(), handlers.size());
+    final ApplicationConfiguration configuration = this.dispatcher.getConfiguration();
+    final int warmUpIterations = configuration.getInt("warmup.iterations", 0);
+    if (warmUpIterations > 0) {
+      this.warmUp(handlers, warmUpIterations);
+    }
+    final String readinessPath = configuration.getString("warmup.readiness.path", null);
+    if (readinessPath != null) {
+      rules.get(readinessPath, (request, response) -> {
+          response.status(this.ready ? Http.Status.OK_200 : Http.Status.SERVICE_UNAVAILABLE_503).send();
+        });
+    }
+    final String metricsPath = configuration.getString("metrics.path", null);
+    if (metricsPath != null) {
+      final DispatchMetrics metrics = this.dispatcher.getMetrics();
+      final MediaType contentType = MediaType.parse(DispatchMetrics.CONTENT_TYPE);
+      rules.get(metricsPath, (request, response) -> {
+          response.headers().contentType(contentType);
+          response.send(metrics.toPrometheusText());
+        });
+    }
+  }
+
+  // The headers of the answer to an OPTIONS request for a path whose
+  // resource methods, by HTTP method, are given: Allow, and, for POST
+  // and PATCH, the media types they accept.
+  static final Map<String, String> getOptionsHeaders(final Map<String, ? extends ResourceMethodDescriptor<?>> descriptorsByMethod) {
+    final Set<String> allowed = new TreeSet<>(descriptorsByMethod.keySet());
+    if (allowed.contains(Http.Method.GET.name())) {
+      allowed.add(Http.Method.HEAD.name());
+    }
+    allowed.add(Http.Method.OPTIONS.name());
+    final Map<String, String> returnValue = new LinkedHashMap<>();
+    returnValue.put("Allow", String.join(", ", allowed));
+    putAccept(returnValue, "Accept-Post", descriptorsByMethod.get(Http.Method.POST.name()));
+    putAccept(returnValue, "Accept-Patch", descriptorsByMethod.get(Http.Method.PATCH.name()));
+    return Collections.unmodifiableMap(returnValue);
+  }
+
+  private static final void putAccept(final Map<String, String> headers, final String name, final ResourceMethodDescriptor<?> descriptor) {
+    if (descriptor != null) {
+      final Set<? extends MediaType> consumedMediaTypes = descriptor.getConsumedMediaTypes();
+      if (!consumedMediaTypes.contains(MediaType.WILDCARD)) {
+        final Set<String> values = new TreeSet<>();
+        for (final MediaType mediaType : consumedMediaTypes) {
+          values.add(mediaType.toString());
+        }
+        headers.put(name, String.join(", ", values));
       }
     }
   }
 
+  // Warms up the handlers on a thread of its own, so that the server
+  // can start meanwhile; until it's done, the readiness route, if
+  // there is one, answers 503.
+  private final void warmUp(final List<? extends ResourceMethodHandler<?>> handlers, final int iterations) {
+    this.ready = false;
+    final String name = this.dispatcher.getName();
+    final Thread thread = new Thread(() -> {
+        final long startNanos = System.nanoTime();
+        final BootstrapTimer warmUpTimer = BootstrapTimer.start(BootstrapTimer.Phase.WARM_UP);
+        int failedRouteCount = 0;
+        try {
+          for (final ResourceMethodHandler<?> handler : handlers) {
+            if (!handler.warmUp(iterations)) {
+              failedRouteCount++;
+            }
+          }
+        } finally {
+          warmUpTimer.stop(name, handlers.size());
+          this.ready = true;
+        }
+        this.warmUpCompletedEvent.fire(new WarmUpCompleted(name, handlers.size(), failedRouteCount, System.nanoTime() - startNanos));
+      }, name + "-warmup");
+    thread.setDaemon(true);
+    // Resource classes may well have been loaded by it.
+    thread.setContextClassLoader(Thread.currentThread().getContextClassLoader());
+    thread.start();
+  }
+
 }
@@ -18,8 +18,10 @@ package org.microbean.helidon.webserver.jaxrs.cdi;
 
 import java.lang.annotation.Annotation;
 
+import java.lang.reflect.Method;
+
 import java.util.HashSet;
-import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Objects;
 import java.util.Set;
 
@@ -40,6 +42,14 @@ public final class ResourceClasses {
                                                                                         final AnnotatedType<X> type,
                                                                                         final Set<Annotation> qualifiers)
     throws ReflectiveOperationException {
+    return getResourceMethodDescriptors(new AnnotationInheritanceIndex(beanManager), applicationPath, type, qualifiers);
+  }
+
+  static final <X> Set<ResourceMethodDescriptor<X>> getResourceMethodDescriptors(final AnnotationInheritanceIndex index,
+                                                                                 final String applicationPath,
+                                                                                 final AnnotatedType<X> type,
+                                                                                 final Set<Annotation> qualifiers)
+    throws ReflectiveOperationException {
     Set<ResourceMethodDescriptor<X>> returnValue = null;
     if (type != null) {
       final Set<AnnotatedMethod<? super X>> methods = type.getMethods();
@@ -47,7 +57,7 @@ public final class ResourceClasses {
         returnValue = new HashSet<>();
         for (final AnnotatedMethod<? super X> method : methods) {
           if (method != null) {
-            final ResourceMethodDescriptor<X> descriptor = ResourceMethodDescriptor.from(beanManager, applicationPath, type, qualifiers, method);
+            final ResourceMethodDescriptor<X> descriptor = ResourceMethodDescriptor.from(index, applicationPath, type, qualifiers, method);
             if (descriptor != null) {
               returnValue.add(descriptor);
             }
@@ -58,64 +68,68 @@ public final class ResourceClasses {
     return returnValue;
   }
 
+  // Uses what the resource model processor worked out at compile
+  // time instead of looking for annotations.  Returns null if that no
+  // longer matches the AnnotatedType (say, because the resource class
+  // was recompiled without the processor), in which case the caller
+  // should fall back to reflection.
+  static final <X> Set<ResourceMethodDescriptor<X>> getResourceMethodDescriptors(final GeneratedResourceClass generatedResourceClass,
+                                                                                 final String applicationPath,
+                                                                                 final AnnotatedType<X> type,
+                                                                                 final Set<Annotation> qualifiers) {
+    Objects.requireNonNull(generatedResourceClass);
+    Objects.requireNonNull(type);
+    final List<GeneratedResourceMethod> generatedResourceMethods = generatedResourceClass.getResourceMethods();
+    final int size = generatedResourceMethods.size();
+    final Set<AnnotatedMethod<? super X>> methods = type.getMethods();
+    @SuppressWarnings("unchecked")
+    final AnnotatedMethod<? super X>[] matches = (AnnotatedMethod<? super X>[])new AnnotatedMethod<?>[size];
+    if (methods != null) {
+      for (final AnnotatedMethod<? super X> method : methods) {
+        if (method != null) {
+          final Method javaMethod = method.getJavaMember();
+          final String name = javaMethod.getName();
+          final Class<?>[] parameterTypes = javaMethod.getParameterTypes();
+          for (int i = 0; i < size; i++) {
+            if (matches[i] == null && generatedResourceMethods.get(i).matches(name, parameterTypes)) {
+              matches[i] = method;
+              break;
+            }
+          }
+        }
+      }
+    }
+    final Set<ResourceMethodDescriptor<X>> returnValue = new HashSet<>();
+    for (int i = 0; i < size; i++) {
+      if (matches[i] == null) {
+        return null;
+      }
+      returnValue.add(ResourceMethodDescriptor.from(applicationPath, type, qualifiers, matches[i], generatedResourceClass, generatedResourceMethods.get(i)));
+    }
+    return returnValue;
+  }
+
   public static final <X, T> T find(final BeanManager beanManager,
                                     final AnnotatedMethod<? super X> source,
                                     Function<? super AnnotatedMethod<? super X>, T> tester) {
     Objects.requireNonNull(beanManager);
+    return find(new AnnotationInheritanceIndex(beanManager), source, tester);
+  }
+
+  static final <X, T> T find(final AnnotationInheritanceIndex index,
+                             final AnnotatedMethod<? super X> source,
+                             Function<? super AnnotatedMethod<? super X>, T> tester) {
+    Objects.requireNonNull(index);
     Objects.requireNonNull(source);
     Objects.requireNonNull(tester);
     T returnValue = tester.apply(source);
     if (returnValue == null) {
-      final Set<AnnotatedType<? super X>> interfaces = new LinkedHashSet<>();
-      final AnnotatedType<? super X> declaringType = source.getDeclaringType();
-      assert declaringType != null;
-      AnnotatedType<? super X> c = beanManager.createAnnotatedType(declaringType.getJavaClass().getSuperclass());
-      AnnotatedMethod<? super X> m = null;
-      while (c != null) {
-        m = c.getMethods()
-          .stream()
-          .filter(am -> am.getJavaMember().getName().equals(source.getJavaMember().getName()) && am.getParameters().equals(source.getParameters()))
-          .findAny() // should be zero or one
-          .orElse(null);
-        if (m != null) {
-          returnValue = tester.apply(m);
-          if (returnValue != null) {
-            break;
-          }
-        }
-        @SuppressWarnings("unchecked")
-        final Class<? super X>[] cInterfaces = (Class<? super X>[])c.getJavaClass().getInterfaces();
-        if (cInterfaces != null && cInterfaces.length > 0) {
-          for (final Class<? super X> cInterface : cInterfaces) {
-            interfaces.add(beanManager.createAnnotatedType(cInterface));
-          }
-        }
-        final Class<? super X> superclass = c.getJavaClass().getSuperclass();
-        if (superclass == null) {
-          c = null;
-        } else {
-          c = beanManager.createAnnotatedType(superclass);
-        }
-      }
-
-      if (returnValue == null && !interfaces.isEmpty()) {
-        for (final AnnotatedType<? super X> iface : interfaces) {
-          assert iface != null;
-          m = iface.getMethods()
-            .stream()
-            .filter(am -> am.getJavaMember().getName().equals(source.getJavaMember().getName()) && am.getParameters().equals(source.getParameters()))
-            .findAny() // should be zero or one
-            .orElse(null);
-          if (m != null) {
-            returnValue = tester.apply(m);
-            if (returnValue != null) {
-              break;
-            }
-          }
+      for (final AnnotatedMethod<? super X> m : index.<X>getOverriddenMethods(source)) {
+        returnValue = tester.apply(m);
+        if (returnValue != null) {
+          break;
         }
       }
-      interfaces.clear();
-      
     }
     return returnValue;
   }
@@ -45,6 +45,7 @@ public class ResourceMethodDescriptor<X> {
 
   static final Pattern pattern = Pattern.compile("^(\\s*/*\\s*)(.+)(\\s*/*\\s*)$");
   
+  // Null for sub-resource locators.
   private final Http.RequestMethod httpMethod;
   
   private final Set<? extends MediaType> consumedMediaTypes;
@@ -58,6 +59,15 @@ public class ResourceMethodDescriptor<X> {
   private final Set<Annotation> qualifiers;
 
   private final AnnotatedType<X> resourceClass;
+
+  private final DispatchPriority.Level priority;
+
+  private final long timeoutNanos;
+
+  private final long maxEntitySize;
+
+  // Null unless the resource model processor generated one.
+  private final ResourceMethodInvoker invoker;
   
   public ResourceMethodDescriptor(final AnnotatedType<X> resourceClass,
                                   final Set<Annotation> qualifiers,
@@ -66,6 +76,45 @@ public class ResourceMethodDescriptor<X> {
                                   final Set<? extends MediaType> consumedMediaTypes,
                                   final Set<? extends MediaType> producedMediaTypes,
                                   final Http.RequestMethod httpMethod) {
+    this(resourceClass, qualifiers, resourceMethod, path, consumedMediaTypes, producedMediaTypes, httpMethod, null, -1L);
+  }
+  
+  public ResourceMethodDescriptor(final AnnotatedType<X> resourceClass,
+                                  final Set<Annotation> qualifiers,
+                                  final AnnotatedMethod<? super X> resourceMethod,
+                                  final String path,
+                                  final Set<? extends MediaType> consumedMediaTypes,
+                                  final Set<? extends MediaType> producedMediaTypes,
+                                  final Http.RequestMethod httpMethod,
+                                  final DispatchPriority.Level priority,
+                                  final long timeoutNanos) {
+    this(resourceClass, qualifiers, resourceMethod, path, consumedMediaTypes, producedMediaTypes, httpMethod, priority, timeoutNanos, -1L);
+  }
+
+  public ResourceMethodDescriptor(final AnnotatedType<X> resourceClass,
+                                  final Set<Annotation> qualifiers,
+                                  final AnnotatedMethod<? super X> resourceMethod,
+                                  final String path,
+                                  final Set<? extends MediaType> consumedMediaTypes,
+                                  final Set<? extends MediaType> producedMediaTypes,
+                                  final Http.RequestMethod httpMethod,
+                                  final DispatchPriority.Level priority,
+                                  final long timeoutNanos,
+                                  final long maxEntitySize) {
+    this(resourceClass, qualifiers, resourceMethod, path, consumedMediaTypes, producedMediaTypes, httpMethod, priority, timeoutNanos, maxEntitySize, null);
+  }
+
+  ResourceMethodDescriptor(final AnnotatedType<X> resourceClass,
+                           final Set<Annotation> qualifiers,
+                           final AnnotatedMethod<? super X> resourceMethod,
+                           final String path,
+                           final Set<? extends MediaType> consumedMediaTypes,
+                           final Set<? extends MediaType> producedMediaTypes,
+                           final Http.RequestMethod httpMethod,
+                           final DispatchPriority.Level priority,
+                           final long timeoutNanos,
+                           final long maxEntitySize,
+                           final ResourceMethodInvoker invoker) {
     super();
     this.resourceClass = Objects.requireNonNull(resourceClass);
     this.qualifiers = qualifiers;
@@ -81,7 +130,11 @@ public class ResourceMethodDescriptor<X> {
     } else {
       this.producedMediaTypes = Collections.unmodifiableSet(new HashSet<>(producedMediaTypes));
     }
-    this.httpMethod = Objects.requireNonNull(httpMethod);
+    this.httpMethod = httpMethod;
+    this.priority = priority == null ? DispatchPriority.Level.NORMAL : priority;
+    this.timeoutNanos = timeoutNanos < 0L ? -1L : timeoutNanos;
+    this.maxEntitySize = maxEntitySize < 0L ? -1L : maxEntitySize;
+    this.invoker = invoker;
   }
 
   public AnnotatedType<X> getResourceClass() {
@@ -111,6 +164,34 @@ public class ResourceMethodDescriptor<X> {
   public Http.RequestMethod getHttpMethod() {
     return this.httpMethod;
   }
+
+  // A sub-resource locator has a @Path but no HTTP method; what it
+  // returns is the resource that actually serves the request.
+  public boolean isSubResourceLocator() {
+    return this.httpMethod == null;
+  }
+
+  public DispatchPriority.Level getPriority() {
+    return this.priority;
+  }
+
+  // A negative value means no timeout was declared on the resource
+  // method or class, so the Application-wide default applies; 0L
+  // means that no timeout applies at all.
+  public long getTimeoutNanos() {
+    return this.timeoutNanos;
+  }
+
+  // In bytes.  As with getTimeoutNanos(), a negative value means no
+  // MaxEntitySize was declared, and 0L means that no limit applies.
+  public long getMaxEntitySize() {
+    return this.maxEntitySize;
+  }
+
+  // If non-null, invokes the resource method without reflection.
+  final ResourceMethodInvoker getInvoker() {
+    return this.invoker;
+  }
   
   @Override
   public String toString() {
@@ -120,8 +201,9 @@ public class ResourceMethodDescriptor<X> {
       sb.append("@Path(").append("\"").append(path).append("\") ");
     }
     final Http.RequestMethod httpMethod = this.getHttpMethod();
-    assert httpMethod != null;
-    sb.append("@").append(httpMethod).append(" ");
+    if (httpMethod != null) {
+      sb.append("@").append(httpMethod).append(" ");
+    }
     final Set<?> producedMediaTypes = this.getProducedMediaTypes();
     if (producedMediaTypes != null && !producedMediaTypes.isEmpty()) {
       sb.append("@Produces(");
@@ -162,6 +244,16 @@ public class ResourceMethodDescriptor<X> {
                                                            final AnnotatedMethod<? super X> resourceMethod)
   {
     Objects.requireNonNull(beanManager);
+    return from(new AnnotationInheritanceIndex(beanManager), applicationPath, resourceClass, qualifiers, resourceMethod);
+  }
+
+  static final <X> ResourceMethodDescriptor<X> from(final AnnotationInheritanceIndex index,
+                                                    final String applicationPath,
+                                                    final AnnotatedType<X> resourceClass,
+                                                    final Set<Annotation> qualifiers,
+                                                    final AnnotatedMethod<? super X> resourceMethod)
+  {
+    Objects.requireNonNull(index);
     Objects.requireNonNull(resourceClass);
     Objects.requireNonNull(resourceMethod);
     ResourceMethodDescriptor<X> returnValue = null;
@@ -171,7 +263,7 @@ public class ResourceMethodDescriptor<X> {
       Produces produces = null;
       Consumes consumes = null;
       Http.Method httpMethod = null;
-      final Set<Annotation> jaxRsMethodLevelAnnotations = ResourceClasses.find(beanManager, resourceMethod, ResourceMethodDescriptor::getJaxRsMethodLevelAnnotations);
+      final Set<Annotation> jaxRsMethodLevelAnnotations = ResourceClasses.find(index, resourceMethod, ResourceMethodDescriptor::getJaxRsMethodLevelAnnotations);
       if (jaxRsMethodLevelAnnotations != null && !jaxRsMethodLevelAnnotations.isEmpty()) {
         for (final Annotation annotation : jaxRsMethodLevelAnnotations) {
           if (annotation instanceof Produces) {
@@ -193,7 +285,7 @@ public class ResourceMethodDescriptor<X> {
           }
         }
       }
-      if (httpMethod != null) {
+      if (httpMethod != null || resourceMethod.isAnnotationPresent(Path.class)) {
         final Set<MediaType> producedMediaTypes = new HashSet<>();
         if (produces != null) {
           final String[] values = produces.value();
@@ -212,16 +304,78 @@ public class ResourceMethodDescriptor<X> {
             consumedMediaTypes.add(MediaType.parse(value.trim()));
           }
         }
-        returnValue = new ResourceMethodDescriptor<>(resourceClass, qualifiers, resourceMethod, path, consumedMediaTypes, producedMediaTypes, httpMethod);
+        DispatchPriority priority = ResourceClasses.find(index, resourceMethod, m -> m.getAnnotation(DispatchPriority.class));
+        if (priority == null) {
+          priority = resourceClass.getAnnotation(DispatchPriority.class);
+        }
+        DispatchTimeout timeout = ResourceClasses.find(index, resourceMethod, m -> m.getAnnotation(DispatchTimeout.class));
+        if (timeout == null) {
+          timeout = resourceClass.getAnnotation(DispatchTimeout.class);
+        }
+        MaxEntitySize maxEntitySize = ResourceClasses.find(index, resourceMethod, m -> m.getAnnotation(MaxEntitySize.class));
+        if (maxEntitySize == null) {
+          maxEntitySize = resourceClass.getAnnotation(MaxEntitySize.class);
+        }
+        returnValue = new ResourceMethodDescriptor<>(resourceClass,
+                                                     qualifiers,
+                                                     resourceMethod,
+                                                     path,
+                                                     consumedMediaTypes,
+                                                     producedMediaTypes,
+                                                     httpMethod,
+                                                     priority == null ? null : priority.value(),
+                                                     timeout == null ? -1L : Math.max(0L, timeout.unit().toNanos(timeout.value())),
+                                                     maxEntitySize == null ? -1L : Math.max(0L, maxEntitySize.value()));
       }
     }
     return returnValue;
   }
 
+  // Builds a descriptor from what the resource model processor worked
+  // out at compile time, rather than by looking for annotations.
+  static final <X> ResourceMethodDescriptor<X> from(final String applicationPath,
+                                                    final AnnotatedType<X> resourceClass,
+                                                    final Set<Annotation> qualifiers,
+                                                    final AnnotatedMethod<? super X> resourceMethod,
+                                                    final GeneratedResourceClass generatedResourceClass,
+                                                    final GeneratedResourceMethod generatedResourceMethod) {
+    Objects.requireNonNull(resourceClass);
+    Objects.requireNonNull(resourceMethod);
+    Objects.requireNonNull(generatedResourceClass);
+    Objects.requireNonNull(generatedResourceMethod);
+    final String httpMethod = generatedResourceMethod.getHttpMethod();
+    final Set<MediaType> consumedMediaTypes = new HashSet<>();
+    for (final String value : generatedResourceMethod.getConsumedMediaTypes()) {
+      consumedMediaTypes.add(MediaType.parse(value.trim()));
+    }
+    final Set<MediaType> producedMediaTypes = new HashSet<>();
+    for (final String value : generatedResourceMethod.getProducedMediaTypes()) {
+      producedMediaTypes.add(MediaType.parse(value.trim()));
+    }
+    return new ResourceMethodDescriptor<>(resourceClass,
+                                          qualifiers,
+                                          resourceMethod,
+                                          getPath(getPath(applicationPath, generatedResourceClass.getPath()), generatedResourceMethod.getPath()),
+                                          consumedMediaTypes,
+                                          producedMediaTypes,
+                                          httpMethod == null ? null : Http.Method.valueOf(httpMethod),
+                                          generatedResourceMethod.getPriority(),
+                                          generatedResourceMethod.getTimeoutNanos(),
+                                          generatedResourceMethod.getMaxEntitySize(),
+                                          generatedResourceMethod.getInvoker());
+  }
+
   static final <X> String getPath(final String prefix, final AnnotatedType<X> resourceClass, final AnnotatedMethod<? super X> resourceMethod) {
     return getPath(getPath(prefix, resourceClass), resourceMethod);
   }
   
+  // The value of element's @Path annotation as it appears in paths,
+  // or null if it has none.
+  static final String getPathValue(final Annotated element) {
+    final Path path = element == null ? null : element.getAnnotation(Path.class);
+    return path == null ? null : pattern.matcher(path.value()).replaceAll("$2");
+  }
+
   private static final String getPath(final String prefix, final Annotated element) {
     return getPath(prefix, element == null ? (Path)null : element.getAnnotation(Path.class));
   }
@@ -230,7 +384,7 @@ public class ResourceMethodDescriptor<X> {
     return getPath(prefix, path == null ? (String)null : pattern.matcher(path.value()).replaceAll("$2"));
   }
 
-  private static final String getPath(final String prefix, final String path) {
+  static final String getPath(final String prefix, final String path) {
     final String returnValue;
     if (path == null) {
       if (prefix == null) {
@@ -18,20 +18,57 @@ package org.microbean.helidon.webserver.jaxrs.cdi;
 
 import java.lang.annotation.Annotation;
 
+import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.lang.reflect.Parameter;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
 
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+
 import java.util.Arrays;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.Objects;
+import java.util.OptionalLong;
 import java.util.List;
 import java.util.Set;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import java.util.function.Function;
+
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.enterprise.context.ApplicationScoped;
+
+import javax.enterprise.context.control.RequestContextController;
+
+import javax.enterprise.inject.CreationException;
 import javax.enterprise.inject.Default;
+import javax.enterprise.inject.Instance;
 import javax.enterprise.inject.UnsatisfiedResolutionException;
 
 import javax.enterprise.inject.spi.AnnotatedMethod;
@@ -40,39 +77,179 @@ import javax.enterprise.inject.spi.AnnotatedType;
 import javax.enterprise.inject.spi.Bean;
 import javax.enterprise.inject.spi.BeanManager;
 
+import javax.inject.Singleton;
+
+import javax.ws.rs.sse.SseEventSink;
+
+import io.helidon.common.http.DataChunk;
+import io.helidon.common.http.Http;
+import io.helidon.common.http.MediaType;
 import io.helidon.common.http.Reader;
 
+import io.helidon.common.reactive.Flow;
+
 import io.helidon.webserver.Handler;
+import io.helidon.webserver.ResponseHeaders;
 import io.helidon.webserver.ServerRequest;
 import io.helidon.webserver.ServerResponse;
 
+import org.microbean.helidon.webserver.jaxrs.cdi.DispatchEvents.EntityReadEvent;
+import org.microbean.helidon.webserver.jaxrs.cdi.DispatchEvents.InvocationEvent;
+import org.microbean.helidon.webserver.jaxrs.cdi.DispatchEvents.ParameterBindingEvent;
+import org.microbean.helidon.webserver.jaxrs.cdi.DispatchEvents.ResourceAcquisitionEvent;
+import org.microbean.helidon.webserver.jaxrs.cdi.DispatchEvents.RouteMatchEvent;
+import org.microbean.helidon.webserver.jaxrs.cdi.DispatchEvents.SerializationEvent;
+
 // Note: NOT a bean.
 class ResourceMethodHandler<T> implements Handler {
 
+  // Shared so that invoking a method without parameters doesn't
+  // allocate an empty varargs array every time.
+  private static final Object[] NO_ARGUMENTS = new Object[0];
+
+  // What dispatching to a sub-resource produces when nothing there
+  // matches the request.
+  private static final Object NO_MATCH = new Object();
+
+  private static final Logger logger = Logger.getLogger(HelidonJAXRSExtension.class.getName());
+
   private final BeanManager beanManager;
   
   private final ResourceMethodDescriptor<T> descriptor;
 
-  private final List<? extends BeanType<?>> parameterBeanTypes;
+  private final Dispatcher dispatcher;
+
+  private final long timeoutNanos;
 
-  private final BeanType<?> entityParameterBeanType;
+  private final String timeoutHeader;
+
+  private final ResourceMethodMetrics metrics;
+
+  // In bytes; zero or less means no limit.  See MaxEntitySize.
+  private final long maxEntitySize;
+
+  // Null if there is no limit.  Built once, so that registering it
+  // with a request allocates nothing more than the limiter itself.
+  private final Function<Flow.Publisher<DataChunk>, Flow.Publisher<DataChunk>> entitySizeLimiter;
+
+  // Null until created; see getPlan().
+  private volatile InvocationPlan<T> plan;
+
+  // For sub-resource locators only: the parameters of each
+  // sub-resource method reached through this locator, resolved the
+  // first time the method is called.  A null element is an entity
+  // parameter.
+  private final ConcurrentMap<Method, List<BeanType<?>>> subResourceParameterBeanTypes;
 
   public ResourceMethodHandler(final BeanManager beanManager,
-                               final ResourceMethodDescriptor<T> descriptor)
+                               final ResourceMethodDescriptor<T> descriptor,
+                               final Dispatcher dispatcher)
     throws ReflectiveOperationException
   {
     super();
     Objects.requireNonNull(beanManager);
     Objects.requireNonNull(descriptor);
+    Objects.requireNonNull(dispatcher);
     this.beanManager = beanManager;
     this.descriptor = descriptor;
-    this.parameterBeanTypes = this.introspect();
-    this.entityParameterBeanType = this.getEntityParameterBeanType();
+    this.dispatcher = dispatcher;
+    final ApplicationConfiguration configuration = dispatcher.getConfiguration();
+    final long timeoutNanos = descriptor.getTimeoutNanos();
+    if (timeoutNanos < 0L) {
+      this.timeoutNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0L, configuration.getLong("dispatch.timeout", 0L)));
+    } else {
+      this.timeoutNanos = timeoutNanos;
+    }
+    // If set, names a request header whose value, in milliseconds, can
+    // shorten (but never lengthen) the timeout.
+    this.timeoutHeader = configuration.getString("dispatch.timeout.header", null);
+    this.metrics = dispatcher.getMetrics().get(descriptor);
+    this.subResourceParameterBeanTypes = descriptor.isSubResourceLocator() ? new ConcurrentHashMap<>() : null;
+    final long declaredMaxEntitySize = descriptor.getMaxEntitySize();
+    final long maxEntitySizeValue = declaredMaxEntitySize < 0L ? configuration.getLong("entity.max.size", 0L) : declaredMaxEntitySize;
+    if (maxEntitySizeValue > 0L) {
+      this.maxEntitySize = maxEntitySizeValue;
+      this.entitySizeLimiter = content -> new EntitySizeLimiter(content, maxEntitySizeValue);
+    } else {
+      this.maxEntitySize = 0L;
+      this.entitySizeLimiter = null;
+    }
+    // In lazy mode, resolving the resource and its parameters is put
+    // off until the first request, so that Applications with very
+    // many resource methods are ready to serve sooner.
+    if (!configuration.getBoolean("routing.lazy", false)) {
+      this.plan = this.createPlan();
+    }
+  }
+
+  // Resolves everything that doesn't vary from request to request,
+  // so that dispatching allocates as little as possible.
+  private final InvocationPlan<T> createPlan() throws ReflectiveOperationException {
+    final AnnotatedType<T> resourceClass = this.descriptor.getResourceClass();
+    final Set<Annotation> resourceQualifiers = new HashSet<>(this.descriptor.getQualifiers());
+    resourceQualifiers.add(new ResourceClass.Literal(resourceClass.getJavaClass()));
+    resourceQualifiers.remove(Default.Literal.INSTANCE);
+    final BeanType<T> resourceBeanType = this.resolve(resourceClass.getBaseType(), resourceQualifiers);
+    if (resourceBeanType == null) {
+      throw new UnsatisfiedResolutionException(resourceClass.getBaseType() + " " + resourceQualifiers);
+    }
+    final List<? extends BeanType<?>> parameterBeanTypes = this.introspect();
+    final BeanType<?> entityParameterBeanType = getEntityParameterBeanType(parameterBeanTypes);
+    final BeanType<?> readerBeanType;
+    if (entityParameterBeanType != null && entityParameterBeanType.beanType instanceof Class) {
+      // Helidon doesn't deal with types that aren't Classes :-(  If
+      // there's no Reader bean, Helidon's own readers get a chance.
+      readerBeanType = this.resolve(new ParameterizedTypeImplementation(Reader.class, entityParameterBeanType.beanType),
+                                    entityParameterBeanType.bean.getQualifiers());
+    } else {
+      readerBeanType = null;
+    }
+    return new InvocationPlan<>(this.bindDirectly(resourceBeanType),
+                                parameterBeanTypes,
+                                entityParameterBeanType,
+                                readerBeanType,
+                                getEventSinkBeanType(parameterBeanTypes));
+  }
+
+  // An application-scoped or singleton resource has exactly one
+  // contextual instance for as long as the container is up, so it
+  // can be called directly instead of through its client proxy (or,
+  // for singletons, looked up in its context on every request).
+  // Decorated beans are left to the container, to be safe.
+  private final <X> BeanType<X> bindDirectly(final BeanType<X> beanType) {
+    final Bean<X> bean = beanType.bean;
+    final Class<? extends Annotation> scope = bean.getScope();
+    final BeanType<X> returnValue;
+    if ((ApplicationScoped.class.equals(scope) || Singleton.class.equals(scope)) &&
+        this.beanManager.resolveDecorators(bean.getTypes(), bean.getQualifiers().toArray(new Annotation[0])).isEmpty()) {
+      final X instance = this.beanManager.getContext(scope).get(bean, this.beanManager.createCreationalContext(bean));
+      returnValue = new BeanType<>(bean, beanType.beanType, instance);
+    } else {
+      returnValue = beanType;
+    }
+    return returnValue;
+  }
+
+  // Creates the plan at most once, however many requests arrive at
+  // the same time.  If creating it fails, the failure is not
+  // remembered; the next request tries again.
+  private final InvocationPlan<T> getPlan() throws ReflectiveOperationException {
+    InvocationPlan<T> plan = this.plan;
+    if (plan == null) {
+      synchronized (this) {
+        plan = this.plan;
+        if (plan == null) {
+          plan = this.createPlan();
+          this.plan = plan;
+        }
+      }
+    }
+    return plan;
   }
 
-  private final BeanType<?> getEntityParameterBeanType() {
+  private static final BeanType<?> getEntityParameterBeanType(final List<? extends BeanType<?>> parameterBeanTypes) {
     BeanType<?> returnValue = null;
-    for (final BeanType<?> beanType : this.parameterBeanTypes) {
+    for (final BeanType<?> beanType : parameterBeanTypes) {
       assert beanType != null;
       final Bean<?> bean = beanType.bean;
       assert bean != null;
@@ -85,73 +262,580 @@ class ResourceMethodHandler<T> implements Handler {
     return returnValue;
   }
 
+  private static final BeanType<?> getEventSinkBeanType(final List<? extends BeanType<?>> parameterBeanTypes) {
+    BeanType<?> returnValue = null;
+    for (final BeanType<?> beanType : parameterBeanTypes) {
+      if (SseEventSink.class.equals(beanType.beanType)) {
+        returnValue = beanType;
+        break;
+      }
+    }
+    return returnValue;
+  }
+
   public ResourceMethodDescriptor<T> getResourceMethodDescriptor() {
     return this.descriptor;
   }
   
   @Override
   public void accept(final ServerRequest request, final ServerResponse response) {
-    // Register any readers; we could do this in a separate Handler but why?
-    final BeanType<?> entityParameterBeanType = this.getEntityParameterBeanType();
-    if (entityParameterBeanType != null && entityParameterBeanType.beanType instanceof Class) {
-      // Helidon doesn't deal with types that aren't Classes :-(
-      final Type readerType = new ParameterizedTypeImplementation(Reader.class, entityParameterBeanType.beanType);
-      request.content().registerReader((Class<?>)entityParameterBeanType.beanType, getReference(readerType, entityParameterBeanType.bean.getQualifiers()));
-    }
-    Object returnValue = null;
+    this.accept(request, response, false);
+  }
+
+  // A Handler that answers HEAD requests by invoking this (GET)
+  // resource method and sending only the headers its response would
+  // have had.
+  final Handler forHead() {
+    return (request, response) -> this.accept(request, response, true);
+  }
+
+  private final void accept(final ServerRequest request, final ServerResponse response, final boolean head) {
+    final InvocationPlan<T> plan;
     try {
-      returnValue = this.invoke();
+      plan = this.getPlan();
     } catch (final ReflectiveOperationException | RuntimeException exception) {
       request.next(exception);
+      return;
+    }
+    if (this.entitySizeLimiter != null) {
+      final OptionalLong contentLength = request.headers().contentLength();
+      if (contentLength.isPresent() && contentLength.getAsLong() > this.maxEntitySize) {
+        // Answer before reading any of it.
+        sendEntityTooLarge(response);
+        return;
+      }
+      if (plan.entityParameterBeanType != null || this.descriptor.isSubResourceLocator()) {
+        // Chunked, or lying: count as it's read.
+        request.content().registerFilter(this.entitySizeLimiter);
+      }
+    }
+    final RouteMatchEvent routeMatchEvent = new RouteMatchEvent();
+    routeMatchEvent.begin();
+    final RequestDeadline deadline = this.getDeadline(request);
+    // Make the deadline available to the @Entity producer and to the
+    // RequestDeadline bean, and let whatever reads the entity
+    // describe what it's reading it for.
+    request.context().register(deadline);
+    request.context().register(this.descriptor);
+    final Exchange exchange = new Exchange(request, response, this.metrics, head);
+    final Runnable task;
+    final Future<?> work;
+    if (this.dispatcher.isOffloading()) {
+      final DispatchTask dispatchTask = new DispatchTask(exchange, () -> this.handle(exchange, deadline, plan));
+      task = dispatchTask;
+      work = dispatchTask;
+    } else {
+      // Work done inline on the server's I/O thread can't be
+      // interrupted, but the request can still be answered on time.
+      task = () -> this.handle(exchange, deadline, plan);
+      work = null;
+    }
+    if (deadline.isBounded()) {
+      exchange.timeout = this.dispatcher.schedule(() -> exchange.expire(work), deadline.remaining(TimeUnit.NANOSECONDS));
+    }
+    if (routeMatchEvent.isEnabled()) {
+      routeMatchEvent.requestPath = request.path().toString();
+    }
+    DispatchEvents.commit(routeMatchEvent, this.descriptor);
+    try {
+      this.dispatcher.dispatch(this.descriptor.getPriority(), task);
+    } catch (final RejectedExecutionException rejectedExecutionException) {
+      // Saturated at this priority level; shed the load.
+      exchange.shed();
+    }
+  }
+
+  // Package-private for testing.
+  final RequestDeadline getDeadline(final ServerRequest request) {
+    long timeoutNanos = this.timeoutNanos;
+    if (this.timeoutHeader != null) {
+      final String value = request.headers().first(this.timeoutHeader).orElse(null);
+      if (value != null) {
+        try {
+          final long headerTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(Long.parseLong(value.trim()));
+          if (headerTimeoutNanos > 0L && (timeoutNanos <= 0L || headerTimeoutNanos < timeoutNanos)) {
+            timeoutNanos = headerTimeoutNanos;
+          }
+        } catch (final NumberFormatException ignored) {
+          // Malformed; fall back to the configured timeout.
+        }
+      }
+    }
+    return RequestDeadline.after(timeoutNanos);
+  }
+
+  private final void handle(final Exchange exchange, final RequestDeadline deadline, final InvocationPlan<T> plan) {
+    if (deadline.isExpired()) {
+      // Sat in the queue too long; don't bother starting.
+      exchange.expire(null);
+      return;
+    }
+    exchange.started = true;
+    final ServerRequest request = exchange.request;
+    final ServerResponse response = exchange.response;
+    // Register any readers; we could do this in a separate Handler but why?
+    if (plan.readerBeanType != null) {
+      @SuppressWarnings("unchecked")
+      final Class<Object> entityType = (Class<Object>)plan.entityParameterBeanType.beanType;
+      @SuppressWarnings("unchecked")
+      final Reader<Object> reader = (Reader<Object>)getReference(plan.readerBeanType);
+      request.content().registerReader(entityType, reader);
+    }
+    // Any bean, however deeply injected, may want the exchange (an
+    // @Inject @Context field, say), so there is always a context.  It
+    // lasts until the response has been sent.
+    final ExchangeContext.Instances instances = new ExchangeContext.Instances(request, response, this.descriptor);
+    response.whenSent().whenComplete((r, t) -> instances.destroy());
+    final ExchangeContext.Instances previous = ExchangeContext.enter(instances);
+    try {
+      final Object returnValue;
+      try {
+        if (this.descriptor.isSubResourceLocator()) {
+          returnValue = this.locate(request, this.invoke(plan));
+        } else {
+          returnValue = this.invoke(plan);
+        }
+      } catch (final ReflectiveOperationException | RuntimeException exception) {
+        if (exchange.claim(true)) {
+          fail(exchange, exception);
+        }
+        return;
+      }
+      if (returnValue == NO_MATCH) {
+        // Let Helidon answer 404.
+        if (exchange.claim(false)) {
+          request.next();
+        }
+        return;
+      }
+      if (plan.eventSinkBeanType != null) {
+        // The sink, not the return value, is the response.  It is sent
+        // now unless the resource method has already sent an event or
+        // closed the sink; either way the stream stays open until the
+        // sink is closed or the client goes away.
+        if (exchange.claim(false)) {
+          final Object sink = getReference(plan.eventSinkBeanType);
+          if (sink instanceof HelidonSseEventSink) {
+            ((HelidonSseEventSink)sink).open();
+          }
+        }
+        return;
+      }
+      if (returnValue instanceof CompletionStage) {
+        // Answer whenever it completes, on whatever thread completes
+        // it, in this same exchange; this thread is free to go.  The
+        // deadline, if any, still applies.
+        ((CompletionStage<?>)returnValue)
+          .whenComplete((value, throwable) -> ExchangeContext.run(instances, () -> this.complete(exchange, value, throwable)));
+      } else {
+        this.respond(exchange, returnValue);
+      }
+    } finally {
+      ExchangeContext.exit(previous);
+    }
+  }
+
+  private final void complete(final Exchange exchange, final Object value, final Throwable throwable) {
+    if (throwable == null) {
+      this.respond(exchange, value);
+    } else if (exchange.claim(true)) {
+      if (throwable instanceof CompletionException && throwable.getCause() != null) {
+        fail(exchange, throwable.getCause());
+      } else {
+        fail(exchange, throwable);
+      }
+    }
+  }
+
+  // Answers a claimed exchange that failed.
+  private static final void fail(final Exchange exchange, final Throwable throwable) {
+    if (EntitySizeLimiter.isEntityTooLarge(throwable)) {
+      sendEntityTooLarge(exchange.response);
+    } else {
+      exchange.request.next(throwable);
+    }
+  }
+
+  // The rest of the entity, if any, is not going to be read, so the
+  // connection can't be reused.
+  private static final void sendEntityTooLarge(final ServerResponse response) {
+    response.headers().put("Connection", "close");
+    response.status(Http.Status.REQUEST_ENTITY_TOO_LARGE_413).send();
+  }
+
+  private final void respond(final Exchange exchange, final Object returnValue) {
+    if (!exchange.claim(false)) {
+      // The deadline passed while we were working and the request has
+      // already been answered.
+      return;
     }
     if (void.class.equals(returnValue) || Void.class.equals(returnValue)) {
       // TODO: kind of a hack; if the returnValue is ACTUALLY VOID
       // itself, then we probably want to send 200 or whatever JAX-RS
       // says to do here.  For now just next it.
-      request.next();
-    } else if (returnValue == null) {
-        // TODO: 404?
-      response.send(returnValue);
+      exchange.request.next();
+    } else if (exchange.head) {
+      // Nothing is serialized; the length is sent only if it can be
+      // worked out without doing so.
+      final long contentLength = getContentLength(returnValue, getCharset(exchange.response.headers()));
+      if (contentLength >= 0L) {
+        exchange.response.headers().contentLength(contentLength);
+      }
+      exchange.response.send();
     } else {
-      response.send(returnValue);
+      final SerializationEvent serializationEvent = new SerializationEvent();
+      serializationEvent.begin();
+      final ServerResponse response = exchange.response;
+      final BufferPool responseBuffers = this.dispatcher.getResponseBuffers();
+      if (responseBuffers != null) {
+        // Text is encoded straight into pooled buffers rather than
+        // into a byte array first.
+        response.registerWriter(CharSequence.class,
+                                text -> new EncodingPublisher(text, getCharset(response.headers()), responseBuffers));
+        response.registerFilter(content -> new ResponseBuffering(content, response.headers(), responseBuffers));
+      }
+      // TODO: 404 if returnValue is null?
+      final CompletionStage<ServerResponse> sent = response.send(returnValue);
+      if (serializationEvent.isEnabled()) {
+        sent.whenComplete((r, t) -> DispatchEvents.commit(serializationEvent, this.descriptor));
+      }
     }
   }
 
-  private final Object[] getParameterValues() {
+  // The charset named by the response's Content-Type, if there is one
+  // and it is supported, or UTF-8.
+  static final Charset getCharset(final ResponseHeaders headers) {
+    final String charset = headers.contentType().flatMap(MediaType::charset).orElse(null);
+    Charset returnValue = StandardCharsets.UTF_8;
+    if (charset != null) {
+      try {
+        returnValue = Charset.forName(charset);
+      } catch (final IllegalArgumentException unsupportedOrIllegal) {
+        // Fall back to UTF-8.
+      }
+    }
+    return returnValue;
+  }
+
+  // The number of bytes that sending entity would write, if that is
+  // known without serializing it, or -1L.  Text is counted in
+  // charset, encoded the way EncodingPublisher encodes it, so that
+  // HEAD and GET agree.
+  static final long getContentLength(final Object entity, final Charset charset) {
+    final long returnValue;
+    if (entity instanceof byte[]) {
+      returnValue = ((byte[])entity).length;
+    } else if (entity instanceof CharSequence && !StandardCharsets.UTF_8.equals(charset)) {
+      final CharsetEncoder encoder = charset.newEncoder()
+        .onMalformedInput(CodingErrorAction.REPLACE)
+        .onUnmappableCharacter(CodingErrorAction.REPLACE);
+      final CharBuffer input = CharBuffer.wrap((CharSequence)entity);
+      // Encoded a piece at a time and counted, never kept.
+      final ByteBuffer output = ByteBuffer.allocate(1024);
+      long bytes = 0L;
+      CoderResult result;
+      do {
+        result = encoder.encode(input, output, true);
+        bytes += output.position();
+        output.clear();
+      } while (result.isOverflow());
+      do {
+        result = encoder.flush(output);
+        bytes += output.position();
+        output.clear();
+      } while (result.isOverflow());
+      returnValue = bytes;
+    } else if (entity instanceof CharSequence) {
+      // UTF-8, counted without encoding.
+      final CharSequence s = (CharSequence)entity;
+      final int length = s.length();
+      long bytes = 0L;
+      for (int i = 0; i < length; i++) {
+        final char c = s.charAt(i);
+        if (c < 0x80) {
+          bytes++;
+        } else if (c < 0x800) {
+          bytes += 2L;
+        } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(s.charAt(i + 1))) {
+          bytes += 4L;
+          i++;
+        } else if (Character.isSurrogate(c)) {
+          // Unpaired, so malformed; replaced with '?'.
+          bytes++;
+        } else {
+          bytes += 3L;
+        }
+      }
+      returnValue = bytes;
+    } else {
+      returnValue = -1L;
+    }
+    return returnValue;
+  }
+
+  private final Object[] getParameterValues(final List<? extends BeanType<?>> parameterBeanTypes) {
     final Object[] returnValue;
-    if (this.parameterBeanTypes == null || this.parameterBeanTypes.isEmpty()) {
+    if (parameterBeanTypes == null || parameterBeanTypes.isEmpty()) {
       returnValue = null;
     } else {
-      final int beansSize = this.parameterBeanTypes.size();
+      final int beansSize = parameterBeanTypes.size();
       returnValue = new Object[beansSize];
       for (int i = 0; i < beansSize; i++) {
-        returnValue[i] = getReference(this.parameterBeanTypes.get(i));
+        returnValue[i] = getReference(parameterBeanTypes.get(i));
       }
     }
     return returnValue;
   }
   
-  private final Object invoke() throws ReflectiveOperationException {
+  // Exercises this handler, without a request, the given number of
+  // times, so that class loading, proxy creation, reflection
+  // inflation and compilation are done with before real requests
+  // arrive.  Only resource methods that are safe to call (GET, HEAD
+  // and OPTIONS) are invoked; for the others, the resource and the
+  // parameters are merely resolved.  Each iteration gets its own
+  // request context.  Returns false if warming up failed, which is
+  // to be expected of resource methods that need a real request.
+  final boolean warmUp(final int iterations) {
+    boolean returnValue = true;
+    // The controller is @Dependent; it's destroyed below.
+    final Instance<RequestContextController> requestContextControllers =
+      this.beanManager.createInstance().select(RequestContextController.class);
+    final RequestContextController requestContextController = requestContextControllers.get();
+    try {
+      final InvocationPlan<T> plan = this.getPlan();
+      final boolean safe = isSafe(this.descriptor.getHttpMethod());
+      for (int i = 0; i < iterations; i++) {
+        final boolean activated = requestContextController.activate();
+        final ExchangeContext.Instances instances = new ExchangeContext.Instances(null, this.descriptor);
+        final ExchangeContext.Instances previous = ExchangeContext.enter(instances);
+        try {
+          if (safe) {
+            this.invoke(plan);
+          } else {
+            // Not exchange-scoped beans, though, which are @Entity
+            // parameters and need a real request body.
+            getReference(plan.resourceBeanType);
+            for (final BeanType<?> parameterBeanType : plan.parameterBeanTypes) {
+              if (!parameterBeanType.exchangeScoped) {
+                getReference(parameterBeanType);
+              }
+            }
+          }
+        } finally {
+          ExchangeContext.exit(previous);
+          instances.destroy();
+          if (activated) {
+            requestContextController.deactivate();
+          }
+        }
+      }
+    } catch (final ReflectiveOperationException | RuntimeException exception) {
+      if (logger.isLoggable(Level.FINE)) {
+        logger.logp(Level.FINE, ResourceMethodHandler.class.getName(), "warmUp", "Could not warm up " + this.descriptor, exception);
+      }
+      returnValue = false;
+    } finally {
+      requestContextControllers.destroy(requestContextController);
+    }
+    return returnValue;
+  }
+
+  private static final boolean isSafe(final Http.RequestMethod httpMethod) {
+    return Http.Method.GET.equals(httpMethod) || Http.Method.HEAD.equals(httpMethod) || Http.Method.OPTIONS.equals(httpMethod);
+  }
+
+  // Package-private for testing.
+  final Object invoke() throws ReflectiveOperationException {
+    return this.invoke(this.getPlan());
+  }
+
+  private final Object invoke(final InvocationPlan<T> plan) throws ReflectiveOperationException {
     final ResourceMethodDescriptor<T> descriptor = this.getResourceMethodDescriptor();
-    final AnnotatedType<T> resourceClass = descriptor.getResourceClass();
-    assert resourceClass != null;
-    final Set<Annotation> qualifiers = descriptor.getQualifiers();
     final AnnotatedMethod<? super T> annotatedMethod = descriptor.getResourceMethod();
     assert annotatedMethod != null;
     final Method method = annotatedMethod.getJavaMember();
     assert method != null;
-    final Set<Annotation> newQualifiers = new HashSet<>(qualifiers);
-    newQualifiers.add(new ResourceClass.Literal(resourceClass.getJavaClass()));
-    newQualifiers.remove(Default.Literal.INSTANCE);
-    final Object resourceInstance = getReference(resourceClass, newQualifiers);
+    // Generated by ResourceModelProcessor, if it ran.
+    final ResourceMethodInvoker invoker = descriptor.getInvoker();
+    final ResourceAcquisitionEvent acquisitionEvent = new ResourceAcquisitionEvent();
+    acquisitionEvent.begin();
+    final Object resourceInstance = getReference(plan.resourceBeanType);
     assert resourceInstance != null;
-    final Object invocationReturnValue;
-    if (this.parameterBeanTypes == null || this.parameterBeanTypes.isEmpty()) {
-      invocationReturnValue = method.invoke(resourceInstance);
+    final ExchangeContext.Instances instances = ExchangeContext.capture();
+    if (instances != null) {
+      // For UriInfo#getMatchedResources().
+      instances.setResource(resourceInstance);
+    }
+    DispatchEvents.commit(acquisitionEvent, descriptor);
+    final Object[] parameterValues;
+    if (plan.parameterBeanTypes == null || plan.parameterBeanTypes.isEmpty()) {
+      parameterValues = null;
+    } else {
+      final ParameterBindingEvent bindingEvent = new ParameterBindingEvent();
+      bindingEvent.begin();
+      parameterValues = getParameterValues(plan.parameterBeanTypes);
+      DispatchEvents.commit(bindingEvent, descriptor);
+    }
+    final InvocationEvent invocationEvent = new InvocationEvent();
+    invocationEvent.begin();
+    try {
+      if (invoker != null) {
+        try {
+          return invoker.invoke(resourceInstance, parameterValues);
+        } catch (final Exception exception) {
+          // Just as Method#invoke() would.
+          throw new InvocationTargetException(exception);
+        }
+      } else if (parameterValues == null) {
+        return method.invoke(resourceInstance, NO_ARGUMENTS);
+      } else {
+        return method.invoke(resourceInstance, parameterValues);
+      }
+    } finally {
+      DispatchEvents.commit(invocationEvent, descriptor);
+    }
+  }
+
+  // Follows what a sub-resource locator returned, and whatever the
+  // locators it has in turn return, to the sub-resource method that
+  // serves the request, and returns what that returns: NO_MATCH if
+  // there is no such method.  Each sub-resource class is introspected
+  // only once; see SubResourceModel.
+  private final Object locate(final ServerRequest request, final Object locatorResult) throws ReflectiveOperationException {
+    // The locator's path is relative to the Routing it is registered
+    // with, and so is this one; the URI's needn't be.
+    final String rawPath = request.path().toRawString();
+    final int end = PathTemplate.of(this.descriptor.getPath()).matchPrefix(rawPath);
+    if (end < 0) {
+      return NO_MATCH;
+    }
+    String remainder = rawPath.substring(end);
+    final String httpMethod = request.method().name();
+    final io.helidon.common.http.MediaType contentType = request.headers().contentType().orElse(null);
+    Object resource = locatorResult;
+    while (resource != null) {
+      if (remainder.isEmpty()) {
+        remainder = "/";
+      }
+      final SubResourceModel.SubResourceMethod subResourceMethod =
+        SubResourceModel.of(resource.getClass()).select(remainder, httpMethod, contentType);
+      if (subResourceMethod == null) {
+        break;
+      }
+      // For UriInfo#getMatchedResources().
+      ExchangeContext.current().setResource(resource);
+      final Object returnValue = this.invoke(request, resource, subResourceMethod.getMethod());
+      if (!subResourceMethod.isSubResourceLocator()) {
+        return returnValue;
+      }
+      remainder = remainder.substring(subResourceMethod.getTemplate().matchPrefix(remainder));
+      resource = returnValue;
+    }
+    return NO_MATCH;
+  }
+
+  private final Object invoke(final ServerRequest request, final Object resource, final Method method) throws ReflectiveOperationException {
+    final List<BeanType<?>> parameterBeanTypes = this.subResourceParameterBeanTypes.computeIfAbsent(method, this::introspect);
+    final int size = parameterBeanTypes.size();
+    final Object[] arguments;
+    if (size == 0) {
+      arguments = NO_ARGUMENTS;
     } else {
-      invocationReturnValue = method.invoke(resourceInstance, getParameterValues());
+      arguments = new Object[size];
+      final Class<?>[] parameterTypes = method.getParameterTypes();
+      for (int i = 0; i < size; i++) {
+        final BeanType<?> parameterBeanType = parameterBeanTypes.get(i);
+        arguments[i] = parameterBeanType == null ? readEntity(request, parameterTypes[i]) : getReference(parameterBeanType);
+      }
+    }
+    return method.invoke(resource, arguments);
+  }
+
+  // Like introspect(), but for a sub-resource method, whose class
+  // needn't be a bean, and so has no AnnotatedType.
+  private final List<BeanType<?>> introspect(final Method method) {
+    final Parameter[] parameters = method.getParameters();
+    if (parameters.length == 0) {
+      return Collections.emptyList();
+    }
+    final Set<Annotation> qualifiers = this.descriptor.getQualifiers();
+    final List<BeanType<?>> returnValue = new ArrayList<>(parameters.length);
+    for (final Parameter parameter : parameters) {
+      final Type type = parameter.getParameterizedType();
+      final Annotation[] annotations = parameter.getAnnotations();
+      if (annotations.length == 0 && isEntityType(type)) {
+        if (!(type instanceof Class)) {
+          // Helidon doesn't deal with types that aren't Classes.
+          throw new UnsatisfiedResolutionException(type + " " + Entity.Literal.INSTANCE);
+        }
+        returnValue.add(null);
+      } else {
+        final Set<Annotation> parameterQualifiers = new HashSet<>(qualifiers == null ? Collections.emptySet() : qualifiers);
+        boolean defaultRemoved = false;
+        for (final Annotation annotation : annotations) {
+          if (this.beanManager.isQualifier(annotation.annotationType())) {
+            if (!defaultRemoved) {
+              parameterQualifiers.remove(Default.Literal.INSTANCE);
+              defaultRemoved = true;
+            }
+            parameterQualifiers.add(annotation);
+          }
+        }
+        final BeanType<?> beanType = this.resolve(type, parameterQualifiers);
+        if (beanType == null) {
+          throw new UnsatisfiedResolutionException(type + " " + parameterQualifiers);
+        }
+        returnValue.add(beanType);
+      }
     }
-    return invocationReturnValue;
+    return returnValue;
+  }
+
+  // Reads the request's entity as an instance of entityType, within
+  // the request's deadline, if it has one.
+  static final Object readEntity(final ServerRequest request, final Class<?> entityType) {
+    final RequestDeadline deadline = request.context().get(RequestDeadline.class).orElse(RequestDeadline.NONE);
+    // TODO: there's probably a better non-blocking way to do this in
+    // conjunction with RequestMethodHandler....
+    final EntityReadEvent readEvent = new EntityReadEvent();
+    readEvent.begin();
+    final CompletableFuture<?> entity = request.content().as(entityType).toCompletableFuture();
+    try {
+      if (deadline.isBounded()) {
+        return entity.get(deadline.remaining(TimeUnit.NANOSECONDS), TimeUnit.NANOSECONDS);
+      } else {
+        return entity.get();
+      }
+    } catch (final InterruptedException interruptedException) {
+      // Probably cancelled by ResourceMethodHandler because the deadline passed.
+      entity.cancel(true);
+      Thread.currentThread().interrupt();
+      throw new CreationException(interruptedException.getMessage(), interruptedException);
+    } catch (final TimeoutException timeoutException) {
+      entity.cancel(true);
+      throw new CreationException(timeoutException.getMessage(), timeoutException);
+    } catch (final ExecutionException executionException) {
+      throw new CreationException(executionException.getMessage(), executionException.getCause());
+    } finally {
+      if (readEvent.isEnabled()) {
+        readEvent.entityType = entityType.getName();
+        DispatchEvents.commit(readEvent, request.context().get(ResourceMethodDescriptor.class).orElse(null));
+      }
+    }
+  }
+
+  // A parameter without annotations is the entity, unless it is of
+  // a type that this extension provides for every exchange.
+  static final boolean isEntityParameter(final AnnotatedParameter<?> parameter) {
+    final Collection<? extends Annotation> parameterAnnotations = parameter.getAnnotations();
+    if (parameterAnnotations != null && !parameterAnnotations.isEmpty()) {
+      return false;
+    }
+    return isEntityType(parameter.getBaseType());
+  }
+
+  private static final boolean isEntityType(final Type type) {
+    return !ContinuationExecutor.class.equals(type) && !RequestDeadline.class.equals(type);
   }
 
   private final <X> List<BeanType<X>> introspect() throws ReflectiveOperationException {
@@ -173,10 +857,10 @@ class ResourceMethodHandler<T> implements Handler {
         assert baseType != null;
         final Set<Annotation> parameterQualifiers = new HashSet<>(qualifiers == null ? Collections.emptySet() : qualifiers);
         final Collection<? extends Annotation> parameterAnnotations = parameter.getAnnotations();
-        if (parameterAnnotations == null || parameterAnnotations.isEmpty()) {
+        if (isEntityParameter(parameter)) {
           parameterQualifiers.remove(Default.Literal.INSTANCE);
           parameterQualifiers.add(Entity.Literal.INSTANCE);
-        } else {
+        } else if (parameterAnnotations != null) {
           boolean defaultRemoved = false;
           for (final Annotation parameterAnnotation : parameterAnnotations) {
             if (parameterAnnotation != null && this.beanManager.isQualifier(parameterAnnotation.annotationType())) {
@@ -195,14 +879,32 @@ class ResourceMethodHandler<T> implements Handler {
         @SuppressWarnings("unchecked")
         final Bean<X> bean = (Bean<X>)this.beanManager.resolve(beans);
         assert bean != null;
-        parameterBeanTypes.add(new BeanType<X>(bean, baseType));
+        parameterBeanTypes.add(this.createBeanType(bean, baseType));
       }
     }
     return parameterBeanTypes;
   }
 
   private final <T> T getReference(final BeanType<T> beanType) {
-    return this.getReference(beanType.bean, beanType.beanType);
+    final T returnValue;
+    if (beanType.reference != null) {
+      returnValue = beanType.reference;
+    } else if (beanType.exchangeScoped) {
+      // The instance itself, not a client proxy, which would cost a
+      // context lookup on every call, and which can't be made at all
+      // for final classes.  Beans that inject the @Entity get a proxy
+      // to the same instance.
+      final Bean<T> bean = beanType.bean;
+      final T instance = ExchangeContext.getInstance(bean, null);
+      if (instance == null) {
+        returnValue = ExchangeContext.getInstance(bean, this.beanManager.createCreationalContext(bean));
+      } else {
+        returnValue = instance;
+      }
+    } else {
+      returnValue = this.getReference(beanType.bean, beanType.beanType);
+    }
+    return returnValue;
   }
   
   private final <T> T getReference(final Bean<T> bean, final Type type) {
@@ -211,15 +913,150 @@ class ResourceMethodHandler<T> implements Handler {
     return returnValue;
   }
 
-  private final <T> T getReference(final AnnotatedType<T> type, final Collection<? extends Annotation> qualifiers) {
-    return getReference(type.getBaseType(), qualifiers);
-  }
-  
-  private final <T> T getReference(final Type type, final Collection<? extends Annotation> qualifiers) {
+  private final <T> BeanType<T> resolve(final Type type, final Collection<? extends Annotation> qualifiers) {
     final Set<Bean<?>> beans = this.beanManager.getBeans(type, qualifiers.toArray(new Annotation[qualifiers.size()]));
-    @SuppressWarnings("unchecked")
-    final Bean<T> bean = (Bean<T>)this.beanManager.resolve(beans);
-    return this.getReference(bean, type);
+    final BeanType<T> returnValue;
+    if (beans == null || beans.isEmpty()) {
+      returnValue = null;
+    } else {
+      @SuppressWarnings("unchecked")
+      final Bean<T> bean = (Bean<T>)this.beanManager.resolve(beans);
+      assert bean != null;
+      returnValue = this.createBeanType(bean, type);
+    }
+    return returnValue;
+  }
+
+  private final <T> BeanType<T> createBeanType(final Bean<T> bean, final Type type) {
+    final T reference;
+    if (ExchangeScoped.class.equals(bean.getScope())) {
+      reference = null;
+    } else if (this.beanManager.isNormalScope(bean.getScope())) {
+      // The reference is a client proxy, which is good for as long as
+      // the container is up, so there's no need to look it up again
+      // (and allocate a CreationalContext for it) on every request.
+      reference = this.getReference(bean, type);
+    } else {
+      reference = null;
+    }
+    return new BeanType<>(bean, type, reference);
+  }
+
+  // The state of one request as it passes through this handler.
+  // Exactly one party--the handler, the deadline timer or the load
+  // shedder--gets to claim() it and answer the request.
+  private static final class Exchange {
+
+    private final ServerRequest request;
+
+    private final ServerResponse response;
+
+    private final ResourceMethodMetrics metrics;
+
+    private final long startNanos;
+
+    private final AtomicBoolean claimed;
+
+    // Whether only the headers are to be sent.
+    private final boolean head;
+
+    private volatile boolean started;
+
+    private volatile Future<?> timeout;
+
+    private Exchange(final ServerRequest request,
+                     final ServerResponse response,
+                     final ResourceMethodMetrics metrics,
+                     final boolean head) {
+      super();
+      this.request = request;
+      this.response = response;
+      this.metrics = metrics;
+      this.head = head;
+      this.startNanos = metrics.begin();
+      this.claimed = new AtomicBoolean();
+    }
+
+    private final boolean claim(final boolean error) {
+      final boolean returnValue = this.claimed.compareAndSet(false, true);
+      if (returnValue) {
+        this.metrics.end(this.startNanos, error);
+        final Future<?> timeout = this.timeout;
+        if (timeout != null) {
+          timeout.cancel(false);
+        }
+      }
+      return returnValue;
+    }
+
+    // Answers a request that was never started because the
+    // Dispatcher couldn't, or wouldn't, run it.
+    private final void shed() {
+      if (this.claim(true)) {
+        this.response.status(Http.Status.SERVICE_UNAVAILABLE_503).send();
+      }
+    }
+
+    private final void expire(final Future<?> work) {
+      if (this.claim(true)) {
+        if (work != null) {
+          // Interrupts the invocation, and with it any blocking entity
+          // read, if it is underway.
+          work.cancel(true);
+        }
+        this.response.status(this.started ? Http.Status.GATEWAY_TIMEOUT_504 : Http.Status.SERVICE_UNAVAILABLE_503).send();
+      }
+    }
+
+  }
+
+  // Work offloaded to the Dispatcher.  If the Dispatcher closes
+  // before running it, the request is shed just as if the Dispatcher
+  // had been saturated.
+  private static final class DispatchTask extends FutureTask<Void> implements PriorityExecutor.Rejectable {
+
+    private final Exchange exchange;
+
+    private DispatchTask(final Exchange exchange, final Runnable runnable) {
+      super(runnable, null);
+      this.exchange = Objects.requireNonNull(exchange);
+    }
+
+    @Override
+    public final void reject(final RejectedExecutionException rejectedExecutionException) {
+      this.cancel(false);
+      this.exchange.shed();
+    }
+
+  }
+
+  // The beans that serve one resource method.  Immutable.
+  private static final class InvocationPlan<T> {
+
+    private final BeanType<T> resourceBeanType;
+
+    private final List<? extends BeanType<?>> parameterBeanTypes;
+
+    private final BeanType<?> entityParameterBeanType;
+
+    private final BeanType<?> readerBeanType;
+
+    // The @Context SseEventSink parameter, if any.
+    private final BeanType<?> eventSinkBeanType;
+
+    private InvocationPlan(final BeanType<T> resourceBeanType,
+                           final List<? extends BeanType<?>> parameterBeanTypes,
+                           final BeanType<?> entityParameterBeanType,
+                           final BeanType<?> readerBeanType,
+                           final BeanType<?> eventSinkBeanType) {
+      super();
+      this.resourceBeanType = Objects.requireNonNull(resourceBeanType);
+      this.parameterBeanTypes = parameterBeanTypes;
+      this.entityParameterBeanType = entityParameterBeanType;
+      this.readerBeanType = readerBeanType;
+      this.eventSinkBeanType = eventSinkBeanType;
+    }
+
   }
 
   private static final class BeanType<T> {
@@ -228,10 +1065,19 @@ class ResourceMethodHandler<T> implements Handler {
 
     private final Type beanType;
 
-    private BeanType(final Bean<T> bean, final Type type) {
+    // Non-null only for normal-scoped beans, and for resources bound
+    // directly to their contextual instances.
+    private final T reference;
+
+    // Exchange-scoped beans are never proxied; see getReference().
+    private final boolean exchangeScoped;
+
+    private BeanType(final Bean<T> bean, final Type type, final T reference) {
       super();
       this.bean = bean;
       this.beanType = type;
+      this.reference = reference;
+      this.exchangeScoped = ExchangeScoped.class.equals(bean.getScope());
     }
     
   }
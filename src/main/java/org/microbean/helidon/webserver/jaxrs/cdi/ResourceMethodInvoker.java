@@ -0,0 +1,49 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright © 2019 microBean.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.microbean.helidon.webserver.jaxrs.cdi;
+
+/**
+ * Invokes one resource method directly, without reflection.
+ *
+ * <p>Implementations are generated by the {@linkplain
+ * org.microbean.helidon.webserver.jaxrs.cdi.processor.ResourceModelProcessor
+ * resource model processor}.</p>
+ *
+ * @author <a href="https://about.me/lairdnelson"
+ * target="_parent">Laird Nelson</a>
+ *
+ * @see GeneratedResourceMethod#getInvoker()
+ */
+@FunctionalInterface
+public interface ResourceMethodInvoker {
+
+  /**
+   * Invokes the resource method on the supplied resource instance.
+   *
+   * @param resource the resource instance; must not be {@code null}
+   *
+   * @param arguments the arguments, one per parameter, in order; may
+   * be {@code null} if the resource method has no parameters
+   *
+   * @return the return value of the resource method, or {@code null}
+   * if its return type is {@code void}
+   *
+   * @exception Exception if the resource method throws it
+   */
+  Object invoke(final Object resource, final Object[] arguments) throws Exception;
+
+}
@@ -0,0 +1,82 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright © 2019 microBean.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.microbean.helidon.webserver.jaxrs.cdi;
+
+import java.util.Objects;
+
+import java.util.concurrent.atomic.LongAdder;
+
+// Counters, an in-flight gauge and a latency histogram for one
+// ResourceMethodDescriptor.  Everything is striped or lock-free so
+// that recording costs next to nothing on the request path.
+final class ResourceMethodMetrics {
+
+  private final ResourceMethodDescriptor<?> descriptor;
+
+  private final LongAdder requests;
+
+  private final LongAdder errors;
+
+  private final LongAdder inFlight;
+
+  private final LatencyHistogram latencies;
+
+  ResourceMethodMetrics(final ResourceMethodDescriptor<?> descriptor) {
+    super();
+    this.descriptor = Objects.requireNonNull(descriptor);
+    this.requests = new LongAdder();
+    this.errors = new LongAdder();
+    this.inFlight = new LongAdder();
+    this.latencies = new LatencyHistogram();
+  }
+
+  final ResourceMethodDescriptor<?> getResourceMethodDescriptor() {
+    return this.descriptor;
+  }
+
+  // Returns the start time to hand to end().
+  final long begin() {
+    this.inFlight.increment();
+    return System.nanoTime();
+  }
+
+  final void end(final long startNanos, final boolean error) {
+    this.latencies.record(System.nanoTime() - startNanos);
+    this.inFlight.decrement();
+    this.requests.increment();
+    if (error) {
+      this.errors.increment();
+    }
+  }
+
+  final long getRequests() {
+    return this.requests.sum();
+  }
+
+  final long getErrors() {
+    return this.errors.sum();
+  }
+
+  final long getInFlight() {
+    return this.inFlight.sum();
+  }
+
+  final LatencyHistogram getLatencies() {
+    return this.latencies;
+  }
+
+}
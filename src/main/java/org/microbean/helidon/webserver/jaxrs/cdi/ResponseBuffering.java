@@ -0,0 +1,284 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright © 2019 microBean.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.microbean.helidon.webserver.jaxrs.cdi;
+
+import java.nio.ByteBuffer;
+
+import java.util.Objects;
+import java.util.Queue;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import io.helidon.common.http.DataChunk;
+
+import io.helidon.common.reactive.Flow;
+
+import io.helidon.webserver.ResponseHeaders;
+
+// A filter for a response's content that decides how it is framed.
+// Content that turns out to be no bigger than a pooled buffer is held
+// back until it is complete, gathered into a single chunk and sent
+// with an exact Content-Length, in one write.  As soon as content
+// outgrows the buffer, whatever has been held back is sent and the
+// rest streams through as it comes, which Helidon sends chunked.
+//
+// Helidon sends the response's headers just before the first chunk
+// (or the completion) that comes out of its filters, so the
+// Content-Length set here is still in time.
+final class ResponseBuffering implements Flow.Publisher<DataChunk> {
+
+  private final Flow.Publisher<DataChunk> content;
+
+  private final ResponseHeaders headers;
+
+  private final BufferPool pool;
+
+  ResponseBuffering(final Flow.Publisher<DataChunk> content, final ResponseHeaders headers, final BufferPool pool) {
+    super();
+    this.content = Objects.requireNonNull(content);
+    this.headers = Objects.requireNonNull(headers);
+    this.pool = Objects.requireNonNull(pool);
+  }
+
+  @Override
+  public final void subscribe(final Flow.Subscriber<? super DataChunk> subscriber) {
+    this.content.subscribe(new BufferingSubscriber(Objects.requireNonNull(subscriber), this.headers, this.pool));
+  }
+
+  // Upstream signals arrive serially, so the buffering state needs no
+  // guarding.  What goes downstream is queued and handed over by
+  // drain(), which only one thread at a time gets to run, whichever
+  // side (upstream signals or downstream requests) calls it.
+  private static final class BufferingSubscriber implements Flow.Subscriber<DataChunk>, Flow.Subscription {
+
+    private static final Object COMPLETE = new Object();
+
+    private final Flow.Subscriber<? super DataChunk> subscriber;
+
+    private final ResponseHeaders headers;
+
+    private final BufferPool pool;
+
+    private Flow.Subscription subscription;
+
+    // The first chunk, passed on as is if it turns out to be the only
+    // one, so that the common single chunk response isn't copied.
+    private DataChunk held;
+
+    // Pooled; null until a second chunk arrives.
+    private ByteBuffer buffer;
+
+    private long size;
+
+    private volatile boolean streaming;
+
+    private final Queue<Object> queue;
+
+    private final AtomicLong demand;
+
+    private final AtomicInteger wip;
+
+    private volatile Throwable error;
+
+    private volatile boolean cancelled;
+
+    // Touched only in drain().
+    private boolean terminated;
+
+    private BufferingSubscriber(final Flow.Subscriber<? super DataChunk> subscriber,
+                                final ResponseHeaders headers,
+                                final BufferPool pool) {
+      super();
+      this.subscriber = subscriber;
+      this.headers = headers;
+      this.pool = pool;
+      this.queue = new ConcurrentLinkedQueue<>();
+      this.demand = new AtomicLong();
+      this.wip = new AtomicInteger();
+    }
+
+    @Override
+    public final void onSubscribe(final Flow.Subscription subscription) {
+      this.subscription = subscription;
+      this.subscriber.onSubscribe(this);
+      // While buffering, chunks are asked for one at a time whatever
+      // the downstream demand; there's nowhere for them to go yet.
+      subscription.request(1L);
+    }
+
+    @Override
+    public final void onNext(final DataChunk chunk) {
+      if (this.cancelled) {
+        chunk.release();
+        this.releaseHeld();
+        return;
+      }
+      if (this.streaming) {
+        this.queue.offer(chunk);
+        this.drain();
+        return;
+      }
+      final ByteBuffer data = chunk.data();
+      final int remaining = data == null ? 0 : data.remaining();
+      if (this.size + remaining <= this.pool.getBufferSize()) {
+        this.size += remaining;
+        if (this.held == null && this.buffer == null) {
+          this.held = chunk;
+        } else {
+          if (this.buffer == null) {
+            this.buffer = this.pool.acquire();
+            copy(this.held, this.buffer);
+            this.held = null;
+          }
+          copy(chunk, this.buffer);
+        }
+        this.subscription.request(1L);
+      } else {
+        // Too big to buffer; send what we have and stream the rest.
+        this.streaming = true;
+        this.offerHeld();
+        this.queue.offer(chunk);
+        this.drain();
+      }
+    }
+
+    @Override
+    public final void onError(final Throwable throwable) {
+      this.releaseHeld();
+      this.error = throwable;
+      this.drain();
+    }
+
+    @Override
+    public final void onComplete() {
+      if (!this.streaming && !this.cancelled && !this.headers.contentLength().isPresent()) {
+        this.headers.contentLength(this.size);
+      }
+      this.offerHeld();
+      this.queue.offer(COMPLETE);
+      this.drain();
+    }
+
+    @Override
+    public final void request(final long n) {
+      if (n <= 0L) {
+        this.error = new IllegalArgumentException("n: " + n);
+        this.subscription.cancel();
+        this.drain();
+        return;
+      }
+      long current;
+      long next;
+      do {
+        current = this.demand.get();
+        next = current + n;
+        if (next < 0L) {
+          next = Long.MAX_VALUE;
+        }
+      } while (!this.demand.compareAndSet(current, next));
+      this.drain();
+    }
+
+    @Override
+    public final void cancel() {
+      this.cancelled = true;
+      this.subscription.cancel();
+      this.drain();
+    }
+
+    private final void offerHeld() {
+      if (this.held != null) {
+        this.queue.offer(this.held);
+        this.held = null;
+      } else if (this.buffer != null) {
+        this.queue.offer(this.pool.chunk(this.buffer));
+        this.buffer = null;
+      }
+    }
+
+    private final void releaseHeld() {
+      if (this.held != null) {
+        this.held.release();
+        this.held = null;
+      }
+      if (this.buffer != null) {
+        this.pool.release(this.buffer);
+        this.buffer = null;
+      }
+    }
+
+    private final void drain() {
+      if (this.wip.getAndIncrement() != 0) {
+        return;
+      }
+      int missed = 1;
+      do {
+        if (this.terminated || this.cancelled) {
+          this.clear();
+        } else if (this.error != null) {
+          this.clear();
+          this.terminated = true;
+          this.subscriber.onError(this.error);
+        } else {
+          for (Object item = this.queue.peek(); item != null; item = this.queue.peek()) {
+            if (item == COMPLETE) {
+              this.queue.poll();
+              this.terminated = true;
+              this.subscriber.onComplete();
+              break;
+            }
+            final long demand = this.demand.get();
+            if (demand <= 0L) {
+              break;
+            }
+            this.queue.poll();
+            if (demand != Long.MAX_VALUE) {
+              this.demand.decrementAndGet();
+            }
+            this.subscriber.onNext((DataChunk)item);
+            if (this.streaming) {
+              // Keep one chunk coming for every one that went out.
+              this.subscription.request(1L);
+            }
+          }
+        }
+        missed = this.wip.addAndGet(-missed);
+      } while (missed != 0);
+    }
+
+    private final void clear() {
+      for (Object item = this.queue.poll(); item != null; item = this.queue.poll()) {
+        if (item instanceof DataChunk) {
+          ((DataChunk)item).release();
+        }
+      }
+    }
+
+    private static final void copy(final DataChunk chunk, final ByteBuffer buffer) {
+      final ByteBuffer data = chunk.data();
+      if (data != null) {
+        buffer.put(data.duplicate());
+      }
+      chunk.release();
+    }
+
+  }
+
+}
@@ -0,0 +1,409 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright © 2019 microBean.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.microbean.helidon.webserver.jaxrs.cdi;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import java.lang.reflect.Method;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+
+import java.nio.channels.FileChannel;
+
+import java.nio.charset.StandardCharsets;
+
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import io.helidon.common.http.MediaType;
+
+// An on-disk record of the resource model of one Application, so
+// that a later start with exactly the same classes can skip looking
+// for annotations.  It is keyed by a SHA-256 digest of the bytecode
+// of the Application class, the classes it returns from getClasses()
+// and all of their supertypes that don't come from the JDK; if any of
+// those change, the manifest is ignored, and rewritten.
+//
+// Layout (integers are big-endian; a string is an int byte count,
+// or -1 for null, followed by that many bytes of UTF-8):
+//
+//   int magic, int version, int digest length, digest bytes,
+//   int class count, then for each class:
+//     string class name, string path, int method count, then for
+//     each method:
+//       string name, int parameter count, string parameter type
+//       names (as returned by Class#getName()), string path, string
+//       HTTP method, int count, string consumed media types, int
+//       count, string produced media types, int priority ordinal,
+//       long timeout nanoseconds, long maximum entity size
+final class RouteManifest {
+
+  private static final int MAGIC = 0x4a415852; // "JAXR"
+
+  // Bump whenever the layout, or what goes into it, changes.
+  private static final int VERSION = 2;
+
+  private static final Map<String, Class<?>> PRIMITIVES;
+
+  static {
+    final Map<String, Class<?>> primitives = new HashMap<>();
+    for (final Class<?> c : Arrays.asList(boolean.class, byte.class, char.class, short.class, int.class, long.class, float.class, double.class)) {
+      primitives.put(c.getName(), c);
+    }
+    PRIMITIVES = Collections.unmodifiableMap(primitives);
+  }
+
+  private static final Logger logger = Logger.getLogger(HelidonJAXRSExtension.class.getName());
+
+  private RouteManifest() {
+    super();
+  }
+
+  // Returns null if some class's bytecode can't be found (if, say, it
+  // was generated at runtime), in which case no manifest can be used.
+  static final byte[] digest(final Class<?> applicationClass, final Collection<? extends Class<?>> classes) {
+    final MessageDigest digest;
+    try {
+      digest = MessageDigest.getInstance("SHA-256");
+    } catch (final NoSuchAlgorithmException noSuchAlgorithmException) {
+      // Every JDK has SHA-256, but still.
+      return null;
+    }
+    final ByteBuffer header = ByteBuffer.allocate(Integer.BYTES * 2).putInt(MAGIC).putInt(VERSION);
+    digest.update(header.array());
+    final List<Class<?>> roots = new ArrayList<>();
+    roots.add(applicationClass);
+    if (classes != null) {
+      for (final Class<?> c : classes) {
+        if (c != null) {
+          roots.add(c);
+        }
+      }
+    }
+    // So that the order of getClasses() doesn't matter.
+    roots.subList(1, roots.size()).sort(Comparator.comparing(Class::getName));
+    final Set<Class<?>> seen = new HashSet<>();
+    final byte[] buffer = new byte[8192];
+    for (final Class<?> root : roots) {
+      if (!digest(digest, root, seen, buffer)) {
+        return null;
+      }
+    }
+    return digest.digest();
+  }
+
+  private static final boolean digest(final MessageDigest digest, final Class<?> c, final Set<Class<?>> seen, final byte[] buffer) {
+    final ClassLoader classLoader = c == null ? null : c.getClassLoader();
+    if (classLoader == null || !seen.add(c)) {
+      // Nothing, a JDK class, or done already.
+      return true;
+    }
+    try (final InputStream inputStream = classLoader.getResourceAsStream(c.getName().replace('.', '/') + ".class")) {
+      if (inputStream == null) {
+        return false;
+      }
+      digest.update(c.getName().getBytes(StandardCharsets.UTF_8));
+      int bytesRead;
+      while ((bytesRead = inputStream.read(buffer)) >= 0) {
+        digest.update(buffer, 0, bytesRead);
+      }
+    } catch (final IOException ioException) {
+      return false;
+    }
+    if (!digest(digest, c.getSuperclass(), seen, buffer)) {
+      return false;
+    }
+    for (final Class<?> iface : c.getInterfaces()) {
+      if (!digest(digest, iface, seen, buffer)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  // Returns a map from class name to the resource model of that
+  // class, or null if there is no usable manifest at file: if there
+  // is none, or it was written for different classes, or it can't be
+  // read.  classes are used to resolve parameter types.
+  static final Map<String, GeneratedResourceClass> read(final Path file,
+                                                       final byte[] digest,
+                                                       final Collection<? extends Class<?>> classes) {
+    if (file == null || digest == null || !Files.isRegularFile(file)) {
+      return null;
+    }
+    final Map<String, Class<?>> classesByName = new HashMap<>();
+    if (classes != null) {
+      for (final Class<?> c : classes) {
+        if (c != null) {
+          classesByName.put(c.getName(), c);
+        }
+      }
+    }
+    try (final FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      final MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0L, channel.size());
+      if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+        return null;
+      }
+      // Lengths and counts are checked against what is left before
+      // anything is allocated for them, so that a damaged manifest
+      // can't ask for a huge array.
+      final int digestLength = getCount(buffer);
+      if (digestLength < 0) {
+        return null;
+      }
+      final byte[] manifestDigest = new byte[digestLength];
+      buffer.get(manifestDigest);
+      if (!Arrays.equals(digest, manifestDigest)) {
+        return null;
+      }
+      final int classCount = getCount(buffer);
+      if (classCount < 0) {
+        return null;
+      }
+      final Map<String, GeneratedResourceClass> returnValue = new HashMap<>();
+      for (int i = 0; i < classCount; i++) {
+        final String className = getString(buffer);
+        final String classPath = getString(buffer);
+        final Class<?> c = classesByName.get(className);
+        if (c == null) {
+          // Can't happen if the digests match.
+          return null;
+        }
+        final int methodCount = getCount(buffer);
+        if (methodCount < 0) {
+          return null;
+        }
+        final List<GeneratedResourceMethod> methods = new ArrayList<>(methodCount);
+        for (int m = 0; m < methodCount; m++) {
+          final String name = getString(buffer);
+          final int parameterCount = getCount(buffer);
+          if (parameterCount < 0) {
+            return null;
+          }
+          final Class<?>[] parameterTypes = new Class<?>[parameterCount];
+          for (int p = 0; p < parameterTypes.length; p++) {
+            final String parameterTypeName = getString(buffer);
+            final Class<?> primitive = PRIMITIVES.get(parameterTypeName);
+            parameterTypes[p] = primitive == null ? Class.forName(parameterTypeName, false, c.getClassLoader()) : primitive;
+          }
+          final String path = getString(buffer);
+          final String httpMethod = getString(buffer);
+          final String[] consumedMediaTypes = getStrings(buffer);
+          final String[] producedMediaTypes = getStrings(buffer);
+          if (consumedMediaTypes == null || producedMediaTypes == null) {
+            return null;
+          }
+          final int priority = buffer.getInt();
+          final long timeoutNanos = buffer.getLong();
+          final long maxEntitySize = buffer.getLong();
+          methods.add(new GeneratedResourceMethod(name,
+                                                  parameterTypes,
+                                                  path,
+                                                  httpMethod,
+                                                  consumedMediaTypes,
+                                                  producedMediaTypes,
+                                                  priority < 0 ? null : DispatchPriority.Level.values()[priority],
+                                                  timeoutNanos,
+                                                  maxEntitySize,
+                                                  null));
+        }
+        returnValue.put(className, new ManifestResourceClass(classPath, methods));
+      }
+      return returnValue;
+    } catch (final IOException | ReflectiveOperationException | LinkageError | RuntimeException exception) {
+      // BufferUnderflowException, ArrayIndexOutOfBoundsException,
+      // etc. mean the file is damaged; start over.
+      if (logger.isLoggable(Level.WARNING)) {
+        logger.logp(Level.WARNING, RouteManifest.class.getName(), "read", "Ignoring unreadable route manifest " + file, exception);
+      }
+      return null;
+    }
+  }
+
+  // Writes to a temporary file first so that a concurrently starting
+  // process never reads half a manifest.  Failure isn't fatal; the
+  // next start just scans again.
+  static final void write(final Path file,
+                          final byte[] digest,
+                          final Map<? extends Class<?>, ? extends Collection<? extends ResourceMethodDescriptor<?>>> descriptorsByClass) {
+    Path temporaryFile = null;
+    try {
+      final Path directory = file.toAbsolutePath().getParent();
+      Files.createDirectories(directory);
+      temporaryFile = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+      try (final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporaryFile)))) {
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(digest.length);
+        out.write(digest);
+        out.writeInt(descriptorsByClass.size());
+        for (final Map.Entry<? extends Class<?>, ? extends Collection<? extends ResourceMethodDescriptor<?>>> entry : descriptorsByClass.entrySet()) {
+          final Collection<? extends ResourceMethodDescriptor<?>> descriptors = entry.getValue();
+          putString(out, entry.getKey().getName());
+          putString(out,
+                    descriptors == null || descriptors.isEmpty() ? null : ResourceMethodDescriptor.getPathValue(descriptors.iterator().next().getResourceClass()));
+          if (descriptors == null) {
+            out.writeInt(0);
+          } else {
+            out.writeInt(descriptors.size());
+            for (final ResourceMethodDescriptor<?> descriptor : descriptors) {
+              final Method method = descriptor.getResourceMethod().getJavaMember();
+              putString(out, method.getName());
+              final Class<?>[] parameterTypes = method.getParameterTypes();
+              out.writeInt(parameterTypes.length);
+              for (final Class<?> parameterType : parameterTypes) {
+                putString(out, parameterType.getName());
+              }
+              putString(out, ResourceMethodDescriptor.getPathValue(descriptor.getResourceMethod()));
+              putString(out, descriptor.isSubResourceLocator() ? null : descriptor.getHttpMethod().name());
+              putMediaTypes(out, descriptor.getConsumedMediaTypes());
+              putMediaTypes(out, descriptor.getProducedMediaTypes());
+              out.writeInt(descriptor.getPriority().ordinal());
+              out.writeLong(descriptor.getTimeoutNanos());
+              out.writeLong(descriptor.getMaxEntitySize());
+            }
+          }
+        }
+      }
+      try {
+        Files.move(temporaryFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+      } catch (final AtomicMoveNotSupportedException atomicMoveNotSupportedException) {
+        Files.move(temporaryFile, file, StandardCopyOption.REPLACE_EXISTING);
+      }
+      temporaryFile = null;
+    } catch (final IOException | RuntimeException exception) {
+      if (logger.isLoggable(Level.WARNING)) {
+        logger.logp(Level.WARNING, RouteManifest.class.getName(), "write", "Could not write route manifest " + file, exception);
+      }
+    } finally {
+      if (temporaryFile != null) {
+        try {
+          Files.deleteIfExists(temporaryFile);
+        } catch (final IOException ignored) {
+
+        }
+      }
+    }
+  }
+
+  // The default of */* isn't written, so that it is supplied again
+  // by ResourceMethodDescriptor.
+  private static final void putMediaTypes(final DataOutputStream out, final Set<? extends MediaType> mediaTypes) throws IOException {
+    if (mediaTypes == null || mediaTypes.isEmpty() || (mediaTypes.size() == 1 && mediaTypes.contains(MediaType.WILDCARD))) {
+      out.writeInt(0);
+    } else {
+      out.writeInt(mediaTypes.size());
+      for (final MediaType mediaType : mediaTypes) {
+        putString(out, mediaType.toString());
+      }
+    }
+  }
+
+  private static final void putString(final DataOutputStream out, final String s) throws IOException {
+    if (s == null) {
+      out.writeInt(-1);
+    } else {
+      final byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+      out.writeInt(bytes.length);
+      out.write(bytes);
+    }
+  }
+
+  // Returns null if the count of strings can't be right.
+  private static final String[] getStrings(final ByteBuffer buffer) {
+    final int count = getCount(buffer);
+    if (count < 0) {
+      return null;
+    }
+    final String[] returnValue = new String[count];
+    for (int i = 0; i < returnValue.length; i++) {
+      returnValue[i] = getString(buffer);
+    }
+    return returnValue;
+  }
+
+  // Returns the next int in buffer if it could be the length of
+  // something that follows it, or -1.  Every element of everything
+  // counted takes at least one byte, so no count can be greater than
+  // the bytes remaining.
+  private static final int getCount(final ByteBuffer buffer) {
+    final int count = buffer.getInt();
+    return count < 0 || count > buffer.remaining() ? -1 : count;
+  }
+
+  private static final String getString(final ByteBuffer buffer) {
+    final int length = buffer.getInt();
+    if (length < 0) {
+      return null;
+    } else if (length > buffer.remaining()) {
+      throw new BufferUnderflowException();
+    }
+    final byte[] bytes = new byte[length];
+    buffer.get(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  private static final class ManifestResourceClass implements GeneratedResourceClass {
+
+    private final String path;
+
+    private final List<GeneratedResourceMethod> resourceMethods;
+
+    private ManifestResourceClass(final String path, final List<GeneratedResourceMethod> resourceMethods) {
+      super();
+      this.path = path;
+      this.resourceMethods = Collections.unmodifiableList(resourceMethods);
+    }
+
+    @Override
+    public final String getPath() {
+      return this.path;
+    }
+
+    @Override
+    public final List<GeneratedResourceMethod> getResourceMethods() {
+      return this.resourceMethods;
+    }
+
+  }
+
+}
@@ -0,0 +1,251 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright © 2019 microBean.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.microbean.helidon.webserver.jaxrs.cdi;
+
+import java.lang.annotation.Annotation;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import javax.ws.rs.Consumes;
+import javax.ws.rs.HttpMethod;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+
+import io.helidon.common.http.MediaType;
+
+// What a sub-resource locator returned: the resource methods and
+// sub-resource locators of its class, found reflectively, since such
+// classes needn't be beans, or even known, at bootstrap.  Each class
+// is introspected once, the first time a locator returns one of its
+// instances; after that, dispatching to a sub-resource costs only a
+// path match and the call itself.
+final class SubResourceModel {
+
+  private static final ClassValue<SubResourceModel> models = new ClassValue<SubResourceModel>() {
+      @Override
+      protected final SubResourceModel computeValue(final Class<?> c) {
+        return new SubResourceModel(c);
+      }
+    };
+
+  // Sub-resource methods before sub-resource locators, and, within
+  // each, templates with more literal characters first, as JAX-RS
+  // orders them.
+  private static final Comparator<SubResourceMethod> ORDER =
+    Comparator.<SubResourceMethod>comparingInt(m -> m.httpMethod == null ? 1 : 0)
+    .thenComparing(Comparator.<SubResourceMethod>comparingInt(m -> m.literalLength).reversed());
+
+  private final List<SubResourceMethod> methods;
+
+  private SubResourceModel(final Class<?> c) {
+    super();
+    final List<SubResourceMethod> methods = new ArrayList<>();
+    for (final Method method : c.getMethods()) {
+      if (!Modifier.isStatic(method.getModifiers()) && !method.isBridge() && !method.isSynthetic()) {
+        final SubResourceMethod subResourceMethod = SubResourceMethod.of(method);
+        if (subResourceMethod != null) {
+          if (!Modifier.isPublic(method.getDeclaringClass().getModifiers())) {
+            // Sub-resources are often private classes of their locators'.
+            method.setAccessible(true);
+          }
+          methods.add(subResourceMethod);
+        }
+      }
+    }
+    methods.sort(ORDER);
+    this.methods = Collections.unmodifiableList(methods);
+  }
+
+  static final SubResourceModel of(final Class<?> c) {
+    return models.get(c);
+  }
+
+  final List<SubResourceMethod> getMethods() {
+    return this.methods;
+  }
+
+  // Returns the sub-resource method (matching the whole of rawPath)
+  // or sub-resource locator (matching a prefix of it) that should
+  // serve a request for rawPath, which is relative to the resource
+  // and begins with a slash, or null if there isn't one.  contentType
+  // may be null.
+  final SubResourceMethod select(final String rawPath, final String httpMethod, final MediaType contentType) {
+    for (final SubResourceMethod method : this.methods) {
+      if (method.httpMethod == null) {
+        if (method.template.matchPrefix(rawPath) >= 0) {
+          return method;
+        }
+      } else if (method.httpMethod.equals(httpMethod) &&
+                 method.consumes(contentType) &&
+                 method.template.match(rawPath, null, false)) {
+        return method;
+      }
+    }
+    return null;
+  }
+
+  static final class SubResourceMethod {
+
+    private final Method method;
+
+    // Null for sub-resource locators.
+    private final String httpMethod;
+
+    private final PathTemplate template;
+
+    private final int literalLength;
+
+    private final Set<MediaType> consumedMediaTypes;
+
+    private final Set<MediaType> producedMediaTypes;
+
+    private SubResourceMethod(final Method method,
+                              final String httpMethod,
+                              final String path,
+                              final Set<MediaType> consumedMediaTypes,
+                              final Set<MediaType> producedMediaTypes) {
+      super();
+      this.method = method;
+      this.httpMethod = httpMethod;
+      this.template = PathTemplate.of(path);
+      this.literalLength = path.replaceAll("\\{[^}]*\\}", "").length();
+      this.consumedMediaTypes = consumedMediaTypes;
+      this.producedMediaTypes = producedMediaTypes;
+    }
+
+    final Method getMethod() {
+      return this.method;
+    }
+
+    final boolean isSubResourceLocator() {
+      return this.httpMethod == null;
+    }
+
+    final PathTemplate getTemplate() {
+      return this.template;
+    }
+
+    final Set<MediaType> getProducedMediaTypes() {
+      return this.producedMediaTypes;
+    }
+
+    private final boolean consumes(final MediaType contentType) {
+      if (contentType == null || this.consumedMediaTypes.isEmpty()) {
+        return true;
+      }
+      for (final MediaType consumedMediaType : this.consumedMediaTypes) {
+        if (consumedMediaType.test(contentType)) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    // JAX-RS annotations are inherited from the methods a method
+    // overrides, if it has none of its own.  Returns null if method
+    // is neither a sub-resource method nor a sub-resource locator.
+    private static final SubResourceMethod of(final Method method) {
+      final Method annotated = findAnnotated(method);
+      if (annotated == null) {
+        return null;
+      }
+      String httpMethod = null;
+      for (final Annotation annotation : annotated.getAnnotations()) {
+        final HttpMethod h = annotation.annotationType().getAnnotation(HttpMethod.class);
+        if (h != null) {
+          httpMethod = h.value();
+          break;
+        }
+      }
+      final Path path = annotated.getAnnotation(Path.class);
+      if (httpMethod == null && path == null) {
+        return null;
+      }
+      final Consumes consumes = annotated.getAnnotation(Consumes.class);
+      final Produces produces = annotated.getAnnotation(Produces.class);
+      return new SubResourceMethod(method,
+                                   httpMethod,
+                                   path == null ? "" : ResourceMethodDescriptor.pattern.matcher(path.value()).replaceAll("$2"),
+                                   mediaTypes(consumes == null ? null : consumes.value()),
+                                   mediaTypes(produces == null ? null : produces.value()));
+    }
+
+    private static final Method findAnnotated(final Method method) {
+      if (isAnnotated(method)) {
+        return method;
+      }
+      final Class<?> declaringClass = method.getDeclaringClass();
+      final List<Class<?>> supertypes = new ArrayList<>();
+      for (Class<?> c = declaringClass.getSuperclass(); c != null; c = c.getSuperclass()) {
+        supertypes.add(c);
+      }
+      for (Class<?> c = declaringClass; c != null; c = c.getSuperclass()) {
+        Collections.addAll(supertypes, c.getInterfaces());
+      }
+      for (final Class<?> supertype : supertypes) {
+        try {
+          final Method overridden = supertype.getDeclaredMethod(method.getName(), method.getParameterTypes());
+          if (isAnnotated(overridden)) {
+            return overridden;
+          }
+        } catch (final NoSuchMethodException noSuchMethodException) {
+          // Not declared there; keep looking.
+        }
+      }
+      return null;
+    }
+
+    private static final boolean isAnnotated(final Method method) {
+      for (final Annotation annotation : method.getAnnotations()) {
+        if (annotation instanceof Path || annotation.annotationType().isAnnotationPresent(HttpMethod.class)) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    private static final Set<MediaType> mediaTypes(final String[] values) {
+      if (values == null || values.length == 0) {
+        return Collections.emptySet();
+      }
+      final Set<MediaType> returnValue = new HashSet<>();
+      for (final String value : values) {
+        for (final String element : value.split(",")) {
+          returnValue.add(MediaType.parse(element.trim()));
+        }
+      }
+      return Collections.unmodifiableSet(returnValue);
+    }
+
+    @Override
+    public final String toString() {
+      return new StringBuilder("@").append(this.httpMethod == null ? "Path" : this.httpMethod).append(" ")
+        .append(this.method.toGenericString())
+        .toString();
+    }
+
+  }
+
+}
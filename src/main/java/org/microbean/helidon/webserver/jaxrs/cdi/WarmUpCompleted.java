@@ -0,0 +1,114 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright © 2019 microBean.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.microbean.helidon.webserver.jaxrs.cdi;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * An event fired, qualified with the qualifiers of the governing
+ * {@link javax.ws.rs.core.Application}, when the resource methods of
+ * that {@code Application} have been warmed up.
+ *
+ * <p>Warming up is off unless the {@code
+ * org.microbean.helidon.webserver.jaxrs.cdi.warmup.iterations}
+ * property is set to a positive number.  If it is, then once routing
+ * is set up, every resource method is exercised that many times,
+ * without any request, on a background thread: resource methods
+ * designated by {@code GET}, {@code HEAD} or {@code OPTIONS} are
+ * invoked, and the resources and parameters of all others are merely
+ * resolved.  Observers of this event can then, for example, report
+ * the server as ready.</p>
+ *
+ * @author <a href="https://about.me/lairdnelson"
+ * target="_parent">Laird Nelson</a>
+ */
+public final class WarmUpCompleted {
+
+  private final String applicationName;
+
+  private final int routeCount;
+
+  private final int failedRouteCount;
+
+  private final long elapsedNanos;
+
+  WarmUpCompleted(final String applicationName,
+                  final int routeCount,
+                  final int failedRouteCount,
+                  final long elapsedNanos) {
+    super();
+    this.applicationName = applicationName;
+    this.routeCount = routeCount;
+    this.failedRouteCount = failedRouteCount;
+    this.elapsedNanos = elapsedNanos;
+  }
+
+  /**
+   * Returns the name of the {@link javax.ws.rs.core.Application}
+   * whose resource methods were warmed up.
+   *
+   * @return the name of the {@code Application}; never {@code null}
+   */
+  public String getApplicationName() {
+    return this.applicationName;
+  }
+
+  /**
+   * Returns the number of resource methods that were warmed up,
+   * including those that {@linkplain #getFailedRouteCount() failed}.
+   *
+   * @return the number of resource methods that were warmed up
+   */
+  public int getRouteCount() {
+    return this.routeCount;
+  }
+
+  /**
+   * Returns the number of resource methods that could not be warmed
+   * up, usually because they need a real request.
+   *
+   * <p>Such resource methods will still be served; they will simply
+   * be slower to begin with.</p>
+   *
+   * @return the number of resource methods that could not be warmed
+   * up
+   */
+  public int getFailedRouteCount() {
+    return this.failedRouteCount;
+  }
+
+  /**
+   * Returns how long warming up took, in the given {@link TimeUnit}.
+   *
+   * @param unit the {@link TimeUnit} in which to express the elapsed
+   * time; must not be {@code null}
+   *
+   * @return how long warming up took
+   *
+   * @exception NullPointerException if {@code unit} is {@code null}
+   */
+  public long getElapsedTime(final TimeUnit unit) {
+    return unit.convert(this.elapsedNanos, TimeUnit.NANOSECONDS);
+  }
+
+  @Override
+  public String toString() {
+    return this.applicationName + ": " + this.routeCount + " routes warmed up (" + this.failedRouteCount + " failed) in " +
+      this.getElapsedTime(TimeUnit.MILLISECONDS) + " ms";
+  }
+
+}
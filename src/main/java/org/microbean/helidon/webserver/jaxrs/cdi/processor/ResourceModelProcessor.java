@@ -0,0 +1,557 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright © 2019 microBean.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.microbean.helidon.webserver.jaxrs.cdi.processor;
+
+import java.io.IOException;
+import java.io.Writer;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import java.util.concurrent.TimeUnit;
+
+import java.util.regex.Pattern;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+
+import javax.lang.model.SourceVersion;
+
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.ExecutableType;
+import javax.lang.model.type.PrimitiveType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+
+/**
+ * An annotation processor that generates, for each JAX-RS resource
+ * class it sees, an implementation of {@link
+ * org.microbean.helidon.webserver.jaxrs.cdi.GeneratedResourceClass}
+ * describing its resource methods and invoking them directly.
+ *
+ * <p>When one is present for a resource class, {@link
+ * org.microbean.helidon.webserver.jaxrs.cdi.HelidonJAXRSExtension}
+ * uses it instead of looking for annotations reflectively at
+ * bootstrap time, and resource methods are invoked without {@link
+ * java.lang.reflect.Method#invoke(Object, Object...)}.  Setting the
+ * {@code org.microbean.helidon.webserver.jaxrs.cdi.bootstrap.generated}
+ * System property to {@code false} disables this.</p>
+ *
+ * <p>This processor is not registered as a service, so it runs only
+ * when asked for, for example with {@code javac -processor
+ * org.microbean.helidon.webserver.jaxrs.cdi.processor.ResourceModelProcessor},
+ * or by listing it among the {@code annotationProcessors} of the
+ * {@code maven-compiler-plugin}.</p>
+ *
+ * <p>Resource classes that are abstract, {@code private}, enclosed in
+ * {@code private} classes, or inner (non-{@code static} nested)
+ * classes are skipped, and continue to be processed reflectively.</p>
+ *
+ * @author <a href="https://about.me/lairdnelson"
+ * target="_parent">Laird Nelson</a>
+ *
+ * @see org.microbean.helidon.webserver.jaxrs.cdi.GeneratedResourceClass
+ */
+@SupportedAnnotationTypes("javax.ws.rs.*")
+public class ResourceModelProcessor extends AbstractProcessor {
+
+  // Must agree with GeneratedResourceClasses.
+  private static final String SUFFIX = "_ResourceModel";
+
+  private static final String PACKAGE = "org.microbean.helidon.webserver.jaxrs.cdi";
+
+  private static final String CONSUMES = "javax.ws.rs.Consumes";
+
+  private static final String DISPATCH_PRIORITY = PACKAGE + ".DispatchPriority";
+
+  private static final String DISPATCH_TIMEOUT = PACKAGE + ".DispatchTimeout";
+
+  private static final String HTTP_METHOD = "javax.ws.rs.HttpMethod";
+
+  private static final String MAX_ENTITY_SIZE = PACKAGE + ".MaxEntitySize";
+
+  private static final String PATH = "javax.ws.rs.Path";
+
+  private static final String PRODUCES = "javax.ws.rs.Produces";
+
+  // Must agree with ResourceMethodDescriptor's.
+  private static final Pattern pattern = Pattern.compile("^(\\s*/*\\s*)(.+)(\\s*/*\\s*)$");
+
+  private final Set<String> generated;
+
+  /**
+   * Creates a new {@link ResourceModelProcessor}.
+   */
+  public ResourceModelProcessor() {
+    super();
+    this.generated = new HashSet<>();
+  }
+
+  /**
+   * Returns {@link SourceVersion#latestSupported()}, since this
+   * processor reads nothing that differs from one version of the
+   * language to another.
+   *
+   * @return {@link SourceVersion#latestSupported()}
+   */
+  @Override
+  public SourceVersion getSupportedSourceVersion() {
+    return SourceVersion.latestSupported();
+  }
+
+  /**
+   * Generates a {@link
+   * org.microbean.helidon.webserver.jaxrs.cdi.GeneratedResourceClass}
+   * for every eligible class that is, or has a member that is,
+   * annotated with a JAX-RS annotation.
+   *
+   * @param annotations the annotation types requested to be
+   * processed; may be {@code null}
+   *
+   * @param roundEnvironment the {@link RoundEnvironment} of this round;
+   * may be {@code null}
+   *
+   * @return {@code false} in all cases, so that other processors may
+   * also process JAX-RS annotations
+   */
+  @Override
+  public boolean process(final Set<? extends TypeElement> annotations, final RoundEnvironment roundEnvironment) {
+    if (annotations != null && roundEnvironment != null) {
+      final Set<TypeElement> types = new LinkedHashSet<>();
+      for (final TypeElement annotation : annotations) {
+        for (final Element element : roundEnvironment.getElementsAnnotatedWith(annotation)) {
+          final Element enclosingElement;
+          if (element.getKind().isClass() || element.getKind().isInterface()) {
+            enclosingElement = element;
+          } else {
+            enclosingElement = element.getEnclosingElement();
+          }
+          if (enclosingElement != null && enclosingElement.getKind() == ElementKind.CLASS) {
+            types.add((TypeElement)enclosingElement);
+          }
+        }
+      }
+      for (final TypeElement type : types) {
+        if (isEligible(type)) {
+          try {
+            this.generate(type);
+          } catch (final IOException ioException) {
+            this.processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, ioException.toString(), type);
+          }
+        }
+      }
+    }
+    return false;
+  }
+
+  private final void generate(final TypeElement type) throws IOException {
+    final Elements elements = this.processingEnv.getElementUtils();
+    final Types types = this.processingEnv.getTypeUtils();
+    final String packageName = elements.getPackageOf(type).getQualifiedName().toString();
+    final String simpleName = getFlatName(type) + SUFFIX;
+    final String name = packageName.isEmpty() ? simpleName : packageName + "." + simpleName;
+    if (!this.generated.add(name)) {
+      // Seen in an earlier round.
+      return;
+    }
+
+    final String classPath = getPath(type);
+    final List<ExecutableElement> resourceMethods = new ArrayList<>();
+    for (final ExecutableElement method : ElementFilter.methodsIn(elements.getAllMembers(type))) {
+      final Set<Modifier> modifiers = method.getModifiers();
+      // A method with a @Path but no HTTP method is a sub-resource
+      // locator.
+      if (modifiers.contains(Modifier.PUBLIC) && !modifiers.contains(Modifier.STATIC) &&
+          (getHttpMethod(method) != null || getPath(method) != null)) {
+        resourceMethods.add(method);
+      }
+    }
+    if (classPath == null && resourceMethods.isEmpty()) {
+      return;
+    }
+
+    // Raw, if type is generic.
+    final DeclaredType resourceType = (DeclaredType)types.erasure(type.asType());
+    final String resourceTypeName = resourceType.toString();
+
+    final JavaFileObject sourceFile = this.processingEnv.getFiler().createSourceFile(name, type);
+    try (final Writer writer = sourceFile.openWriter()) {
+      if (!packageName.isEmpty()) {
+        writer.append("package ").append(packageName).append(";\n\n");
+      }
+      writer.append("// Generated by ").append(ResourceModelProcessor.class.getName()).append(" from ").append(type.getQualifiedName()).append("; do not edit.\n")
+        .append("@SuppressWarnings({ \"rawtypes\", \"unchecked\" })\n")
+        .append("public final class ").append(simpleName).append(" implements ").append(PACKAGE).append(".GeneratedResourceClass {\n\n")
+        .append("  private static final java.util.List<").append(PACKAGE).append(".GeneratedResourceMethod> RESOURCE_METHODS = java.util.Collections.unmodifiableList(java.util.Arrays.asList(");
+      for (int i = 0; i < resourceMethods.size(); i++) {
+        final ExecutableElement method = resourceMethods.get(i);
+        final ExecutableType methodType = (ExecutableType)types.asMemberOf(resourceType, method);
+        final List<? extends VariableElement> parameters = method.getParameters();
+        final List<? extends TypeMirror> parameterTypes = methodType.getParameterTypes();
+        writer.append(i == 0 ? "\n" : ",\n")
+          .append("    new ").append(PACKAGE).append(".GeneratedResourceMethod(").append(quote(method.getSimpleName().toString())).append(",\n")
+          .append("      new Class<?>[] {");
+        for (int p = 0; p < parameters.size(); p++) {
+          writer.append(p == 0 ? " " : ", ").append(types.erasure(parameters.get(p).asType()).toString()).append(".class");
+        }
+        writer.append(" },\n")
+          .append("      ").append(quote(getPath(method))).append(",\n")
+          .append("      ").append(quote(getHttpMethod(method))).append(",\n")
+          .append("      ").append(stringArray(getStrings(method, CONSUMES))).append(",\n")
+          .append("      ").append(stringArray(getStrings(method, PRODUCES))).append(",\n")
+          .append("      ").append(this.getPriority(type, method)).append(",\n")
+          .append("      ").append(Long.toString(this.getTimeoutNanos(type, method))).append("L,\n")
+          .append("      ").append(Long.toString(this.getMaxEntitySize(type, method))).append("L,\n")
+          .append("      (resource, arguments) -> ");
+        final StringBuilder invocation = new StringBuilder("((").append(resourceTypeName).append(")resource).").append(method.getSimpleName()).append("(");
+        for (int p = 0; p < parameterTypes.size(); p++) {
+          if (p > 0) {
+            invocation.append(", ");
+          }
+          invocation.append("(").append(getCastTypeName(types, parameterTypes.get(p))).append(")arguments[").append(p).append("]");
+        }
+        invocation.append(")");
+        if (method.getReturnType().getKind() == TypeKind.VOID) {
+          writer.append("{ ").append(invocation).append("; return null; })");
+        } else {
+          writer.append(invocation).append(")");
+        }
+      }
+      writer.append("));\n\n")
+        .append("  public ").append(simpleName).append("() {\n")
+        .append("    super();\n")
+        .append("  }\n\n")
+        .append("  @Override\n")
+        .append("  public String getPath() {\n")
+        .append("    return ").append(quote(classPath)).append(";\n")
+        .append("  }\n\n")
+        .append("  @Override\n")
+        .append("  public java.util.List<").append(PACKAGE).append(".GeneratedResourceMethod> getResourceMethods() {\n")
+        .append("    return RESOURCE_METHODS;\n")
+        .append("  }\n\n")
+        .append("}\n");
+    }
+  }
+
+  // A DispatchPriority on the method wins over one on a method it
+  // overrides, which wins over one on the class (or, since it is
+  // @Inherited, a superclass).  Returns a Java expression.
+  private final String getPriority(final TypeElement type, final ExecutableElement method) {
+    AnnotationMirror priority = this.findOnMethod(method, DISPATCH_PRIORITY);
+    if (priority == null) {
+      priority = this.findOnClass(type, DISPATCH_PRIORITY);
+    }
+    final String returnValue;
+    if (priority == null) {
+      returnValue = "null";
+    } else {
+      final VariableElement level = (VariableElement)this.getValue(priority, "value").getValue();
+      returnValue = PACKAGE + ".DispatchPriority.Level." + level.getSimpleName();
+    }
+    return returnValue;
+  }
+
+  // Same precedence as getPriority().
+  private final long getTimeoutNanos(final TypeElement type, final ExecutableElement method) {
+    AnnotationMirror timeout = this.findOnMethod(method, DISPATCH_TIMEOUT);
+    if (timeout == null) {
+      timeout = this.findOnClass(type, DISPATCH_TIMEOUT);
+    }
+    final long returnValue;
+    if (timeout == null) {
+      returnValue = -1L;
+    } else {
+      final long value = ((Number)this.getValue(timeout, "value").getValue()).longValue();
+      final VariableElement unit = (VariableElement)this.getValue(timeout, "unit").getValue();
+      returnValue = Math.max(0L, TimeUnit.valueOf(unit.getSimpleName().toString()).toNanos(value));
+    }
+    return returnValue;
+  }
+
+  // Same precedence as getPriority().
+  private final long getMaxEntitySize(final TypeElement type, final ExecutableElement method) {
+    AnnotationMirror maxEntitySize = this.findOnMethod(method, MAX_ENTITY_SIZE);
+    if (maxEntitySize == null) {
+      maxEntitySize = this.findOnClass(type, MAX_ENTITY_SIZE);
+    }
+    final long returnValue;
+    if (maxEntitySize == null) {
+      returnValue = -1L;
+    } else {
+      returnValue = Math.max(0L, ((Number)this.getValue(maxEntitySize, "value").getValue()).longValue());
+    }
+    return returnValue;
+  }
+
+  // Searches the method, and then the methods it overrides, in the
+  // same order as AnnotationInheritanceIndex does: superclasses,
+  // nearest first, and then the interfaces they implement.
+  private final AnnotationMirror findOnMethod(final ExecutableElement method, final String annotationTypeName) {
+    AnnotationMirror returnValue = find(method, annotationTypeName);
+    if (returnValue == null) {
+      final Elements elements = this.processingEnv.getElementUtils();
+      final Collection<TypeElement> interfaces = new LinkedHashSet<>();
+      for (TypeElement c = this.getSuperclass((TypeElement)method.getEnclosingElement()); c != null && returnValue == null; c = this.getSuperclass(c)) {
+        returnValue = this.findOnMatchingMethod(ElementFilter.methodsIn(c.getEnclosedElements()), method, annotationTypeName);
+        for (final TypeMirror iface : c.getInterfaces()) {
+          interfaces.add((TypeElement)((DeclaredType)iface).asElement());
+        }
+      }
+      if (returnValue == null) {
+        for (final TypeElement iface : interfaces) {
+          returnValue = this.findOnMatchingMethod(ElementFilter.methodsIn(elements.getAllMembers(iface)), method, annotationTypeName);
+          if (returnValue != null) {
+            break;
+          }
+        }
+      }
+    }
+    return returnValue;
+  }
+
+  private final AnnotationMirror findOnMatchingMethod(final Collection<? extends ExecutableElement> candidates,
+                                                      final ExecutableElement method,
+                                                      final String annotationTypeName) {
+    for (final ExecutableElement candidate : candidates) {
+      if (this.hasSameSignature(candidate, method)) {
+        final AnnotationMirror returnValue = find(candidate, annotationTypeName);
+        if (returnValue != null) {
+          return returnValue;
+        }
+      }
+    }
+    return null;
+  }
+
+  // The name and erased parameter types are what one method must
+  // share with another to override it, as far as reflection is
+  // concerned.
+  private final boolean hasSameSignature(final ExecutableElement a, final ExecutableElement b) {
+    if (!a.getSimpleName().contentEquals(b.getSimpleName())) {
+      return false;
+    }
+    final List<? extends VariableElement> aParameters = a.getParameters();
+    final List<? extends VariableElement> bParameters = b.getParameters();
+    if (aParameters.size() != bParameters.size()) {
+      return false;
+    }
+    final Types types = this.processingEnv.getTypeUtils();
+    for (int i = 0; i < aParameters.size(); i++) {
+      if (!types.isSameType(types.erasure(aParameters.get(i).asType()), types.erasure(bParameters.get(i).asType()))) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private final AnnotationMirror findOnClass(final TypeElement type, final String annotationTypeName) {
+    AnnotationMirror returnValue = null;
+    for (TypeElement c = type; c != null && returnValue == null; c = this.getSuperclass(c)) {
+      returnValue = find(c, annotationTypeName);
+    }
+    return returnValue;
+  }
+
+  private final TypeElement getSuperclass(final TypeElement type) {
+    final TypeMirror superclass = type.getSuperclass();
+    return superclass.getKind() == TypeKind.DECLARED ? (TypeElement)((DeclaredType)superclass).asElement() : null;
+  }
+
+  private final AnnotationValue getValue(final AnnotationMirror annotation, final String name) {
+    for (final Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry :
+           this.processingEnv.getElementUtils().getElementValuesWithDefaults(annotation).entrySet()) {
+      if (entry.getKey().getSimpleName().contentEquals(name)) {
+        return entry.getValue();
+      }
+    }
+    return null;
+  }
+
+  private static final boolean isEligible(final TypeElement type) {
+    if (type.getModifiers().contains(Modifier.ABSTRACT)) {
+      return false;
+    }
+    for (Element e = type; e instanceof TypeElement; e = e.getEnclosingElement()) {
+      final TypeElement t = (TypeElement)e;
+      final NestingKind nestingKind = t.getNestingKind();
+      if (nestingKind == NestingKind.ANONYMOUS || nestingKind == NestingKind.LOCAL) {
+        return false;
+      }
+      final Set<Modifier> modifiers = t.getModifiers();
+      if (modifiers.contains(Modifier.PRIVATE) || (nestingKind == NestingKind.MEMBER && !modifiers.contains(Modifier.STATIC))) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  // Outer.Inner -> Outer_Inner
+  private static final String getFlatName(final TypeElement type) {
+    final Element enclosingElement = type.getEnclosingElement();
+    if (enclosingElement instanceof TypeElement) {
+      return getFlatName((TypeElement)enclosingElement) + "_" + type.getSimpleName();
+    }
+    assert enclosingElement instanceof PackageElement;
+    return type.getSimpleName().toString();
+  }
+
+  // The same as ResourceMethodDescriptor's treatment of @Path values.
+  private static final String getPath(final Element element) {
+    final AnnotationMirror path = find(element, PATH);
+    if (path == null) {
+      return null;
+    }
+    final List<String> values = getStrings(path);
+    return values.isEmpty() ? null : pattern.matcher(values.get(0)).replaceAll("$2");
+  }
+
+  // Only the method's own annotations count, as they do in
+  // ResourceMethodDescriptor.
+  private static final String getHttpMethod(final ExecutableElement method) {
+    for (final AnnotationMirror annotation : method.getAnnotationMirrors()) {
+      final AnnotationMirror httpMethod = find(annotation.getAnnotationType().asElement(), HTTP_METHOD);
+      if (httpMethod != null) {
+        final List<String> values = getStrings(httpMethod);
+        if (!values.isEmpty()) {
+          return values.get(0);
+        }
+      }
+    }
+    return null;
+  }
+
+  private static final List<String> getStrings(final Element element, final String annotationTypeName) {
+    final AnnotationMirror annotation = find(element, annotationTypeName);
+    return annotation == null ? Collections.emptyList() : getStrings(annotation);
+  }
+
+  // The value() of an annotation whose value() is a String or a
+  // String[].
+  private static final List<String> getStrings(final AnnotationMirror annotation) {
+    final List<String> returnValue = new ArrayList<>();
+    for (final Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry : annotation.getElementValues().entrySet()) {
+      if (entry.getKey().getSimpleName().contentEquals("value")) {
+        final Object value = entry.getValue().getValue();
+        if (value instanceof List) {
+          for (final Object item : (List<?>)value) {
+            returnValue.add(String.valueOf(((AnnotationValue)item).getValue()));
+          }
+        } else {
+          returnValue.add(String.valueOf(value));
+        }
+      }
+    }
+    return returnValue;
+  }
+
+  private static final AnnotationMirror find(final Element element, final String annotationTypeName) {
+    for (final AnnotationMirror annotation : element.getAnnotationMirrors()) {
+      if (((TypeElement)annotation.getAnnotationType().asElement()).getQualifiedName().contentEquals(annotationTypeName)) {
+        return annotation;
+      }
+    }
+    return null;
+  }
+
+  private static final String getCastTypeName(final Types types, final TypeMirror type) {
+    final String returnValue;
+    if (type.getKind().isPrimitive()) {
+      returnValue = types.boxedClass((PrimitiveType)type).getQualifiedName().toString();
+    } else {
+      returnValue = types.erasure(type).toString();
+    }
+    return returnValue;
+  }
+
+  private static final String stringArray(final List<String> values) {
+    final String returnValue;
+    if (values.isEmpty()) {
+      returnValue = "null";
+    } else {
+      final StringBuilder sb = new StringBuilder("new String[] { ");
+      for (int i = 0; i < values.size(); i++) {
+        if (i > 0) {
+          sb.append(", ");
+        }
+        sb.append(quote(values.get(i)));
+      }
+      returnValue = sb.append(" }").toString();
+    }
+    return returnValue;
+  }
+
+  private static final String quote(final String s) {
+    if (s == null) {
+      return "null";
+    }
+    final StringBuilder sb = new StringBuilder(s.length() + 2).append('"');
+    for (int i = 0; i < s.length(); i++) {
+      final char c = s.charAt(i);
+      switch (c) {
+      case '"':
+        sb.append("\\\"");
+        break;
+      case '\\':
+        sb.append("\\\\");
+        break;
+      case '\n':
+        sb.append("\\n");
+        break;
+      case '\r':
+        sb.append("\\r");
+        break;
+      case '\t':
+        sb.append("\\t");
+        break;
+      default:
+        if (c < 0x20 || c > 0x7e) {
+          sb.append(String.format("\\u%04x", (int)c));
+        } else {
+          sb.append(c);
+        }
+        break;
+      }
+    }
+    return sb.append('"').toString();
+  }
+
+}
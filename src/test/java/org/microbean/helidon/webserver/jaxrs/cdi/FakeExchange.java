@@ -0,0 +1,233 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright © 2019 microBean.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.microbean.helidon.webserver.jaxrs.cdi;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Proxy;
+
+import java.net.URI;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalLong;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+
+import java.util.function.Consumer;
+
+import io.helidon.common.http.ContextualRegistry;
+import io.helidon.common.http.Http;
+import io.helidon.common.http.HttpRequest;
+
+import io.helidon.webserver.RequestHeaders;
+import io.helidon.webserver.ResponseHeaders;
+import io.helidon.webserver.ServerRequest;
+import io.helidon.webserver.ServerResponse;
+
+// A fake Helidon request and response, for tests that exercise
+// handlers without a server, and a record of how the response was
+// answered.  Anything a test hasn't set up throws
+// UnsupportedOperationException, so that unexpected use is noticed.
+final class FakeExchange {
+
+  final ServerRequest request;
+
+  final ServerResponse response;
+
+  final List<Http.ResponseStatus> statuses = new CopyOnWriteArrayList<>();
+
+  // What was sent; "" for send() with no entity.
+  final List<Object> sends = new CopyOnWriteArrayList<>();
+
+  // Counted down by the first send().
+  final CountDownLatch sent = new CountDownLatch(1);
+
+  private final Map<String, List<String>> headers = new LinkedHashMap<>();
+
+  // What was registered with the request's context, in order.
+  private final List<Object> registered = new CopyOnWriteArrayList<>();
+
+  private final CompletableFuture<ServerResponse> whenSent = new CompletableFuture<>();
+
+  private volatile String rawPath = "/";
+
+  private volatile String rawQuery;
+
+  // Non-null if sent content is handed to it rather than sent at
+  // once; see streamTo().
+  private volatile Consumer<Object> stream;
+
+  FakeExchange(final String... headerNamesAndValues) {
+    super();
+    for (int i = 0; i < headerNamesAndValues.length; i += 2) {
+      this.header(headerNamesAndValues[i], headerNamesAndValues[i + 1]);
+    }
+    final RequestHeaders requestHeaders = proxy(RequestHeaders.class, (proxy, method, arguments) -> {
+        switch (method.getName()) {
+        case "first":
+          final List<String> first = this.headers.get(arguments[0]);
+          return first == null ? Optional.empty() : Optional.of(first.get(0));
+        case "all":
+          final List<String> all = this.headers.get(arguments[0]);
+          return all == null ? Collections.emptyList() : all;
+        case "toMap":
+          return this.headers;
+        case "contentType":
+          return Optional.empty();
+        case "contentLength":
+          return OptionalLong.empty();
+        default:
+          throw new UnsupportedOperationException(method.getName());
+        }
+      });
+    final ContextualRegistry registry = proxy(ContextualRegistry.class, (proxy, method, arguments) -> {
+        switch (method.getName()) {
+        case "register":
+          this.registered.add(arguments[arguments.length - 1]);
+          return null;
+        case "get":
+          final Class<?> type = (Class<?>)arguments[arguments.length - 1];
+          for (final Object instance : this.registered) {
+            if (type.isInstance(instance)) {
+              return Optional.of(instance);
+            }
+          }
+          return Optional.empty();
+        default:
+          throw new UnsupportedOperationException(method.getName());
+        }
+      });
+    final HttpRequest.Path path = proxy(HttpRequest.Path.class, (proxy, method, arguments) -> {
+        switch (method.getName()) {
+        case "toRawString":
+          return this.rawPath;
+        case "toString":
+          return PathTemplate.decodePath(this.rawPath);
+        default:
+          throw new UnsupportedOperationException(method.getName());
+        }
+      });
+    this.request = proxy(ServerRequest.class, (proxy, method, arguments) -> {
+        switch (method.getName()) {
+        case "method":
+          return Http.Method.GET;
+        case "headers":
+          return requestHeaders;
+        case "context":
+          return registry;
+        case "path":
+          return path;
+        case "uri":
+          return URI.create(this.rawQuery == null ? this.rawPath : this.rawPath + "?" + this.rawQuery);
+        case "isSecure":
+          return Boolean.FALSE;
+        case "localAddress":
+          return "127.0.0.1";
+        case "localPort":
+          return Integer.valueOf(80);
+        case "next":
+          throw new AssertionError("next()", arguments == null ? null : (Throwable)arguments[0]);
+        default:
+          throw new UnsupportedOperationException(method.getName());
+        }
+      });
+    final ResponseHeaders responseHeaders = proxy(ResponseHeaders.class, (proxy, method, arguments) -> {
+        final Class<?> returnType = method.getReturnType();
+        if (Optional.class.equals(returnType)) {
+          return Optional.empty();
+        } else if (OptionalLong.class.equals(returnType)) {
+          return OptionalLong.empty();
+        }
+        return null;
+      });
+    final ServerResponse[] response = new ServerResponse[1];
+    response[0] = proxy(ServerResponse.class, (proxy, method, arguments) -> {
+        switch (method.getName()) {
+        case "status":
+          this.statuses.add((Http.ResponseStatus)arguments[0]);
+          return response[0];
+        case "headers":
+          return responseHeaders;
+        case "registerWriter":
+        case "registerFilter":
+          return response[0];
+        case "send":
+          final Object content = arguments == null ? "" : arguments[0];
+          this.sends.add(content);
+          this.sent.countDown();
+          final Consumer<Object> stream = this.stream;
+          if (stream != null) {
+            stream.accept(content);
+            return new CompletableFuture<ServerResponse>();
+          }
+          this.whenSent.complete(response[0]);
+          return CompletableFuture.completedFuture(response[0]);
+        case "whenSent":
+          return this.whenSent;
+        default:
+          throw new UnsupportedOperationException(method.getName());
+        }
+      });
+    this.response = response[0];
+  }
+
+  final FakeExchange header(final String name, final String... values) {
+    this.headers.computeIfAbsent(name, n -> new ArrayList<>()).addAll(Arrays.asList(values));
+    return this;
+  }
+
+  final FakeExchange path(final String rawPath) {
+    this.rawPath = rawPath;
+    return this;
+  }
+
+  final FakeExchange query(final String rawQuery) {
+    this.rawQuery = rawQuery;
+    return this;
+  }
+
+  // Makes send() hand what it is sent to stream and not complete, as
+  // when a response is streamed.
+  final FakeExchange streamTo(final Consumer<Object> stream) {
+    this.stream = stream;
+    return this;
+  }
+
+  // Proxies of these types can be kept in sets and maps.
+  private static final <T> T proxy(final Class<T> type, final InvocationHandler handler) {
+    return type.cast(Proxy.newProxyInstance(FakeExchange.class.getClassLoader(),
+                                            new Class<?>[] { type },
+                                            (proxy, method, arguments) -> {
+                                              switch (method.getName()) {
+                                              case "equals":
+                                                return Boolean.valueOf(proxy == arguments[0]);
+                                              case "hashCode":
+                                                return Integer.valueOf(System.identityHashCode(proxy));
+                                              default:
+                                                return handler.invoke(proxy, method, arguments);
+                                              }
+                                            }));
+  }
+
+}
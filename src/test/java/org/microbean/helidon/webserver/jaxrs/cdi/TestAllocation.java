@@ -0,0 +1,276 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright © 2019 microBean.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.microbean.helidon.webserver.jaxrs.cdi;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+import java.lang.management.ManagementFactory;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.context.Dependent;
+
+import javax.enterprise.inject.Any;
+
+import javax.enterprise.inject.se.SeContainer;
+import javax.enterprise.inject.se.SeContainerInitializer;
+
+import javax.enterprise.inject.spi.BeanManager;
+
+import javax.inject.Qualifier;
+import javax.inject.Singleton;
+
+import javax.ws.rs.ApplicationPath;
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+
+import javax.ws.rs.core.Application;
+
+import com.sun.management.ThreadMXBean;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Fails if invoking a representative resource method allocates more
+ * than its {@linkplain Budget budget}, so that improvements to the
+ * allocation profile of the dispatch path aren't lost later.
+ *
+ * <p>Only the work that {@link ResourceMethodHandler} does for every
+ * request&mdash;acquiring the resource instance, resolving parameters
+ * and invoking the method&mdash;is measured; Helidon's own per-request
+ * costs are not.</p>
+ */
+public class TestAllocation {
+
+  private static final int WARMUP_INVOCATIONS = 20000;
+
+  private static final int MEASURED_INVOCATIONS = 10000;
+
+  private SeContainer cdiContainer;
+
+  private ThreadMXBean threadMXBean;
+
+  public TestAllocation() {
+    super();
+  }
+
+  @Before
+  public void startCdiContainer() {
+    final java.lang.management.ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+    assumeTrue(threadMXBean instanceof ThreadMXBean);
+    this.threadMXBean = (ThreadMXBean)threadMXBean;
+    assumeTrue(this.threadMXBean.isThreadAllocatedMemorySupported());
+    this.threadMXBean.setThreadAllocatedMemoryEnabled(true);
+    // Discovery is disabled so that the beans of other tests don't
+    // get in the way.
+    this.cdiContainer = SeContainerInitializer.newInstance()
+      .disableDiscovery()
+      .addBeanClasses(AllocationApplication.class,
+                      DependentResource.class,
+                      ApplicationScopedResource.class,
+                      SingletonResource.class,
+                      DependentBean.class,
+                      ApplicationScopedBean.class)
+      .initialize();
+  }
+
+  @After
+  public void shutDownCdiContainer() {
+    if (this.cdiContainer != null) {
+      this.cdiContainer.close();
+    }
+  }
+
+  @Test
+  public void testAllocationBudgets() throws ReflectiveOperationException {
+    final BeanManager beanManager = this.cdiContainer.getBeanManager();
+    final Dispatcher dispatcher = new Dispatcher("test", new ApplicationConfiguration(null));
+    int measured = 0;
+    try {
+      for (final ResourceMethodDescriptor<?> descriptor : this.cdiContainer.select(ResourceMethodDescriptor.class, Any.Literal.INSTANCE)) {
+        final Budget budget = descriptor.getResourceMethod().getAnnotation(Budget.class);
+        assertNotNull(descriptor.toString(), budget);
+        final long bytes = this.measure(new ResourceMethodHandler<>(beanManager, descriptor, dispatcher));
+        assertTrue(descriptor.getPath() + " allocated " + bytes + " bytes per invocation; budget: " + budget.value(),
+                   bytes <= budget.value());
+        measured++;
+      }
+    } finally {
+      dispatcher.close();
+    }
+    assertEquals(6, measured);
+  }
+
+  private final long measure(final ResourceMethodHandler<?> handler) throws ReflectiveOperationException {
+    for (int i = 0; i < WARMUP_INVOCATIONS; i++) {
+      handler.invoke();
+    }
+    final long threadId = Thread.currentThread().getId();
+    final long before = this.threadMXBean.getThreadAllocatedBytes(threadId);
+    for (int i = 0; i < MEASURED_INVOCATIONS; i++) {
+      handler.invoke();
+    }
+    final long after = this.threadMXBean.getThreadAllocatedBytes(threadId);
+    return (after - before) / MEASURED_INVOCATIONS;
+  }
+
+
+  /*
+   * Example user code exercised by test.
+   */
+
+
+  @Documented
+  @Retention(RetentionPolicy.RUNTIME)
+  @Target(ElementType.METHOD)
+  private static @interface Budget {
+
+    // Bytes per invocation.
+    long value();
+
+  }
+
+  @Documented
+  @Qualifier
+  @Retention(RetentionPolicy.RUNTIME)
+  @Target({ ElementType.FIELD, ElementType.METHOD, ElementType.PARAMETER, ElementType.TYPE })
+  private static @interface Measured {
+
+  }
+
+  @ApplicationPath("allocation")
+  static class AllocationApplication extends Application {
+
+    public AllocationApplication() {
+      super();
+    }
+
+    @Override
+    public Set<Class<?>> getClasses() {
+      return new HashSet<>(Arrays.asList(DependentResource.class, ApplicationScopedResource.class, SingletonResource.class));
+    }
+
+  }
+
+  @Path("dependent")
+  static class DependentResource {
+
+    public DependentResource() {
+      super();
+    }
+
+    @GET
+    @Path("none")
+    @Budget(2048L)
+    public String none() {
+      return "none";
+    }
+
+    @GET
+    @Path("proxied")
+    @Budget(2048L)
+    public String proxied(@Measured final ApplicationScopedBean bean) {
+      return "proxied";
+    }
+
+    @GET
+    @Path("three")
+    @Budget(4096L)
+    public String three(@Measured final DependentBean first,
+                        @Measured final DependentBean second,
+                        @Measured final ApplicationScopedBean third) {
+      return "three";
+    }
+
+  }
+
+  @ApplicationScoped
+  @Path("application")
+  static class ApplicationScopedResource {
+
+    public ApplicationScopedResource() {
+      super();
+    }
+
+    @GET
+    @Path("none")
+    @Budget(512L)
+    public String none() {
+      return "none";
+    }
+
+    @GET
+    @Path("proxied")
+    @Budget(512L)
+    public String proxied(@Measured final ApplicationScopedBean bean) {
+      return "proxied";
+    }
+
+  }
+
+  @Singleton
+  @Path("singleton")
+  static class SingletonResource {
+
+    public SingletonResource() {
+      super();
+    }
+
+    @GET
+    @Path("none")
+    @Budget(512L)
+    public String none() {
+      return "none";
+    }
+
+  }
+
+  @Dependent
+  @Measured
+  static class DependentBean {
+
+    public DependentBean() {
+      super();
+    }
+
+  }
+
+  @ApplicationScoped
+  @Measured
+  static class ApplicationScopedBean {
+
+    public ApplicationScopedBean() {
+      super();
+    }
+
+  }
+
+}
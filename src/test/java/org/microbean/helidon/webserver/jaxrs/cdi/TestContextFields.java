@@ -0,0 +1,134 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright © 2019 microBean.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.microbean.helidon.webserver.jaxrs.cdi;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import javax.enterprise.inject.Any;
+
+import javax.enterprise.inject.se.SeContainer;
+import javax.enterprise.inject.se.SeContainerInitializer;
+
+import javax.inject.Inject;
+
+import javax.ws.rs.ApplicationPath;
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+
+import javax.ws.rs.core.Application;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.UriInfo;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TestContextFields {
+
+  private SeContainer cdiContainer;
+
+  private Dispatcher dispatcher;
+
+  public TestContextFields() {
+    super();
+  }
+
+  @Before
+  public void startCdiContainer() {
+    this.cdiContainer = SeContainerInitializer.newInstance()
+      .disableDiscovery()
+      .addBeanClasses(FieldApplication.class, FieldResource.class)
+      .initialize();
+    // Work is done on the calling thread, so the response has been
+    // sent by the time accept() returns.
+    this.dispatcher = new Dispatcher("fields", new ApplicationConfiguration(null));
+  }
+
+  @After
+  public void shutDownCdiContainer() {
+    if (this.dispatcher != null) {
+      this.dispatcher.close();
+    }
+    if (this.cdiContainer != null) {
+      this.cdiContainer.close();
+    }
+  }
+
+  @Test
+  public void testInjectedContextField() throws Exception {
+    // Neither the resource nor its (absent) parameters are
+    // @ExchangeScoped; only the field needs the exchange.
+    final ResourceMethodHandler<?> handler = this.handler("get");
+    final FakeExchange exchange = new FakeExchange().path("/fields/things");
+    handler.accept(exchange.request, exchange.response);
+    assertTrue(exchange.statuses.isEmpty());
+    assertEquals(Arrays.asList("things 1"), exchange.sends);
+  }
+
+  private final ResourceMethodHandler<?> handler(final String methodName) throws ReflectiveOperationException {
+    for (final ResourceMethodDescriptor<?> descriptor : this.cdiContainer.select(ResourceMethodDescriptor.class, Any.Literal.INSTANCE)) {
+      if (descriptor.getResourceMethod().getJavaMember().getName().equals(methodName)) {
+        return new ResourceMethodHandler<>(this.cdiContainer.getBeanManager(), descriptor, this.dispatcher);
+      }
+    }
+    throw new AssertionError(methodName);
+  }
+
+
+  /*
+   * Example user code exercised by test.
+   */
+
+
+  @ApplicationPath("fields")
+  static class FieldApplication extends Application {
+
+    public FieldApplication() {
+      super();
+    }
+
+    @Override
+    public Set<Class<?>> getClasses() {
+      return new HashSet<>(Arrays.asList(FieldResource.class));
+    }
+
+  }
+
+  @Path("things")
+  static class FieldResource {
+
+    @Inject
+    @Context
+    private UriInfo uriInfo;
+
+    public FieldResource() {
+      super();
+    }
+
+    @GET
+    public String get() {
+      return this.uriInfo.getPath() + " " + this.uriInfo.getMatchedResources().size();
+    }
+
+  }
+
+}
@@ -0,0 +1,143 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright © 2019 microBean.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.microbean.helidon.webserver.jaxrs.cdi;
+
+import java.net.URI;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedHashMap;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.core.PathSegment;
+import javax.ws.rs.core.UriInfo;
+
+import io.helidon.webserver.ServerRequest;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class TestContextInjection {
+
+  public TestContextInjection() {
+    super();
+  }
+
+  @Test
+  public void testPathTemplate() {
+    final PathTemplate template = PathTemplate.of("/app/widgets/{id: \\d{1,3}}/{name}/");
+    assertSame(template, PathTemplate.of("/app/widgets/{id: \\d{1,3}}/{name}/"));
+    final MultivaluedMap<String, String> parameters = new MultivaluedHashMap<>();
+    assertTrue(template.match("/app/widgets/42/a%20b", parameters, true));
+    assertEquals("42", parameters.getFirst("id"));
+    assertEquals("a b", parameters.getFirst("name"));
+    assertTrue(template.match("/app/widgets/42/a%20b/", null, true));
+    assertFalse(template.match("/app/widgets/4242/a", null, true));
+    assertEquals("/app/widgets/7/x".length(), template.matchPrefix("/app/widgets/7/x/more"));
+    assertEquals(-1, template.matchPrefix("/app/widgets/7/xmore"));
+    assertEquals("a+b", PathTemplate.decodePath("a+b"));
+    assertEquals("a b", PathTemplate.decodeQuery("a+b"));
+  }
+
+  @Test
+  public void testUriInfo() {
+    final Map<String, List<String>> headers = new LinkedHashMap<>();
+    headers.put("Host", Collections.singletonList("example.com:8080"));
+    final ServerRequest request = request("/app/widgets;color=red/42", "q=a+b&q=c&flag", headers);
+    final UriInfo uriInfo = new HelidonUriInfo(new ExchangeContext.Instances(request, null), "/app");
+    assertEquals(URI.create("http://example.com:8080/app/"), uriInfo.getBaseUri());
+    assertEquals(URI.create("http://example.com:8080/app/widgets;color=red/42"), uriInfo.getAbsolutePath());
+    assertEquals(URI.create("http://example.com:8080/app/widgets;color=red/42?q=a+b&q=c&flag"), uriInfo.getRequestUri());
+    assertEquals("widgets;color=red/42", uriInfo.getPath());
+    final List<PathSegment> segments = uriInfo.getPathSegments();
+    assertEquals(2, segments.size());
+    assertEquals("widgets", segments.get(0).getPath());
+    assertEquals("red", segments.get(0).getMatrixParameters().getFirst("color"));
+    assertEquals("42", segments.get(1).getPath());
+    final MultivaluedMap<String, String> query = uriInfo.getQueryParameters();
+    assertEquals(Arrays.asList("a b", "c"), query.get("q"));
+    assertEquals("", query.getFirst("flag"));
+    assertEquals("a+b", uriInfo.getQueryParameters(false).getFirst("q"));
+    assertSame(query, uriInfo.getQueryParameters());
+    assertTrue(uriInfo.getPathParameters().isEmpty());
+    assertTrue(uriInfo.getMatchedResources().isEmpty());
+  }
+
+  @Test(expected = UnsupportedOperationException.class)
+  public void testQueryParametersAreReadOnly() {
+    final ServerRequest request = request("/app", "q=1", Collections.emptyMap());
+    new HelidonUriInfo(new ExchangeContext.Instances(request, null), "/app").getQueryParameters().add("q", "2");
+  }
+
+  @Test
+  public void testHttpHeaders() {
+    final Map<String, List<String>> headers = new LinkedHashMap<>();
+    headers.put("Accept", Collections.singletonList("text/plain;q=0.5, application/json, image/png;q=0"));
+    headers.put("Accept-Language", Collections.singletonList("fr;q=0.2, en-US"));
+    headers.put("Content-Type", Collections.singletonList("application/json; charset=\"UTF-8\""));
+    headers.put("Content-Length", Collections.singletonList("12"));
+    headers.put("Cookie", Collections.singletonList("a=1; $Path=/; b=\"two\""));
+    headers.put("Date", Collections.singletonList("Tue, 15 Nov 1994 08:12:31 GMT"));
+    final HttpHeaders httpHeaders = new HelidonHttpHeaders(request("/", null, headers));
+
+    final List<MediaType> acceptable = httpHeaders.getAcceptableMediaTypes();
+    assertEquals(2, acceptable.size());
+    assertEquals("json", acceptable.get(0).getSubtype());
+    assertEquals("plain", acceptable.get(1).getSubtype());
+    assertEquals(Arrays.asList(Locale.forLanguageTag("en-US"), Locale.FRENCH), httpHeaders.getAcceptableLanguages());
+    assertEquals("UTF-8", httpHeaders.getMediaType().getParameters().get("charset"));
+    assertEquals(12, httpHeaders.getLength());
+    assertEquals(2, httpHeaders.getCookies().size());
+    assertEquals("two", httpHeaders.getCookies().get("b").getValue());
+    assertEquals(784887151000L, httpHeaders.getDate().getTime());
+    assertEquals("12", httpHeaders.getRequestHeaders().getFirst("content-length"));
+    assertNull(httpHeaders.getRequestHeader("X-Missing"));
+  }
+
+  @Test
+  public void testHttpHeadersDefaults() {
+    final HttpHeaders httpHeaders = new HelidonHttpHeaders(request("/", null, Collections.emptyMap()));
+    assertEquals(Collections.singletonList(MediaType.WILDCARD_TYPE), httpHeaders.getAcceptableMediaTypes());
+    assertEquals(1, httpHeaders.getAcceptableLanguages().size());
+    assertNull(httpHeaders.getMediaType());
+    assertEquals(-1, httpHeaders.getLength());
+    assertTrue(httpHeaders.getCookies().isEmpty());
+    assertNull(httpHeaders.getDate());
+  }
+
+  private static final ServerRequest request(final String rawPath,
+                                             final String rawQuery,
+                                             final Map<String, List<String>> headers) {
+    final FakeExchange exchange = new FakeExchange().path(rawPath).query(rawQuery);
+    for (final Map.Entry<String, List<String>> entry : headers.entrySet()) {
+      exchange.header(entry.getKey(), entry.getValue().toArray(new String[0]));
+    }
+    return exchange.request;
+  }
+
+}
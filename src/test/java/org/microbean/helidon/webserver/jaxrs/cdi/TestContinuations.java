@@ -0,0 +1,260 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright © 2019 microBean.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.microbean.helidon.webserver.jaxrs.cdi;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.TimeUnit;
+
+import javax.enterprise.context.ApplicationScoped;
+
+import javax.enterprise.inject.Any;
+import javax.enterprise.inject.Instance;
+import javax.enterprise.inject.Produces;
+
+import javax.enterprise.inject.se.SeContainer;
+import javax.enterprise.inject.se.SeContainerInitializer;
+
+import javax.inject.Inject;
+import javax.inject.Qualifier;
+
+import javax.ws.rs.ApplicationPath;
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+
+import javax.ws.rs.core.Application;
+import javax.ws.rs.core.Context;
+
+import io.helidon.webserver.ServerRequest;
+import io.helidon.webserver.ServerResponse;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
+
+public class TestContinuations {
+
+  private SeContainer cdiContainer;
+
+  private Dispatcher dispatcher;
+
+  public TestContinuations() {
+    super();
+  }
+
+  @Before
+  public void startCdiContainer() {
+    this.cdiContainer = SeContainerInitializer.newInstance()
+      .disableDiscovery()
+      .addBeanClasses(ContinuationApplication.class, ContinuationResource.class, Greetings.class)
+      .initialize();
+    this.dispatcher = new Dispatcher("continuations", new ApplicationConfiguration(null));
+  }
+
+  @After
+  public void shutDownCdiContainer() {
+    if (this.dispatcher != null) {
+      this.dispatcher.close();
+    }
+    if (this.cdiContainer != null) {
+      this.cdiContainer.close();
+    }
+  }
+
+  @Test
+  public void testContinuationsRunInTheirExchange() throws Exception {
+    final ResourceMethodHandler<?> handler =
+      new ResourceMethodHandler<>(this.cdiContainer.getBeanManager(), this.getDescriptor("greet"), this.dispatcher);
+    final ExchangeContext.Instances instances = new ExchangeContext.Instances();
+    final ExchangeContext.Instances previous = ExchangeContext.enter(instances);
+    final CompletionStage<?> stage;
+    try {
+      stage = (CompletionStage<?>)handler.invoke();
+    } finally {
+      ExchangeContext.exit(previous);
+    }
+    // The exchange has been left on this thread, but not on the
+    // dispatcher thread that runs the continuation.
+    final String[] result = (String[])stage.toCompletableFuture().get(10L, TimeUnit.SECONDS);
+    assertEquals("hello", result[0]);
+    assertNotEquals(Thread.currentThread().getName(), result[1]);
+    instances.destroy();
+  }
+
+  @Test
+  public void testExchangeBeansInContinuations() throws Exception {
+    final ResourceMethodDescriptor<?> descriptor = this.getDescriptor("exchange");
+    final ResourceMethodHandler<?> handler = new ResourceMethodHandler<>(this.cdiContainer.getBeanManager(), descriptor, this.dispatcher);
+    final RequestDeadline deadline = RequestDeadline.after(TimeUnit.MINUTES.toNanos(1L));
+    final FakeExchange exchange = new FakeExchange();
+    exchange.request.context().register(deadline);
+    final ExchangeContext.Instances instances = new ExchangeContext.Instances(exchange.request, exchange.response, descriptor);
+    final ExchangeContext.Instances previous = ExchangeContext.enter(instances);
+    final CompletionStage<?> stage;
+    try {
+      stage = (CompletionStage<?>)handler.invoke();
+    } finally {
+      ExchangeContext.exit(previous);
+    }
+    // Neither the request context nor the exchange is active on this
+    // thread any more, and the request context never was on the
+    // dispatcher thread.
+    final Object[] result = (Object[])stage.toCompletableFuture().get(10L, TimeUnit.SECONDS);
+    assertSame(exchange.request, result[0]);
+    assertSame(exchange.response, result[1]);
+    assertSame(deadline, result[2]);
+    assertNotEquals(Thread.currentThread().getName(), result[3]);
+    instances.destroy();
+  }
+
+  private final ResourceMethodDescriptor<?> getDescriptor(final String methodName) {
+    for (final ResourceMethodDescriptor<?> descriptor : this.cdiContainer.select(ResourceMethodDescriptor.class, Any.Literal.INSTANCE)) {
+      if (descriptor.getResourceMethod().getJavaMember().getName().equals(methodName)) {
+        return descriptor;
+      }
+    }
+    throw new AssertionError(methodName);
+  }
+
+
+  /*
+   * Example user code exercised by test.
+   */
+
+
+  @Documented
+  @Qualifier
+  @Retention(RetentionPolicy.RUNTIME)
+  @Target({ ElementType.FIELD, ElementType.METHOD, ElementType.PARAMETER, ElementType.TYPE })
+  static @interface Greeting {
+
+  }
+
+  @ApplicationPath("continuations")
+  static class ContinuationApplication extends Application {
+
+    public ContinuationApplication() {
+      super();
+    }
+
+    @Override
+    public Set<Class<?>> getClasses() {
+      return new HashSet<>(Arrays.asList(ContinuationResource.class));
+    }
+
+    @Override
+    public Map<String, Object> getProperties() {
+      // So that continuations run on threads of their own.
+      return Collections.singletonMap(ApplicationConfiguration.PREFIX + "dispatch.threads", Integer.valueOf(2));
+    }
+
+  }
+
+  @ApplicationScoped
+  @Path("resource")
+  static class ContinuationResource {
+
+    @Inject
+    @Greeting
+    private Message message;
+
+    @Inject
+    @Context
+    private Instance<ServerRequest> requests;
+
+    @Inject
+    @Context
+    private Instance<ServerResponse> responses;
+
+    @Inject
+    private Instance<RequestDeadline> deadlines;
+
+    public ContinuationResource() {
+      super();
+    }
+
+    @GET
+    @Path("greet")
+    public CompletionStage<String[]> greet(final ContinuationExecutor executor) {
+      return CompletableFuture.supplyAsync(() -> new String[] { this.message.getText(), Thread.currentThread().getName() },
+                                           executor);
+    }
+
+    @GET
+    @Path("exchange")
+    public CompletionStage<Object[]> exchange(final ContinuationExecutor executor) {
+      return CompletableFuture.supplyAsync(() -> new Object[] { this.requests.get(),
+                                                                this.responses.get(),
+                                                                this.deadlines.get(),
+                                                                Thread.currentThread().getName() },
+                                           executor);
+    }
+
+  }
+
+  public static class Message {
+
+    private final String text;
+
+    public Message() {
+      this(null);
+    }
+
+    Message(final String text) {
+      super();
+      this.text = text;
+    }
+
+    public String getText() {
+      return this.text;
+    }
+
+  }
+
+  @ApplicationScoped
+  static class Greetings {
+
+    public Greetings() {
+      super();
+    }
+
+    @Produces
+    @ExchangeScoped
+    @Greeting
+    static Message produceMessage() {
+      return new Message("hello");
+    }
+
+  }
+
+}
@@ -0,0 +1,274 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright © 2019 microBean.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.microbean.helidon.webserver.jaxrs.cdi;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import javax.enterprise.context.Dependent;
+
+import javax.enterprise.inject.Any;
+
+import javax.enterprise.inject.se.SeContainer;
+import javax.enterprise.inject.se.SeContainerInitializer;
+
+import javax.inject.Inject;
+
+import javax.ws.rs.ApplicationPath;
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+
+import javax.ws.rs.core.Application;
+
+import io.helidon.common.http.Http;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TestDispatchDeadlines {
+
+  private static final String TIMEOUT_HEADER = "X-Timeout";
+
+  private SeContainer cdiContainer;
+
+  private Dispatcher dispatcher;
+
+  public TestDispatchDeadlines() {
+    super();
+  }
+
+  @Before
+  public void startCdiContainer() {
+    this.cdiContainer = SeContainerInitializer.newInstance()
+      .disableDiscovery()
+      .addBeanClasses(DeadlineApplication.class, DeadlineResource.class, Budget.class)
+      .initialize();
+    final Map<String, Object> properties = new HashMap<>();
+    // One thread, so that work can be made to wait in the queue.
+    properties.put(ApplicationConfiguration.PREFIX + "dispatch.threads", Integer.valueOf(1));
+    properties.put(ApplicationConfiguration.PREFIX + "dispatch.timeout.header", TIMEOUT_HEADER);
+    this.dispatcher = new Dispatcher("deadlines", new ApplicationConfiguration(properties));
+    DeadlineResource.release = new CountDownLatch(1);
+    DeadlineResource.interrupted = new CountDownLatch(1);
+  }
+
+  @After
+  public void shutDownCdiContainer() {
+    DeadlineResource.release.countDown();
+    if (this.dispatcher != null) {
+      this.dispatcher.close();
+    }
+    if (this.cdiContainer != null) {
+      this.cdiContainer.close();
+    }
+  }
+
+  @Test
+  public void testTimeoutWhileQueued() throws Exception {
+    final CountDownLatch busy = new CountDownLatch(1);
+    final CountDownLatch free = new CountDownLatch(1);
+    this.dispatcher.dispatch(DispatchPriority.Level.NORMAL, () -> {
+        busy.countDown();
+        try {
+          free.await();
+        } catch (final InterruptedException interruptedException) {
+          Thread.currentThread().interrupt();
+        }
+      });
+    assertTrue(busy.await(10L, TimeUnit.SECONDS));
+    final FakeExchange exchange = new FakeExchange(TIMEOUT_HEADER, "50");
+    this.handler("fast").accept(exchange.request, exchange.response);
+    assertTrue(exchange.sent.await(10L, TimeUnit.SECONDS));
+    assertEquals(Arrays.asList(Http.Status.SERVICE_UNAVAILABLE_503), exchange.statuses);
+    // Once it gets to run, the queued work gives up without
+    // answering again.
+    free.countDown();
+    Thread.sleep(200L);
+    assertEquals(1, exchange.sends.size());
+  }
+
+  @Test
+  public void testTimeoutWhileInvoking() throws Exception {
+    final FakeExchange exchange = new FakeExchange();
+    this.handler("slow").accept(exchange.request, exchange.response);
+    assertTrue(exchange.sent.await(10L, TimeUnit.SECONDS));
+    assertEquals(Arrays.asList(Http.Status.GATEWAY_TIMEOUT_504), exchange.statuses);
+    // The invocation was interrupted, and its eventual answer
+    // dropped.
+    assertTrue(DeadlineResource.interrupted.await(10L, TimeUnit.SECONDS));
+    Thread.sleep(200L);
+    assertEquals(1, exchange.sends.size());
+  }
+
+  @Test
+  public void testHandlerFinishesFirst() throws Exception {
+    final FakeExchange exchange = new FakeExchange(TIMEOUT_HEADER, "200");
+    this.handler("fast").accept(exchange.request, exchange.response);
+    assertTrue(exchange.sent.await(10L, TimeUnit.SECONDS));
+    // Well past the deadline: the timer was cancelled.
+    Thread.sleep(400L);
+    assertTrue(exchange.statuses.isEmpty());
+    assertEquals(Arrays.asList("fast"), exchange.sends);
+  }
+
+  @Test
+  public void testDeadlineReachesDependentBeans() throws Exception {
+    // The resource calls a @Dependent bean, which injects the
+    // deadline; neither asks for anything from the exchange
+    // directly.
+    final FakeExchange exchange = new FakeExchange();
+    this.handler("budgeted").accept(exchange.request, exchange.response);
+    assertTrue(exchange.sent.await(10L, TimeUnit.SECONDS));
+    assertTrue(exchange.statuses.isEmpty());
+    assertEquals(Arrays.asList("bounded"), exchange.sends);
+  }
+
+  @Test
+  public void testHeaderShortensButNeverLengthens() throws Exception {
+    final ResourceMethodHandler<?> slow = this.handler("slow");
+    // @DispatchTimeout(300)
+    assertTrue(slow.getDeadline(new FakeExchange(TIMEOUT_HEADER, "50").request).remaining(TimeUnit.MILLISECONDS) <= 50L);
+    final long remaining = slow.getDeadline(new FakeExchange(TIMEOUT_HEADER, "60000").request).remaining(TimeUnit.MILLISECONDS);
+    assertTrue(remaining > 50L);
+    assertTrue(remaining <= 300L);
+    // No timeout of its own; the header sets one.
+    final RequestDeadline unbounded = this.handler("unbounded").getDeadline(new FakeExchange(TIMEOUT_HEADER, "50").request);
+    assertTrue(unbounded.isBounded());
+    assertTrue(unbounded.remaining(TimeUnit.MILLISECONDS) <= 50L);
+  }
+
+  @Test
+  public void testMalformedHeaderIsIgnored() throws Exception {
+    final ResourceMethodHandler<?> slow = this.handler("slow");
+    for (final String value : new String[] { "soon", "", "-5", "0" }) {
+      final long remaining = slow.getDeadline(new FakeExchange(TIMEOUT_HEADER, value).request).remaining(TimeUnit.MILLISECONDS);
+      assertTrue(value, remaining > 50L);
+      assertTrue(value, remaining <= 300L);
+    }
+    assertFalse(this.handler("unbounded").getDeadline(new FakeExchange(TIMEOUT_HEADER, "soon").request).isBounded());
+  }
+
+  private final ResourceMethodHandler<?> handler(final String methodName) throws ReflectiveOperationException {
+    for (final ResourceMethodDescriptor<?> descriptor : this.cdiContainer.select(ResourceMethodDescriptor.class, Any.Literal.INSTANCE)) {
+      if (descriptor.getResourceMethod().getJavaMember().getName().equals(methodName)) {
+        return new ResourceMethodHandler<>(this.cdiContainer.getBeanManager(), descriptor, this.dispatcher);
+      }
+    }
+    throw new AssertionError(methodName);
+  }
+
+
+  /*
+   * Example user code exercised by test.
+   */
+
+
+  @ApplicationPath("deadlines")
+  static class DeadlineApplication extends Application {
+
+    public DeadlineApplication() {
+      super();
+    }
+
+    @Override
+    public Set<Class<?>> getClasses() {
+      return new HashSet<>(Arrays.asList(DeadlineResource.class));
+    }
+
+  }
+
+  @Path("deadlines")
+  static class DeadlineResource {
+
+    static volatile CountDownLatch release;
+
+    static volatile CountDownLatch interrupted;
+
+    @Inject
+    private Budget budget;
+
+    public DeadlineResource() {
+      super();
+    }
+
+    @GET
+    @Path("fast")
+    @DispatchTimeout(5000L)
+    public String fast() {
+      return "fast";
+    }
+
+    @GET
+    @Path("slow")
+    @DispatchTimeout(300L)
+    public String slow() {
+      try {
+        release.await();
+      } catch (final InterruptedException interruptedException) {
+        interrupted.countDown();
+        Thread.currentThread().interrupt();
+      }
+      return "slow";
+    }
+
+    @GET
+    @Path("unbounded")
+    public String unbounded() {
+      return "unbounded";
+    }
+
+    @GET
+    @Path("budgeted")
+    @DispatchTimeout(5000L)
+    public String budgeted() {
+      return this.budget.describe();
+    }
+
+  }
+
+  @Dependent
+  static class Budget {
+
+    @Inject
+    private RequestDeadline deadline;
+
+    public Budget() {
+      super();
+    }
+
+    String describe() {
+      if (!this.deadline.isBounded()) {
+        return "unbounded";
+      }
+      final long remaining = this.deadline.remaining(TimeUnit.MILLISECONDS);
+      return remaining > 0L && remaining <= 5000L ? "bounded" : Long.toString(remaining);
+    }
+
+  }
+
+}
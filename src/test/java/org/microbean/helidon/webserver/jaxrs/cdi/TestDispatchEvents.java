@@ -0,0 +1,202 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright © 2019 microBean.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.microbean.helidon.webserver.jaxrs.cdi;
+
+import java.nio.file.Files;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import javax.enterprise.inject.Any;
+
+import javax.enterprise.inject.se.SeContainer;
+import javax.enterprise.inject.se.SeContainerInitializer;
+
+import javax.ws.rs.ApplicationPath;
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+
+import javax.ws.rs.core.Application;
+
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Recording;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assume.assumeTrue;
+
+public class TestDispatchEvents {
+
+  private static final String PREFIX = "org.microbean.helidon.webserver.jaxrs.cdi.";
+
+  private SeContainer cdiContainer;
+
+  private Dispatcher dispatcher;
+
+  private java.nio.file.Path recordingFile;
+
+  public TestDispatchEvents() {
+    super();
+  }
+
+  @Before
+  public void startCdiContainer() {
+    this.cdiContainer = SeContainerInitializer.newInstance()
+      .disableDiscovery()
+      .addBeanClasses(EventApplication.class, EventResource.class)
+      .initialize();
+    // Work is done on the calling thread, so everything has been
+    // recorded by the time accept() returns.
+    this.dispatcher = new Dispatcher("events", new ApplicationConfiguration(null));
+  }
+
+  @After
+  public void shutDownCdiContainer() throws Exception {
+    if (this.dispatcher != null) {
+      this.dispatcher.close();
+    }
+    if (this.cdiContainer != null) {
+      this.cdiContainer.close();
+    }
+    if (this.recordingFile != null) {
+      Files.deleteIfExists(this.recordingFile);
+    }
+  }
+
+  @Test
+  public void testDispatchIsRecorded() throws Exception {
+    assumeTrue(FlightRecorder.isAvailable());
+    final ResourceMethodDescriptor<?> descriptor = this.descriptor("get");
+    final ResourceMethodHandler<?> handler = new ResourceMethodHandler<>(this.cdiContainer.getBeanManager(), descriptor, this.dispatcher);
+    final FakeExchange exchange = new FakeExchange().path("/events/things");
+    try (final Recording recording = new Recording()) {
+      recording.enable(DispatchEvents.RouteMatchEvent.class).withoutThreshold();
+      recording.enable(DispatchEvents.ParameterBindingEvent.class).withoutThreshold();
+      recording.enable(DispatchEvents.ResourceAcquisitionEvent.class).withoutThreshold();
+      recording.enable(DispatchEvents.InvocationEvent.class).withoutThreshold();
+      recording.enable(DispatchEvents.SerializationEvent.class).withoutThreshold();
+      recording.start();
+      handler.accept(exchange.request, exchange.response);
+      recording.stop();
+      this.recordingFile = Files.createTempFile("dispatch-events", ".jfr");
+      recording.dump(this.recordingFile);
+    }
+    assertEquals(Arrays.asList("things"), exchange.sends);
+
+    final Map<String, RecordedEvent> events = new HashMap<>();
+    for (final RecordedEvent event : RecordingFile.readAllEvents(this.recordingFile)) {
+      final String name = event.getEventType().getName();
+      if (name.startsWith(PREFIX)) {
+        // Exactly one of each for exactly one dispatch.
+        assertNull(name, events.put(name.substring(PREFIX.length()), event));
+      }
+    }
+    for (final String name : new String[] { "RouteMatch", "ResourceAcquisition", "Invocation", "Serialization" }) {
+      final RecordedEvent event = events.get(name);
+      assertNotNull(name, event);
+      assertEquals(name, EventResource.class.getName(), event.getString("resourceClass"));
+      assertEquals(name, "get", event.getString("resourceMethod"));
+      assertEquals(name, "GET", event.getString("httpMethod"));
+      assertEquals(name, descriptor.getPath(), event.getString("pathTemplate"));
+      assertFalse(name, event.getDuration().isNegative());
+      assertFalse(name, event.getStartTime().isAfter(event.getEndTime()));
+    }
+    assertEquals("/events/things", events.get("RouteMatch").getString("requestPath"));
+    // Matching comes before invoking, which comes before sending.
+    assertFalse(events.get("RouteMatch").getStartTime().isAfter(events.get("Invocation").getStartTime()));
+    assertFalse(events.get("Invocation").getStartTime().isAfter(events.get("Serialization").getStartTime()));
+    // get() has no parameters to bind.
+    assertFalse(events.containsKey("ParameterBinding"));
+  }
+
+  @Test
+  public void testNothingIsRecordedWhenDisabled() throws Exception {
+    assumeTrue(FlightRecorder.isAvailable());
+    final ResourceMethodHandler<?> handler = new ResourceMethodHandler<>(this.cdiContainer.getBeanManager(), this.descriptor("get"), this.dispatcher);
+    final FakeExchange exchange = new FakeExchange().path("/events/things");
+    try (final Recording recording = new Recording()) {
+      recording.disable(DispatchEvents.RouteMatchEvent.class);
+      recording.disable(DispatchEvents.InvocationEvent.class);
+      recording.start();
+      handler.accept(exchange.request, exchange.response);
+      recording.stop();
+      this.recordingFile = Files.createTempFile("dispatch-events", ".jfr");
+      recording.dump(this.recordingFile);
+    }
+    assertEquals(Arrays.asList("things"), exchange.sends);
+    for (final RecordedEvent event : RecordingFile.readAllEvents(this.recordingFile)) {
+      final String name = event.getEventType().getName();
+      assertFalse(name, name.equals(PREFIX + "RouteMatch") || name.equals(PREFIX + "Invocation"));
+    }
+  }
+
+  private final ResourceMethodDescriptor<?> descriptor(final String methodName) {
+    for (final ResourceMethodDescriptor<?> descriptor : this.cdiContainer.select(ResourceMethodDescriptor.class, Any.Literal.INSTANCE)) {
+      if (descriptor.getResourceMethod().getJavaMember().getName().equals(methodName)) {
+        return descriptor;
+      }
+    }
+    throw new AssertionError(methodName);
+  }
+
+
+  /*
+   * Example user code exercised by test.
+   */
+
+
+  @ApplicationPath("events")
+  static class EventApplication extends Application {
+
+    public EventApplication() {
+      super();
+    }
+
+    @Override
+    public Set<Class<?>> getClasses() {
+      return new HashSet<>(Arrays.asList(EventResource.class));
+    }
+
+  }
+
+  @Path("things")
+  static class EventResource {
+
+    public EventResource() {
+      super();
+    }
+
+    @GET
+    public String get() {
+      return "things";
+    }
+
+  }
+
+}
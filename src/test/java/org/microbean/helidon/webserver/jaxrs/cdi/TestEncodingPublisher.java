@@ -0,0 +1,128 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright © 2019 microBean.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.microbean.helidon.webserver.jaxrs.cdi;
+
+import java.io.ByteArrayOutputStream;
+
+import java.nio.ByteBuffer;
+
+import java.nio.charset.StandardCharsets;
+
+import io.helidon.common.http.DataChunk;
+
+import io.helidon.common.reactive.Flow;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class TestEncodingPublisher {
+
+  private BufferPool pool;
+
+  public TestEncodingPublisher() {
+    super();
+  }
+
+  @Before
+  public void createPool() {
+    this.pool = new BufferPool(16, 4, true);
+  }
+
+  @Test
+  public void testEncodingAcrossBuffers() {
+    final StringBuilder text = new StringBuilder();
+    for (int i = 0; i < 20; i++) {
+      text.append("héllo wörld €😀 ");
+    }
+    final Collector collector = new Collector();
+    new EncodingPublisher(text, StandardCharsets.UTF_8, this.pool).subscribe(collector);
+    assertTrue(collector.completed);
+    assertNull(collector.error);
+    assertTrue(collector.chunks > 1);
+    assertArrayEquals(text.toString().getBytes(StandardCharsets.UTF_8), collector.bytes.toByteArray());
+  }
+
+  @Test
+  public void testEmptyText() {
+    final Collector collector = new Collector();
+    new EncodingPublisher("", StandardCharsets.UTF_8, this.pool).subscribe(collector);
+    assertTrue(collector.completed);
+    assertEquals(0, collector.chunks);
+  }
+
+  @Test
+  public void testOnlyOneSubscriber() {
+    final EncodingPublisher publisher = new EncodingPublisher("hello", StandardCharsets.UTF_8, this.pool);
+    publisher.subscribe(new Collector());
+    final Collector second = new Collector();
+    publisher.subscribe(second);
+    assertTrue(second.error instanceof IllegalStateException);
+  }
+
+  // Asks for one chunk at a time, from within onNext(), and releases
+  // each one once it has been "written", as Helidon does.
+  private static final class Collector implements Flow.Subscriber<DataChunk> {
+
+    private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+    private Flow.Subscription subscription;
+
+    private int chunks;
+
+    private boolean completed;
+
+    private Throwable error;
+
+    private Collector() {
+      super();
+    }
+
+    @Override
+    public final void onSubscribe(final Flow.Subscription subscription) {
+      this.subscription = subscription;
+      subscription.request(1L);
+    }
+
+    @Override
+    public final void onNext(final DataChunk chunk) {
+      this.chunks++;
+      final ByteBuffer data = chunk.data();
+      final byte[] bytes = new byte[data.remaining()];
+      data.get(bytes);
+      this.bytes.write(bytes, 0, bytes.length);
+      chunk.release();
+      this.subscription.request(1L);
+    }
+
+    @Override
+    public final void onError(final Throwable throwable) {
+      this.error = throwable;
+    }
+
+    @Override
+    public final void onComplete() {
+      this.completed = true;
+    }
+
+  }
+
+}
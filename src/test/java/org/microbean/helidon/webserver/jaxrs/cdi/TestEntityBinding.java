@@ -0,0 +1,233 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright © 2019 microBean.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.microbean.helidon.webserver.jaxrs.cdi;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.enterprise.context.ApplicationScoped;
+
+import javax.enterprise.inject.Any;
+import javax.enterprise.inject.Disposes;
+import javax.enterprise.inject.Produces;
+
+import javax.enterprise.inject.se.SeContainer;
+import javax.enterprise.inject.se.SeContainerInitializer;
+
+import javax.enterprise.util.AnnotationLiteral;
+
+import javax.inject.Qualifier;
+
+import javax.ws.rs.ApplicationPath;
+import javax.ws.rs.POST;
+import javax.ws.rs.Path;
+
+import javax.ws.rs.core.Application;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public class TestEntityBinding {
+
+  private SeContainer cdiContainer;
+
+  private Dispatcher dispatcher;
+
+  public TestEntityBinding() {
+    super();
+  }
+
+  @Before
+  public void startCdiContainer() {
+    Payloads.disposed.set(0);
+    this.cdiContainer = SeContainerInitializer.newInstance()
+      .disableDiscovery()
+      .addBeanClasses(EntityApplication.class, EntityResource.class, Payloads.class)
+      .initialize();
+    this.dispatcher = new Dispatcher("entity", new ApplicationConfiguration(null));
+  }
+
+  @After
+  public void shutDownCdiContainer() {
+    if (this.dispatcher != null) {
+      this.dispatcher.close();
+    }
+    if (this.cdiContainer != null) {
+      this.cdiContainer.close();
+    }
+  }
+
+  @Test
+  public void testEntitiesAreBoundDirectly() throws ReflectiveOperationException {
+    // String is final, so it could never have been proxied.
+    final ResourceMethodHandler<?> text =
+      new ResourceMethodHandler<>(this.cdiContainer.getBeanManager(), this.getDescriptor("text"), this.dispatcher);
+    final ResourceMethodHandler<?> dto =
+      new ResourceMethodHandler<>(this.cdiContainer.getBeanManager(), this.getDescriptor("dto"), this.dispatcher);
+    final ExchangeContext.Instances instances = new ExchangeContext.Instances();
+    final ExchangeContext.Instances previous = ExchangeContext.enter(instances);
+    try {
+      assertEquals("hello", text.invoke());
+      final Object bound = dto.invoke();
+      assertSame(Dto.class, bound.getClass());
+      // Beans that inject it see the same instance through a proxy.
+      final Dto view = this.cdiContainer.select(Dto.class, Payload.Literal.INSTANCE).get();
+      assertEquals("world", view.getValue());
+      ((Dto)bound).setValue("changed");
+      assertEquals("changed", view.getValue());
+    } finally {
+      ExchangeContext.exit(previous);
+    }
+    instances.destroy();
+    assertEquals(2, Payloads.disposed.get());
+  }
+
+  private final ResourceMethodDescriptor<?> getDescriptor(final String methodName) {
+    for (final ResourceMethodDescriptor<?> descriptor : this.cdiContainer.select(ResourceMethodDescriptor.class, Any.Literal.INSTANCE)) {
+      if (descriptor.getResourceMethod().getJavaMember().getName().equals(methodName)) {
+        return descriptor;
+      }
+    }
+    throw new AssertionError(methodName);
+  }
+
+
+  /*
+   * Example user code exercised by test.
+   */
+
+
+  // Stands in for @Entity, whose beans read a real request body.
+  @Documented
+  @Qualifier
+  @Retention(RetentionPolicy.RUNTIME)
+  @Target({ ElementType.FIELD, ElementType.METHOD, ElementType.PARAMETER, ElementType.TYPE })
+  static @interface Payload {
+
+    static final class Literal extends AnnotationLiteral<Payload> implements Payload {
+
+      private static final long serialVersionUID = 1L;
+
+      static final Payload INSTANCE = new Literal();
+
+    }
+
+  }
+
+  @ApplicationPath("entity")
+  static class EntityApplication extends Application {
+
+    public EntityApplication() {
+      super();
+    }
+
+    @Override
+    public Set<Class<?>> getClasses() {
+      return new HashSet<>(Arrays.asList(EntityResource.class));
+    }
+
+  }
+
+  @ApplicationScoped
+  @Path("resource")
+  static class EntityResource {
+
+    public EntityResource() {
+      super();
+    }
+
+    @POST
+    @Path("text")
+    public String text(@Payload final String text) {
+      return text;
+    }
+
+    @POST
+    @Path("dto")
+    public Dto dto(@Payload final Dto dto) {
+      return dto;
+    }
+
+  }
+
+  public static class Dto {
+
+    private String value;
+
+    public Dto() {
+      super();
+    }
+
+    public String getValue() {
+      return this.value;
+    }
+
+    public void setValue(final String value) {
+      this.value = value;
+    }
+
+  }
+
+  @ApplicationScoped
+  static class Payloads {
+
+    static final AtomicInteger disposed = new AtomicInteger();
+
+    public Payloads() {
+      super();
+    }
+
+    @Produces
+    @ExchangeScoped
+    @Payload
+    static String produceText() {
+      return "hello";
+    }
+
+    @Produces
+    @ExchangeScoped
+    @Payload
+    static Dto produceDto() {
+      final Dto dto = new Dto();
+      dto.setValue("world");
+      return dto;
+    }
+
+    static void disposeText(@Disposes @Payload final String text) {
+      disposed.incrementAndGet();
+    }
+
+    static void disposeDto(@Disposes @Payload final Dto dto) {
+      disposed.incrementAndGet();
+    }
+
+  }
+
+}
@@ -0,0 +1,174 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright © 2019 microBean.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.microbean.helidon.webserver.jaxrs.cdi;
+
+import java.nio.ByteBuffer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import java.util.concurrent.CompletionException;
+
+import javax.enterprise.inject.CreationException;
+
+import io.helidon.common.http.DataChunk;
+
+import io.helidon.common.reactive.Flow;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class TestEntitySizeLimiter {
+
+  public TestEntitySizeLimiter() {
+    super();
+  }
+
+  @Test
+  public void testUnderTheLimit() {
+    final Chunks chunks = new Chunks(4, 4, 2);
+    final Collector collector = new Collector();
+    new EntitySizeLimiter(chunks, 10L).subscribe(collector);
+    assertEquals(3, collector.chunks.size());
+    assertTrue(collector.completed);
+    assertNull(collector.error);
+    assertFalse(chunks.cancelled);
+    assertEquals(0, chunks.released);
+  }
+
+  @Test
+  public void testOverTheLimit() {
+    final Chunks chunks = new Chunks(4, 4, 4, 4);
+    final Collector collector = new Collector();
+    new EntitySizeLimiter(chunks, 10L).subscribe(collector);
+    assertEquals(2, collector.chunks.size());
+    assertFalse(collector.completed);
+    assertTrue(collector.error instanceof EntitySizeLimiter.EntityTooLargeException);
+    assertTrue(chunks.cancelled);
+    // The chunk that went over, and none after it, since the
+    // publisher stops once cancelled.
+    assertEquals(1, chunks.released);
+  }
+
+  @Test
+  public void testIsEntityTooLarge() {
+    final Throwable tooLarge = new EntitySizeLimiter.EntityTooLargeException(1L);
+    assertTrue(EntitySizeLimiter.isEntityTooLarge(tooLarge));
+    assertTrue(EntitySizeLimiter.isEntityTooLarge(new CompletionException(new CreationException("read", tooLarge))));
+    assertFalse(EntitySizeLimiter.isEntityTooLarge(new CreationException("read")));
+    assertFalse(EntitySizeLimiter.isEntityTooLarge(null));
+  }
+
+  // Publishes chunks of the given sizes, synchronously, as they are
+  // requested.
+  private static final class Chunks implements Flow.Publisher<DataChunk> {
+
+    private final int[] sizes;
+
+    private int index;
+
+    private boolean cancelled;
+
+    private int released;
+
+    private Chunks(final int... sizes) {
+      super();
+      this.sizes = sizes;
+    }
+
+    @Override
+    public final void subscribe(final Flow.Subscriber<? super DataChunk> subscriber) {
+      subscriber.onSubscribe(new Flow.Subscription() {
+          @Override
+          public final void request(final long n) {
+            for (long i = 0L; i < n && !cancelled && index < sizes.length; i++) {
+              subscriber.onNext(chunk(sizes[index++]));
+            }
+            if (!cancelled && index == sizes.length) {
+              index++;
+              subscriber.onComplete();
+            }
+          }
+
+          @Override
+          public final void cancel() {
+            cancelled = true;
+          }
+        });
+    }
+
+    private final DataChunk chunk(final int size) {
+      final ByteBuffer data = ByteBuffer.allocate(size);
+      return new DataChunk() {
+        @Override
+        public final ByteBuffer data() {
+          return data;
+        }
+
+        @Override
+        public final long id() {
+          return 0L;
+        }
+
+        @Override
+        public final void release() {
+          released++;
+        }
+      };
+    }
+
+  }
+
+  private static final class Collector implements Flow.Subscriber<DataChunk> {
+
+    private final List<DataChunk> chunks = new ArrayList<>();
+
+    private boolean completed;
+
+    private Throwable error;
+
+    private Collector() {
+      super();
+    }
+
+    @Override
+    public final void onSubscribe(final Flow.Subscription subscription) {
+      subscription.request(Long.MAX_VALUE);
+    }
+
+    @Override
+    public final void onNext(final DataChunk chunk) {
+      this.chunks.add(chunk);
+    }
+
+    @Override
+    public final void onError(final Throwable throwable) {
+      this.error = throwable;
+    }
+
+    @Override
+    public final void onComplete() {
+      this.completed = true;
+    }
+
+  }
+
+}
@@ -0,0 +1,206 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright © 2019 microBean.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.microbean.helidon.webserver.jaxrs.cdi;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import javax.enterprise.context.ContextNotActiveException;
+
+import javax.enterprise.context.spi.Contextual;
+import javax.enterprise.context.spi.CreationalContext;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class TestExchangeContext {
+
+  public TestExchangeContext() {
+    super();
+  }
+
+  @Test
+  public void testExchangeContext() {
+    final ExchangeContext context = new ExchangeContext();
+    final List<Object> destroyed = new ArrayList<>();
+    final List<Counter> counters = new ArrayList<>();
+    for (int i = 0; i < 5; i++) {
+      counters.add(new Counter(destroyed));
+    }
+
+    assertFalse(context.isActive());
+    try {
+      context.get(counters.get(0));
+      fail();
+    } catch (final ContextNotActiveException expected) {
+
+    }
+
+    final ExchangeContext.Instances instances = new ExchangeContext.Instances();
+    final ExchangeContext.Instances previous = ExchangeContext.enter(instances);
+    try {
+      assertTrue(context.isActive());
+      assertNull(context.get(counters.get(0)));
+      // More than fit at first.
+      for (final Counter counter : counters) {
+        final Object instance = context.get(counter, new NoOpCreationalContext<>());
+        assertSame(instance, context.get(counter, new NoOpCreationalContext<>()));
+        assertSame(instance, context.get(counter));
+        assertEquals(1, counter.created);
+      }
+      final Object first = context.get(counters.get(0));
+      context.destroy(counters.get(0));
+      assertEquals(1, destroyed.size());
+      assertSame(first, destroyed.get(0));
+      assertNull(context.get(counters.get(0)));
+    } finally {
+      ExchangeContext.exit(previous);
+    }
+    assertFalse(context.isActive());
+
+    // Once the response has been sent, whatever is left goes.
+    instances.destroy();
+    assertEquals(counters.size(), destroyed.size());
+    instances.destroy();
+    assertEquals(counters.size(), destroyed.size());
+
+    ExchangeContext.enter(instances);
+    try {
+      context.get(counters.get(1), new NoOpCreationalContext<>());
+      fail();
+    } catch (final ContextNotActiveException expected) {
+
+    } finally {
+      ExchangeContext.exit(null);
+    }
+  }
+
+  @Test
+  public void testConcurrentCreation() throws Exception {
+    final ExchangeContext context = new ExchangeContext();
+    final List<Object> destroyed = new CopyOnWriteArrayList<>();
+    // Both threads are in create() at once, so both make an instance.
+    final Gate gate = new Gate(new CyclicBarrier(2), destroyed);
+    final ExchangeContext.Instances instances = new ExchangeContext.Instances();
+    final ExecutorService executorService = Executors.newFixedThreadPool(2);
+    try {
+      final List<Future<Object>> futures = new ArrayList<>();
+      for (int i = 0; i < 2; i++) {
+        futures.add(executorService.submit(() -> {
+              final Object[] instance = new Object[1];
+              ExchangeContext.run(instances, () -> instance[0] = context.get(gate, new NoOpCreationalContext<>()));
+              return instance[0];
+            }));
+      }
+      final Object instance = futures.get(0).get(10L, TimeUnit.SECONDS);
+      assertSame(instance, futures.get(1).get(10L, TimeUnit.SECONDS));
+      // The loser's instance went right away.
+      assertEquals(1, destroyed.size());
+      assertNotSame(instance, destroyed.get(0));
+    } finally {
+      executorService.shutdownNow();
+    }
+    instances.destroy();
+    assertEquals(2, destroyed.size());
+  }
+
+  private static final class Counter implements Contextual<Object> {
+
+    private final List<Object> destroyed;
+
+    private int created;
+
+    private Counter(final List<Object> destroyed) {
+      super();
+      this.destroyed = destroyed;
+    }
+
+    @Override
+    public final Object create(final CreationalContext<Object> creationalContext) {
+      this.created++;
+      return new Object();
+    }
+
+    @Override
+    public final void destroy(final Object instance, final CreationalContext<Object> creationalContext) {
+      this.destroyed.add(instance);
+    }
+
+  }
+
+  private static final class Gate implements Contextual<Object> {
+
+    private final CyclicBarrier barrier;
+
+    private final List<Object> destroyed;
+
+    private Gate(final CyclicBarrier barrier, final List<Object> destroyed) {
+      super();
+      this.barrier = barrier;
+      this.destroyed = destroyed;
+    }
+
+    @Override
+    public final Object create(final CreationalContext<Object> creationalContext) {
+      try {
+        this.barrier.await(10L, TimeUnit.SECONDS);
+      } catch (final Exception exception) {
+        throw new IllegalStateException(exception.getMessage(), exception);
+      }
+      return new Object();
+    }
+
+    @Override
+    public final void destroy(final Object instance, final CreationalContext<Object> creationalContext) {
+      this.destroyed.add(instance);
+    }
+
+  }
+
+  private static final class NoOpCreationalContext<T> implements CreationalContext<T> {
+
+    private NoOpCreationalContext() {
+      super();
+    }
+
+    @Override
+    public final void push(final T incompleteInstance) {
+
+    }
+
+    @Override
+    public final void release() {
+
+    }
+
+  }
+
+}
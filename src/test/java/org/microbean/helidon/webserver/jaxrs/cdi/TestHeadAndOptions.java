@@ -0,0 +1,114 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright © 2019 microBean.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.microbean.helidon.webserver.jaxrs.cdi;
+
+import java.nio.charset.StandardCharsets;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.enterprise.inject.se.SeContainer;
+import javax.enterprise.inject.se.SeContainerInitializer;
+
+import javax.enterprise.inject.spi.AnnotatedType;
+import javax.enterprise.inject.spi.BeanManager;
+
+import javax.ws.rs.Consumes;
+import javax.ws.rs.GET;
+import javax.ws.rs.POST;
+import javax.ws.rs.Path;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+public class TestHeadAndOptions {
+
+  public TestHeadAndOptions() {
+    super();
+  }
+
+  @Test
+  public void testContentLength() {
+    assertEquals(-1L, ResourceMethodHandler.getContentLength(null, StandardCharsets.UTF_8));
+    assertEquals(-1L, ResourceMethodHandler.getContentLength(Integer.valueOf(1), StandardCharsets.UTF_8));
+    assertEquals(3L, ResourceMethodHandler.getContentLength(new byte[3], StandardCharsets.UTF_8));
+    final String s = "héllo € 😀";
+    assertEquals(s.getBytes(StandardCharsets.UTF_8).length, ResourceMethodHandler.getContentLength(s, StandardCharsets.UTF_8));
+    assertEquals(5L, ResourceMethodHandler.getContentLength(new StringBuilder("hello"), StandardCharsets.UTF_8));
+    // Unpaired surrogates are replaced with '?', one byte each.
+    for (final String unpaired : new String[] { "a\uD800b", "\uDC00", "\uD800", "\uDC00\uD800" }) {
+      assertEquals(unpaired.getBytes(StandardCharsets.UTF_8).length, ResourceMethodHandler.getContentLength(unpaired, StandardCharsets.UTF_8));
+    }
+    // What can't be encoded is replaced, just as it is for GET.
+    assertEquals(s.getBytes(StandardCharsets.ISO_8859_1).length, ResourceMethodHandler.getContentLength(s, StandardCharsets.ISO_8859_1));
+    // Byte order mark and all.
+    assertEquals(s.getBytes(StandardCharsets.UTF_16).length, ResourceMethodHandler.getContentLength(s, StandardCharsets.UTF_16));
+    final StringBuilder large = new StringBuilder();
+    for (int i = 0; i < 1000; i++) {
+      large.append(s);
+    }
+    assertEquals(large.toString().getBytes(StandardCharsets.UTF_16).length,
+                 ResourceMethodHandler.getContentLength(large, StandardCharsets.UTF_16));
+  }
+
+  @Test
+  public void testOptionsHeaders() throws ReflectiveOperationException {
+    try (final SeContainer container = SeContainerInitializer.newInstance().disableDiscovery().addBeanClasses(Widgets.class).initialize()) {
+      final BeanManager beanManager = container.getBeanManager();
+      final AnnotatedType<Widgets> type = beanManager.createAnnotatedType(Widgets.class);
+      final Map<String, ResourceMethodDescriptor<?>> descriptorsByMethod = new LinkedHashMap<>();
+      for (final ResourceMethodDescriptor<Widgets> descriptor :
+             ResourceClasses.getResourceMethodDescriptors(beanManager, "/app", type, Collections.emptySet())) {
+        descriptorsByMethod.put(descriptor.getHttpMethod().name(), descriptor);
+      }
+      final Map<String, String> headers = ResourceClassService.getOptionsHeaders(descriptorsByMethod);
+      assertEquals("GET, HEAD, OPTIONS, POST", headers.get("Allow"));
+      assertEquals("application/json, text/plain", headers.get("Accept-Post"));
+      assertFalse(headers.containsKey("Accept-Patch"));
+    }
+  }
+
+
+  /*
+   * Example user code exercised by test.
+   */
+
+
+  @Path("widgets")
+  static class Widgets {
+
+    public Widgets() {
+      super();
+    }
+
+    @GET
+    public String list() {
+      return "widgets";
+    }
+
+    @POST
+    @Consumes({ "text/plain", "application/json" })
+    public void add(final String widget) {
+
+    }
+
+  }
+
+}
@@ -0,0 +1,64 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright © 2019 microBean.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.microbean.helidon.webserver.jaxrs.cdi;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TestLatencyHistogram {
+
+  public TestLatencyHistogram() {
+    super();
+  }
+
+  @Test
+  public void testBucketsAreContiguous() {
+    for (int i = 1; i < LatencyHistogram.BUCKET_COUNT - 1; i++) {
+      assertEquals(LatencyHistogram.highestEquivalentValue(i - 1) + 1L, LatencyHistogram.lowestEquivalentValue(i));
+      assertEquals(i, LatencyHistogram.index(LatencyHistogram.lowestEquivalentValue(i)));
+      assertEquals(i, LatencyHistogram.index(LatencyHistogram.highestEquivalentValue(i)));
+    }
+  }
+
+  @Test
+  public void testRelativeError() {
+    for (long value = 1L; value < 1L << 36; value = value * 3L + 7L) {
+      final int index = LatencyHistogram.index(value);
+      final long low = LatencyHistogram.lowestEquivalentValue(index);
+      final long high = LatencyHistogram.highestEquivalentValue(index);
+      assertTrue(low <= value && value <= high);
+      assertTrue((high - low) <= value / 32L + 1L);
+    }
+  }
+
+  @Test
+  public void testPercentiles() {
+    final LatencyHistogram histogram = new LatencyHistogram();
+    for (long i = 1L; i <= 1000L; i++) {
+      histogram.record(i * 1000L);
+    }
+    final long[] counts = histogram.getCounts();
+    final long p50 = LatencyHistogram.percentile(counts, 50.0);
+    assertTrue(Math.abs(p50 - 500_000L) <= 500_000L / 32L + 1L);
+    final long p999 = LatencyHistogram.percentile(counts, 99.9);
+    assertTrue(Math.abs(p999 - 999_000L) <= 999_000L / 32L + 1L);
+    assertEquals(0L, LatencyHistogram.percentile(new long[LatencyHistogram.BUCKET_COUNT], 99.0));
+  }
+
+}
@@ -0,0 +1,196 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright © 2019 microBean.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.microbean.helidon.webserver.jaxrs.cdi;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import javax.enterprise.context.ApplicationScoped;
+
+import javax.enterprise.inject.Any;
+import javax.enterprise.inject.UnsatisfiedResolutionException;
+
+import javax.enterprise.inject.se.SeContainer;
+import javax.enterprise.inject.se.SeContainerInitializer;
+
+import javax.enterprise.inject.spi.BeanManager;
+
+import javax.inject.Qualifier;
+
+import javax.ws.rs.ApplicationPath;
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+
+import javax.ws.rs.core.Application;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+public class TestLazyRouting {
+
+  private SeContainer cdiContainer;
+
+  private Dispatcher eager;
+
+  private Dispatcher lazy;
+
+  public TestLazyRouting() {
+    super();
+  }
+
+  @Before
+  public void startCdiContainer() {
+    this.cdiContainer = SeContainerInitializer.newInstance()
+      .disableDiscovery()
+      .addBeanClasses(LazyApplication.class, LazyResource.class)
+      .initialize();
+    this.eager = new Dispatcher("eager", new ApplicationConfiguration(null));
+    final Map<String, Object> properties = new HashMap<>();
+    properties.put(ApplicationConfiguration.PREFIX + "routing.lazy", Boolean.TRUE);
+    this.lazy = new Dispatcher("lazy", new ApplicationConfiguration(properties));
+  }
+
+  @After
+  public void shutDownCdiContainer() {
+    if (this.eager != null) {
+      this.eager.close();
+    }
+    if (this.lazy != null) {
+      this.lazy.close();
+    }
+    if (this.cdiContainer != null) {
+      this.cdiContainer.close();
+    }
+  }
+
+  @Test
+  public void testLazyHandlersResolveOnFirstUse() throws Exception {
+    final BeanManager beanManager = this.cdiContainer.getBeanManager();
+    final ResourceMethodDescriptor<?> ok = this.getDescriptor("ok");
+    final ResourceMethodDescriptor<?> broken = this.getDescriptor("broken");
+
+    // Eagerly, a route that can't be served fails up front...
+    try {
+      new ResourceMethodHandler<>(beanManager, broken, this.eager);
+      fail();
+    } catch (final UnsatisfiedResolutionException expected) {
+
+    }
+
+    // ...but lazily, not until it is first used.
+    final ResourceMethodHandler<?> brokenHandler = new ResourceMethodHandler<>(beanManager, broken, this.lazy);
+    try {
+      brokenHandler.invoke();
+      fail();
+    } catch (final UnsatisfiedResolutionException expected) {
+
+    }
+
+    // Many first requests at once all get served.
+    final ResourceMethodHandler<?> okHandler = new ResourceMethodHandler<>(beanManager, ok, this.lazy);
+    final ExecutorService executorService = Executors.newFixedThreadPool(8);
+    try {
+      final List<Callable<Object>> invocations = new ArrayList<>(Collections.nCopies(64, okHandler::invoke));
+      for (final Future<Object> result : executorService.invokeAll(invocations)) {
+        assertEquals("ok", result.get());
+      }
+    } finally {
+      executorService.shutdown();
+    }
+  }
+
+  private final ResourceMethodDescriptor<?> getDescriptor(final String methodName) {
+    for (final ResourceMethodDescriptor<?> descriptor : this.cdiContainer.select(ResourceMethodDescriptor.class, Any.Literal.INSTANCE)) {
+      if (descriptor.getResourceMethod().getJavaMember().getName().equals(methodName)) {
+        return descriptor;
+      }
+    }
+    throw new AssertionError(methodName);
+  }
+
+
+  /*
+   * Example user code exercised by test.
+   */
+
+
+  @Documented
+  @Qualifier
+  @Retention(RetentionPolicy.RUNTIME)
+  @Target({ ElementType.FIELD, ElementType.METHOD, ElementType.PARAMETER, ElementType.TYPE })
+  private static @interface Missing {
+
+  }
+
+  @ApplicationPath("lazy")
+  static class LazyApplication extends Application {
+
+    public LazyApplication() {
+      super();
+    }
+
+    @Override
+    public Set<Class<?>> getClasses() {
+      return new HashSet<>(Arrays.asList(LazyResource.class));
+    }
+
+  }
+
+  @ApplicationScoped
+  @Path("resource")
+  static class LazyResource {
+
+    public LazyResource() {
+      super();
+    }
+
+    @GET
+    @Path("ok")
+    public String ok() {
+      return "ok";
+    }
+
+    @GET
+    @Path("broken")
+    public String broken(@Missing final String nothing) {
+      return "broken";
+    }
+
+  }
+
+}
@@ -0,0 +1,163 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright © 2019 microBean.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.microbean.helidon.webserver.jaxrs.cdi;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.TreeSet;
+
+import javax.enterprise.context.ApplicationScoped;
+
+import javax.enterprise.inject.Any;
+
+import javax.enterprise.inject.se.SeContainer;
+import javax.enterprise.inject.se.SeContainerInitializer;
+
+import javax.ws.rs.ApplicationPath;
+import javax.ws.rs.GET;
+import javax.ws.rs.POST;
+import javax.ws.rs.Path;
+
+import javax.ws.rs.core.Application;
+
+import org.junit.After;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+public class TestParallelBootstrap {
+
+  private static final String PARALLEL = ApplicationConfiguration.PREFIX + "bootstrap.parallel";
+
+  private static final String PARALLELISM = ApplicationConfiguration.PREFIX + "bootstrap.parallelism";
+
+  public TestParallelBootstrap() {
+    super();
+  }
+
+  @After
+  public void clearSystemProperties() {
+    System.clearProperty(PARALLEL);
+    System.clearProperty(PARALLELISM);
+  }
+
+  @Test
+  public void testParallelBootstrapBuildsTheSameResourceModel() {
+    final Set<String> sequential = this.describe();
+    assertFalse(sequential.isEmpty());
+    System.setProperty(PARALLEL, "true");
+    System.setProperty(PARALLELISM, "4");
+    assertEquals(sequential, this.describe());
+  }
+
+  // Boots a container and describes every resource method it ended
+  // up with.
+  private final Set<String> describe() {
+    final Set<String> returnValue = new TreeSet<>();
+    try (final SeContainer cdiContainer = SeContainerInitializer.newInstance()
+           .disableDiscovery()
+           .addBeanClasses(ParallelApplication.class,
+                           Base.class,
+                           Derived.class,
+                           Other.class)
+           .initialize()) {
+      for (final ResourceMethodDescriptor<?> descriptor : cdiContainer.select(ResourceMethodDescriptor.class, Any.Literal.INSTANCE)) {
+        returnValue.add(descriptor.getPath() + " " + descriptor.getResourceMethod().getJavaMember().toGenericString());
+      }
+    }
+    return returnValue;
+  }
+
+
+  /*
+   * Example user code exercised by test.
+   */
+
+
+  @ApplicationPath("parallel")
+  static class ParallelApplication extends Application {
+
+    public ParallelApplication() {
+      super();
+    }
+
+    @Override
+    public Set<Class<?>> getClasses() {
+      return new HashSet<>(Arrays.asList(Base.class, Derived.class, Other.class));
+    }
+
+  }
+
+  @Path("base")
+  static class Base {
+
+    public Base() {
+      super();
+    }
+
+    @GET
+    public String get() {
+      return "base";
+    }
+
+  }
+
+  @Path("derived")
+  static class Derived extends Base {
+
+    public Derived() {
+      super();
+    }
+
+    // Inherits @GET.
+    @Override
+    public String get() {
+      return "derived";
+    }
+
+    @POST
+    public String post() {
+      return "derived";
+    }
+
+  }
+
+  @ApplicationScoped
+  @Path("other")
+  static class Other {
+
+    public Other() {
+      super();
+    }
+
+    @GET
+    @Path("one")
+    public String one() {
+      return "one";
+    }
+
+    @GET
+    @Path("two")
+    public String two() {
+      return "two";
+    }
+
+  }
+
+}
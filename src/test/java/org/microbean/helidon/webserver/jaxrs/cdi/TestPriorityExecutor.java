@@ -0,0 +1,145 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright © 2019 microBean.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.microbean.helidon.webserver.jaxrs.cdi;
+
+import java.util.List;
+
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class TestPriorityExecutor {
+
+  private PriorityExecutor executor;
+
+  private CountDownLatch gate;
+
+  public TestPriorityExecutor() {
+    super();
+  }
+
+  @Before
+  public void startExecutor() throws InterruptedException {
+    // One thread, so that the order in which queued tasks run is
+    // deterministic.
+    this.executor = new PriorityExecutor("test", 1, 128, new int[] { 8, 4, 1 }, new int[] { 0, 0, 0 });
+    this.gate = new CountDownLatch(1);
+    final CountDownLatch blocked = new CountDownLatch(1);
+    this.executor.execute(() -> {
+        blocked.countDown();
+        try {
+          this.gate.await();
+        } catch (final InterruptedException interruptedException) {
+          Thread.currentThread().interrupt();
+        }
+      });
+    // Make sure the lone worker is busy before anything else gets
+    // queued.
+    assertTrue(blocked.await(10L, TimeUnit.SECONDS));
+  }
+
+  @After
+  public void stopExecutor() {
+    this.gate.countDown();
+    this.executor.close();
+  }
+
+  @Test
+  public void testHighRunsFirst() throws InterruptedException {
+    final List<DispatchPriority.Level> order = new CopyOnWriteArrayList<>();
+    final CountDownLatch done = new CountDownLatch(11);
+    for (int i = 0; i < 10; i++) {
+      this.executor.execute(DispatchPriority.Level.LOW, () -> { order.add(DispatchPriority.Level.LOW); done.countDown(); });
+    }
+    this.executor.execute(DispatchPriority.Level.HIGH, () -> { order.add(DispatchPriority.Level.HIGH); done.countDown(); });
+    this.gate.countDown();
+    assertTrue(done.await(10L, TimeUnit.SECONDS));
+    assertEquals(DispatchPriority.Level.HIGH, order.get(0));
+  }
+
+  @Test
+  public void testLowIsNotStarved() throws InterruptedException {
+    final List<DispatchPriority.Level> order = new CopyOnWriteArrayList<>();
+    final CountDownLatch done = new CountDownLatch(101);
+    for (int i = 0; i < 100; i++) {
+      this.executor.execute(DispatchPriority.Level.HIGH, () -> { order.add(DispatchPriority.Level.HIGH); done.countDown(); });
+    }
+    this.executor.execute(DispatchPriority.Level.LOW, () -> { order.add(DispatchPriority.Level.LOW); done.countDown(); });
+    this.gate.countDown();
+    assertTrue(done.await(10L, TimeUnit.SECONDS));
+    // HIGH has a weight of 8 and LOW a weight of 1, so LOW must get
+    // its turn within the first round.
+    assertTrue(order.indexOf(DispatchPriority.Level.LOW) <= 8);
+  }
+
+  @Test
+  public void testFullQueueRejects() {
+    for (int i = 0; i < 128; i++) {
+      this.executor.execute(DispatchPriority.Level.LOW, () -> {});
+    }
+    try {
+      this.executor.execute(DispatchPriority.Level.LOW, () -> {});
+      fail();
+    } catch (final RejectedExecutionException expected) {
+
+    }
+    // Other levels have their own queues.
+    this.executor.execute(DispatchPriority.Level.HIGH, () -> {});
+  }
+
+  @Test
+  public void testCloseAnswersQueuedTasks() {
+    final List<RejectedExecutionException> rejections = new CopyOnWriteArrayList<>();
+    final List<String> ran = new CopyOnWriteArrayList<>();
+    this.executor.execute(DispatchPriority.Level.LOW, new PriorityExecutor.Rejectable() {
+        @Override
+        public final void run() {
+          ran.add("rejectable");
+        }
+
+        @Override
+        public final void reject(final RejectedExecutionException rejectedExecutionException) {
+          rejections.add(rejectedExecutionException);
+        }
+      });
+    final FutureTask<Void> future = new FutureTask<>(() -> ran.add("future"), null);
+    this.executor.execute(DispatchPriority.Level.HIGH, future);
+    // The lone worker is still busy, so both are still queued.
+    this.executor.close();
+    assertEquals(1, rejections.size());
+    assertTrue(future.isCancelled());
+    this.gate.countDown();
+    assertTrue(ran.isEmpty());
+    try {
+      this.executor.execute(() -> {});
+      fail();
+    } catch (final RejectedExecutionException expected) {
+
+    }
+  }
+
+}
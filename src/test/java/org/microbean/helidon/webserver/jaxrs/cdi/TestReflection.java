@@ -128,6 +128,29 @@ public class TestReflection {
     }
   }
 
+  @Test
+  public void testFindInheritedMethod() {
+    try (final SeContainer container = SeContainerInitializer.newInstance().disableDiscovery().addBeanClasses(ConcreteFrobnicator.class).initialize()) {
+      final BeanManager beanManager = container.getBeanManager();
+      final AnnotatedType<ConcreteFrobnicator> annotatedConcreteFrobnicatorType = beanManager.createAnnotatedType(ConcreteFrobnicator.class);
+      final AnnotatedMethod<? super ConcreteFrobnicator> caturgiate = annotatedConcreteFrobnicatorType.getMethods()
+        .stream()
+        .filter(am -> am.getJavaMember().getName().equals("caturgiate"))
+        .findAny()
+        .get();
+      assertNull(caturgiate.getAnnotation(Produces.class));
+      // ConcreteFrobnicator -> AbstractFrobnicator -> Frobnicator
+      final AnnotationInheritanceIndex index = new AnnotationInheritanceIndex(beanManager);
+      final Produces produces = ResourceClasses.find(index, caturgiate, m -> m.getAnnotation(Produces.class));
+      assertNotNull(produces);
+      // The index is shared, so asking again must give the same
+      // answer.
+      assertEquals(produces, ResourceClasses.find(index, caturgiate, m -> m.getAnnotation(Produces.class)));
+      // Nothing in the hierarchy is annotated with this.
+      assertNull(ResourceClasses.find(index, caturgiate, m -> m.getAnnotation(DispatchPriority.class)));
+    }
+  }
+
   private static interface Frobnicator {
 
     public void frobnicate();
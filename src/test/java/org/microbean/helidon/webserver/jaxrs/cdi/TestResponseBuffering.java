@@ -0,0 +1,259 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright © 2019 microBean.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.microbean.helidon.webserver.jaxrs.cdi;
+
+import java.io.ByteArrayOutputStream;
+
+import java.lang.reflect.Proxy;
+
+import java.nio.ByteBuffer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.OptionalLong;
+
+import io.helidon.common.http.DataChunk;
+
+import io.helidon.common.reactive.Flow;
+
+import io.helidon.webserver.ResponseHeaders;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class TestResponseBuffering {
+
+  private BufferPool pool;
+
+  private OptionalLong contentLength;
+
+  private ResponseHeaders headers;
+
+  public TestResponseBuffering() {
+    super();
+  }
+
+  @Before
+  public void createHeaders() {
+    this.pool = new BufferPool(16, 4, false);
+    this.contentLength = OptionalLong.empty();
+    this.headers =
+      (ResponseHeaders)Proxy.newProxyInstance(TestResponseBuffering.class.getClassLoader(),
+                                              new Class<?>[] { ResponseHeaders.class },
+                                              (proxy, method, arguments) -> {
+                                                if ("contentLength".equals(method.getName())) {
+                                                  if (arguments == null) {
+                                                    return this.contentLength;
+                                                  }
+                                                  this.contentLength = OptionalLong.of((Long)arguments[0]);
+                                                  return null;
+                                                }
+                                                throw new UnsupportedOperationException(method.getName());
+                                              });
+  }
+
+  @Test
+  public void testSingleSmallChunkIsPassedOnAsIs() {
+    final Chunks chunks = new Chunks("hello");
+    final Collector collector = new Collector(Long.MAX_VALUE);
+    new ResponseBuffering(chunks, this.headers, this.pool).subscribe(collector);
+    assertTrue(collector.completed);
+    assertEquals(1, collector.chunks.size());
+    assertSame(chunks.created.get(0), collector.chunks.get(0));
+    assertEquals(OptionalLong.of(5L), this.contentLength);
+  }
+
+  @Test
+  public void testSmallChunksAreGathered() {
+    final Chunks chunks = new Chunks("hello", ", ", "world");
+    final Collector collector = new Collector(Long.MAX_VALUE);
+    new ResponseBuffering(chunks, this.headers, this.pool).subscribe(collector);
+    assertTrue(collector.completed);
+    assertEquals(1, collector.chunks.size());
+    assertArrayEquals("hello, world".getBytes(), collector.bytes());
+    assertEquals(OptionalLong.of(12L), this.contentLength);
+    assertEquals(3, chunks.released);
+  }
+
+  @Test
+  public void testLargeContentIsStreamed() {
+    final Chunks chunks = new Chunks("0123456789", "abcdefghij", "ABCDEFGHIJ");
+    final Collector collector = new Collector(0L);
+    new ResponseBuffering(chunks, this.headers, this.pool).subscribe(collector);
+    // Nothing has been asked for yet.
+    assertTrue(collector.chunks.isEmpty());
+    collector.subscription.request(1L);
+    assertEquals(1, collector.chunks.size());
+    assertFalse(collector.completed);
+    collector.subscription.request(Long.MAX_VALUE);
+    assertTrue(collector.completed);
+    assertEquals(3, collector.chunks.size());
+    assertArrayEquals("0123456789abcdefghijABCDEFGHIJ".getBytes(), collector.bytes());
+    assertFalse(this.contentLength.isPresent());
+  }
+
+  @Test
+  public void testExistingContentLengthIsLeftAlone() {
+    this.contentLength = OptionalLong.of(42L);
+    final Collector collector = new Collector(Long.MAX_VALUE);
+    new ResponseBuffering(new Chunks("a", "b"), this.headers, this.pool).subscribe(collector);
+    assertTrue(collector.completed);
+    assertEquals(OptionalLong.of(42L), this.contentLength);
+  }
+
+  @Test
+  public void testBuffersAreReused() {
+    final ByteBuffer buffer = this.pool.acquire();
+    assertEquals(16, buffer.capacity());
+    this.pool.release(buffer);
+    assertSame(buffer, this.pool.acquire());
+  }
+
+  // Publishes chunks of the given text, synchronously, as they are
+  // requested.
+  private static final class Chunks implements Flow.Publisher<DataChunk> {
+
+    private final String[] texts;
+
+    private final List<DataChunk> created;
+
+    private int index;
+
+    private int released;
+
+    private Chunks(final String... texts) {
+      super();
+      this.texts = texts;
+      this.created = new ArrayList<>();
+    }
+
+    @Override
+    public final void subscribe(final Flow.Subscriber<? super DataChunk> subscriber) {
+      subscriber.onSubscribe(new Flow.Subscription() {
+          @Override
+          public final void request(final long n) {
+            for (long i = 0L; i < n && index < texts.length; i++) {
+              subscriber.onNext(chunk(texts[index++]));
+            }
+            if (index == texts.length) {
+              index++;
+              subscriber.onComplete();
+            }
+          }
+
+          @Override
+          public final void cancel() {
+            index = texts.length + 1;
+          }
+        });
+    }
+
+    private final DataChunk chunk(final String text) {
+      final DataChunk returnValue = new TestChunk(ByteBuffer.wrap(text.getBytes()), () -> released++);
+      this.created.add(returnValue);
+      return returnValue;
+    }
+
+  }
+
+  private static final class TestChunk implements DataChunk {
+
+    private final ByteBuffer data;
+
+    private final Runnable release;
+
+    private TestChunk(final ByteBuffer data, final Runnable release) {
+      super();
+      this.data = data;
+      this.release = release;
+    }
+
+    @Override
+    public final ByteBuffer data() {
+      return this.data;
+    }
+
+    @Override
+    public final long id() {
+      return 0L;
+    }
+
+    @Override
+    public final void release() {
+      this.release.run();
+    }
+
+  }
+
+  private static final class Collector implements Flow.Subscriber<DataChunk> {
+
+    private final long initialDemand;
+
+    private final List<DataChunk> chunks = new ArrayList<>();
+
+    private Flow.Subscription subscription;
+
+    private boolean completed;
+
+    private Collector(final long initialDemand) {
+      super();
+      this.initialDemand = initialDemand;
+    }
+
+    @Override
+    public final void onSubscribe(final Flow.Subscription subscription) {
+      this.subscription = subscription;
+      if (this.initialDemand > 0L) {
+        subscription.request(this.initialDemand);
+      }
+    }
+
+    @Override
+    public final void onNext(final DataChunk chunk) {
+      this.chunks.add(chunk);
+    }
+
+    @Override
+    public final void onError(final Throwable throwable) {
+      throw new AssertionError(throwable);
+    }
+
+    @Override
+    public final void onComplete() {
+      this.completed = true;
+    }
+
+    private final byte[] bytes() {
+      final ByteArrayOutputStream returnValue = new ByteArrayOutputStream();
+      for (final DataChunk chunk : this.chunks) {
+        final ByteBuffer data = chunk.data().duplicate();
+        final byte[] bytes = new byte[data.remaining()];
+        data.get(bytes);
+        returnValue.write(bytes, 0, bytes.length);
+      }
+      return returnValue.toByteArray();
+    }
+
+  }
+
+}
@@ -0,0 +1,191 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright © 2019 microBean.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.microbean.helidon.webserver.jaxrs.cdi;
+
+import java.io.File;
+import java.io.IOException;
+
+import java.nio.ByteBuffer;
+
+import java.nio.file.Files;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.TreeSet;
+
+import java.util.stream.Stream;
+
+import javax.enterprise.inject.Any;
+
+import javax.enterprise.inject.se.SeContainer;
+import javax.enterprise.inject.se.SeContainerInitializer;
+
+import javax.ws.rs.ApplicationPath;
+import javax.ws.rs.Consumes;
+import javax.ws.rs.GET;
+import javax.ws.rs.POST;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+
+import javax.ws.rs.core.Application;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TestRouteManifest {
+
+  private static final String DIRECTORY = ApplicationConfiguration.PREFIX + "bootstrap.manifest.directory";
+
+  private java.nio.file.Path directory;
+
+  public TestRouteManifest() {
+    super();
+  }
+
+  @Before
+  public void createDirectory() throws IOException {
+    this.directory = Files.createTempDirectory("route-manifest");
+    System.setProperty(DIRECTORY, this.directory.toString());
+  }
+
+  @After
+  public void deleteDirectory() throws IOException {
+    System.clearProperty(DIRECTORY);
+    if (this.directory != null) {
+      try (final Stream<java.nio.file.Path> paths = Files.walk(this.directory)) {
+        paths.sorted(Comparator.reverseOrder()).map(java.nio.file.Path::toFile).forEach(File::delete);
+      }
+    }
+  }
+
+  @Test
+  public void testManifestIsWrittenAndReused() throws IOException {
+    final java.nio.file.Path manifest = this.directory.resolve(ManifestApplication.class.getName() + ".routes");
+
+    // A full scan writes the manifest...
+    final Set<String> scanned = this.describe();
+    assertFalse(scanned.isEmpty());
+    assertTrue(Files.isRegularFile(manifest));
+
+    // ...which the next start reads, ending up in the same place.
+    final long lastModified = Files.getLastModifiedTime(manifest).toMillis();
+    assertEquals(scanned, this.describe());
+    assertEquals(lastModified, Files.getLastModifiedTime(manifest).toMillis());
+
+    // A damaged manifest is ignored and rewritten.
+    Files.write(manifest, new byte[] { 0x4a, 0x41, 0x58 });
+    assertEquals(scanned, this.describe());
+    assertTrue(Files.size(manifest) > 3L);
+
+    // So is one whose lengths are more than it holds, or negative.
+    final byte[] bytes = Files.readAllBytes(manifest);
+    final ByteBuffer buffer = ByteBuffer.wrap(bytes);
+    buffer.putInt(8, Integer.MAX_VALUE); // the digest's length
+    Files.write(manifest, bytes);
+    assertEquals(scanned, this.describe());
+    final byte[] rewritten = Files.readAllBytes(manifest);
+    assertEquals(bytes.length, rewritten.length);
+    ByteBuffer.wrap(rewritten).putInt(8, -1);
+    Files.write(manifest, rewritten);
+    assertEquals(scanned, this.describe());
+    assertEquals(bytes.length, Files.size(manifest));
+  }
+
+  // Boots a container and describes every resource method it ended
+  // up with.
+  private final Set<String> describe() {
+    final Set<String> returnValue = new TreeSet<>();
+    try (final SeContainer cdiContainer = SeContainerInitializer.newInstance()
+           .disableDiscovery()
+           .addBeanClasses(ManifestApplication.class,
+                           Things.class,
+                           MoreThings.class)
+           .initialize()) {
+      for (final ResourceMethodDescriptor<?> descriptor : cdiContainer.select(ResourceMethodDescriptor.class, Any.Literal.INSTANCE)) {
+        returnValue.add(descriptor.toString() + " " + descriptor.getPriority() + " " + descriptor.getTimeoutNanos() + " " + descriptor.getMaxEntitySize());
+      }
+    }
+    return returnValue;
+  }
+
+
+  /*
+   * Example user code exercised by test.
+   */
+
+
+  @ApplicationPath("manifest")
+  static class ManifestApplication extends Application {
+
+    public ManifestApplication() {
+      super();
+    }
+
+    @Override
+    public Set<Class<?>> getClasses() {
+      return new HashSet<>(Arrays.asList(Things.class, MoreThings.class));
+    }
+
+  }
+
+  @Path("things")
+  @DispatchPriority(DispatchPriority.Level.LOW)
+  static class Things {
+
+    public Things() {
+      super();
+    }
+
+    @GET
+    @Produces("text/plain")
+    public String get() {
+      return "things";
+    }
+
+    @POST
+    @Consumes("application/json")
+    @DispatchTimeout(250)
+    @MaxEntitySize(1024)
+    public void post(final String body) {
+
+    }
+
+  }
+
+  @Path("more")
+  static class MoreThings extends Things {
+
+    public MoreThings() {
+      super();
+    }
+
+    @GET
+    @Path("{id}")
+    public String get(final int id) {
+      return "thing";
+    }
+
+  }
+
+}
@@ -0,0 +1,185 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright © 2019 microBean.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.microbean.helidon.webserver.jaxrs.cdi;
+
+import java.nio.ByteBuffer;
+
+import java.nio.charset.StandardCharsets;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.ws.rs.sse.OutboundSseEvent;
+import javax.ws.rs.sse.SseBroadcaster;
+import javax.ws.rs.sse.SseEventSink;
+
+import io.helidon.common.http.DataChunk;
+
+import io.helidon.common.reactive.Flow;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class TestSse {
+
+  public TestSse() {
+    super();
+  }
+
+  @Test
+  public void testEncoding() {
+    final OutboundSseEvent event = new HelidonOutboundSseEvent.Builder()
+      .name("update")
+      .id("42")
+      .reconnectDelay(1000L)
+      .comment("hi")
+      .data("line one\nline two")
+      .build();
+    assertEquals(": hi\nevent: update\nid: 42\nretry: 1000\ndata: line one\ndata: line two\n\n",
+                 StandardCharsets.UTF_8.decode(HelidonOutboundSseEvent.encode(event)).toString());
+  }
+
+  @Test
+  public void testBroadcastSharesOneEncoding() {
+    final SseBroadcaster broadcaster = new HelidonSseBroadcaster();
+    final Client[] clients = new Client[3];
+    for (int i = 0; i < clients.length; i++) {
+      clients[i] = new Client(Long.MAX_VALUE);
+      broadcaster.register(clients[i].sink(8, HelidonSseEventSink.OverflowPolicy.DROP_OLDEST));
+    }
+    final HelidonOutboundSseEvent event = new HelidonOutboundSseEvent.Builder().data("hello").build();
+    broadcaster.broadcast(event);
+    for (final Client client : clients) {
+      assertNotNull(client.content);
+      assertEquals("data: hello\n\n", client.text());
+    }
+    // Encoded once, and kept.
+    assertSame(event.encode(), event.encode());
+  }
+
+  @Test
+  public void testSlowClientMissesOldestEvents() {
+    final Client client = new Client(0L);
+    final HelidonSseEventSink sink = client.sink(2, HelidonSseEventSink.OverflowPolicy.DROP_OLDEST);
+    for (int i = 0; i < 5; i++) {
+      sink.send(new HelidonOutboundSseEvent.Builder().data(Integer.toString(i)).build());
+    }
+    assertEquals(3L, sink.getDroppedCount());
+    client.subscription.request(Long.MAX_VALUE);
+    assertEquals("data: 3\n\ndata: 4\n\n", client.text());
+  }
+
+  @Test
+  public void testSlowClientIsDroppedFromBroadcaster() {
+    final SseBroadcaster broadcaster = new HelidonSseBroadcaster();
+    final List<SseEventSink> closed = new ArrayList<>();
+    broadcaster.onClose(closed::add);
+    final Client slow = new Client(0L);
+    final HelidonSseEventSink slowSink = slow.sink(1, HelidonSseEventSink.OverflowPolicy.CLOSE);
+    final Client fast = new Client(Long.MAX_VALUE);
+    final HelidonSseEventSink fastSink = fast.sink(1, HelidonSseEventSink.OverflowPolicy.CLOSE);
+    broadcaster.register(slowSink);
+    broadcaster.register(fastSink);
+    broadcaster.broadcast(new HelidonOutboundSseEvent.Builder().data("1").build());
+    broadcaster.broadcast(new HelidonOutboundSseEvent.Builder().data("2").build());
+    assertTrue(slowSink.isClosed());
+    assertFalse(fastSink.isClosed());
+    assertEquals(1, closed.size());
+    assertSame(slowSink, closed.get(0));
+    assertEquals("data: 1\n\ndata: 2\n\n", fast.text());
+    // What was queued before the slow client was given up on is
+    // still written, and then the stream ends.
+    slow.subscription.request(Long.MAX_VALUE);
+    assertEquals("data: 1\n\n", slow.text());
+    assertTrue(slow.completed);
+  }
+
+  @Test
+  public void testClientGoingAwayClosesSink() {
+    final Client client = new Client(Long.MAX_VALUE);
+    final HelidonSseEventSink sink = client.sink(4, HelidonSseEventSink.OverflowPolicy.DROP_NEWEST);
+    sink.open();
+    client.subscription.cancel();
+    assertTrue(sink.isClosed());
+    assertTrue(sink.send(new HelidonOutboundSseEvent.Builder().data("late").build()).toCompletableFuture().isCompletedExceptionally());
+  }
+
+  // Stands in for Helidon: subscribes to whatever the sink sends as
+  // its response, and collects what would be written.
+  private static final class Client implements Flow.Subscriber<DataChunk> {
+
+    private final long initialDemand;
+
+    private final StringBuilder received = new StringBuilder();
+
+    private Flow.Publisher<DataChunk> content;
+
+    private Flow.Subscription subscription;
+
+    private boolean completed;
+
+    private Client(final long initialDemand) {
+      super();
+      this.initialDemand = initialDemand;
+    }
+
+    private final HelidonSseEventSink sink(final int capacity, final HelidonSseEventSink.OverflowPolicy overflowPolicy) {
+      final FakeExchange exchange = new FakeExchange().streamTo(sent -> {
+          @SuppressWarnings("unchecked")
+          final Flow.Publisher<DataChunk> content = (Flow.Publisher<DataChunk>)sent;
+          this.content = content;
+          content.subscribe(this);
+        });
+      return new HelidonSseEventSink(exchange.response, capacity, overflowPolicy);
+    }
+
+    @Override
+    public final void onSubscribe(final Flow.Subscription subscription) {
+      this.subscription = subscription;
+      if (this.initialDemand > 0L) {
+        subscription.request(this.initialDemand);
+      }
+    }
+
+    @Override
+    public final void onNext(final DataChunk chunk) {
+      final ByteBuffer data = chunk.data();
+      this.received.append(StandardCharsets.UTF_8.decode(data));
+    }
+
+    @Override
+    public final void onError(final Throwable throwable) {
+      throw new AssertionError(throwable);
+    }
+
+    @Override
+    public final void onComplete() {
+      this.completed = true;
+    }
+
+    private final String text() {
+      return this.received.toString();
+    }
+
+  }
+
+}
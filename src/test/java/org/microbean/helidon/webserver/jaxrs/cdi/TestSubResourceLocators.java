@@ -0,0 +1,173 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright © 2019 microBean.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.microbean.helidon.webserver.jaxrs.cdi;
+
+import java.util.Collections;
+import java.util.Set;
+
+import javax.enterprise.inject.se.SeContainer;
+import javax.enterprise.inject.se.SeContainerInitializer;
+
+import javax.enterprise.inject.spi.BeanManager;
+
+import javax.ws.rs.Consumes;
+import javax.ws.rs.DELETE;
+import javax.ws.rs.GET;
+import javax.ws.rs.POST;
+import javax.ws.rs.Path;
+
+import io.helidon.common.http.MediaType;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class TestSubResourceLocators {
+
+  public TestSubResourceLocators() {
+    super();
+  }
+
+  @Test
+  public void testLocatorDescriptor() throws ReflectiveOperationException {
+    try (final SeContainer container = SeContainerInitializer.newInstance().disableDiscovery().addBeanClasses(Items.class).initialize()) {
+      final BeanManager beanManager = container.getBeanManager();
+      final Set<ResourceMethodDescriptor<Items>> descriptors =
+        ResourceClasses.getResourceMethodDescriptors(beanManager, "/app", beanManager.createAnnotatedType(Items.class), Collections.emptySet());
+      assertEquals(2, descriptors.size());
+      ResourceMethodDescriptor<Items> locator = null;
+      for (final ResourceMethodDescriptor<Items> descriptor : descriptors) {
+        if (descriptor.isSubResourceLocator()) {
+          assertNull(locator);
+          locator = descriptor;
+        }
+      }
+      assertNotNull(locator);
+      assertEquals("item", locator.getResourceMethod().getJavaMember().getName());
+      assertNull(locator.getHttpMethod());
+      assertEquals("/app/items/{id}", locator.getPath());
+      assertTrue(PathTemplate.of(locator.getPath()).matchPrefix("/app/items/7/parts/3") > 0);
+    }
+  }
+
+  @Test
+  public void testSubResourceModelIsComputedOnce() {
+    assertSame(SubResourceModel.of(Item.class), SubResourceModel.of(Item.class));
+    assertEquals(4, SubResourceModel.of(Item.class).getMethods().size());
+  }
+
+  @Test
+  public void testSelection() {
+    final SubResourceModel model = SubResourceModel.of(Item.class);
+    assertEquals("get", model.select("/", "GET", null).getMethod().getName());
+    assertEquals("name", model.select("/name", "GET", null).getMethod().getName());
+    assertEquals("name", model.select("/name/", "GET", null).getMethod().getName());
+    assertNull(model.select("/", "DELETE", null));
+    assertNull(model.select("/nothing", "GET", null));
+
+    final SubResourceModel.SubResourceMethod rename = model.select("/name", "POST", MediaType.TEXT_PLAIN);
+    assertNotNull(rename);
+    assertEquals("rename", rename.getMethod().getName());
+    assertNull(model.select("/name", "POST", MediaType.APPLICATION_JSON));
+
+    final SubResourceModel.SubResourceMethod parts = model.select("/parts/3", "GET", null);
+    assertTrue(parts.isSubResourceLocator());
+    assertEquals("/parts".length(), parts.getTemplate().matchPrefix("/parts/3"));
+    assertFalse(SubResourceModel.of(Part.class).select("/3", "DELETE", null).isSubResourceLocator());
+  }
+
+
+  /*
+   * Example user code exercised by test.
+   */
+
+
+  @Path("items")
+  static class Items {
+
+    public Items() {
+      super();
+    }
+
+    @GET
+    public String list() {
+      return "items";
+    }
+
+    @Path("{id}")
+    public Item item() {
+      return new Item();
+    }
+
+  }
+
+  // Not a bean.
+  private static final class Item {
+
+    private Item() {
+      super();
+    }
+
+    @GET
+    public String get() {
+      return "item";
+    }
+
+    @GET
+    @Path("name")
+    public String name() {
+      return "name";
+    }
+
+    @POST
+    @Path("name")
+    @Consumes("text/plain")
+    public void rename(final String name) {
+
+    }
+
+    @Path("parts")
+    public Part parts() {
+      return new Part();
+    }
+
+    public String notAResourceMethod() {
+      return null;
+    }
+
+  }
+
+  private static final class Part {
+
+    private Part() {
+      super();
+    }
+
+    @DELETE
+    @Path("{partId}")
+    public void delete() {
+
+    }
+
+  }
+
+}
@@ -0,0 +1,223 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright © 2019 microBean.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.microbean.helidon.webserver.jaxrs.cdi;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.context.RequestScoped;
+
+import javax.enterprise.inject.Any;
+
+import javax.enterprise.inject.se.SeContainer;
+import javax.enterprise.inject.se.SeContainerInitializer;
+
+import javax.enterprise.inject.spi.BeanManager;
+
+import javax.inject.Qualifier;
+
+import javax.ws.rs.ApplicationPath;
+import javax.ws.rs.GET;
+import javax.ws.rs.POST;
+import javax.ws.rs.Path;
+
+import javax.ws.rs.core.Application;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TestWarmUp {
+
+  private static final int ITERATIONS = 100;
+
+  private SeContainer cdiContainer;
+
+  private Dispatcher dispatcher;
+
+  public TestWarmUp() {
+    super();
+  }
+
+  @Before
+  public void startCdiContainer() {
+    RequestScopedBean.instances.set(0);
+    this.cdiContainer = SeContainerInitializer.newInstance()
+      .disableDiscovery()
+      .addBeanClasses(WarmUpApplication.class, WarmUpResource.class, RequestScopedBean.class)
+      .initialize();
+    final Map<String, Object> properties = new HashMap<>();
+    // Lazily, so that a handler for the broken route can be created.
+    properties.put(ApplicationConfiguration.PREFIX + "routing.lazy", Boolean.TRUE);
+    this.dispatcher = new Dispatcher("warmup", new ApplicationConfiguration(properties));
+  }
+
+  @After
+  public void shutDownCdiContainer() {
+    if (this.dispatcher != null) {
+      this.dispatcher.close();
+    }
+    if (this.cdiContainer != null) {
+      this.cdiContainer.close();
+    }
+  }
+
+  @Test
+  public void testWarmUp() throws ReflectiveOperationException {
+    final BeanManager beanManager = this.cdiContainer.getBeanManager();
+    final WarmUpResource resource = this.cdiContainer.select(WarmUpResource.class, Any.Literal.INSTANCE).get();
+
+    // Safe methods are invoked, each time in a request context of
+    // their own.
+    assertTrue(new ResourceMethodHandler<>(beanManager, this.getDescriptor("get"), this.dispatcher).warmUp(ITERATIONS));
+    assertEquals(ITERATIONS, resource.getGets());
+    assertEquals(ITERATIONS, RequestScopedBean.instances.get());
+
+    // Others are not.
+    assertTrue(new ResourceMethodHandler<>(beanManager, this.getDescriptor("post"), this.dispatcher).warmUp(ITERATIONS));
+    assertEquals(0, resource.getPosts());
+
+    // Failures are reported, not thrown.
+    assertFalse(new ResourceMethodHandler<>(beanManager, this.getDescriptor("broken"), this.dispatcher).warmUp(ITERATIONS));
+  }
+
+  private final ResourceMethodDescriptor<?> getDescriptor(final String methodName) {
+    for (final ResourceMethodDescriptor<?> descriptor : this.cdiContainer.select(ResourceMethodDescriptor.class, Any.Literal.INSTANCE)) {
+      if (descriptor.getResourceMethod().getJavaMember().getName().equals(methodName)) {
+        return descriptor;
+      }
+    }
+    throw new AssertionError(methodName);
+  }
+
+
+  /*
+   * Example user code exercised by test.
+   */
+
+
+  @Documented
+  @Qualifier
+  @Retention(RetentionPolicy.RUNTIME)
+  @Target({ ElementType.FIELD, ElementType.METHOD, ElementType.PARAMETER, ElementType.TYPE })
+  private static @interface Warm {
+
+  }
+
+  @Documented
+  @Qualifier
+  @Retention(RetentionPolicy.RUNTIME)
+  @Target({ ElementType.FIELD, ElementType.METHOD, ElementType.PARAMETER, ElementType.TYPE })
+  private static @interface Missing {
+
+  }
+
+  @ApplicationPath("warmup")
+  static class WarmUpApplication extends Application {
+
+    public WarmUpApplication() {
+      super();
+    }
+
+    @Override
+    public Set<Class<?>> getClasses() {
+      return new HashSet<>(Arrays.asList(WarmUpResource.class));
+    }
+
+  }
+
+  @ApplicationScoped
+  @Path("resource")
+  static class WarmUpResource {
+
+    private final AtomicInteger gets = new AtomicInteger();
+
+    private final AtomicInteger posts = new AtomicInteger();
+
+    public WarmUpResource() {
+      super();
+    }
+
+    int getGets() {
+      return this.gets.get();
+    }
+
+    int getPosts() {
+      return this.posts.get();
+    }
+
+    @GET
+    @Path("get")
+    public String get(@Warm final RequestScopedBean bean) {
+      bean.touch();
+      this.gets.incrementAndGet();
+      return "get";
+    }
+
+    @POST
+    @Path("post")
+    public String post(@Warm final RequestScopedBean bean) {
+      this.posts.incrementAndGet();
+      return "post";
+    }
+
+    @GET
+    @Path("broken")
+    public String broken(@Missing final String nothing) {
+      return "broken";
+    }
+
+  }
+
+  @RequestScoped
+  @Warm
+  static class RequestScopedBean {
+
+    static final AtomicInteger instances = new AtomicInteger();
+
+    private boolean touched;
+
+    public RequestScopedBean() {
+      super();
+    }
+
+    void touch() {
+      if (!this.touched) {
+        this.touched = true;
+        instances.incrementAndGet();
+      }
+    }
+
+  }
+
+}
@@ -0,0 +1,152 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright © 2019 microBean.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.microbean.helidon.webserver.jaxrs.cdi.processor;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+
+import java.net.URL;
+import java.net.URLClassLoader;
+
+import java.nio.charset.StandardCharsets;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+
+import java.util.concurrent.TimeUnit;
+
+import java.util.stream.Stream;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import org.microbean.helidon.webserver.jaxrs.cdi.DispatchPriority;
+import org.microbean.helidon.webserver.jaxrs.cdi.GeneratedResourceClass;
+import org.microbean.helidon.webserver.jaxrs.cdi.GeneratedResourceMethod;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assume.assumeNotNull;
+
+public class TestResourceModelProcessor {
+
+  private static final String SOURCE =
+    "package example;\n" +
+    "@javax.ws.rs.Path(\"/greetings/\")\n" +
+    "@org.microbean.helidon.webserver.jaxrs.cdi.DispatchPriority(org.microbean.helidon.webserver.jaxrs.cdi.DispatchPriority.Level.HIGH)\n" +
+    "public class Greetings {\n" +
+    "  public static String last;\n" +
+    "  @javax.ws.rs.GET @javax.ws.rs.Path(\"{name}\") @javax.ws.rs.Produces({ \"text/plain\", \"application/json\" })\n" +
+    "  public String greet(final String name, final int times) { return \"hello \" + name + \" x\" + times; }\n" +
+    "  @javax.ws.rs.POST @org.microbean.helidon.webserver.jaxrs.cdi.DispatchTimeout(3) @org.microbean.helidon.webserver.jaxrs.cdi.MaxEntitySize(1024)\n" +
+    "  public void remember(final String name) { last = name; }\n" +
+    "  @javax.ws.rs.Path(\"sub\")\n" +
+    "  public Object locate() { return this; }\n" +
+    "  public String notAResourceMethod() { return null; }\n" +
+    "}\n";
+
+  private Path directory;
+
+  private URLClassLoader classLoader;
+
+  public TestResourceModelProcessor() {
+    super();
+  }
+
+  @Before
+  public void compile() throws IOException {
+    final JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+    assumeNotNull(compiler);
+    this.directory = Files.createTempDirectory("resource-model-processor");
+    final Path packageDirectory = Files.createDirectories(this.directory.resolve("example"));
+    final Path sourceFile = packageDirectory.resolve("Greetings.java");
+    try (final Writer writer = Files.newBufferedWriter(sourceFile, StandardCharsets.UTF_8)) {
+      writer.write(SOURCE);
+    }
+    final int result = compiler.run(null, null, null,
+                                    "-classpath", System.getProperty("java.class.path"),
+                                    "-processor", ResourceModelProcessor.class.getName(),
+                                    "-d", this.directory.toString(),
+                                    "-s", this.directory.toString(),
+                                    sourceFile.toString());
+    assertEquals(0, result);
+    this.classLoader = new URLClassLoader(new URL[] { this.directory.toUri().toURL() }, this.getClass().getClassLoader());
+  }
+
+  @After
+  public void delete() throws IOException {
+    if (this.classLoader != null) {
+      this.classLoader.close();
+    }
+    if (this.directory != null) {
+      try (final Stream<Path> paths = Files.walk(this.directory)) {
+        paths.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+      }
+    }
+  }
+
+  @Test
+  public void testGeneratedResourceModel() throws Exception {
+    final Class<?> resourceClass = this.classLoader.loadClass("example.Greetings");
+    final GeneratedResourceClass generated =
+      (GeneratedResourceClass)this.classLoader.loadClass("example.Greetings_ResourceModel").getDeclaredConstructor().newInstance();
+    assertEquals("greetings/", generated.getPath());
+    final Map<String, GeneratedResourceMethod> methods = new HashMap<>();
+    for (final GeneratedResourceMethod method : generated.getResourceMethods()) {
+      methods.put(method.getName(), method);
+    }
+    assertEquals(3, methods.size());
+    final Object resource = resourceClass.getDeclaredConstructor().newInstance();
+
+    final GeneratedResourceMethod greet = methods.get("greet");
+    assertArrayEquals(new Class<?>[] { String.class, int.class }, greet.getParameterTypes());
+    assertEquals("{name}", greet.getPath());
+    assertEquals("GET", greet.getHttpMethod());
+    assertEquals(0, greet.getConsumedMediaTypes().length);
+    assertEquals(Arrays.asList("text/plain", "application/json"), Arrays.asList(greet.getProducedMediaTypes()));
+    assertEquals(DispatchPriority.Level.HIGH, greet.getPriority());
+    assertEquals(-1L, greet.getTimeoutNanos());
+    assertEquals(-1L, greet.getMaxEntitySize());
+    assertEquals("hello world x2", greet.getInvoker().invoke(resource, new Object[] { "world", Integer.valueOf(2) }));
+
+    final GeneratedResourceMethod remember = methods.get("remember");
+    assertNull(remember.getPath());
+    assertEquals("POST", remember.getHttpMethod());
+    assertEquals(TimeUnit.MILLISECONDS.toNanos(3L), remember.getTimeoutNanos());
+    assertEquals(1024L, remember.getMaxEntitySize());
+    assertNull(remember.getInvoker().invoke(resource, new Object[] { "someone" }));
+    assertEquals("someone", resourceClass.getField("last").get(null));
+
+    final GeneratedResourceMethod locate = methods.get("locate");
+    assertEquals("sub", locate.getPath());
+    assertNull(locate.getHttpMethod());
+    assertSame(resource, locate.getInvoker().invoke(resource, new Object[0]));
+  }
+
+}